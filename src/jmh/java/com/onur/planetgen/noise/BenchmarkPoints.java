@@ -0,0 +1,51 @@
+package com.onur.planetgen.noise;
+
+import com.onur.planetgen.planet.SphericalSampler;
+
+import java.util.Random;
+
+/**
+ * Unit-sphere sample points shared by the noise benchmarks: rows of a 4096x2048
+ * equirectangular map, as the generators issue them, and uniformly scattered points.
+ */
+final class BenchmarkPoints {
+    /** Samples per benchmark invocation; results are reported per sample. */
+    static final int ROW = 4096;
+    static final int ROWS = 64;
+
+    final double[][] xs = new double[ROWS][ROW], ys = new double[ROWS][ROW], zs = new double[ROWS][ROW];
+
+    private BenchmarkPoints() {}
+
+    /** {@link #ROWS} rows spread over all latitudes, scaled to {@code frequency}. */
+    static BenchmarkPoints scanlines(double frequency) {
+        SphericalSampler sampler = new SphericalSampler(ROW, ROW / 2);
+        BenchmarkPoints pts = new BenchmarkPoints();
+        for (int r = 0; r < ROWS; r++) {
+            double lat = sampler.lat(r * (ROW / 2) / ROWS);
+            for (int i = 0; i < ROW; i++) {
+                double lon = sampler.lon(i);
+                pts.xs[r][i] = Math.cos(lat) * Math.cos(lon) * frequency;
+                pts.ys[r][i] = Math.sin(lat) * frequency;
+                pts.zs[r][i] = Math.cos(lat) * Math.sin(lon) * frequency;
+            }
+        }
+        return pts;
+    }
+
+    /** Uniformly random points on the sphere of radius {@code frequency}. */
+    static BenchmarkPoints scattered(double frequency) {
+        Random rng = new Random(1234L);
+        BenchmarkPoints pts = new BenchmarkPoints();
+        for (int r = 0; r < ROWS; r++) {
+            for (int i = 0; i < ROW; i++) {
+                double u = rng.nextGaussian(), v = rng.nextGaussian(), w = rng.nextGaussian();
+                double k = frequency / Math.sqrt(u * u + v * v + w * w);
+                pts.xs[r][i] = u * k;
+                pts.ys[r][i] = v * k;
+                pts.zs[r][i] = w * k;
+            }
+        }
+        return pts;
+    }
+}
@@ -0,0 +1,138 @@
+package com.onur.planetgen.noise;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.onur.planetgen.noise.BenchmarkPoints.ROW;
+import static com.onur.planetgen.noise.BenchmarkPoints.ROWS;
+
+/**
+ * Cost per output pixel of the fractal layers the terrain generator builds, on rows of a
+ * 4096x2048 map with the default preset's scales and octave counts.
+ *
+ * {@code continent} is the 2-octave fBm over the domain warp, {@code ridged} the 4-octave
+ * mountains, {@code detail} the 3-octave fBm, and {@code combined} evaluates mountains and
+ * detail together with shared octaves. {@code masked} is the combined pass as the generator
+ * runs it: land-only mountain weights, the largest detail weight, and the default
+ * {@link #TOLERANCE}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FractalNoiseBenchmark {
+    private static final double CONTINENT_SCALE = 2.2;
+    private static final double TOLERANCE = 1.0 / 65536;
+
+    @Param({"perlin", "opensimplex2"})
+    public String type;
+
+    private FractalNoise continent, ridged, detail;
+    private FractalNoise.Combined combined;
+    private BenchmarkPoints scanlines;
+    private double[][] ridgedWeights;
+    private double[] detailWeight;
+    private final double[] out = new double[ROW], second = new double[ROW];
+    private int row;
+
+    @Setup
+    public void setUp() {
+        NoiseType noiseType = NoiseType.fromName(type);
+        GradientNoise base = noiseType.create(42L);
+        DomainWarpNoise warp = new DomainWarpNoise(base, noiseType.create(43L), noiseType.create(44L),
+                noiseType.create(45L), 0.08);
+        continent = new FractalNoise(warp, CONTINENT_SCALE, 2, 2.0, 0.5);
+        ridged = new FractalNoise(base, CONTINENT_SCALE * 1.5, 4, 2.0, 0.6);
+        detail = new FractalNoise(base, CONTINENT_SCALE * 3.0, 3, 2.0, 0.5);
+        combined = FractalNoise.combine(detail, ridged);
+        scanlines = BenchmarkPoints.scanlines(1.0);
+
+        // Mountain weight follows the generator: zero over ocean, scaled by continent height
+        ridgedWeights = new double[ROWS][ROW];
+        double[] c = new double[ROW];
+        for (int r = 0; r < ROWS; r++) {
+            continent.fbm(scanlines.xs[r], scanlines.ys[r], scanlines.zs[r], c, ROW);
+            for (int i = 0; i < ROW; i++) {
+                ridgedWeights[r][i] = 0.3 * Math.max(0.0, c[i]);
+            }
+        }
+        detailWeight = new double[ROW];
+        Arrays.fill(detailWeight, 0.015);
+    }
+
+    private int nextRow() {
+        row = (row + 1) % ROWS;
+        return row;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public void continent(Blackhole bh) {
+        int r = nextRow();
+        continent.fbm(scanlines.xs[r], scanlines.ys[r], scanlines.zs[r], out, ROW);
+        bh.consume(out);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public void ridged(Blackhole bh) {
+        int r = nextRow();
+        ridged.ridged(scanlines.xs[r], scanlines.ys[r], scanlines.zs[r], out, ROW);
+        bh.consume(out);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public void detail(Blackhole bh) {
+        int r = nextRow();
+        detail.fbm(scanlines.xs[r], scanlines.ys[r], scanlines.zs[r], out, ROW);
+        bh.consume(out);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public void combined(Blackhole bh) {
+        int r = nextRow();
+        combined.evaluate(scanlines.xs[r], scanlines.ys[r], scanlines.zs[r], out, second, ROW);
+        bh.consume(out);
+        bh.consume(second);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public void masked(Blackhole bh) {
+        int r = nextRow();
+        combined.evaluate(scanlines.xs[r], scanlines.ys[r], scanlines.zs[r], detailWeight, ridgedWeights[r],
+                TOLERANCE, out, second, ROW);
+        bh.consume(out);
+        bh.consume(second);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public double ridgedPoint() {
+        int r = nextRow();
+        double[] xs = scanlines.xs[r], ys = scanlines.ys[r], zs = scanlines.zs[r];
+        double sum = 0.0;
+        for (int i = 0; i < ROW; i++) {
+            sum += ridged.ridged(xs[i], ys[i], zs[i]);
+        }
+        return sum;
+    }
+}
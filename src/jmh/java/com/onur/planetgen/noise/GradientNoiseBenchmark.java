@@ -0,0 +1,118 @@
+package com.onur.planetgen.noise;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.onur.planetgen.noise.BenchmarkPoints.ROW;
+import static com.onur.planetgen.noise.BenchmarkPoints.ROWS;
+
+/**
+ * Single-octave cost of the lattice noises and the domain warp, per sample.
+ *
+ * {@code scale} 2.2 is the continent frequency and 13.2 the finest detail octave at the
+ * default preset. {@code point*} calls the scalar method once per sample on scattered
+ * points; {@code scanline*} passes a whole map row to the batch method.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GradientNoiseBenchmark {
+    @Param({"perlin", "opensimplex2"})
+    public String type;
+
+    @Param({"2.2", "13.2"})
+    public double scale;
+
+    private GradientNoise noise;
+    private DomainWarpNoise warp;
+    private BenchmarkPoints scanlines, scattered;
+    private final double[] out = new double[ROW], dx = new double[ROW], dy = new double[ROW], dz = new double[ROW];
+    private int row;
+
+    @Setup
+    public void setUp() {
+        NoiseType noiseType = NoiseType.fromName(type);
+        noise = noiseType.create(42L);
+        warp = new DomainWarpNoise(noise, noiseType.create(43L), noiseType.create(44L), noiseType.create(45L), 0.08);
+        scanlines = BenchmarkPoints.scanlines(scale);
+        scattered = BenchmarkPoints.scattered(scale);
+    }
+
+    private int nextRow() {
+        row = (row + 1) % ROWS;
+        return row;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public double point() {
+        int r = nextRow();
+        double[] xs = scattered.xs[r], ys = scattered.ys[r], zs = scattered.zs[r];
+        double sum = 0.0;
+        for (int i = 0; i < ROW; i++) {
+            sum += noise.noise3(xs[i], ys[i], zs[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public void scanline(Blackhole bh) {
+        int r = nextRow();
+        noise.noise3(scanlines.xs[r], scanlines.ys[r], scanlines.zs[r], out, ROW);
+        bh.consume(out);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public void scatteredBatch(Blackhole bh) {
+        int r = nextRow();
+        noise.noise3(scattered.xs[r], scattered.ys[r], scattered.zs[r], out, ROW);
+        bh.consume(out);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public void scanlineWithGradient(Blackhole bh) {
+        int r = nextRow();
+        noise.noise3WithGradient(scanlines.xs[r], scanlines.ys[r], scanlines.zs[r], out, dx, dy, dz, ROW);
+        bh.consume(out);
+        bh.consume(dx);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public double warpPoint() {
+        int r = nextRow();
+        double[] xs = scattered.xs[r], ys = scattered.ys[r], zs = scattered.zs[r];
+        double sum = 0.0;
+        for (int i = 0; i < ROW; i++) {
+            sum += warp.noise3(xs[i], ys[i], zs[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW)
+    public void warpScanline(Blackhole bh) {
+        int r = nextRow();
+        warp.noise3(scanlines.xs[r], scanlines.ys[r], scanlines.zs[r], out, ROW);
+        bh.consume(out);
+    }
+}
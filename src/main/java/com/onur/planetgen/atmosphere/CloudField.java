@@ -1,11 +1,13 @@
 package com.onur.planetgen.atmosphere;
 
+import com.onur.planetgen.field.FloatGrid;
 import com.onur.planetgen.planet.SphericalSampler;
 import com.onur.planetgen.noise.OpenSimplex2;
 import com.onur.planetgen.noise.DomainWarpNoise;
+import com.onur.planetgen.noise.FractalNoise;
 
 public final class CloudField {
-    public final float[][] alpha; // 0..1
+    public final FloatGrid alpha; // 0..1
 
     private static final double CLOUD_COVERAGE = 0.55;  // Average cloud coverage
     private static final double CLOUD_WARP_AMOUNT = 0.25; // Domain warp strength
@@ -13,7 +15,7 @@ public final class CloudField {
     private static final double CLOUD_THRESHOLD = 0.3;   // Cloud formation threshold
 
     private CloudField(int W, int H) {
-        alpha = new float[H][W];
+        alpha = new FloatGrid(W, H);
     }
 
     /**
@@ -29,6 +31,8 @@ public final class CloudField {
         OpenSimplex2 warpY = new OpenSimplex2(seed + 11);
         OpenSimplex2 warpZ = new OpenSimplex2(seed + 12);
         DomainWarpNoise coverage = new DomainWarpNoise(base, warpX, warpY, warpZ, CLOUD_WARP_AMOUNT);
+        FractalNoise coverageFbm = new FractalNoise(coverage, 1.5, 2, 2.0, 0.5);
+        FractalNoise detailRidged = new FractalNoise(base, 4.0, 4, 2.0, 0.6);
 
         int W = sp.W, H = sp.H;
 
@@ -44,11 +48,11 @@ public final class CloudField {
                 double nz = cLat * Math.sin(lon);
 
                 // 1. Low-frequency coverage control (determines where clouds exist)
-                double coverageNoise = fbmLowFreq(coverage, nx, ny, nz, 1.5, 2, 2.0, 0.5);
+                double coverageNoise = coverageFbm.fbm(nx, ny, nz);
                 coverageNoise = (coverageNoise + 1.0) * 0.5; // Normalize to [0, 1]
 
                 // 2. High-frequency detail (ridged for billowing structure)
-                double detailNoise = ridgedFbm(base, nx, ny, nz, 4.0, 4, 2.0, 0.6);
+                double detailNoise = detailRidged.ridged(nx, ny, nz);
                 detailNoise = (detailNoise + 1.0) * 0.5; // Normalize
 
                 // 3. Combine: coverage controls presence, detail controls shape
@@ -64,34 +68,10 @@ public final class CloudField {
                 opacity = opacity * CLOUD_COVERAGE;
 
                 // Clamp to [0, 1]
-                c.alpha[y][x] = (float) Math.max(0.0, Math.min(1.0, opacity));
+                c.alpha.set(x, y, (float) Math.max(0.0, Math.min(1.0, opacity)));
             }
         }
 
         return c;
     }
-
-    private static double fbmLowFreq(DomainWarpNoise noise, double x, double y, double z,
-                                      double scale, int octaves, double lacunarity, double gain) {
-        double amp = 1.0, freq = 1.0, sum = 0.0;
-        for (int i = 0; i < octaves; i++) {
-            sum += amp * noise.noise3(x * scale * freq, y * scale * freq, z * scale * freq);
-            amp *= gain;
-            freq *= lacunarity;
-        }
-        return sum / (1.0 - gain);
-    }
-
-    private static double ridgedFbm(OpenSimplex2 noise, double x, double y, double z,
-                                     double scale, int octaves, double lacunarity, double gain) {
-        double amp = 1.0, freq = 1.0, sum = 0.0;
-        for (int i = 0; i < octaves; i++) {
-            double n = noise.noise3(x * scale * freq, y * scale * freq, z * scale * freq);
-            double ridge = 1.0 - Math.abs(n); // Creates sharp ridges
-            sum += amp * ridge;
-            amp *= gain;
-            freq *= lacunarity;
-        }
-        return sum / (1.0 - gain);
-    }
 }
@@ -1,24 +1,64 @@
 package com.onur.planetgen.atmosphere;
 
+import com.onur.planetgen.field.FloatGrid;
 import com.onur.planetgen.planet.SphericalSampler;
+import com.onur.planetgen.planet.CoarseLayer;
 import com.onur.planetgen.planet.CoordinateCache;
-import com.onur.planetgen.noise.OpenSimplex2;
+import com.onur.planetgen.planet.ReducedGrid;
+import com.onur.planetgen.planet.RowCoordinates;
+import com.onur.planetgen.noise.CellularNoise;
 import com.onur.planetgen.noise.DomainWarpNoise;
+import com.onur.planetgen.noise.FractalNoise;
+import com.onur.planetgen.noise.Noise;
+import com.onur.planetgen.noise.NoiseType;
+import com.onur.planetgen.noise.OctavePolicy;
+import com.onur.planetgen.noise.graph.NoiseGraph;
 import com.onur.planetgen.config.Preset;
 
+import java.util.Map;
+
 /**
  * Multi-layer cloud system for photorealistic cloud morphology.
  * Generates stratocumulus (low), altocumulus (mid), and cirrus (high) layers.
  */
 public final class MultiLayerCloudField {
-    public final float[][] alpha;
+    public final FloatGrid alpha;
 
     private static final double STRATO_SCALE = 1.5;   // Low clouds - large features
     private static final double ALTO_SCALE = 4.0;     // Mid clouds - medium features
     private static final double CIRRUS_SCALE = 8.0;   // High clouds - fine detail
 
+    /**
+     * The built-in three-layer clouds as a noise recipe, for use as a starting point for
+     * {@link Preset#cloudRecipe}. Sources: {@code base} and its domain-warped form
+     * {@code coverage}. The result is clamped to [0, 1]. Gives the same values as the Java
+     * path while {@link Preset#lowFrequencyTolerance} and {@link Preset#reducedGrid} are 0, as
+     * by default: recipes evaluate the coverage at every pixel, and on reduced rows they
+     * resample the final opacity where the Java path resamples the density before the
+     * threshold.
+     */
+    public static final String CLOUD_RECIPE = """
+            # Stratocumulus (low, large, billowed)
+            let macro = fbm(coverage, 1.5, 2, 2.0, 0.5)
+            let billows = fbm(base, 3.75, 3, 2.0, 0.6)
+            let strato = ((macro + 1.0) * 0.5) * 0.7 + ((billows + 1.0) * 0.5) * 0.3
+
+            # Altocumulus (mid, medium, detailed)
+            let altoRidges = ridged(base, 4.0, 4, 2.0, 0.6)
+            let turbulence = fbm(base, 12.0, 2, 2.0, 0.5)
+            let alto = ((altoRidges + 1.0) * 0.5) * 0.6 + ((turbulence + 1.0) * 0.5) * 0.4
+
+            # Cirrus (high, fine, wispy)
+            let cirrus = ((fbm(base, 8.0, 5, 2.0, 0.5) + 1.0) * 0.5) * 0.6
+
+            # Threshold, soften and scale by coverage
+            let density = 0.6 * strato + 0.3 * alto + 0.1 * cirrus
+            let opacity = max(0.0, density - 0.3) / (1.0 - 0.3)
+            pow(max(0.0, opacity), 1.0 / cloudGamma) * cloudCoverage
+            """;
+
     private MultiLayerCloudField(int W, int H) {
-        this.alpha = new float[H][W];
+        this.alpha = new FloatGrid(W, H);
     }
 
     /**
@@ -27,38 +67,96 @@ public final class MultiLayerCloudField {
     public static MultiLayerCloudField generateParallel(long seed, SphericalSampler sp, Preset preset,
                                                          CoordinateCache coordCache) {
         MultiLayerCloudField clouds = new MultiLayerCloudField(sp.W, sp.H);
-
-        // Create noise generators
-        OpenSimplex2 base = new OpenSimplex2(seed);
-        OpenSimplex2 warpX = new OpenSimplex2(seed + 10);
-        OpenSimplex2 warpY = new OpenSimplex2(seed + 11);
-        OpenSimplex2 warpZ = new OpenSimplex2(seed + 12);
-        DomainWarpNoise coverage = new DomainWarpNoise(base, warpX, warpY, warpZ, preset.cloudWarp);
-
-        int W = sp.W, H = sp.H;
-        double cloudGamma = preset.cloudGamma;
-        double cloudThreshold = 0.3;
+        Rows rows = new Rows(seed, sp, preset);
 
         // Generate layers in parallel
         System.out.println("Generating multi-layer clouds (parallel)...");
-        java.util.stream.IntStream.range(0, H).parallel().forEach(y -> {
-            double[] normal = new double[3];
+        java.util.stream.IntStream.range(0, sp.H).parallel().forEach(y ->
+                rows.row(y, coordCache, clouds.alpha.data(), clouds.alpha.index(0, y)));
 
-            for (int x = 0; x < W; x++) {
-                coordCache.getNormal(x, y, normal);
-                double nx = normal[0], ny = normal[1], nz = normal[2];
+        return clouds;
+    }
 
+    /**
+     * The cloud layers for one seed, preset and resolution, evaluated a row at a time so
+     * callers can produce any band of the planet on its own.
+     */
+    public static final class Rows {
+        private final int width;
+        private final Layers layers;
+        private final NoiseGraph recipe; // null: built-in Java layering
+        private final ReducedGrid reducedGrid; // null: evaluate every column of every row
+        private final double cloudGamma, cloudCoverage;
+        private final ThreadLocal<Scanline> scanlines;
+
+        public Rows(long seed, SphericalSampler sp, Preset preset) {
+            this.width = sp.W;
+
+            // Create noise generators
+            NoiseType noiseType = NoiseType.fromName(preset.noiseType);
+            Noise base = noiseType.create(seed);
+            Noise warpX = noiseType.create(seed + 10);
+            Noise warpY = noiseType.create(seed + 11);
+            Noise warpZ = noiseType.create(seed + 12);
+            DomainWarpNoise coverage = new DomainWarpNoise(base, warpX, warpY, warpZ, preset.cloudWarp);
+
+            OctavePolicy octaves = OctavePolicy.forResolution(sp.pixelAngle(), preset.octaveQuality);
+            // Coarse layers and reduced rows assume the whole sphere
+            layers = new Layers(base, coverage, octaves, sp, sp.isGlobal() ? preset.lowFrequencyTolerance : 0.0);
+            reducedGrid = sp.isGlobal() ? ReducedGrid.build(sp, preset.reducedGrid) : null;
+            recipe = preset.cloudRecipe == null ? null
+                    : NoiseGraph.compile(preset.cloudRecipe, Map.of("base", base, "coverage", coverage,
+                            "cells", new CellularNoise(seed + 20, CellularNoise.Output.F2_MINUS_F1)),
+                            preset.recipeConstants(), octaves);
+
+            cloudGamma = preset.cloudGamma;
+            cloudCoverage = preset.cloudCoverage;
+            int W = width;
+            scanlines = ThreadLocal.withInitial(() -> new Scanline(W));
+        }
+
+        /** Cloud opacity of row {@code y} into {@code out[offset .. offset + W)}. */
+        public void row(int y, RowCoordinates coords, float[] out, int offset) {
+            int W = width;
+            double cloudThreshold = 0.3;
+            Scanline row = scanlines.get();
+            boolean reduced = reducedGrid != null && reducedGrid.isReduced(y);
+            if (reduced) {
+                row.load(reducedGrid, y);
+            } else {
+                row.load(coords, y);
+            }
+
+            // Layer density before the threshold, so reduced rows resample a smooth field
+            if (recipe != null) {
+                recipe.evaluateRow(row.xs, row.ys, row.zs, row.density, row.n);
+            } else {
                 // Layer 1: Stratocumulus (low, large, billowed)
-                double strato = generateStratocumulus(base, coverage, nx, ny, nz);
+                generateStratocumulus(layers, row, row.strato);
 
-                // Layer 2: Altocumulus (mid, medium, detailed)
-                double alto = generateAltocumulus(base, nx, ny, nz);
+                // Layers 2 and 3: Altocumulus (mid, medium, detailed) and Cirrus (high, fine, wispy)
+                generateAltocumulusAndCirrus(layers, row, row.alto, row.cirrus);
+
+                for (int x = 0; x < row.n; x++) {
+                    // Blend layers: strato dominant, alto adds detail, cirrus adds wisps
+                    row.density[x] = 0.6 * row.strato[x] + 0.3 * row.alto[x] + 0.1 * row.cirrus[x];
+                }
+            }
+            double[] density = row.density;
+            if (reduced) {
+                reducedGrid.resample(y, row.density, row.resampled);
+                density = row.resampled;
+            }
 
-                // Layer 3: Cirrus (high, fine, wispy)
-                double cirrus = generateCirrus(base, nx, ny, nz);
+            if (recipe != null) {
+                for (int x = 0; x < W; x++) {
+                    out[offset + x] = (float) Math.max(0.0, Math.min(1.0, density[x]));
+                }
+                return;
+            }
 
-                // Blend layers: strato dominant, alto adds detail, cirrus adds wisps
-                double cloudDensity = 0.6 * strato + 0.3 * alto + 0.1 * cirrus;
+            for (int x = 0; x < W; x++) {
+                double cloudDensity = density[x];
 
                 // Apply threshold for distinct clouds
                 double opacity = Math.max(0.0, cloudDensity - cloudThreshold) / (1.0 - cloudThreshold);
@@ -67,82 +165,121 @@ public final class MultiLayerCloudField {
                 opacity = Math.pow(Math.max(0.0, opacity), 1.0 / cloudGamma);
 
                 // Scale by base coverage
-                opacity = opacity * preset.cloudCoverage;
+                opacity = opacity * cloudCoverage;
 
-                clouds.alpha[y][x] = (float) Math.max(0.0, Math.min(1.0, opacity));
+                out[offset + x] = (float) Math.max(0.0, Math.min(1.0, opacity));
             }
-        });
-
-        return clouds;
+        }
     }
 
-    private static double generateStratocumulus(OpenSimplex2 base, DomainWarpNoise coverage,
-                                                 double x, double y, double z) {
+    private static void generateStratocumulus(Layers layers, Scanline row, double[] out) {
         // Low-frequency coverage for macro distribution
-        double macroNoise = fbm(coverage, x, y, z, STRATO_SCALE, 2, 2.0, 0.5);
-        macroNoise = (macroNoise + 1.0) * 0.5;
+        double[] macroNoise = row.layerA;
+        if (layers.stratoCoverageGrid != null && row.n == row.width) {
+            layers.stratoCoverageGrid.row(row.y, macroNoise);
+        } else {
+            layers.stratoCoverage.fbm(row.xs, row.ys, row.zs, macroNoise, row.n);
+        }
 
         // Mid-frequency detail for billowing structure
-        double detail = fbm(base, x, y, z, STRATO_SCALE * 2.5, 3, 2.0, 0.6);
-        detail = (detail + 1.0) * 0.5;
+        double[] detail = row.layerB;
+        layers.stratoDetail.fbm(row.xs, row.ys, row.zs, detail, row.n);
 
         // Blend: macro controls presence, detail controls shape
-        return macroNoise * 0.7 + detail * 0.3;
+        for (int x = 0; x < row.n; x++) {
+            out[x] = ((macroNoise[x] + 1.0) * 0.5) * 0.7 + ((detail[x] + 1.0) * 0.5) * 0.3;
+        }
     }
 
-    private static double generateAltocumulus(OpenSimplex2 base, double x, double y, double z) {
-        // Medium-frequency ridged noise for wispy structure
-        double ridged = ridgedFbm(base, x, y, z, ALTO_SCALE, 4, 2.0, 0.6);
-        ridged = (ridged + 1.0) * 0.5;
+    /**
+     * Altocumulus ridges and cirrus fBm share their 8, 16 and 32 frequency octaves,
+     * so both come out of one combined pass.
+     */
+    private static void generateAltocumulusAndCirrus(Layers layers, Scanline row, double[] alto, double[] cirrus) {
+        // Medium-frequency ridged noise for wispy structure; high-frequency noise for fine detail and wisps
+        double[] ridged = row.layerA;
+        layers.altoAndCirrus.evaluate(row.xs, row.ys, row.zs, cirrus, ridged, row.n);
 
         // Add simple turbulence
-        double turbulence = fbm(base, x, y, z, ALTO_SCALE * 3.0, 2, 2.0, 0.5);
-        turbulence = (turbulence + 1.0) * 0.5;
-
-        return ridged * 0.6 + turbulence * 0.4;
-    }
+        double[] turbulence = row.layerB;
+        layers.altoTurbulence.fbm(row.xs, row.ys, row.zs, turbulence, row.n);
 
-    private static double generateCirrus(OpenSimplex2 base, double x, double y, double z) {
-        // High-frequency noise for fine detail and wisps
-        double fine = fbm(base, x, y, z, CIRRUS_SCALE, 5, 2.0, 0.5);
-        fine = (fine + 1.0) * 0.5;
+        for (int x = 0; x < row.n; x++) {
+            alto[x] = ((ridged[x] + 1.0) * 0.5) * 0.6 + ((turbulence[x] + 1.0) * 0.5) * 0.4;
+        }
 
         // Make cirrus more transparent and wispy
-        return fine * 0.6;
+        for (int x = 0; x < row.n; x++) {
+            cirrus[x] = ((cirrus[x] + 1.0) * 0.5) * 0.6;
+        }
     }
 
-    private static double fbm(OpenSimplex2 noise, double x, double y, double z,
-                              double scale, int octaves, double lacunarity, double gain) {
-        double amp = 1.0, freq = 1.0, sum = 0.0;
-        for (int i = 0; i < octaves; i++) {
-            sum += amp * noise.noise3(x * scale * freq, y * scale * freq, z * scale * freq);
-            amp *= gain;
-            freq *= lacunarity;
+    /**
+     * Fractal sums behind the three layers, with octave counts fitted to the output resolution.
+     */
+    private static final class Layers {
+        final FractalNoise stratoCoverage, stratoDetail, altoTurbulence;
+        final FractalNoise.Combined altoAndCirrus;
+        final CoarseLayer stratoCoverageGrid; // null: evaluate the coverage at every pixel
+
+        Layers(Noise base, DomainWarpNoise coverage, OctavePolicy octaves, SphericalSampler sp, double tolerance) {
+            stratoCoverage = fractal(coverage, STRATO_SCALE, 2, 0.5, octaves);
+            stratoDetail = fractal(base, STRATO_SCALE * 2.5, 3, 0.6, octaves);
+            altoTurbulence = fractal(base, ALTO_SCALE * 3.0, 2, 0.5, octaves);
+            FractalNoise altoRidged = fractal(base, ALTO_SCALE, 4, 0.6, octaves);
+            FractalNoise cirrusFbm = fractal(base, CIRRUS_SCALE, 5, 0.5, octaves);
+            altoAndCirrus = FractalNoise.combine(cirrusFbm, altoRidged);
+            stratoCoverageGrid = tolerance > 0.0
+                    ? CoarseLayer.build(stratoCoverage::fbm, stratoCoverage.frequency(stratoCoverage.octaves() - 1),
+                            sp, tolerance)
+                    : null;
+            if (stratoCoverageGrid != null) {
+                System.out.println("Stratocumulus coverage on a " + stratoCoverageGrid.gridSize()
+                        + " grid (probe error " + String.format("%.1e", stratoCoverageGrid.maxProbeError()) + ")");
+            }
         }
-        return sum / (1.0 - gain);
-    }
 
-    private static double fbm(DomainWarpNoise noise, double x, double y, double z,
-                              double scale, int octaves, double lacunarity, double gain) {
-        double amp = 1.0, freq = 1.0, sum = 0.0;
-        for (int i = 0; i < octaves; i++) {
-            sum += amp * noise.noise3(x * scale * freq, y * scale * freq, z * scale * freq);
-            amp *= gain;
-            freq *= lacunarity;
+        private static FractalNoise fractal(Noise noise, double scale, int baseOctaves, double gain,
+                                            OctavePolicy octaves) {
+            return new FractalNoise(noise, scale, octaves.octaves(scale, baseOctaves, 2.0), 2.0, gain);
         }
-        return sum / (1.0 - gain);
     }
 
-    private static double ridgedFbm(OpenSimplex2 noise, double x, double y, double z,
-                                    double scale, int octaves, double lacunarity, double gain) {
-        double amp = 1.0, freq = 1.0, sum = 0.0;
-        for (int i = 0; i < octaves; i++) {
-            double n = noise.noise3(x * scale * freq, y * scale * freq, z * scale * freq);
-            double ridge = 1.0 - Math.abs(n);
-            sum += amp * ridge;
-            amp *= gain;
-            freq *= lacunarity;
+    /**
+     * Per-thread scanline buffers: the row's unit-sphere normals, per-layer outputs and
+     * the full-width density of a reduced row. {@code n} is the number of columns loaded.
+     */
+    private static final class Scanline {
+        final int width;
+        final double[] xs, ys, zs;
+        final double[] layerA, layerB;
+        final double[] strato, alto, cirrus, density, resampled;
+        int y, n;
+
+        Scanline(int width) {
+            this.width = width;
+            xs = new double[width];
+            ys = new double[width];
+            zs = new double[width];
+            layerA = new double[width];
+            layerB = new double[width];
+            strato = new double[width];
+            alto = new double[width];
+            cirrus = new double[width];
+            density = new double[width];
+            resampled = new double[width];
+        }
+
+        void load(RowCoordinates coords, int y) {
+            this.y = y;
+            this.n = width;
+            coords.fill(y, xs, ys, zs);
+        }
+
+        void load(ReducedGrid grid, int y) {
+            this.y = y;
+            this.n = grid.columns(y);
+            grid.fill(y, xs, ys, zs);
         }
-        return sum / (1.0 - gain);
     }
 }
@@ -10,16 +10,30 @@ import java.util.Locale;
 import java.util.Set;
 
 import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.cube.CubeMap;
+import com.onur.planetgen.cube.CubeSphereGenerator;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+import com.onur.planetgen.field.OffHeapMemory;
+import com.onur.planetgen.noise.NoiseType;
+import com.onur.planetgen.progressive.ProgressiveGenerator;
+import com.onur.planetgen.region.RegionGenerator;
 import com.onur.planetgen.planet.CoordinateCache;
 import com.onur.planetgen.planet.ParallelHeightFieldGenerator;
+import com.onur.planetgen.planet.RegionSampler;
 import com.onur.planetgen.planet.SphericalSampler;
 import com.onur.planetgen.render.CloudRenderer;
 import com.onur.planetgen.render.EmissiveRenderer;
 import com.onur.planetgen.render.NormalMapRenderer;
-import com.onur.planetgen.render.RenderUtil;
 import com.onur.planetgen.render.SurfaceAnalyzer;
+import com.onur.planetgen.tile.BandWorker;
+import com.onur.planetgen.tile.DistributedPlanetGenerator;
+import com.onur.planetgen.tile.TileCache;
+import com.onur.planetgen.tile.TileServer;
+import com.onur.planetgen.tile.TiledPlanetGenerator;
 import com.onur.planetgen.atmosphere.MultiLayerCloudField;
 import com.onur.planetgen.util.ImageUtil;
+import com.onur.planetgen.util.PngWriter;
 
 @CommandLine.Command(name = "planetgen", mixinStandardHelpOptions = true,
         description = "Procedural planet texture generator (2:1 equirectangular)")
@@ -35,6 +49,90 @@ public class Main implements Runnable {
             defaultValue = "earthlike")
     String presetName;
 
+    @CommandLine.Option(names = "--noise", description = "Lattice noise: perlin (original seeds) or opensimplex2; defaults to the preset's")
+    String noiseType;
+
+    @CommandLine.Option(names = "--octave-quality",
+            description = "Keep noise octaves up to this multiple of the output's Nyquist limit; 0, the default, uses the fixed counts existing seeds were made with")
+    Double octaveQuality;
+
+    @CommandLine.Option(names = "--low-frequency-tolerance",
+            description = "Sample continent and stratocumulus layers on a coarse grid within this error; 0 samples every pixel")
+    Double lowFrequencyTolerance;
+
+    @CommandLine.Option(names = "--reduced-grid",
+            description = "Evaluate noise rows on about F x width x cos(latitude) columns and resample; 0 evaluates every pixel")
+    Double reducedGrid;
+
+    @CommandLine.Option(names = "--off-heap",
+            description = "Keep the surface maps in native memory, stream them to PNG and free them after export (raise -XX:MaxDirectMemorySize); "
+                    + "the height field and erosion and flow buffers stay on the heap")
+    boolean offHeap;
+
+    @CommandLine.Option(names = "--tile-rows",
+            description = "Generate out of core in latitude bands of this many rows; 0 keeps the planet in memory",
+            defaultValue = "0")
+    int tileRows;
+
+    @CommandLine.Option(names = "--scratch",
+            description = "Folder for the memory-mapped scratch files of --tile-rows and --distribute; defaults to the output folder")
+    Path scratchDir;
+
+    @CommandLine.Option(names = "--distribute",
+            description = "Generate band by band on these workers (host:port,...; repeat one for parallel bands) with --tile-rows bands")
+    String distribute;
+
+    @CommandLine.Option(names = "--worker",
+            description = "Run as a band worker for --distribute on this localhost port instead of generating; 0 generates",
+            defaultValue = "0")
+    int workerPort;
+
+    @CommandLine.Option(names = "--cube",
+            description = "Generate on a cube sphere with faces of this many pixels and export per-face maps (all but clouds and emissive); 0 uses the equirectangular grid",
+            defaultValue = "0")
+    int cubeSize;
+
+    @CommandLine.Option(names = "--cube-equirect",
+            description = "With --cube, also resample the faces to --resolution and run the full equirectangular export")
+    boolean cubeEquirect;
+
+    @CommandLine.Option(names = "--preview-levels",
+            description = "Generate in N levels, each with twice the rows of the last, saving the coarse ones as planet_preview_<W>x<H>.png; 1 generates once. "
+                    + "Without --warm-start the coarse levels only buy previews: they pass nothing on and add about 31% work for 3 levels",
+            defaultValue = "1")
+    int previewLevels;
+
+    @CommandLine.Option(names = "--warm-start",
+            description = "With --preview-levels, start each level's erosion from the level before (faster, approximate)")
+    boolean warmStart;
+
+    @CommandLine.Option(names = "--region",
+            description = "Generate only the box south,west,north,east (degrees) at --resolution, which need not be 2:1")
+    String region;
+
+    @CommandLine.Option(names = "--region-halo",
+            description = "Context pixels around --region and each --serve tile for flow, rivers, lakes and occlusion",
+            defaultValue = "32")
+    int regionHalo;
+
+    @CommandLine.Option(names = "--serve",
+            description = "Serve tiles on demand at http://localhost:PORT/tiles/<map>/<z>/<x>/<y>.png instead of exporting; 0 exports")
+    int servePort;
+
+    @CommandLine.Option(names = "--tile-size", description = "Edge of each --serve tile in pixels", defaultValue = "256")
+    int tileSize;
+
+    @CommandLine.Option(names = "--tile-cache-mb",
+            description = "Memory for recently served tiles; every tile is also kept on disk under <out>/tiles",
+            defaultValue = "256")
+    long tileCacheMb;
+
+    @CommandLine.Option(names = "--terrain-recipe", description = "Noise recipe file for terrain (replaces the built-in recipe)")
+    Path terrainRecipe;
+
+    @CommandLine.Option(names = "--cloud-recipe", description = "Noise recipe file for clouds (replaces the built-in recipe)")
+    Path cloudRecipe;
+
     @CommandLine.Option(names = "--export", split = ",",
             description = "Maps to export: albedo,height,normal,roughness,clouds,emissive,ao,metallic,pbrpack,biome,vegetation,detail,snow,atmosphere,ocean,material",
             defaultValue = "albedo,height,normal,roughness,clouds")
@@ -51,12 +149,28 @@ public class Main implements Runnable {
     @Override
     public void run() {
         try {
+            if (workerPort > 0) {
+                BandWorker worker = new BandWorker();
+                System.out.println("Band worker listening on " + worker.start(workerPort) + " (Ctrl+C to stop)");
+                Thread.currentThread().join();
+                return;
+            }
+
             String[] wh = resolution.toLowerCase(Locale.ROOT).split("x");
             int width = Integer.parseInt(wh[0]);
             int heightPx = Integer.parseInt(wh[1]);
-            if (width != 2 * heightPx) {
+            if (region == null && servePort == 0 && width != 2 * heightPx) {
                 throw new IllegalArgumentException("Resolution must be 2:1 (e.g., 4096x2048)");
             }
+            if (region != null && (tileRows > 0 || cubeSize > 0 || previewLevels > 1)) {
+                throw new IllegalArgumentException("--region cannot be combined with --tile-rows, --cube or --preview-levels");
+            }
+            if (distribute != null && (region != null || cubeSize > 0 || previewLevels > 1 || servePort > 0)) {
+                throw new IllegalArgumentException("--distribute cannot be combined with --region, --cube, --preview-levels or --serve");
+            }
+            if (servePort > 0 && (region != null || tileRows > 0 || cubeSize > 0 || previewLevels > 1)) {
+                throw new IllegalArgumentException("--serve cannot be combined with --region, --tile-rows, --cube or --preview-levels");
+            }
 
             Files.createDirectories(outDir);
             Set<String> exportSet = new HashSet<>();
@@ -66,66 +180,157 @@ public class Main implements Runnable {
 
             System.out.println("Loading preset: " + presetName);
             Preset preset = new Preset(presetName);
+            if (noiseType != null) {
+                preset.noiseType = NoiseType.fromName(noiseType).key();
+            }
+            if (octaveQuality != null) {
+                preset.octaveQuality = octaveQuality;
+            }
+            if (lowFrequencyTolerance != null) {
+                preset.lowFrequencyTolerance = lowFrequencyTolerance;
+            }
+            if (reducedGrid != null) {
+                preset.reducedGrid = reducedGrid;
+            }
+            if (offHeap) {
+                preset.offHeapFields = true;
+            }
+            if (terrainRecipe != null) {
+                preset.terrainRecipe = Files.readString(terrainRecipe);
+            }
+            if (cloudRecipe != null) {
+                preset.cloudRecipe = Files.readString(cloudRecipe);
+            }
             System.out.println(preset);
 
-            SphericalSampler sampler = new SphericalSampler(width, heightPx);
-            System.out.println("Generating height field with " + presetName + " preset (parallel)...");
-            long startTime = System.currentTimeMillis();
-            CoordinateCache coordCache = new CoordinateCache(width, heightPx, sampler);
-            float[][] heightField = ParallelHeightFieldGenerator.generateParallel(seed, sampler, preset);
-            long terrainTime = System.currentTimeMillis() - startTime;
-
-            System.out.println("Applying thermal erosion (" + preset.thermalIterations + " iterations)...");
-            startTime = System.currentTimeMillis();
-            com.onur.planetgen.erosion.ThermalErosion.apply(heightField, preset.thermalIterations,
-                    preset.thermalTalus, preset.thermalK);
-            long thermalTime = System.currentTimeMillis() - startTime;
-
-            System.out.println("Applying hydraulic erosion (" + preset.hydraulicIterations + " iterations)...");
-            startTime = System.currentTimeMillis();
-            com.onur.planetgen.erosion.HydraulicErosion.apply(heightField, preset.hydraulicIterations,
-                    preset.rainfall, preset.evaporation);
-            long hydraulicTime = System.currentTimeMillis() - startTime;
+            if (servePort > 0) {
+                // Tiles of other seeds or settings go to their own folders, never mixed up on disk
+                String variant = Integer.toHexString(java.util.Objects.hash(presetName, preset.toString(),
+                        preset.terrainRecipe, preset.cloudRecipe, tileSize, regionHalo));
+                Path tileFolder = outDir.resolve("tiles").resolve(seed + "-" + variant);
+                TileServer server = new TileServer(seed, preset, tileSize, regionHalo,
+                        new TileCache(tileFolder, tileCacheMb << 20));
+                java.net.InetSocketAddress address = server.start(servePort);
+                System.out.println("Serving tiles at http://localhost:" + address.getPort()
+                        + "/tiles/{height,albedo,normal}/{z}/{x}/{y}.png, cached in " + tileFolder + " (Ctrl+C to stop)");
+                Thread.currentThread().join();
+                return;
+            }
 
-            System.out.printf(Locale.ROOT, "Terrain: %.1fs, Thermal: %.1fs, Hydraulic: %.1fs%n",
-                    terrainTime / 1000.0, thermalTime / 1000.0, hydraulicTime / 1000.0);
+            SphericalSampler sampler = region != null ? RegionSampler.parse(region, width, heightPx)
+                    : new SphericalSampler(width, heightPx);
+            if (distribute != null) {
+                DistributedPlanetGenerator.generate(seed, sampler, preset,
+                        tileRows > 0 ? tileRows : DistributedPlanetGenerator.DEFAULT_BAND_ROWS,
+                        DistributedPlanetGenerator.parseWorkers(distribute),
+                        scratchDir != null ? scratchDir : outDir, exportSet, outDir);
+                System.out.println("Done -> " + outDir.toAbsolutePath());
+                return;
+            }
+            if (tileRows > 0) {
+                TiledPlanetGenerator.generate(seed, sampler, preset, tileRows,
+                        scratchDir != null ? scratchDir : outDir, exportSet, outDir);
+                System.out.println("Done -> " + outDir.toAbsolutePath());
+                return;
+            }
+            FloatGrid heightField;
+            SurfaceAnalyzer.SurfaceData surface = null;
+            IntGrid regionNormals = null;
+            if (cubeSize > 0) {
+                long startTime = System.currentTimeMillis();
+                CubeMap cube = CubeSphereGenerator.generate(seed, cubeSize, preset);
+                CubeSphereGenerator.export(cube, seed, preset, exportSet, outDir);
+                System.out.printf(Locale.ROOT, "Cube sphere: %.1fs%n", (System.currentTimeMillis() - startTime) / 1000.0);
+                if (!cubeEquirect) {
+                    System.out.println("Done -> " + outDir.toAbsolutePath());
+                    return;
+                }
+                System.out.println("Resampling cube faces to " + width + "x" + heightPx + "...");
+                heightField = cube.toEquirect(width, heightPx);
+            } else if (sampler instanceof RegionSampler window) {
+                long startTime = System.currentTimeMillis();
+                RegionGenerator.Result result = RegionGenerator.generate(seed, window, preset, regionHalo);
+                heightField = result.height();
+                surface = result.surface();
+                regionNormals = result.normals();
+                System.out.printf(Locale.ROOT, "Region: %.1fs%n", (System.currentTimeMillis() - startTime) / 1000.0);
+            } else if (previewLevels > 1) {
+                ProgressiveGenerator.Level level = ProgressiveGenerator.generate(seed, width, heightPx, preset,
+                        previewLevels, warmStart, coarse -> {
+                            if (coarse.isFinal()) {
+                                return;
+                            }
+                            Path preview = outDir.resolve("planet_preview_" + coarse.width() + "x" + coarse.heightPx() + ".png");
+                            try {
+                                ImageUtil.saveARGB(coarse.surface().albedo(), preview);
+                            } catch (java.io.IOException e) {
+                                throw new java.io.UncheckedIOException(e);
+                            }
+                            System.out.printf(Locale.ROOT, "Preview %s after %.1fs%n", preview.getFileName(),
+                                    coarse.elapsedMillis() / 1000.0);
+                        });
+                heightField = level.height();
+                surface = level.surface();
+            } else {
+                System.out.println("Generating height field with " + presetName + " preset (parallel)...");
+                long startTime = System.currentTimeMillis();
+                heightField = ParallelHeightFieldGenerator.generate(seed, sampler, preset);
+                long terrainTime = System.currentTimeMillis() - startTime;
+
+                System.out.println("Applying thermal erosion (" + preset.thermalIterations + " iterations)...");
+                startTime = System.currentTimeMillis();
+                com.onur.planetgen.erosion.ThermalErosion.apply(heightField, preset.thermalIterations,
+                        preset.thermalTalus, preset.thermalK);
+                long thermalTime = System.currentTimeMillis() - startTime;
+
+                System.out.println("Applying hydraulic erosion (" + preset.hydraulicIterations + " iterations)...");
+                startTime = System.currentTimeMillis();
+                com.onur.planetgen.erosion.HydraulicErosion.apply(heightField, preset.hydraulicIterations,
+                        preset.rainfall, preset.evaporation);
+                long hydraulicTime = System.currentTimeMillis() - startTime;
+
+                System.out.printf(Locale.ROOT, "Terrain: %.1fs, Thermal: %.1fs, Hydraulic: %.1fs%n",
+                        terrainTime / 1000.0, thermalTime / 1000.0, hydraulicTime / 1000.0);
+            }
+            CoordinateCache coordCache = CoordinateCache.of(sampler);
 
-            SurfaceAnalyzer.SurfaceData surface = SurfaceAnalyzer.analyze(heightField, preset, seed);
+            if (surface == null) {
+                surface = SurfaceAnalyzer.analyze(heightField, preset, seed);
+            }
+            if (preset.offHeapFields) {
+                System.out.printf(Locale.ROOT, "Surface maps off-heap: %.0f MB%n",
+                        OffHeapMemory.reservedBytes() / (1024.0 * 1024.0));
+            }
 
             if (exportSet.contains("albedo")) {
                 System.out.println("Saving albedo map...");
-                ImageUtil.saveARGB(surface.albedo(), outDir.resolve("planet_albedo_" + width + "x" + heightPx + ".png"));
+                saveSurfaceMap(surface, "albedo", outDir.resolve("planet_albedo_" + width + "x" + heightPx + ".png"));
             }
 
             if (exportSet.contains("normal")) {
                 System.out.println("Rendering normals...");
-                int[][] normals = NormalMapRenderer.render(heightField);
+                IntGrid normals = regionNormals != null ? regionNormals : NormalMapRenderer.render(heightField);
                 ImageUtil.saveARGB(normals, outDir.resolve("planet_normal.png"));
             }
 
             if (exportSet.contains("roughness")) {
                 System.out.println("Saving roughness map...");
-                ImageUtil.saveGray8(RenderUtil.toGray8(surface.roughness()),
-                        outDir.resolve("planet_roughness.png"));
+                saveSurfaceMap(surface, "roughness", outDir.resolve("planet_roughness.png"));
             }
 
             if (exportSet.contains("metallic")) {
                 System.out.println("Saving metallic map...");
-                ImageUtil.saveGray8(RenderUtil.toGray8(surface.metallic()),
-                        outDir.resolve("planet_metallic.png"));
+                saveSurfaceMap(surface, "metallic", outDir.resolve("planet_metallic.png"));
             }
 
             if (exportSet.contains("pbrpack")) {
                 System.out.println("Packing AO/Roughness/Metallic...");
-                ImageUtil.saveARGB(RenderUtil.packToRgb(surface.ambientOcclusion(),
-                                surface.roughness(), surface.metallic()),
-                        outDir.resolve("planet_pbr_pack.png"));
+                saveSurfaceMap(surface, "pbrpack", outDir.resolve("planet_pbr_pack.png"));
             }
 
             if (exportSet.contains("ao")) {
                 System.out.println("Saving ambient occlusion map...");
-                ImageUtil.saveGray8(RenderUtil.toGray8(surface.ambientOcclusion()),
-                        outDir.resolve("planet_ao.png"));
+                saveSurfaceMap(surface, "ao", outDir.resolve("planet_ao.png"));
             }
 
             if (exportSet.contains("height")) {
@@ -135,41 +340,39 @@ public class Main implements Runnable {
 
             if (exportSet.contains("biome")) {
                 System.out.println("Saving biome mask...");
-                ImageUtil.saveARGB(surface.biomeMask(), outDir.resolve("planet_biome_mask.png"));
+                saveSurfaceMap(surface, "biome", outDir.resolve("planet_biome_mask.png"));
             }
 
             if (exportSet.contains("material")) {
                 System.out.println("Saving material mask...");
-                ImageUtil.saveARGB(surface.materialMask(), outDir.resolve("planet_material_mask.png"));
+                saveSurfaceMap(surface, "material", outDir.resolve("planet_material_mask.png"));
             }
 
             if (exportSet.contains("vegetation")) {
                 System.out.println("Saving vegetation density...");
-                ImageUtil.saveGray8(RenderUtil.toGray8(surface.vegetation()),
-                        outDir.resolve("planet_vegetation_density.png"));
+                saveSurfaceMap(surface, "vegetation", outDir.resolve("planet_vegetation_density.png"));
             }
 
             if (exportSet.contains("detail")) {
                 System.out.println("Saving terrain detail map...");
-                ImageUtil.saveGray8(RenderUtil.toGray8(surface.detail()),
-                        outDir.resolve("planet_detail_map.png"));
+                saveSurfaceMap(surface, "detail", outDir.resolve("planet_detail_map.png"));
             }
 
             if (exportSet.contains("snow")) {
                 System.out.println("Saving snow/weathering mask...");
-                ImageUtil.saveGray8(RenderUtil.toGray8(surface.snow()),
-                        outDir.resolve("planet_snow_mask.png"));
+                saveSurfaceMap(surface, "snow", outDir.resolve("planet_snow_mask.png"));
             }
 
             if (exportSet.contains("ocean")) {
                 System.out.println("Saving ocean shading map...");
-                ImageUtil.saveARGB(surface.oceanShading(), outDir.resolve("planet_ocean_shading.png"));
+                saveSurfaceMap(surface, "ocean", outDir.resolve("planet_ocean_shading.png"));
             }
 
             if (exportSet.contains("atmosphere")) {
                 System.out.println("Saving atmosphere overlay...");
-                ImageUtil.saveARGB(surface.atmosphere(), outDir.resolve("planet_atmosphere.png"));
+                saveSurfaceMap(surface, "atmosphere", outDir.resolve("planet_atmosphere.png"));
             }
+            surface.close();
 
             if (exportSet.contains("clouds")) {
                 System.out.println("Generating multi-layer clouds...");
@@ -177,13 +380,13 @@ public class Main implements Runnable {
                 var cloudField = MultiLayerCloudField.generateParallel(seed + 1, sampler, preset, coordCache);
                 long cloudTime = System.currentTimeMillis() - cloudStart;
                 System.out.printf(Locale.ROOT, "Cloud generation: %.1fs%n", cloudTime / 1000.0);
-                int[][] clouds = CloudRenderer.render(cloudField);
+                IntGrid clouds = CloudRenderer.render(cloudField);
                 ImageUtil.saveARGB(clouds, outDir.resolve("planet_clouds.png"));
             }
 
             if (exportSet.contains("emissive")) {
                 System.out.println("Rendering emissive map...");
-                int[][] emissive = EmissiveRenderer.render(heightField, preset, seed);
+                IntGrid emissive = EmissiveRenderer.render(heightField, preset, seed);
                 ImageUtil.saveARGB(emissive, outDir.resolve("planet_emissive.png"));
             }
 
@@ -194,4 +397,22 @@ public class Main implements Runnable {
             System.exit(1);
         }
     }
+
+    /**
+     * Save the surface export map {@code map}. Off-heap maps are streamed to the PNG a row
+     * at a time rather than copied back to the heap first.
+     */
+    private static void saveSurfaceMap(SurfaceAnalyzer.SurfaceData surface, String map, Path file)
+            throws java.io.IOException {
+        if (surface.isOffHeap()) {
+            try (PngWriter writer = new PngWriter(file, surface.width(), surface.height(),
+                    TiledPlanetGenerator.format(map))) {
+                surface.writeMap(map, writer);
+            }
+        } else if (TiledPlanetGenerator.format(map) == PngWriter.Format.GRAY8) {
+            ImageUtil.saveGray8(surface.map(map), file);
+        } else {
+            ImageUtil.saveARGB(surface.map(map), file);
+        }
+    }
 }
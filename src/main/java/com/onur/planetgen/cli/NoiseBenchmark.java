@@ -0,0 +1,134 @@
+package com.onur.planetgen.cli;
+
+import java.util.Locale;
+import java.util.Random;
+
+import com.onur.planetgen.noise.CellularNoise;
+import com.onur.planetgen.noise.GradientNoise;
+import com.onur.planetgen.noise.Noise;
+import com.onur.planetgen.noise.NoiseType;
+import com.onur.planetgen.planet.SphericalSampler;
+
+/**
+ * Per-sample cost of each {@link NoiseType}, and of {@link CellularNoise}, on two workloads: coherent scanlines like
+ * the terrain generator issues, and scattered points where lattice cells change on
+ * every sample (the worst case for branch prediction).
+ *
+ * usage: gradle benchNoise [--args="ROUNDS"]
+ */
+public final class NoiseBenchmark {
+    private static final int ROW = 4096;
+    private static final int ROWS_PER_ROUND = 256;
+    private static final double SCALE = 13.2; // continentScale * 6, the finest detail octave
+
+    private NoiseBenchmark() {}
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        double[][][] scanlines = scanlinePoints();
+        double[][][] scattered = scatteredPoints();
+        for (NoiseType type : NoiseType.values()) {
+            GradientNoise noise = type.create(42L);
+            report(type, "scanline", measure(noise, scanlines, rounds));
+            report(type, "scattered", measure(noise, scattered, rounds));
+        }
+        for (CellularNoise.Output output : CellularNoise.Output.values()) {
+            CellularNoise noise = new CellularNoise(42L, output);
+            String name = "cellular-" + output.name().toLowerCase(Locale.ROOT);
+            report(name, "scanline", measureValue(noise, scanlines, rounds));
+            report(name, "scattered", measureValue(noise, scattered, rounds));
+        }
+    }
+
+    /** Rows of a ROW x ROW/2 equirectangular grid, spread over all latitudes. */
+    private static double[][][] scanlinePoints() {
+        SphericalSampler sampler = new SphericalSampler(ROW, ROW / 2);
+        double[][][] pts = new double[3][ROWS_PER_ROUND][ROW];
+        for (int r = 0; r < ROWS_PER_ROUND; r++) {
+            double lat = sampler.lat(r * (ROW / 2) / ROWS_PER_ROUND);
+            for (int i = 0; i < ROW; i++) {
+                double lon = sampler.lon(i);
+                pts[0][r][i] = Math.cos(lat) * Math.cos(lon) * SCALE;
+                pts[1][r][i] = Math.sin(lat) * SCALE;
+                pts[2][r][i] = Math.cos(lat) * Math.sin(lon) * SCALE;
+            }
+        }
+        return pts;
+    }
+
+    /** Uniformly random points on the same sphere. */
+    private static double[][][] scatteredPoints() {
+        Random rng = new Random(1234L);
+        double[][][] pts = new double[3][ROWS_PER_ROUND][ROW];
+        for (int r = 0; r < ROWS_PER_ROUND; r++) {
+            for (int i = 0; i < ROW; i++) {
+                double u = rng.nextGaussian(), v = rng.nextGaussian(), w = rng.nextGaussian();
+                double k = SCALE / Math.sqrt(u * u + v * v + w * w);
+                pts[0][r][i] = u * k;
+                pts[1][r][i] = v * k;
+                pts[2][r][i] = w * k;
+            }
+        }
+        return pts;
+    }
+
+    /**
+     * Best-of-{@code rounds} ns/sample for value and value+gradient batches.
+     * The first round is warm-up; taking the minimum filters scheduler noise.
+     */
+    private static double[] measure(GradientNoise noise, double[][][] pts, int rounds) {
+        double[] out = new double[ROW];
+        double[] dx = new double[ROW], dy = new double[ROW], dz = new double[ROW];
+        double valueNs = Double.MAX_VALUE, gradientNs = Double.MAX_VALUE;
+        double sink = 0.0;
+        for (int round = 0; round <= rounds; round++) {
+            long t0 = System.nanoTime();
+            for (int r = 0; r < ROWS_PER_ROUND; r++) {
+                noise.noise3(pts[0][r], pts[1][r], pts[2][r], out, ROW);
+                sink += out[r];
+            }
+            long t1 = System.nanoTime();
+            for (int r = 0; r < ROWS_PER_ROUND; r++) {
+                noise.noise3WithGradient(pts[0][r], pts[1][r], pts[2][r], out, dx, dy, dz, ROW);
+                sink += dx[r];
+            }
+            long t2 = System.nanoTime();
+            if (round > 0) {
+                valueNs = Math.min(valueNs, (t1 - t0) / (double) (ROW * ROWS_PER_ROUND));
+                gradientNs = Math.min(gradientNs, (t2 - t1) / (double) (ROW * ROWS_PER_ROUND));
+            }
+        }
+        return new double[]{valueNs, gradientNs, sink};
+    }
+
+    /** Best-of-{@code rounds} ns/sample for value batches only. */
+    private static double[] measureValue(Noise noise, double[][][] pts, int rounds) {
+        double[] out = new double[ROW];
+        double valueNs = Double.MAX_VALUE;
+        double sink = 0.0;
+        for (int round = 0; round <= rounds; round++) {
+            long t0 = System.nanoTime();
+            for (int r = 0; r < ROWS_PER_ROUND; r++) {
+                noise.noise3(pts[0][r], pts[1][r], pts[2][r], out, ROW);
+                sink += out[r];
+            }
+            long t1 = System.nanoTime();
+            if (round > 0) {
+                valueNs = Math.min(valueNs, (t1 - t0) / (double) (ROW * ROWS_PER_ROUND));
+            }
+        }
+        return new double[]{valueNs, Double.NaN, sink};
+    }
+
+    private static void report(NoiseType type, String workload, double[] result) {
+        report(type.key(), workload, result);
+    }
+
+    private static void report(String name, String workload, double[] result) {
+        String gradient = Double.isNaN(result[1]) ? ""
+                : String.format(Locale.ROOT, "   value+gradient %7.2f ns/sample", result[1]);
+        System.out.printf(Locale.ROOT, "%-22s %-10s value %7.2f ns/sample%s%s%n",
+                name, workload, result[0], gradient, Double.isNaN(result[2]) ? "  (NaN!)" : "");
+    }
+}
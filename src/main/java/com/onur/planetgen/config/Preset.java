@@ -1,14 +1,25 @@
 package com.onur.planetgen.config;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Preset configuration for planet generation.
  * Encapsulates all parameters for terrain, erosion, climate, clouds, and rendering.
+ * Serializable, so distributed band workers run with the coordinator's exact settings.
  */
-public class Preset {
+public class Preset implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
     // Terrain parameters
     public double seaLevel = 0.02;
     public double continentScale = 2.2;
     public double mountainIntensity = 0.9;
+    public String noiseType = "perlin"; // "perlin" (original, reproduces old seeds), "opensimplex2"
+    public double octaveQuality = 0.0; // > 0: octaves kept up to quality x Nyquist of the output; <= 0 uses fixed counts
+    public double noiseTolerance = 0.0; // > 0: skip terrain octaves that move the raw height less than this; 0 is exact
+    public double lowFrequencyTolerance = 0.0; // > 0: continent/stratocumulus layers on a coarse grid within this error
+    public double reducedGrid = 0.0; // > 0: evaluate rows on ~reducedGrid x W x cos(lat) columns and resample (see ReducedGrid)
 
     // Thermal erosion
     public int thermalIterations = 20;
@@ -36,14 +47,36 @@ public class Preset {
     public double emissiveIntensity = 0.5;
     public double emissiveThreshold = 0.3;
 
+    // Noise recipes (see NoiseGraph); null uses the built-in Java recipe
+    public String terrainRecipe = null;
+    public String cloudRecipe = null;
+
     // Rivers & lakes
     public boolean enableRivers = true;
     public double riverThreshold = 0.3; // Flow accumulation threshold
     public double lakeThreshold = 0.5;  // Local minimum threshold
 
+    // Memory
+    public boolean offHeapFields = false; // Keep surface analysis maps in native memory (see OffHeapMemory)
+
     public Preset() {
     }
 
+    /**
+     * Numeric parameters exposed to noise recipes by field name.
+     */
+    public Map<String, Double> recipeConstants() {
+        Map<String, Double> constants = new LinkedHashMap<>();
+        constants.put("seaLevel", seaLevel);
+        constants.put("continentScale", continentScale);
+        constants.put("mountainIntensity", mountainIntensity);
+        constants.put("moistureBias", moistureBias);
+        constants.put("cloudCoverage", cloudCoverage);
+        constants.put("cloudWarp", cloudWarp);
+        constants.put("cloudGamma", cloudGamma);
+        return constants;
+    }
+
     public Preset(String presetName) {
         loadPreset(presetName);
     }
@@ -192,10 +225,16 @@ public class Preset {
                 "seaLevel=" + seaLevel +
                 ", continentScale=" + continentScale +
                 ", mountainIntensity=" + mountainIntensity +
+                ", noiseType='" + noiseType + '\'' +
+                ", octaveQuality=" + octaveQuality +
+                ", noiseTolerance=" + noiseTolerance +
+                ", lowFrequencyTolerance=" + lowFrequencyTolerance +
+                ", reducedGrid=" + reducedGrid +
                 ", thermalIterations=" + thermalIterations +
                 ", hydraulicIterations=" + hydraulicIterations +
                 ", rainfall=" + rainfall +
                 ", emissiveType='" + emissiveType + '\'' +
+                ", offHeapFields=" + offHeapFields +
                 '}';
     }
 }
@@ -0,0 +1,105 @@
+package com.onur.planetgen.cube;
+
+import com.onur.planetgen.planet.RowCoordinates;
+
+/**
+ * The six faces of a cube sphere, in the usual cubemap order and orientation
+ * (+X, -X, +Y, -Y, +Z, -Z; +Y is the north pole).
+ *
+ * A face pixel (x, y) of an N x N face sits at plane coordinates
+ * {@code u = 2 (x + 0.5) / N - 1} and {@code v = 2 (y + 0.5) / N - 1}, and its direction is
+ * {@code normal + u * right + v * down}, normalized (a gnomonic projection). Corner pixels
+ * cover about a fifth of the solid angle of centre pixels, where equirectangular pixels
+ * shrink to nothing at the poles.
+ */
+public enum CubeFace {
+    POSITIVE_X("px", 1, 0, 0, 0, 0, -1, 0, -1, 0),
+    NEGATIVE_X("nx", -1, 0, 0, 0, 0, 1, 0, -1, 0),
+    POSITIVE_Y("py", 0, 1, 0, 1, 0, 0, 0, 0, 1),
+    NEGATIVE_Y("ny", 0, -1, 0, 1, 0, 0, 0, 0, -1),
+    POSITIVE_Z("pz", 0, 0, 1, 1, 0, 0, 0, -1, 0),
+    NEGATIVE_Z("nz", 0, 0, -1, -1, 0, 0, 0, -1, 0);
+
+    private final String suffix;
+    // Face normal, then the directions of increasing x (right) and increasing y (down)
+    final int nx, ny, nz, rx, ry, rz, dx, dy, dz;
+
+    CubeFace(String suffix, int nx, int ny, int nz, int rx, int ry, int rz, int dx, int dy, int dz) {
+        this.suffix = suffix;
+        this.nx = nx;
+        this.ny = ny;
+        this.nz = nz;
+        this.rx = rx;
+        this.ry = ry;
+        this.rz = rz;
+        this.dx = dx;
+        this.dy = dy;
+        this.dz = dz;
+    }
+
+    /** Short name for file names: px, nx, py, ny, pz, nz. */
+    public String suffix() {
+        return suffix;
+    }
+
+    /** Unit direction of plane point (u, v) into {@code out[0..2]}. */
+    public void direction(double u, double v, double[] out) {
+        double x = nx + u * rx + v * dx;
+        double y = ny + u * ry + v * dy;
+        double z = nz + u * rz + v * dz;
+        double inv = 1.0 / Math.sqrt(x * x + y * y + z * z);
+        out[0] = x * inv;
+        out[1] = y * inv;
+        out[2] = z * inv;
+    }
+
+    /** Plane coordinate of pixel column or row {@code i} on a face {@code size} pixels wide. */
+    public static double plane(int i, int size) {
+        return 2.0 * (i + 0.5) / size - 1.0;
+    }
+
+    /** Unit directions of the pixels of each face row, for the row-wise noise passes. */
+    public RowCoordinates rows(int size) {
+        double[] u = new double[size];
+        for (int i = 0; i < size; i++) {
+            u[i] = plane(i, size);
+        }
+        return (y, xs, ys, zs) -> {
+            double v = u[y];
+            for (int x = 0; x < size; x++) {
+                double px = nx + u[x] * rx + v * dx;
+                double py = ny + u[x] * ry + v * dy;
+                double pz = nz + u[x] * rz + v * dz;
+                double inv = 1.0 / Math.sqrt(px * px + py * py + pz * pz);
+                xs[x] = px * inv;
+                ys[x] = py * inv;
+                zs[x] = pz * inv;
+            }
+        };
+    }
+
+    /**
+     * The face a direction (not necessarily unit length) points through, by its largest
+     * component. Ties go to the earlier face.
+     */
+    public static CubeFace of(double x, double y, double z) {
+        double ax = Math.abs(x), ay = Math.abs(y), az = Math.abs(z);
+        if (ax >= ay && ax >= az) {
+            return x >= 0 ? POSITIVE_X : NEGATIVE_X;
+        }
+        if (ay >= az) {
+            return y >= 0 ? POSITIVE_Y : NEGATIVE_Y;
+        }
+        return z >= 0 ? POSITIVE_Z : NEGATIVE_Z;
+    }
+
+    /** Plane coordinate u of a direction through this face. */
+    public double u(double x, double y, double z) {
+        return (x * rx + y * ry + z * rz) / (x * nx + y * ny + z * nz);
+    }
+
+    /** Plane coordinate v of a direction through this face. */
+    public double v(double x, double y, double z) {
+        return (x * dx + y * dy + z * dz) / (x * nx + y * ny + z * nz);
+    }
+}
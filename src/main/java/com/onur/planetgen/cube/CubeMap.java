@@ -0,0 +1,159 @@
+package com.onur.planetgen.cube;
+
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.planet.RowCoordinates;
+import com.onur.planetgen.planet.SphericalSampler;
+
+/**
+ * A scalar field on a cube sphere: six N x N {@link FloatGrid} faces.
+ *
+ * Faces meet edge to edge, so a pixel k steps past one face's edge is the pixel k - 1
+ * steps inside the neighbouring face, at the same place along the shared edge.
+ * {@link #get} follows that rule for coordinates up to N pixels outside a face, and
+ * {@link #extended} uses it to pad a face with its neighbours' pixels, so the flat-grid
+ * stencils (erosion, flow, normals) see across face edges. Past a cube corner, where only
+ * three faces meet, the padding repeats the nearest edge pixels.
+ */
+public final class CubeMap {
+    /** Largest face size; off-face lookups pack pixel coordinates into 14 bits. */
+    public static final int MAX_SIZE = 1 << 14;
+
+    private final int size;
+    private final FloatGrid[] faces = new FloatGrid[6];
+
+    public CubeMap(int size) {
+        if (size <= 0 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Cube face size must be in [1, " + MAX_SIZE + "]: " + size);
+        }
+        this.size = size;
+        for (int f = 0; f < 6; f++) {
+            faces[f] = new FloatGrid(size, size);
+        }
+    }
+
+    /** Pixels along each face edge. */
+    public int size() {
+        return size;
+    }
+
+    public FloatGrid face(CubeFace face) {
+        return faces[face.ordinal()];
+    }
+
+    /** Statistics over all six faces. */
+    public FieldStats stats() {
+        FieldStats.Accumulator acc = new FieldStats.Accumulator();
+        for (FloatGrid face : faces) {
+            for (int y = 0; y < size; y++) {
+                acc.add(face.data(), face.index(0, y), size);
+            }
+        }
+        return acc.result();
+    }
+
+    /**
+     * Value at pixel (x, y) of {@code face}, where x and y may lie up to {@link #size()}
+     * pixels beyond the face and are then read from the neighbouring face.
+     */
+    public float get(CubeFace face, int x, int y) {
+        if (x >= 0 && x < size && y >= 0 && y < size) {
+            return faces[face.ordinal()].get(x, y);
+        }
+        int at = locate(face, x, y);
+        return faces[at >>> 28].get(at & 0x3FFF, (at >>> 14) & 0x3FFF);
+    }
+
+    /**
+     * A copy of {@code face} with {@code margin} pixels of its neighbours on every side
+     * (at most the face size); face pixel (x, y) is at (x + margin, y + margin).
+     */
+    public FloatGrid extended(CubeFace face, int margin) {
+        if (margin < 0 || margin > size) {
+            throw new IllegalArgumentException("Margin must be in [0, " + size + "]: " + margin);
+        }
+        int n = size + 2 * margin;
+        FloatGrid out = new FloatGrid(n, n);
+        FloatGrid src = faces[face.ordinal()];
+        for (int y = 0; y < n; y++) {
+            int fy = y - margin;
+            for (int x = 0; x < n; x++) {
+                int fx = x - margin;
+                boolean inside = fx >= 0 && fx < size && fy >= 0 && fy < size;
+                out.set(x, y, inside ? src.get(fx, fy) : get(face, fx, fy));
+            }
+        }
+        return out;
+    }
+
+    /** Overwrite {@code face} with the face pixels of an {@link #extended} grid. */
+    public void setFromExtended(CubeFace face, FloatGrid extended, int margin) {
+        FloatGrid dst = faces[face.ordinal()];
+        for (int y = 0; y < size; y++) {
+            System.arraycopy(extended.data(), extended.index(margin, y + margin), dst.data(), dst.index(0, y), size);
+        }
+    }
+
+    /** Bilinear sample in the direction (x, y, z), interpolating across face edges. */
+    public float sample(double x, double y, double z) {
+        CubeFace face = CubeFace.of(x, y, z);
+        double px = (face.u(x, y, z) + 1.0) * 0.5 * size - 0.5;
+        double py = (face.v(x, y, z) + 1.0) * 0.5 * size - 0.5;
+        int x0 = (int) Math.floor(px), y0 = (int) Math.floor(py);
+        double fx = px - x0, fy = py - y0;
+        double top = get(face, x0, y0) * (1.0 - fx) + get(face, x0 + 1, y0) * fx;
+        double bottom = get(face, x0, y0 + 1) * (1.0 - fx) + get(face, x0 + 1, y0 + 1) * fx;
+        return (float) (top * (1.0 - fy) + bottom * fy);
+    }
+
+    /** Resample to a W x H equirectangular grid. */
+    public FloatGrid toEquirect(int W, int H) {
+        RowCoordinates coords = RowCoordinates.computed(new SphericalSampler(W, H));
+        FloatGrid out = new FloatGrid(W, H);
+        java.util.stream.IntStream.range(0, H).parallel().forEach(y -> {
+            double[] xs = new double[W], ys = new double[W], zs = new double[W];
+            coords.fill(y, xs, ys, zs);
+            int row = out.index(0, y);
+            for (int x = 0; x < W; x++) {
+                out.data()[row + x] = sample(xs[x], ys[x], zs[x]);
+            }
+        });
+        return out;
+    }
+
+    /**
+     * Face and pixel of an off-face coordinate, packed as face << 28 | y << 14 | x. The
+     * coordinate is folded over the face edge onto the neighbour; past a corner the
+     * smaller overshoot is clamped first.
+     */
+    private int locate(CubeFace face, int x, int y) {
+        int overX = x < 0 ? -x : x >= size ? x - size + 1 : 0;
+        int overY = y < 0 ? -y : y >= size ? y - size + 1 : 0;
+        if (overX > 0 && overY > 0) {
+            if (overX < overY) {
+                x = Math.max(0, Math.min(size - 1, x));
+                overX = 0;
+            } else {
+                y = Math.max(0, Math.min(size - 1, y));
+                overY = 0;
+            }
+        }
+        // Step onto the neighbour's plane: the edge point, then (2k - 1) / N back along the normal
+        double u = overX > 0 ? (x < 0 ? -1.0 : 1.0) : CubeFace.plane(x, size);
+        double v = overY > 0 ? (y < 0 ? -1.0 : 1.0) : CubeFace.plane(y, size);
+        int over = Math.min(size, Math.max(overX, overY));
+        double depth = 1.0 - (2.0 * over - 1.0) / size;
+        double px = face.nx * depth + u * face.rx + v * face.dx;
+        double py = face.ny * depth + u * face.ry + v * face.dy;
+        double pz = face.nz * depth + u * face.rz + v * face.dz;
+
+        CubeFace to = CubeFace.of(px, py, pz);
+        int tx = pixel(to.u(px, py, pz)), ty = pixel(to.v(px, py, pz));
+        return to.ordinal() << 28 | ty << 14 | tx;
+    }
+
+    private int pixel(double plane) {
+        int i = (int) Math.floor((plane + 1.0) * 0.5 * size);
+        return Math.max(0, Math.min(size - 1, i));
+    }
+}
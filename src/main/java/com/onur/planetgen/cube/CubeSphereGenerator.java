@@ -0,0 +1,230 @@
+package com.onur.planetgen.cube;
+
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.erosion.HydraulicErosion;
+import com.onur.planetgen.erosion.ThermalErosion;
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+import com.onur.planetgen.planet.ParallelHeightFieldGenerator;
+import com.onur.planetgen.planet.RowCoordinates;
+import com.onur.planetgen.render.SurfaceAnalyzer;
+import com.onur.planetgen.tile.TiledPlanetGenerator;
+import com.onur.planetgen.util.ImageUtil;
+import com.onur.planetgen.util.PngWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Terrain on a cube sphere: the height field as six {@link CubeMap} faces instead of one
+ * equirectangular grid.
+ *
+ * An equirectangular grid spends as many samples on a polar row as on the equator. Six
+ * faces of N = H / 2 pixels match its equatorial resolution with 1.5 H^2 samples instead
+ * of 2 H^2, spread evenly enough that erosion stencils do not degenerate at the poles.
+ *
+ * Noise runs on the normalized face directions with the same layers as the equirectangular
+ * generator. Erosion runs per face on a copy padded with {@link TiledPlanetGenerator#erosionHalo}
+ * pixels of the neighbouring faces (at most a face), so material flows across face edges.
+ * As in tiled bands, that halo is exact for hydraulic erosion but only approximates the
+ * in-place thermal sweep, and the cube corners, where three faces meet, are approximated
+ * too. Flow and surface analysis
+ * likewise run per face with {@link TiledPlanetGenerator#SURFACE_HALO} pixels of context;
+ * climate and surface detail are laid out as on a 4N x 2N equirectangular planet.
+ */
+public final class CubeSphereGenerator {
+    private CubeSphereGenerator() {}
+
+    /** Normalized, eroded heights on faces of {@code faceSize} pixels. */
+    public static CubeMap generate(long seed, int faceSize, Preset preset) {
+        CubeMap cube = new CubeMap(faceSize);
+        int N = faceSize;
+        // A face spans a quarter turn, so its pixels are about pi / 2N radians across
+        ParallelHeightFieldGenerator.Terrain terrain =
+                new ParallelHeightFieldGenerator.Terrain(seed, N, Math.PI / (2.0 * N), preset);
+        System.out.println("Terrain octaves: " + terrain.octaveCounts());
+        CubeFace[] faces = CubeFace.values();
+        RowCoordinates[] rows = new RowCoordinates[faces.length];
+        for (CubeFace face : faces) {
+            rows[face.ordinal()] = face.rows(N);
+        }
+
+        System.out.println("Generating terrain on 6 cube faces of " + N + "x" + N + " (parallel)...");
+        FieldStats stats = java.util.stream.IntStream.range(0, faces.length * N).parallel()
+                .collect(FieldStats.Accumulator::new, (acc, r) -> {
+                    CubeFace face = faces[r / N];
+                    int y = r % N;
+                    FloatGrid grid = cube.face(face);
+                    terrain.row(y, rows[face.ordinal()], grid.data(), grid.index(0, y));
+                    acc.add(grid.data(), grid.index(0, y), N);
+                }, FieldStats.Accumulator::combine)
+                .result();
+
+        for (CubeFace face : faces) {
+            FloatGrid grid = cube.face(face);
+            for (int y = 0; y < N; y++) {
+                ParallelHeightFieldGenerator.normalizeRow(grid.data(), grid.index(0, y), N,
+                        stats.min(), stats.max(), preset.seaLevel);
+            }
+        }
+
+        erode(cube, preset);
+        return cube;
+    }
+
+    /** Thermal then hydraulic erosion on every face, seeing across face edges. */
+    public static void erode(CubeMap cube, Preset preset) {
+        int margin = Math.min(cube.size(), TiledPlanetGenerator.erosionHalo(preset));
+        System.out.println("Eroding cube faces (margin " + margin + ", thermal " + preset.thermalIterations
+                + ", hydraulic " + preset.hydraulicIterations + " iterations)...");
+        CubeFace[] faces = CubeFace.values();
+        // Pad every face from the uneroded neighbours before any face is written back
+        FloatGrid[] padded = new FloatGrid[faces.length];
+        for (CubeFace face : faces) {
+            padded[face.ordinal()] = cube.extended(face, margin);
+        }
+        java.util.stream.IntStream.range(0, faces.length).parallel().forEach(f -> {
+            ThermalErosion.apply(padded[f], preset.thermalIterations, preset.thermalTalus, preset.thermalK);
+            HydraulicErosion.apply(padded[f], preset.hydraulicIterations, preset.rainfall, preset.evaporation);
+        });
+        for (CubeFace face : faces) {
+            cube.setFromExtended(face, padded[face.ordinal()], margin);
+        }
+    }
+
+    /** Tangent-space normals of one face, as {@code NormalMapRenderer} but without the latitude term. */
+    public static IntGrid renderNormals(CubeMap cube, CubeFace face) {
+        int N = cube.size();
+        FloatGrid h = cube.extended(face, 1);
+        float[] height = h.data();
+        IntGrid out = new IntGrid(N, N);
+        int[] argb = out.data();
+        for (int y = 0; y < N; y++) {
+            int row = h.index(1, y + 1), rowN = h.index(1, y), rowS = h.index(1, y + 2);
+            int outRow = out.index(0, y);
+            for (int x = 0; x < N; x++) {
+                double dhdx = (height[row + x + 1] - height[row + x - 1]) * 0.5;
+                double dhdy = (height[rowS + x] - height[rowN + x]) * 0.5;
+                double nx = -dhdx, ny = -dhdy, nz = 1.0;
+                double L = Math.sqrt(nx * nx + ny * ny + nz * nz);
+                int r = (int) Math.round((nx / L * 0.5 + 0.5) * 255);
+                int g = (int) Math.round((ny / L * 0.5 + 0.5) * 255);
+                int b = (int) Math.round((nz / L * 0.5 + 0.5) * 255);
+                argb[outRow + x] = (255 << 24) | ((r & 255) << 16) | ((g & 255) << 8) | (b & 255);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Surface analysis of one face: flow, rivers, lakes and occlusion on the face padded with
+     * {@link TiledPlanetGenerator#SURFACE_HALO} pixels of its neighbours, so they cross face
+     * edges.
+     */
+    public static SurfaceAnalyzer.SurfaceData analyzeFace(CubeMap cube, CubeFace face, Preset preset, long seed) {
+        int margin = Math.min(cube.size(), TiledPlanetGenerator.SURFACE_HALO);
+        return SurfaceAnalyzer.analyzeWindow(cube.extended(face, margin), placement(face, cube.size()), margin,
+                preset, seed);
+    }
+
+    /**
+     * Places the pixels of a face of {@code N} pixels on the 4N x 2N equirectangular planet
+     * of the same equatorial resolution, at each pixel's own latitude.
+     */
+    static SurfaceAnalyzer.Placement placement(CubeFace face, int N) {
+        int W = 4 * N, H = 2 * N;
+        return new SurfaceAnalyzer.Placement() {
+            @Override
+            public int planetWidth() {
+                return W;
+            }
+
+            @Override
+            public int planetHeight() {
+                return H;
+            }
+
+            @Override
+            public void row(int y, int[] planetColumn, int[] planetRow, double[] lat) {
+                double v = CubeFace.plane(y, N);
+                double[] dir = new double[3];
+                for (int x = 0; x < N; x++) {
+                    face.direction(CubeFace.plane(x, N), v, dir);
+                    double phi = Math.asin(Math.max(-1.0, Math.min(1.0, dir[1])));
+                    double lon = Math.atan2(dir[2], dir[0]);
+                    // Inverse of SphericalSampler's pixel centres
+                    planetColumn[x] = Math.min(W - 1, (int) ((lon + Math.PI) / (2.0 * Math.PI) * W));
+                    planetRow[x] = Math.min(H - 1, (int) ((Math.PI / 2.0 - phi) / Math.PI * H));
+                    lat[x] = phi;
+                }
+            }
+        };
+    }
+
+    /**
+     * Write the per-face maps in {@code exports} as the equirectangular file names with the
+     * face appended, such as {@code planet_height_16u_<face>.png} and
+     * {@code planet_albedo_<N>x<N>_<face>.png}. Heights share one range over all faces, so
+     * the faces line up at their edges. Clouds and emissive are laid out on the
+     * equirectangular grid and are only written through {@link CubeMap#toEquirect}.
+     */
+    public static void export(CubeMap cube, long seed, Preset preset, Set<String> exports, Path outDir)
+            throws IOException {
+        int N = cube.size();
+        if (exports.contains("height")) {
+            System.out.println("Saving cube face height maps...");
+            FieldStats stats = cube.stats();
+            double inv = 1.0 / Math.max(1e-9, (stats.max() - stats.min()));
+            int[] row = new int[N];
+            for (CubeFace face : CubeFace.values()) {
+                FloatGrid grid = cube.face(face);
+                try (PngWriter png = new PngWriter(outDir.resolve("planet_height_16u_" + face.suffix() + ".png"),
+                        N, N, PngWriter.Format.GRAY16)) {
+                    for (int y = 0; y < N; y++) {
+                        int offset = grid.index(0, y);
+                        for (int x = 0; x < N; x++) {
+                            row[x] = (int) Math.round((grid.data()[offset + x] - stats.min()) * inv * 65535.0) & 0xFFFF;
+                        }
+                        png.writeRow(row, 0);
+                    }
+                }
+            }
+        }
+        if (exports.contains("normal")) {
+            System.out.println("Rendering cube face normals...");
+            for (CubeFace face : CubeFace.values()) {
+                ImageUtil.saveARGB(renderNormals(cube, face), outDir.resolve("planet_normal_" + face.suffix() + ".png"));
+            }
+        }
+        if (TiledPlanetGenerator.needsSurface(exports)) {
+            System.out.println("Analysing cube face surfaces...");
+            for (CubeFace face : CubeFace.values()) {
+                try (SurfaceAnalyzer.SurfaceData surface = analyzeFace(cube, face, preset, seed)) {
+                    for (String map : exports) {
+                        IntGrid grid = surface.map(map);
+                        if (grid == null) {
+                            continue;
+                        }
+                        Path file = outDir.resolve(faceFileName(map, N, face));
+                        if (TiledPlanetGenerator.format(map) == PngWriter.Format.GRAY8) {
+                            ImageUtil.saveGray8(grid, file);
+                        } else {
+                            ImageUtil.saveARGB(grid, file);
+                        }
+                    }
+                }
+            }
+        }
+        if (exports.contains("clouds") || exports.contains("emissive")) {
+            System.out.println("Clouds and emissive are only written on the equirectangular grid (--cube-equirect)");
+        }
+    }
+
+    /** {@code map}'s equirectangular file name for an N x N image, with the face appended. */
+    static String faceFileName(String map, int N, CubeFace face) {
+        String name = TiledPlanetGenerator.fileName(map, N, N);
+        return name.substring(0, name.length() - ".png".length()) + "_" + face.suffix() + ".png";
+    }
+}
@@ -1,5 +1,9 @@
 package com.onur.planetgen.erosion;
 
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+import com.onur.planetgen.util.ResolutionCache;
+
 import java.util.Arrays;
 import java.util.PriorityQueue;
 
@@ -8,19 +12,21 @@ import java.util.PriorityQueue;
  * Computes downslope routing, slope magnitude, and flow accumulation.
  */
 public final class FlowField {
-    public final float[][] flowX;   // X component of normalized flow direction
-    public final float[][] flowY;   // Y component of normalized flow direction
-    public final float[][] accum;   // Flow accumulation (how much water passes through)
-    public final float[][] slope;   // Local slope magnitude toward steepest descent
-    public final int[][] targetY;   // Y coordinate of the downstream cell (-1 for sinks)
-    public final int[][] targetX;   // X coordinate of the downstream cell (-1 for sinks)
-
-    FlowField(float[][] flowX,
-              float[][] flowY,
-              float[][] accum,
-              float[][] slope,
-              int[][] targetY,
-              int[][] targetX) {
+    public final FloatGrid flowX;   // X component of normalized flow direction
+    public final FloatGrid flowY;   // Y component of normalized flow direction
+    public final FloatGrid accum;   // Flow accumulation (how much water passes through)
+    public final FloatGrid slope;   // Local slope magnitude toward steepest descent
+    public final IntGrid targetY;   // Y coordinate of the downstream cell (-1 for sinks)
+    public final IntGrid targetX;   // X coordinate of the downstream cell (-1 for sinks)
+
+    private Workspace pooled;       // Borrowed from ResolutionCache by compute(h); null otherwise
+
+    FlowField(FloatGrid flowX,
+              FloatGrid flowY,
+              FloatGrid accum,
+              FloatGrid slope,
+              IntGrid targetY,
+              IntGrid targetX) {
         this.flowX = flowX;
         this.flowY = flowY;
         this.accum = accum;
@@ -31,34 +37,36 @@ public final class FlowField {
 
     /**
      * Compute flow field using a temporary workspace that is reused across calls.
+     * The returned grids belong to the workspace and are overwritten by its next use.
      */
-    public static FlowField compute(float[][] h, Workspace workspace) {
-        int H = h.length;
-        int W = h[0].length;
+    public static FlowField compute(FloatGrid h, Workspace workspace) {
+        int H = h.height();
+        int W = h.width();
+        float[] height = h.data();
 
         workspace.ensureCapacity(H, W);
 
-        float[][] flowX = workspace.flowX;
-        float[][] flowY = workspace.flowY;
-        float[][] accum = workspace.accum;
-        float[][] slope = workspace.slope;
-        int[][] targetY = workspace.targetY;
-        int[][] targetX = workspace.targetX;
+        // Workspace grids are tightly packed: cell (x, y) is at y * W + x
+        float[] flowX = workspace.flowX.data();
+        float[] flowY = workspace.flowY.data();
+        float[] accum = workspace.accum.data();
+        float[] slope = workspace.slope.data();
+        int[] targetY = workspace.targetY.data();
+        int[] targetX = workspace.targetX.data();
         boolean[] visited = workspace.visited;
+        int total = H * W;
 
         // Reset working arrays
-        for (int y = 0; y < H; y++) {
-            Arrays.fill(flowX[y], 0f);
-            Arrays.fill(flowY[y], 0f);
-            Arrays.fill(accum[y], 1f); // Each cell contributes at least its own runoff
-            Arrays.fill(slope[y], 0f);
-        }
-        Arrays.fill(visited, 0, H * W, false);
+        Arrays.fill(flowX, 0, total, 0f);
+        Arrays.fill(flowY, 0, total, 0f);
+        Arrays.fill(accum, 0, total, 1f); // Each cell contributes at least its own runoff
+        Arrays.fill(slope, 0, total, 0f);
+        Arrays.fill(visited, 0, total, false);
 
         // Determine steepest descent direction per cell
         for (int y = 0; y < H; y++) {
             for (int x = 0; x < W; x++) {
-                float center = h[y][x];
+                float center = height[h.index(x, y)];
 
                 float maxSlope = 0f;
                 int bestY = -1;
@@ -76,7 +84,7 @@ public final class FlowField {
                         int nx = x + dx;
                         int wrappedX = (nx + W) % W;
 
-                        float neighbor = h[ny][wrappedX];
+                        float neighbor = height[h.index(wrappedX, ny)];
                         float diff = center - neighbor;
                         if (diff <= 0f) continue; // only consider downslope
 
@@ -93,11 +101,12 @@ public final class FlowField {
                     }
                 }
 
-                targetY[y][x] = bestY;
-                targetX[y][x] = bestY >= 0 ? bestX : -1;
-                flowX[y][x] = bestY >= 0 ? bestFx : 0f;
-                flowY[y][x] = bestY >= 0 ? bestFy : 0f;
-                slope[y][x] = maxSlope;
+                int i = y * W + x;
+                targetY[i] = bestY;
+                targetX[i] = bestY >= 0 ? bestX : -1;
+                flowX[i] = bestY >= 0 ? bestFx : 0f;
+                flowY[i] = bestY >= 0 ? bestFy : 0f;
+                slope[i] = maxSlope;
             }
         }
 
@@ -106,39 +115,60 @@ public final class FlowField {
         queue.clear();
 
         Cell[] cells = workspace.cells;
-        int total = H * W;
         for (int index = 0; index < total; index++) {
             Cell cell = cells[index];
-            cell.height = h[cell.y][cell.x];
+            cell.height = height[h.index(cell.x, cell.y)];
             queue.offer(cell);
         }
 
         while (!queue.isEmpty()) {
             Cell cell = queue.poll();
-            int cy = cell.y;
-            int cx = cell.x;
-
-            int flatIndex = cy * W + cx;
+            int flatIndex = cell.y * W + cell.x;
             if (visited[flatIndex]) continue;
             visited[flatIndex] = true;
 
-            int ty = targetY[cy][cx];
+            int ty = targetY[flatIndex];
             if (ty >= 0) {
-                int tx = targetX[cy][cx];
-                accum[ty][tx] += accum[cy][cx];
+                accum[ty * W + targetX[flatIndex]] += accum[flatIndex];
             }
         }
 
-        return new FlowField(flowX, flowY, accum, slope, targetY, targetX);
+        return new FlowField(workspace.flowX, workspace.flowY, workspace.accum, workspace.slope,
+                workspace.targetY, workspace.targetX);
+    }
+
+    /**
+     * Convenience overload that borrows a workspace of the grid's size from
+     * {@link ResolutionCache}. Call {@link #release} when done with the result so the next
+     * call at this size reuses it; an unreleased workspace is simply garbage collected.
+     */
+    public static FlowField compute(FloatGrid h) {
+        Workspace workspace = ResolutionCache.acquire(Workspace.class, h.width(), h.height(),
+                () -> new Workspace(h.height(), h.width()));
+        FlowField flow = compute(h, workspace);
+        flow.pooled = workspace;
+        return flow;
+    }
+
+    /**
+     * Hand the workspace of {@link #compute(FloatGrid)} back for reuse. This field's grids
+     * belong to it, so they must not be used afterwards. Does nothing for a field computed
+     * in a caller's own workspace.
+     */
+    public void release() {
+        Workspace workspace = pooled;
+        if (workspace != null) {
+            pooled = null;
+            ResolutionCache.release(Workspace.class, workspace.width, workspace.height, workspace);
+        }
     }
 
     /**
-     * Convenience overload that allocates a workspace on each call.
-     * Prefer {@link #compute(float[][], Workspace)} when invoked repeatedly.
+     * {@link #compute(FloatGrid)} on a {@code float[H][W]} array, for callers on the
+     * row-array layout.
      */
     public static FlowField compute(float[][] h) {
-        Workspace workspace = new Workspace(h.length, h[0].length);
-        return compute(h, workspace);
+        return compute(FloatGrid.fromRows(h));
     }
 
     /**
@@ -146,12 +176,12 @@ public final class FlowField {
      */
     public static final class Workspace {
         private final PriorityQueue<Cell> queue;
-        float[][] flowX;
-        float[][] flowY;
-        float[][] accum;
-        float[][] slope;
-        int[][] targetY;
-        int[][] targetX;
+        FloatGrid flowX;
+        FloatGrid flowY;
+        FloatGrid accum;
+        FloatGrid slope;
+        IntGrid targetY;
+        IntGrid targetX;
         boolean[] visited;
         Cell[] cells;
         int height;
@@ -172,12 +202,12 @@ public final class FlowField {
             this.height = height;
             this.width = width;
 
-            flowX = new float[height][width];
-            flowY = new float[height][width];
-            accum = new float[height][width];
-            slope = new float[height][width];
-            targetY = new int[height][width];
-            targetX = new int[height][width];
+            flowX = new FloatGrid(width, height);
+            flowY = new FloatGrid(width, height);
+            accum = new FloatGrid(width, height);
+            slope = new FloatGrid(width, height);
+            targetY = new IntGrid(width, height);
+            targetX = new IntGrid(width, height);
             visited = new boolean[height * width];
 
             cells = new Cell[height * width];
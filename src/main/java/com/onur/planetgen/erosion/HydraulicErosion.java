@@ -1,5 +1,7 @@
 package com.onur.planetgen.erosion;
 
+import com.onur.planetgen.field.FloatGrid;
+
 public final class HydraulicErosion {
     private HydraulicErosion() {}
 
@@ -12,28 +14,32 @@ public final class HydraulicErosion {
      * for occasional single-run use: it converges more quickly, moves less sediment,
      * and prefers deposition rather than carving deep channels.
      *
-     * @param h height field (modified in-place)
+     * @param heightGrid height field (modified in-place)
      * @param iterations number of erosion iterations
      * @param rainfall amount of water added per iteration (typical: 0.05-0.3)
      * @param evaporation rate of evaporation per iteration (typical: 0.1-0.5)
      */
-    public static void apply(float[][] h, int iterations, double rainfall, double evaporation) {
-        if (iterations <= 0 || h == null || h.length == 0) {
+    public static void apply(FloatGrid heightGrid, int iterations, double rainfall, double evaporation) {
+        if (iterations <= 0 || heightGrid == null) {
             return;
         }
 
-        int H = h.length;
-        int W = h[0].length;
+        int H = heightGrid.height();
+        int W = heightGrid.width();
+        int stride = heightGrid.stride();
+        int size = stride * H;
+        float[] h = heightGrid.data();
 
-        float[][] water = new float[H][W];
-        float[][] sediment = new float[H][W];
-        float[][] newWater = new float[H][W];
-        float[][] newHeight = new float[H][W];
+        // Work buffers share the height field's layout, so one index addresses every field
+        float[] water = new float[size];
+        float[] sediment = new float[size];
+        float[] newWater = new float[size];
+        float[] newHeight = new float[size];
 
-        float[][] fluxLeft = new float[H][W];
-        float[][] fluxRight = new float[H][W];
-        float[][] fluxTop = new float[H][W];
-        float[][] fluxBottom = new float[H][W];
+        float[] fluxLeft = new float[size];
+        float[] fluxRight = new float[size];
+        float[] fluxTop = new float[size];
+        float[] fluxBottom = new float[size];
 
         final float rainfallF = (float) rainfall;
         final float evaporationFactor = (float) (1.0 - evaporation);
@@ -59,40 +65,37 @@ public final class HydraulicErosion {
         for (int iter = 0; iter < iterations; iter++) {
             // 1. Rainfall
             for (int y = 0; y < H; y++) {
-                float[] waterRow = water[y];
-                for (int x = 0; x < W; x++) {
-                    waterRow[x] += rainfallF;
+                int row = y * stride;
+                for (int i = row; i < row + W; i++) {
+                    water[i] += rainfallF;
                 }
             }
 
             // 2. Update directional fluxes based on height differences
             for (int y = 0; y < H; y++) {
-                int yNorth = y > 0 ? y - 1 : y;
-                int ySouth = y < H - 1 ? y + 1 : y;
-                float[] waterRow = water[y];
-                float[] rowFluxLeft = fluxLeft[y];
-                float[] rowFluxRight = fluxRight[y];
-                float[] rowFluxTop = fluxTop[y];
-                float[] rowFluxBottom = fluxBottom[y];
+                int row = y * stride;
+                int north = (y > 0 ? y - 1 : y) * stride;
+                int south = (y < H - 1 ? y + 1 : y) * stride;
 
                 for (int x = 0; x < W; x++) {
-                    int xWest = (x - 1 + W) % W;
-                    int xEast = (x + 1) % W;
+                    int i = row + x;
+                    int west = row + (x - 1 + W) % W;
+                    int east = row + (x + 1) % W;
 
-                    float currentHeight = h[y][x] + waterRow[x];
+                    float currentHeight = h[i] + water[i];
 
-                    float slopeLeft = currentHeight - (h[y][xWest] + water[y][xWest]);
-                    float slopeRight = currentHeight - (h[y][xEast] + water[y][xEast]);
-                    float slopeTop = (y > 0) ? currentHeight - (h[yNorth][x] + water[yNorth][x]) : 0f;
-                    float slopeBottom = (y < H - 1) ? currentHeight - (h[ySouth][x] + water[ySouth][x]) : 0f;
+                    float slopeLeft = currentHeight - (h[west] + water[west]);
+                    float slopeRight = currentHeight - (h[east] + water[east]);
+                    float slopeTop = (y > 0) ? currentHeight - (h[north + x] + water[north + x]) : 0f;
+                    float slopeBottom = (y < H - 1) ? currentHeight - (h[south + x] + water[south + x]) : 0f;
 
-                    float newFluxLeft = slopeLeft > 0f ? (rowFluxLeft[x] + flowFactor * slopeLeft) * fluxDamping : 0f;
-                    float newFluxRight = slopeRight > 0f ? (rowFluxRight[x] + flowFactor * slopeRight) * fluxDamping : 0f;
-                    float newFluxTop = slopeTop > 0f ? (rowFluxTop[x] + flowFactor * slopeTop) * fluxDamping : 0f;
-                    float newFluxBottom = slopeBottom > 0f ? (rowFluxBottom[x] + flowFactor * slopeBottom) * fluxDamping : 0f;
+                    float newFluxLeft = slopeLeft > 0f ? (fluxLeft[i] + flowFactor * slopeLeft) * fluxDamping : 0f;
+                    float newFluxRight = slopeRight > 0f ? (fluxRight[i] + flowFactor * slopeRight) * fluxDamping : 0f;
+                    float newFluxTop = slopeTop > 0f ? (fluxTop[i] + flowFactor * slopeTop) * fluxDamping : 0f;
+                    float newFluxBottom = slopeBottom > 0f ? (fluxBottom[i] + flowFactor * slopeBottom) * fluxDamping : 0f;
 
                     float totalOut = newFluxLeft + newFluxRight + newFluxTop + newFluxBottom;
-                    float available = waterRow[x];
+                    float available = water[i];
                     if (totalOut > available && totalOut > 0f) {
                         float scale = available / totalOut;
                         newFluxLeft *= scale;
@@ -101,66 +104,64 @@ public final class HydraulicErosion {
                         newFluxBottom *= scale;
                     }
 
-                    rowFluxLeft[x] = newFluxLeft;
-                    rowFluxRight[x] = newFluxRight;
-                    rowFluxTop[x] = newFluxTop;
-                    rowFluxBottom[x] = newFluxBottom;
+                    fluxLeft[i] = newFluxLeft;
+                    fluxRight[i] = newFluxRight;
+                    fluxTop[i] = newFluxTop;
+                    fluxBottom[i] = newFluxBottom;
                 }
             }
 
             // 3. Move water according to fluxes
             for (int y = 0; y < H; y++) {
-                int yNorth = y > 0 ? y - 1 : y;
-                int ySouth = y < H - 1 ? y + 1 : y;
+                int row = y * stride;
+                int north = (y > 0 ? y - 1 : y) * stride;
+                int south = (y < H - 1 ? y + 1 : y) * stride;
 
                 for (int x = 0; x < W; x++) {
-                    int xWest = (x - 1 + W) % W;
-                    int xEast = (x + 1) % W;
+                    int i = row + x;
+                    int west = row + (x - 1 + W) % W;
+                    int east = row + (x + 1) % W;
 
-                    float outFlux = fluxLeft[y][x] + fluxRight[y][x] + fluxTop[y][x] + fluxBottom[y][x];
+                    float outFlux = fluxLeft[i] + fluxRight[i] + fluxTop[i] + fluxBottom[i];
 
-                    float inFlux = fluxRight[y][xWest] + fluxLeft[y][xEast];
+                    float inFlux = fluxRight[west] + fluxLeft[east];
                     if (y > 0) {
-                        inFlux += fluxBottom[yNorth][x];
+                        inFlux += fluxBottom[north + x];
                     }
                     if (y < H - 1) {
-                        inFlux += fluxTop[ySouth][x];
+                        inFlux += fluxTop[south + x];
                     }
 
-                    float newAmount = water[y][x] + inFlux - outFlux;
-                    newWater[y][x] = newAmount > 0f ? newAmount : 0f;
+                    float newAmount = water[i] + inFlux - outFlux;
+                    newWater[i] = newAmount > 0f ? newAmount : 0f;
                 }
             }
 
             // Swap water buffers
-            float[][] tmpWater = water;
+            float[] tmpWater = water;
             water = newWater;
             newWater = tmpWater;
 
             // 4. Copy terrain for edits
-            for (int y = 0; y < H; y++) {
-                System.arraycopy(h[y], 0, newHeight[y], 0, W);
-            }
+            System.arraycopy(h, 0, newHeight, 0, size);
 
             // 5. Erode or deposit based on transport capacity
             for (int y = 0; y < H; y++) {
-                float[] waterRow = water[y];
-                float[] sedimentRow = sediment[y];
-                float[] newHeightRow = newHeight[y];
-
+                int row = y * stride;
                 for (int x = 0; x < W; x++) {
-                    float waterHere = waterRow[x];
+                    int i = row + x;
+                    float waterHere = water[i];
                     if (waterHere < minWater) {
                         continue;
                     }
 
-                    float slope = localSlope(h, x, y);
+                    float slope = localSlope(heightGrid, x, y);
                     if (slope < minSlope) {
                         slope = minSlope;
                     }
 
-                    float velX = fluxRight[y][x] - fluxLeft[y][x];
-                    float velY = fluxBottom[y][x] - fluxTop[y][x];
+                    float velX = fluxRight[i] - fluxLeft[i];
+                    float velY = fluxBottom[i] - fluxTop[i];
                     float velocity = (float) Math.sqrt(velX * velX + velY * velY);
 
                     float capacity = waterHere * (capacitySlopeFactor * slope + capacityVelocityFactor * velocity);
@@ -168,60 +169,69 @@ public final class HydraulicErosion {
                         capacity = minCapacity;
                     }
 
-                    float suspended = sedimentRow[x];
+                    float suspended = sediment[i];
                     if (suspended > capacity) {
                         float deposit = depositionRate * (suspended - capacity);
                         if (deposit > suspended) {
                             deposit = suspended;
                         }
-                        newHeightRow[x] += deposit;
-                        sedimentRow[x] -= deposit;
+                        newHeight[i] += deposit;
+                        sediment[i] -= deposit;
                     } else {
                         float erode = erosionRate * (capacity - suspended);
                         if (erode > maxErosion) {
                             erode = maxErosion;
                         }
                         if (erode > 0f) {
-                            newHeightRow[x] -= erode;
-                            sedimentRow[x] += erode;
+                            newHeight[i] -= erode;
+                            sediment[i] += erode;
                         }
                     }
                 }
             }
 
-            for (int y = 0; y < H; y++) {
-                System.arraycopy(newHeight[y], 0, h[y], 0, W);
-            }
+            System.arraycopy(newHeight, 0, h, 0, size);
 
             // 6. Evaporate and settle sediment
             for (int y = 0; y < H; y++) {
-                float[] waterRow = water[y];
-                float[] sedimentRow = sediment[y];
-                float[] heightRow = h[y];
-
-                for (int x = 0; x < W; x++) {
-                    waterRow[x] *= evaporationFactor;
-                    if (waterRow[x] < minWater) {
-                        heightRow[x] += sedimentRow[x];
-                        sedimentRow[x] = 0f;
-                        waterRow[x] = 0f;
+                int row = y * stride;
+                for (int i = row; i < row + W; i++) {
+                    water[i] *= evaporationFactor;
+                    if (water[i] < minWater) {
+                        h[i] += sediment[i];
+                        sediment[i] = 0f;
+                        water[i] = 0f;
                     }
                 }
             }
         }
     }
 
-    private static float localSlope(float[][] h, int x, int y) {
-        int H = h.length;
-        int W = h[0].length;
+    /**
+     * {@link #apply(FloatGrid, int, double, double)} on a {@code float[H][W]} array,
+     * for callers on the row-array layout.
+     */
+    public static void apply(float[][] h, int iterations, double rainfall, double evaporation) {
+        if (iterations <= 0 || h == null || h.length == 0) {
+            return;
+        }
+        FloatGrid grid = FloatGrid.fromRows(h);
+        apply(grid, iterations, rainfall, evaporation);
+        grid.copyToRows(h);
+    }
+
+    private static float localSlope(FloatGrid h, int x, int y) {
+        int H = h.height();
+        int W = h.width();
+        float[] data = h.data();
 
         int xWest = (x - 1 + W) % W;
         int xEast = (x + 1) % W;
         int yNorth = Math.max(0, y - 1);
         int ySouth = Math.min(H - 1, y + 1);
 
-        float slopeX = (h[y][xEast] - h[y][xWest]) * 0.5f;
-        float slopeY = (h[ySouth][x] - h[yNorth][x]) * 0.5f;
+        float slopeX = (data[h.index(xEast, y)] - data[h.index(xWest, y)]) * 0.5f;
+        float slopeY = (data[h.index(x, ySouth)] - data[h.index(x, yNorth)]) * 0.5f;
 
         return (float) Math.sqrt(slopeX * slopeX + slopeY * slopeY) + 1e-6f;
     }
@@ -1,5 +1,7 @@
 package com.onur.planetgen.erosion;
 
+import com.onur.planetgen.field.FloatGrid;
+
 public final class ThermalErosion {
     private ThermalErosion() {}
 
@@ -14,69 +16,74 @@ public final class ThermalErosion {
      * @param talus slope threshold (typical: 0.5 radians ≈ 0.55 in normalized height)
      * @param k erosion coefficient controlling diffusion rate (typical: 0.1-0.3)
      */
-    public static void apply(float[][] h, int iterations, double talus, double k) {
-        if (iterations <= 0 || h == null || h.length == 0) {
+    public static void apply(FloatGrid h, int iterations, double talus, double k) {
+        if (iterations <= 0 || h == null) {
             return;
         }
 
-        int H = h.length;
-        int W = h[0].length;
+        int H = h.height();
+        int W = h.width();
+        float[] height = h.data();
 
-        // Temporary arrays for accumulating material flow
-        float[][] flow = new float[H][W];
+        // Temporary grid for accumulating material flow
+        FloatGrid flowGrid = new FloatGrid(W, H, h.stride());
+        float[] flow = flowGrid.data();
 
         for (int iter = 0; iter < iterations; iter++) {
             // Clear flow accumulation
-            for (int y = 0; y < H; y++) {
-                for (int x = 0; x < W; x++) {
-                    flow[y][x] = 0;
-                }
-            }
+            flowGrid.fill(0f);
 
             // For each cell, calculate material movement
             for (int y = 0; y < H; y++) {
+                int row = h.index(0, y);
                 for (int x = 0; x < W; x++) {
-                    float centerHeight = h[y][x];
+                    float centerHeight = height[row + x];
                     float totalMaterial = 0;
-                    int neighborCount = 0;
-
-                    // 4-neighbor stencil (N, S, E, W)
-                    int[] ny = {y - 1, y + 1, y, y};
-                    int[] nx = {x, x, x + 1, x - 1};
 
+                    // 4-neighbor stencil (N, S, E, W); skip past the poles, wrap horizontally
                     for (int d = 0; d < 4; d++) {
-                        int ny_val = ny[d];
-                        int nx_val = nx[d];
-
-                        // Wrap horizontally, clamp vertically (poles)
-                        if (ny_val < 0 || ny_val >= H) {
-                            continue; // Skip pole clamping (natural behavior)
+                        int ny = d == 0 ? y - 1 : d == 1 ? y + 1 : y;
+                        if (ny < 0 || ny >= H) {
+                            continue;
                         }
-                        nx_val = (nx_val + W) % W; // Horizontal wrap
+                        int nx = d == 2 ? (x + 1) % W : d == 3 ? (x - 1 + W) % W : x;
+                        int neighbor = h.index(nx, ny);
 
-                        float neighborHeight = h[ny_val][nx_val];
-                        float heightDiff = centerHeight - neighborHeight;
+                        float heightDiff = centerHeight - height[neighbor];
 
                         // If slope exceeds talus angle, material slides
                         if (heightDiff > talus) {
                             float materialAmount = (float) (k * (heightDiff - talus));
                             totalMaterial += materialAmount;
-                            flow[ny_val][nx_val] += materialAmount;
-                            neighborCount++;
+                            flow[neighbor] += materialAmount;
                         }
                     }
 
                     // Apply accumulated erosion
-                    h[y][x] -= totalMaterial;
+                    height[row + x] -= totalMaterial;
                 }
             }
 
             // Add deposited material back to height field
             for (int y = 0; y < H; y++) {
-                for (int x = 0; x < W; x++) {
-                    h[y][x] += flow[y][x];
+                int row = h.index(0, y);
+                for (int x = row; x < row + W; x++) {
+                    height[x] += flow[x];
                 }
             }
         }
     }
+
+    /**
+     * {@link #apply(FloatGrid, int, double, double)} on a {@code float[H][W]} array,
+     * for callers on the row-array layout.
+     */
+    public static void apply(float[][] h, int iterations, double talus, double k) {
+        if (iterations <= 0 || h == null || h.length == 0) {
+            return;
+        }
+        FloatGrid grid = FloatGrid.fromRows(h);
+        apply(grid, iterations, talus, k);
+        grid.copyToRows(h);
+    }
 }
@@ -0,0 +1,58 @@
+package com.onur.planetgen.field;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the threads inside a grid's native memory, so the grid frees it only once none
+ * is. Every buffer access is bracketed by {@link #enter} and {@link #exit}; {@link #close}
+ * turns new accesses away with {@link IllegalStateException} and waits for the ones in
+ * flight, each of which copies at most a row. A grid closed while a parallel pass still
+ * runs, say after one of its tasks failed, then fails the other tasks instead of letting
+ * them touch freed or unmapped memory.
+ */
+final class AccessGate {
+    private static final int CLOSED = Integer.MIN_VALUE;
+
+    // Accesses in flight, with the sign bit set once closed
+    private final AtomicInteger state = new AtomicInteger();
+    private final String releasedMessage;
+
+    AccessGate(String releasedMessage) {
+        this.releasedMessage = releasedMessage;
+    }
+
+    /** Start an access; throws {@link IllegalStateException} once closed. */
+    void enter() {
+        if (state.getAndIncrement() < 0) {
+            state.getAndDecrement();
+            throw new IllegalStateException(releasedMessage);
+        }
+    }
+
+    /** End an access started by {@link #enter}. */
+    void exit() {
+        state.getAndDecrement();
+    }
+
+    boolean isClosed() {
+        return state.get() < 0;
+    }
+
+    /**
+     * Turn new accesses away and wait for those in flight. Returns true for the call that
+     * closed the gate, which then owns the memory; false if it was already closed.
+     */
+    boolean close() {
+        int s;
+        do {
+            s = state.get();
+            if (s < 0) {
+                return false;
+            }
+        } while (!state.compareAndSet(s, s | CLOSED));
+        while (state.get() != CLOSED) {
+            Thread.yield();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,204 @@
+package com.onur.planetgen.field;
+
+import java.util.Arrays;
+
+/**
+ * Min, max, mean, variance and an optional fixed-bin histogram of a field, gathered in
+ * one pass.
+ *
+ * {@link #of} reduces a grid's rows in parallel: each worker fills its own
+ * {@link Accumulator} and the partials are combined at the end, so no thread waits on a
+ * shared lock. Callers that produce rows in a parallel loop can do the same with
+ * {@code IntStream.collect(Accumulator::new, ..., Accumulator::combine)} and skip the
+ * extra pass. Min and max are exact whatever the split; mean and variance come from
+ * per-row two-pass sums merged with Chan's formula, so they are stable but may differ in
+ * the last bits between runs with different thread counts.
+ */
+public final class FieldStats {
+    private final long count;
+    private final float min, max;
+    private final double mean, variance;
+    private final long[] histogram;
+    private final float histogramLow, histogramHigh;
+
+    private FieldStats(Accumulator acc) {
+        this.count = acc.count;
+        this.min = acc.min;
+        this.max = acc.max;
+        this.mean = acc.count > 0 ? acc.mean : Double.NaN;
+        this.variance = acc.count > 0 ? acc.m2 / acc.count : Double.NaN;
+        this.histogram = acc.histogram != null ? acc.histogram.clone() : new long[0];
+        this.histogramLow = acc.low;
+        this.histogramHigh = acc.high;
+    }
+
+    /** Statistics of every value of {@code grid}, without a histogram. */
+    public static FieldStats of(FloatGrid grid) {
+        return of(grid, 0, 0f, 0f);
+    }
+
+    /**
+     * Statistics of {@code grid} with a histogram of {@code bins} equal bins over
+     * {@code [low, high]}; values outside the range count in the end bins.
+     */
+    public static FieldStats of(FloatGrid grid, int bins, float low, float high) {
+        int W = grid.width();
+        float[] data = grid.data();
+        return java.util.stream.IntStream.range(0, grid.height()).parallel()
+                .collect(() -> new Accumulator(bins, low, high),
+                        (acc, y) -> acc.add(data, grid.index(0, y), W),
+                        Accumulator::combine)
+                .result();
+    }
+
+    /** {@link #of(FloatGrid)} on a {@code float[H][W]} array. */
+    public static FieldStats of(float[][] rows) {
+        return java.util.stream.IntStream.range(0, rows.length).parallel()
+                .collect(Accumulator::new,
+                        (acc, y) -> acc.add(rows[y], 0, rows[y].length),
+                        Accumulator::combine)
+                .result();
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /** Smallest value; {@code +Infinity} for an empty field. */
+    public float min() {
+        return min;
+    }
+
+    /** Largest value; {@code -Infinity} for an empty field. */
+    public float max() {
+        return max;
+    }
+
+    public float range() {
+        return max - min;
+    }
+
+    /** Mean value; NaN for an empty field. */
+    public double mean() {
+        return mean;
+    }
+
+    /** Population variance; NaN for an empty field. */
+    public double variance() {
+        return variance;
+    }
+
+    public double standardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    /** Counts per histogram bin; empty when no histogram was requested. */
+    public long[] histogram() {
+        return histogram.clone();
+    }
+
+    /** Lower edge of histogram bin {@code bin}. */
+    public float binLow(int bin) {
+        return histogramLow + (histogramHigh - histogramLow) * bin / histogram.length;
+    }
+
+    @Override
+    public String toString() {
+        return "FieldStats{count=" + count + ", min=" + min + ", max=" + max
+                + ", mean=" + mean + ", variance=" + variance
+                + (histogram.length > 0 ? ", histogram=" + Arrays.toString(histogram) : "") + "}";
+    }
+
+    /**
+     * Running statistics of the values added so far. Not thread-safe: each worker keeps its
+     * own and the partials are {@link #combine combined}.
+     */
+    public static final class Accumulator {
+        private long count;
+        private float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+        private double mean, m2;
+        private final long[] histogram; // null: no histogram
+        private final float low, high;
+        private final double binScale;
+
+        public Accumulator() {
+            this(0, 0f, 0f);
+        }
+
+        /** An accumulator that also counts values into {@code bins} bins over {@code [low, high]}. */
+        public Accumulator(int bins, float low, float high) {
+            if (bins < 0 || (bins > 0 && !(high > low))) {
+                throw new IllegalArgumentException("Invalid histogram: " + bins + " bins over [" + low + ", " + high + "]");
+            }
+            this.histogram = bins > 0 ? new long[bins] : null;
+            this.low = low;
+            this.high = high;
+            this.binScale = bins > 0 ? bins / ((double) high - low) : 0.0;
+        }
+
+        /** Add {@code n} values of {@code data} from {@code offset}. */
+        public void add(float[] data, int offset, int n) {
+            if (n <= 0) {
+                return;
+            }
+            float lo = min, hi = max;
+            double sum = 0.0;
+            for (int i = offset; i < offset + n; i++) {
+                float v = data[i];
+                if (v < lo) lo = v;
+                if (v > hi) hi = v;
+                sum += v;
+            }
+            min = lo;
+            max = hi;
+
+            // Second pass over the (cached) values for a stable sum of squared deviations
+            double blockMean = sum / n, blockM2 = 0.0;
+            for (int i = offset; i < offset + n; i++) {
+                double d = data[i] - blockMean;
+                blockM2 += d * d;
+            }
+            merge(n, blockMean, blockM2);
+
+            if (histogram != null) {
+                int last = histogram.length - 1;
+                for (int i = offset; i < offset + n; i++) {
+                    int bin = (int) ((data[i] - low) * binScale);
+                    histogram[bin < 0 ? 0 : bin > last ? last : bin]++;
+                }
+            }
+        }
+
+        /** Fold another accumulator's values into this one. */
+        public void combine(Accumulator other) {
+            if (other.min < min) min = other.min;
+            if (other.max > max) max = other.max;
+            merge(other.count, other.mean, other.m2);
+            if (histogram != null) {
+                if (other.histogram == null || other.histogram.length != histogram.length
+                        || other.low != low || other.high != high) {
+                    throw new IllegalArgumentException("Histograms have different bins");
+                }
+                for (int b = 0; b < histogram.length; b++) {
+                    histogram[b] += other.histogram[b];
+                }
+            }
+        }
+
+        public FieldStats result() {
+            return new FieldStats(this);
+        }
+
+        // Chan et al. parallel update of count, mean and sum of squared deviations
+        private void merge(long n, double otherMean, double otherM2) {
+            if (n == 0) {
+                return;
+            }
+            long total = count + n;
+            double delta = otherMean - mean;
+            mean += delta * n / total;
+            m2 += otherM2 + delta * delta * ((double) count * n / total);
+            count = total;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.onur.planetgen.field;
+
+import java.util.Arrays;
+
+/**
+ * A width x height field of floats in one contiguous array, row-major.
+ *
+ * Pixel (x, y) lives at {@code data()[index(x, y)]}; rows are {@link #stride()} floats
+ * apart, which is at least the width. Hot loops fetch {@code index(0, y)} once per row and
+ * index the array directly. {@link #wrapX} and {@link #clampY} give the planet's edge rules
+ * (longitude wraps, latitude clamps at the poles) for stencils.
+ *
+ * {@link #fromRows} and {@link #toRows} convert from and to the older {@code float[H][W]}
+ * layout, for callers that have not moved over.
+ */
+public final class FloatGrid {
+    private final int width, height, stride;
+    private final float[] data;
+
+    public FloatGrid(int width, int height) {
+        this(width, height, width);
+    }
+
+    /**
+     * @param stride floats between the starts of consecutive rows, at least {@code width}
+     */
+    public FloatGrid(int width, int height, int stride) {
+        this(new float[checkedSize(width, height, stride)], width, height, stride);
+    }
+
+    private FloatGrid(float[] data, int width, int height, int stride) {
+        this.width = width;
+        this.height = height;
+        this.stride = stride;
+        this.data = data;
+    }
+
+    /** View an existing array as a grid; writes go through to {@code data}. */
+    public static FloatGrid wrap(float[] data, int width, int height, int stride) {
+        if (data.length < checkedSize(width, height, stride)) {
+            throw new IllegalArgumentException("Array of " + data.length + " floats is too small for "
+                    + width + "x" + height + " with stride " + stride);
+        }
+        return new FloatGrid(data, width, height, stride);
+    }
+
+    /** Copy of a rectangular {@code float[H][W]} array. */
+    public static FloatGrid fromRows(float[][] rows) {
+        int height = rows.length, width = rows[0].length;
+        FloatGrid grid = new FloatGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(rows[y], 0, grid.data, y * width, width);
+        }
+        return grid;
+    }
+
+    /** Copy of this grid as a {@code float[H][W]} array. */
+    public float[][] toRows() {
+        float[][] rows = new float[height][width];
+        copyToRows(rows);
+        return rows;
+    }
+
+    /** Copy this grid into an existing {@code float[H][W]} array. */
+    public void copyToRows(float[][] rows) {
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(data, y * stride, rows[y], 0, width);
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int stride() {
+        return stride;
+    }
+
+    /** The backing array. */
+    public float[] data() {
+        return data;
+    }
+
+    public int index(int x, int y) {
+        return y * stride + x;
+    }
+
+    public float get(int x, int y) {
+        return data[y * stride + x];
+    }
+
+    public void set(int x, int y, float value) {
+        data[y * stride + x] = value;
+    }
+
+    /** Value at (x, y) with x wrapped around the planet and y clamped to the poles. */
+    public float getWrapped(int x, int y) {
+        return data[clampY(y) * stride + wrapX(x)];
+    }
+
+    /** Column {@code x} wrapped into [0, width). */
+    public int wrapX(int x) {
+        return Math.floorMod(x, width);
+    }
+
+    /** Row {@code y} clamped into [0, height). */
+    public int clampY(int y) {
+        return y < 0 ? 0 : y >= height ? height - 1 : y;
+    }
+
+    public void fill(float value) {
+        if (stride == width) {
+            Arrays.fill(data, 0, width * height, value);
+        } else {
+            for (int y = 0; y < height; y++) {
+                Arrays.fill(data, y * stride, y * stride + width, value);
+            }
+        }
+    }
+
+    /** Copy the pixels of a grid of the same size into this one. */
+    public void copyFrom(FloatGrid other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Grid sizes differ: " + other.width + "x" + other.height
+                    + " into " + width + "x" + height);
+        }
+        if (stride == width && other.stride == width) {
+            System.arraycopy(other.data, 0, data, 0, width * height);
+        } else {
+            for (int y = 0; y < height; y++) {
+                System.arraycopy(other.data, y * other.stride, data, y * stride, width);
+            }
+        }
+    }
+
+    /** A new, tightly packed grid with the same pixels. */
+    public FloatGrid copy() {
+        FloatGrid copy = new FloatGrid(width, height);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    static int checkedSize(int width, int height, int stride) {
+        if (width <= 0 || height <= 0 || stride < width) {
+            throw new IllegalArgumentException("Invalid grid " + width + "x" + height + " with stride " + stride);
+        }
+        long size = (long) stride * height;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Grid " + width + "x" + height + " exceeds one array");
+        }
+        return (int) size;
+    }
+}
@@ -0,0 +1,142 @@
+package com.onur.planetgen.field;
+
+import java.util.Arrays;
+
+/**
+ * A width x height field of ints (packed ARGB, gray levels, cell indices) in one
+ * contiguous array, laid out like {@link FloatGrid}.
+ *
+ * {@link #fromRows} and {@link #toRows} convert from and to the older {@code int[H][W]}
+ * layout, for callers that have not moved over.
+ */
+public final class IntGrid {
+    private final int width, height, stride;
+    private final int[] data;
+
+    public IntGrid(int width, int height) {
+        this(width, height, width);
+    }
+
+    /**
+     * @param stride ints between the starts of consecutive rows, at least {@code width}
+     */
+    public IntGrid(int width, int height, int stride) {
+        this(new int[FloatGrid.checkedSize(width, height, stride)], width, height, stride);
+    }
+
+    private IntGrid(int[] data, int width, int height, int stride) {
+        this.width = width;
+        this.height = height;
+        this.stride = stride;
+        this.data = data;
+    }
+
+    /** View an existing array as a grid; writes go through to {@code data}. */
+    public static IntGrid wrap(int[] data, int width, int height, int stride) {
+        if (data.length < FloatGrid.checkedSize(width, height, stride)) {
+            throw new IllegalArgumentException("Array of " + data.length + " ints is too small for "
+                    + width + "x" + height + " with stride " + stride);
+        }
+        return new IntGrid(data, width, height, stride);
+    }
+
+    /** Copy of a rectangular {@code int[H][W]} array. */
+    public static IntGrid fromRows(int[][] rows) {
+        int height = rows.length, width = rows[0].length;
+        IntGrid grid = new IntGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(rows[y], 0, grid.data, y * width, width);
+        }
+        return grid;
+    }
+
+    /** Copy of this grid as an {@code int[H][W]} array. */
+    public int[][] toRows() {
+        int[][] rows = new int[height][width];
+        copyToRows(rows);
+        return rows;
+    }
+
+    /** Copy this grid into an existing {@code int[H][W]} array. */
+    public void copyToRows(int[][] rows) {
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(data, y * stride, rows[y], 0, width);
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int stride() {
+        return stride;
+    }
+
+    /** The backing array. */
+    public int[] data() {
+        return data;
+    }
+
+    public int index(int x, int y) {
+        return y * stride + x;
+    }
+
+    public int get(int x, int y) {
+        return data[y * stride + x];
+    }
+
+    public void set(int x, int y, int value) {
+        data[y * stride + x] = value;
+    }
+
+    /** Value at (x, y) with x wrapped around the planet and y clamped to the poles. */
+    public int getWrapped(int x, int y) {
+        return data[clampY(y) * stride + wrapX(x)];
+    }
+
+    /** Column {@code x} wrapped into [0, width). */
+    public int wrapX(int x) {
+        return Math.floorMod(x, width);
+    }
+
+    /** Row {@code y} clamped into [0, height). */
+    public int clampY(int y) {
+        return y < 0 ? 0 : y >= height ? height - 1 : y;
+    }
+
+    public void fill(int value) {
+        if (stride == width) {
+            Arrays.fill(data, 0, width * height, value);
+        } else {
+            for (int y = 0; y < height; y++) {
+                Arrays.fill(data, y * stride, y * stride + width, value);
+            }
+        }
+    }
+
+    /** Copy the pixels of a grid of the same size into this one. */
+    public void copyFrom(IntGrid other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Grid sizes differ: " + other.width + "x" + other.height
+                    + " into " + width + "x" + height);
+        }
+        if (stride == width && other.stride == width) {
+            System.arraycopy(other.data, 0, data, 0, width * height);
+        } else {
+            for (int y = 0; y < height; y++) {
+                System.arraycopy(other.data, y * other.stride, data, y * stride, width);
+            }
+        }
+    }
+
+    /** A new, tightly packed grid with the same pixels. */
+    public IntGrid copy() {
+        IntGrid copy = new IntGrid(width, height);
+        copy.copyFrom(this);
+        return copy;
+    }
+}
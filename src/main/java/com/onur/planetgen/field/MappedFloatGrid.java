@@ -0,0 +1,140 @@
+package com.onur.planetgen.field;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A width x height field of floats in a memory-mapped scratch file, for fields larger than
+ * RAM. The OS pages rows in and out as they are touched, so a pass over a few rows at a
+ * time keeps only those resident.
+ *
+ * Like {@link OffHeapFloatGrid} it is read and written a row at a time, in mappings of at
+ * most {@link OffHeapMemory#MAX_CHUNK_BYTES}. {@link #close()} unmaps the file and deletes
+ * it. Rows may be read and written from several threads as long as they do not overlap.
+ */
+public final class MappedFloatGrid implements AutoCloseable {
+    private final int width, height, rowsPerChunk;
+    private final Path file;
+    private final ByteBuffer[] memory;
+    private final FloatBuffer[] chunks;
+    private final AccessGate gate = new AccessGate("Mapped grid has been released");
+
+    private MappedFloatGrid(Path file, int width, int height, int rowsPerChunk, ByteBuffer[] memory) {
+        this.file = file;
+        this.width = width;
+        this.height = height;
+        this.rowsPerChunk = rowsPerChunk;
+        this.memory = memory;
+        this.chunks = new FloatBuffer[memory.length];
+        for (int c = 0; c < memory.length; c++) {
+            chunks[c] = memory[c].asFloatBuffer();
+        }
+    }
+
+    /** A zero-filled grid backed by a new temporary file in {@code directory}. */
+    public static MappedFloatGrid create(Path directory, int width, int height) throws IOException {
+        return create(directory, width, height, OffHeapMemory.rowsPerChunk(width, Float.BYTES));
+    }
+
+    static MappedFloatGrid create(Path directory, int width, int height, int rowsPerChunk) throws IOException {
+        if (width <= 0 || height <= 0 || rowsPerChunk <= 0) {
+            throw new IllegalArgumentException("Invalid mapped grid " + width + "x" + height);
+        }
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, "planetgen-", ".f32");
+        ByteBuffer[] memory = new ByteBuffer[(height + rowsPerChunk - 1) / rowsPerChunk];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long rowBytes = (long) width * Float.BYTES;
+            for (int c = 0; c < memory.length; c++) {
+                int rows = Math.min(rowsPerChunk, height - c * rowsPerChunk);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE,
+                        c * rowsPerChunk * rowBytes, rows * rowBytes);
+                memory[c] = chunk.order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException | RuntimeException e) {
+            OffHeapMemory.unmap(memory);
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        // Mappings stay valid once the channel is closed
+        return new MappedFloatGrid(file, width, height, rowsPerChunk, memory);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /** The scratch file behind the grid. */
+    public Path file() {
+        return file;
+    }
+
+    /** Copy row {@code y} into {@code dst} starting at {@code dstOffset}. */
+    public void readRow(int y, float[] dst, int dstOffset) {
+        FloatBuffer chunk = enter(y);
+        try {
+            chunk.get(offset(y), dst, dstOffset, width);
+        } finally {
+            gate.exit();
+        }
+    }
+
+    /** Overwrite row {@code y} with {@code width} values of {@code src} from {@code srcOffset}. */
+    public void writeRow(int y, float[] src, int srcOffset) {
+        FloatBuffer chunk = enter(y);
+        try {
+            chunk.put(offset(y), src, srcOffset, width);
+        } finally {
+            gate.exit();
+        }
+    }
+
+    /** Rows {@code firstRow ..} into a heap grid, {@code grid.height()} rows. */
+    public void readRows(int firstRow, FloatGrid grid) {
+        for (int y = 0; y < grid.height(); y++) {
+            readRow(firstRow + y, grid.data(), grid.index(0, y));
+        }
+    }
+
+    public boolean isReleased() {
+        return gate.isClosed();
+    }
+
+    /**
+     * Unmap and delete the scratch file, once rows being read or written on other threads
+     * are done. Further access throws {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        if (gate.close()) {
+            OffHeapMemory.unmap(memory);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete scratch file " + file, e);
+            }
+        }
+    }
+
+    /** Enter the gate for an access to row {@code y}; the caller exits it. */
+    private FloatBuffer enter(int y) {
+        gate.enter();
+        return chunks[y / rowsPerChunk];
+    }
+
+    private int offset(int y) {
+        return (y % rowsPerChunk) * width;
+    }
+}
@@ -0,0 +1,125 @@
+package com.onur.planetgen.field;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * A width x height field of floats in native memory, for fields that would otherwise
+ * crowd the heap at high resolutions.
+ *
+ * Hot loops stay on {@link FloatGrid}; an off-heap grid is filled and read a row at a time
+ * ({@link #writeRow}, {@link #readRow}) and holds results between stages. The memory is
+ * freed by {@link #close()}, not by the GC, so owners close it once the last stage that
+ * needs it is done. Rows may be read and written from several threads as long as they do
+ * not overlap.
+ */
+public final class OffHeapFloatGrid implements AutoCloseable {
+    private final int width, height, rowsPerChunk;
+    private final ByteBuffer[] memory;
+    private final FloatBuffer[] chunks;
+    private final AccessGate gate = new AccessGate("Off-heap grid has been released");
+
+    public OffHeapFloatGrid(int width, int height) {
+        this(width, height, OffHeapMemory.rowsPerChunk(width, Float.BYTES));
+    }
+
+    OffHeapFloatGrid(int width, int height, int rowsPerChunk) {
+        this.width = width;
+        this.height = height;
+        this.rowsPerChunk = rowsPerChunk;
+        this.memory = OffHeapMemory.allocate(width, height, Float.BYTES, rowsPerChunk);
+        this.chunks = new FloatBuffer[memory.length];
+        for (int c = 0; c < memory.length; c++) {
+            chunks[c] = memory[c].asFloatBuffer();
+        }
+    }
+
+    /** Off-heap copy of a heap grid. */
+    public static OffHeapFloatGrid copyOf(FloatGrid grid) {
+        OffHeapFloatGrid copy = new OffHeapFloatGrid(grid.width(), grid.height());
+        for (int y = 0; y < grid.height(); y++) {
+            copy.writeRow(y, grid.data(), grid.index(0, y));
+        }
+        return copy;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public float get(int x, int y) {
+        FloatBuffer chunk = enter(y);
+        try {
+            return chunk.get(offset(x, y));
+        } finally {
+            gate.exit();
+        }
+    }
+
+    public void set(int x, int y, float value) {
+        FloatBuffer chunk = enter(y);
+        try {
+            chunk.put(offset(x, y), value);
+        } finally {
+            gate.exit();
+        }
+    }
+
+    /** Copy row {@code y} into {@code dst} starting at {@code dstOffset}. */
+    public void readRow(int y, float[] dst, int dstOffset) {
+        FloatBuffer chunk = enter(y);
+        try {
+            chunk.get(offset(0, y), dst, dstOffset, width);
+        } finally {
+            gate.exit();
+        }
+    }
+
+    /** Overwrite row {@code y} with {@code width} values of {@code src} from {@code srcOffset}. */
+    public void writeRow(int y, float[] src, int srcOffset) {
+        FloatBuffer chunk = enter(y);
+        try {
+            chunk.put(offset(0, y), src, srcOffset, width);
+        } finally {
+            gate.exit();
+        }
+    }
+
+    /** A heap copy of the whole grid. */
+    public FloatGrid toGrid() {
+        FloatGrid grid = new FloatGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            readRow(y, grid.data(), grid.index(0, y));
+        }
+        return grid;
+    }
+
+    public boolean isReleased() {
+        return gate.isClosed();
+    }
+
+    /**
+     * Free the native memory, once rows being read or written on other threads are done.
+     * Further access throws {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        if (gate.close()) {
+            OffHeapMemory.release(memory);
+        }
+    }
+
+    /** Enter the gate for an access to row {@code y}; the caller exits it. */
+    private FloatBuffer enter(int y) {
+        gate.enter();
+        return chunks[y / rowsPerChunk];
+    }
+
+    private int offset(int x, int y) {
+        return (y % rowsPerChunk) * width + x;
+    }
+}
@@ -0,0 +1,119 @@
+package com.onur.planetgen.field;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * A width x height field of ints (packed ARGB) in native memory; the int counterpart of
+ * {@link OffHeapFloatGrid}, with the same row access and explicit {@link #close()}.
+ */
+public final class OffHeapIntGrid implements AutoCloseable {
+    private final int width, height, rowsPerChunk;
+    private final ByteBuffer[] memory;
+    private final IntBuffer[] chunks;
+    private final AccessGate gate = new AccessGate("Off-heap grid has been released");
+
+    public OffHeapIntGrid(int width, int height) {
+        this(width, height, OffHeapMemory.rowsPerChunk(width, Integer.BYTES));
+    }
+
+    OffHeapIntGrid(int width, int height, int rowsPerChunk) {
+        this.width = width;
+        this.height = height;
+        this.rowsPerChunk = rowsPerChunk;
+        this.memory = OffHeapMemory.allocate(width, height, Integer.BYTES, rowsPerChunk);
+        this.chunks = new IntBuffer[memory.length];
+        for (int c = 0; c < memory.length; c++) {
+            chunks[c] = memory[c].asIntBuffer();
+        }
+    }
+
+    /** Off-heap copy of a heap grid. */
+    public static OffHeapIntGrid copyOf(IntGrid grid) {
+        OffHeapIntGrid copy = new OffHeapIntGrid(grid.width(), grid.height());
+        for (int y = 0; y < grid.height(); y++) {
+            copy.writeRow(y, grid.data(), grid.index(0, y));
+        }
+        return copy;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int get(int x, int y) {
+        IntBuffer chunk = enter(y);
+        try {
+            return chunk.get(offset(x, y));
+        } finally {
+            gate.exit();
+        }
+    }
+
+    public void set(int x, int y, int value) {
+        IntBuffer chunk = enter(y);
+        try {
+            chunk.put(offset(x, y), value);
+        } finally {
+            gate.exit();
+        }
+    }
+
+    /** Copy row {@code y} into {@code dst} starting at {@code dstOffset}. */
+    public void readRow(int y, int[] dst, int dstOffset) {
+        IntBuffer chunk = enter(y);
+        try {
+            chunk.get(offset(0, y), dst, dstOffset, width);
+        } finally {
+            gate.exit();
+        }
+    }
+
+    /** Overwrite row {@code y} with {@code width} values of {@code src} from {@code srcOffset}. */
+    public void writeRow(int y, int[] src, int srcOffset) {
+        IntBuffer chunk = enter(y);
+        try {
+            chunk.put(offset(0, y), src, srcOffset, width);
+        } finally {
+            gate.exit();
+        }
+    }
+
+    /** A heap copy of the whole grid. */
+    public IntGrid toGrid() {
+        IntGrid grid = new IntGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            readRow(y, grid.data(), grid.index(0, y));
+        }
+        return grid;
+    }
+
+    public boolean isReleased() {
+        return gate.isClosed();
+    }
+
+    /**
+     * Free the native memory, once rows being read or written on other threads are done.
+     * Further access throws {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        if (gate.close()) {
+            OffHeapMemory.release(memory);
+        }
+    }
+
+    /** Enter the gate for an access to row {@code y}; the caller exits it. */
+    private IntBuffer enter(int y) {
+        gate.enter();
+        return chunks[y / rowsPerChunk];
+    }
+
+    private int offset(int x, int y) {
+        return (y % rowsPerChunk) * width + x;
+    }
+}
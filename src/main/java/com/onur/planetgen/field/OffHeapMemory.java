@@ -0,0 +1,109 @@
+package com.onur.planetgen.field;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Native memory for {@link OffHeapFloatGrid} and {@link OffHeapIntGrid}.
+ *
+ * Grids are held as direct buffers of whole rows, at most {@link #MAX_CHUNK_BYTES} each,
+ * so a field may exceed the 2 GB limit of a single buffer. A direct buffer is normally
+ * freed only once the GC notices it is unreachable; {@link #release} frees it at once via
+ * {@code sun.misc.Unsafe.invokeCleaner} (module jdk.unsupported) and leaves it to the GC
+ * only where that is missing.
+ *
+ * Direct memory is capped by {@code -XX:MaxDirectMemorySize}, which defaults to the heap
+ * limit, so runs that move fields off-heap should raise it rather than {@code -Xmx}.
+ */
+public final class OffHeapMemory {
+    static final int MAX_CHUNK_BYTES = 1 << 30;
+
+    private static final AtomicLong RESERVED = new AtomicLong();
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // No explicit release; buffers are freed when collected
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private OffHeapMemory() {}
+
+    /** Bytes currently held by off-heap grids that have not been released. */
+    public static long reservedBytes() {
+        return RESERVED.get();
+    }
+
+    /** Rows per buffer for a grid of {@code width} elements of {@code elementBytes} each. */
+    static int rowsPerChunk(int width, int elementBytes) {
+        long rowBytes = (long) width * elementBytes;
+        if (width <= 0 || rowBytes > MAX_CHUNK_BYTES) {
+            throw new IllegalArgumentException("Invalid off-heap row of " + width + " elements");
+        }
+        return (int) (MAX_CHUNK_BYTES / rowBytes);
+    }
+
+    /** Native-order buffers holding {@code height} rows, {@code rowsPerChunk} rows each. */
+    static ByteBuffer[] allocate(int width, int height, int elementBytes, int rowsPerChunk) {
+        if (width <= 0 || height <= 0 || rowsPerChunk <= 0) {
+            throw new IllegalArgumentException("Invalid off-heap grid " + width + "x" + height);
+        }
+        ByteBuffer[] chunks = new ByteBuffer[(height + rowsPerChunk - 1) / rowsPerChunk];
+        try {
+            for (int c = 0; c < chunks.length; c++) {
+                int rows = Math.min(rowsPerChunk, height - c * rowsPerChunk);
+                int bytes = Math.multiplyExact(Math.multiplyExact(rows, width), elementBytes);
+                chunks[c] = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+                RESERVED.addAndGet(bytes);
+            }
+        } catch (OutOfMemoryError | ArithmeticException e) {
+            release(chunks);
+            throw e;
+        }
+        return chunks;
+    }
+
+    /** Free the buffers now; they must not be used afterwards. */
+    static void release(ByteBuffer[] chunks) {
+        for (ByteBuffer chunk : chunks) {
+            if (chunk == null) {
+                continue;
+            }
+            RESERVED.addAndGet(-chunk.capacity());
+            clean(chunk);
+        }
+    }
+
+    /** Unmap file-backed buffers now; they must not be used afterwards. */
+    static void unmap(ByteBuffer[] chunks) {
+        for (ByteBuffer chunk : chunks) {
+            if (chunk != null) {
+                clean(chunk);
+            }
+        }
+    }
+
+    private static void clean(ByteBuffer chunk) {
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, chunk);
+            } catch (ReflectiveOperationException e) {
+                // Left to the GC
+            }
+        }
+    }
+}
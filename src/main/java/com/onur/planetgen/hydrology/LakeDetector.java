@@ -1,5 +1,8 @@
 package com.onur.planetgen.hydrology;
 
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+
 /**
  * Detects lake features from height field.
  * Lakes form in local minima where water accumulates.
@@ -15,18 +18,19 @@ public final class LakeDetector {
      * @param threshold minimum height for lakes (typically around seaLevel)
      * @return lake mask: 1.0 for lake pixels, 0.0 for non-lake
      */
-    public static float[][] detectLakes(float[][] h, double threshold) {
-        int H = h.length;
-        int W = h[0].length;
-        float[][] lakes = new float[H][W];
+    public static FloatGrid detectLakes(FloatGrid h, double threshold) {
+        int H = h.height();
+        int W = h.width();
+        float[] height = h.data();
+        FloatGrid lakes = new FloatGrid(W, H);
+        float[] lake = lakes.data();
 
         for (int y = 0; y < H; y++) {
             for (int x = 0; x < W; x++) {
-                float centerHeight = h[y][x];
+                float centerHeight = height[h.index(x, y)];
 
                 // Only consider areas below threshold (water level)
                 if (centerHeight >= threshold) {
-                    lakes[y][x] = 0.0f;
                     continue;
                 }
 
@@ -34,28 +38,25 @@ public final class LakeDetector {
                 boolean isMinimum = true;
                 int neighborCount = 0;
 
-                for (int dy = -1; dy <= 1; dy++) {
+                for (int dy = -1; dy <= 1 && isMinimum; dy++) {
+                    int ny = y + dy;
+                    // Clamp vertically (poles)
+                    if (ny < 0 || ny >= H) {
+                        continue;
+                    }
                     for (int dx = -1; dx <= 1; dx++) {
                         if (dx == 0 && dy == 0) continue;
 
-                        int ny = y + dy;
                         int nx = (x + dx + W) % W; // Wrap horizontally
-
-                        // Clamp vertically (poles)
-                        if (ny < 0 || ny >= H) {
-                            continue;
-                        }
-
-                        if (h[ny][nx] <= centerHeight) {
+                        if (height[h.index(nx, ny)] <= centerHeight) {
                             isMinimum = false;
                             break;
                         }
                         neighborCount++;
                     }
-                    if (!isMinimum) break;
                 }
 
-                lakes[y][x] = (isMinimum && neighborCount > 0) ? 1.0f : 0.0f;
+                lake[lakes.index(x, y)] = (isMinimum && neighborCount > 0) ? 1.0f : 0.0f;
             }
         }
 
@@ -65,12 +66,22 @@ public final class LakeDetector {
         return lakes;
     }
 
+    /**
+     * {@link #detectLakes(FloatGrid, double)} on a {@code float[H][W]} array, for callers
+     * on the row-array layout.
+     */
+    public static float[][] detectLakes(float[][] h, double threshold) {
+        return detectLakes(FloatGrid.fromRows(h), threshold).toRows();
+    }
+
     /**
      * Expand lakes via flood fill to fill connected water basins.
      */
-    private static void expandLakes(float[][] lakes, float[][] h, double threshold) {
-        int H = h.length;
-        int W = h[0].length;
+    private static void expandLakes(FloatGrid lakes, FloatGrid h, double threshold) {
+        int H = h.height();
+        int W = h.width();
+        float[] height = h.data();
+        float[] lake = lakes.data();
 
         boolean changed = true;
         int iterations = 0;
@@ -82,25 +93,26 @@ public final class LakeDetector {
 
             for (int y = 0; y < H; y++) {
                 for (int x = 0; x < W; x++) {
-                    if (lakes[y][x] > 0) continue; // Already a lake
-                    if (h[y][x] >= threshold) continue; // Not water level
+                    int i = lakes.index(x, y);
+                    if (lake[i] > 0) continue; // Already a lake
+                    if (height[h.index(x, y)] >= threshold) continue; // Not water level
 
                     // Check if adjacent to existing lake
+                    search:
                     for (int dy = -1; dy <= 1; dy++) {
+                        int ny = y + dy;
+                        if (ny < 0 || ny >= H) continue;
                         for (int dx = -1; dx <= 1; dx++) {
                             if (dx == 0 && dy == 0) continue;
 
-                            int ny = y + dy;
                             int nx = (x + dx + W) % W;
-
-                            if (ny >= 0 && ny < H && lakes[ny][nx] > 0) {
+                            if (lake[lakes.index(nx, ny)] > 0) {
                                 // Adjacent to lake - add to lake
-                                lakes[y][x] = 0.9f;
+                                lake[i] = 0.9f;
                                 changed = true;
-                                break;
+                                break search;
                             }
                         }
-                        if (lakes[y][x] > 0) break;
                     }
                 }
             }
@@ -115,28 +127,28 @@ public final class LakeDetector {
      * @param minSize minimum lake size (pixels)
      * @return lake regions with lake ID per pixel
      */
-    public static int[][] getLakeRegions(float[][] lakes, int minSize) {
-        int H = lakes.length;
-        int W = lakes[0].length;
-        int[][] regions = new int[H][W];
-        boolean[][] visited = new boolean[H][W];
+    public static IntGrid getLakeRegions(FloatGrid lakes, int minSize) {
+        int H = lakes.height();
+        int W = lakes.width();
+        IntGrid regions = new IntGrid(W, H);
+        int[] region = regions.data();
+        boolean[] visited = new boolean[W * H];
+        float[] lake = lakes.data();
 
         int lakeId = 0;
 
         for (int y = 0; y < H; y++) {
             for (int x = 0; x < W; x++) {
-                if (visited[y][x] || lakes[y][x] < 0.5f) continue;
+                if (visited[y * W + x] || lake[lakes.index(x, y)] < 0.5f) continue;
 
                 // Flood fill from this lake pixel
-                int size = floodFill(lakes, visited, regions, y, x, ++lakeId, W, H);
+                int size = floodFill(lakes, visited, region, y, x, ++lakeId);
 
                 // Mark as invalid if too small
                 if (size < minSize) {
-                    for (int fy = 0; fy < H; fy++) {
-                        for (int fx = 0; fx < W; fx++) {
-                            if (regions[fy][fx] == lakeId) {
-                                regions[fy][fx] = 0;
-                            }
+                    for (int i = 0; i < region.length; i++) {
+                        if (region[i] == lakeId) {
+                            region[i] = 0;
                         }
                     }
                     lakeId--;
@@ -147,35 +159,47 @@ public final class LakeDetector {
         return regions;
     }
 
-    private static int floodFill(float[][] lakes, boolean[][] visited, int[][] regions,
-                                   int startY, int startX, int lakeId, int W, int H) {
+    /**
+     * {@link #getLakeRegions(FloatGrid, int)} on a {@code float[H][W]} array, for callers
+     * on the row-array layout.
+     */
+    public static int[][] getLakeRegions(float[][] lakes, int minSize) {
+        return getLakeRegions(FloatGrid.fromRows(lakes), minSize).toRows();
+    }
+
+    /** Fill from (startX, startY); visited and regions are tightly packed, W per row. */
+    private static int floodFill(FloatGrid lakes, boolean[] visited, int[] regions,
+                                 int startY, int startX, int lakeId) {
+        int W = lakes.width();
+        int H = lakes.height();
+        float[] lake = lakes.data();
         int[] queue = new int[W * H * 2]; // x, y pairs
         int queueSize = 0;
 
         queue[queueSize++] = startX;
         queue[queueSize++] = startY;
-        visited[startY][startX] = true;
-        regions[startY][startX] = lakeId;
+        visited[startY * W + startX] = true;
+        regions[startY * W + startX] = lakeId;
 
         int count = 1;
 
         while (queueSize > 0) {
-            int x = queue[--queueSize];
             int y = queue[--queueSize];
+            int x = queue[--queueSize];
 
             // 4-neighbor connectivity
-            int[] ny = {y - 1, y + 1, y, y};
-            int[] nx = {x, x, x - 1, x + 1};
-
             for (int d = 0; d < 4; d++) {
-                int ny_val = ny[d];
-                int nx_val = (nx[d] + W) % W;
-
-                if (ny_val >= 0 && ny_val < H && !visited[ny_val][nx_val] && lakes[ny_val][nx_val] > 0.5f) {
-                    visited[ny_val][nx_val] = true;
-                    regions[ny_val][nx_val] = lakeId;
-                    queue[queueSize++] = nx_val;
-                    queue[queueSize++] = ny_val;
+                int ny = d == 0 ? y - 1 : d == 1 ? y + 1 : y;
+                int nx = d == 2 ? (x - 1 + W) % W : d == 3 ? (x + 1) % W : x;
+                if (ny < 0 || ny >= H) {
+                    continue;
+                }
+                int i = ny * W + nx;
+                if (!visited[i] && lake[lakes.index(nx, ny)] > 0.5f) {
+                    visited[i] = true;
+                    regions[i] = lakeId;
+                    queue[queueSize++] = nx;
+                    queue[queueSize++] = ny;
                     count++;
                 }
             }
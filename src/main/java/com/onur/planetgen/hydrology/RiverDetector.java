@@ -1,6 +1,8 @@
 package com.onur.planetgen.hydrology;
 
 import com.onur.planetgen.erosion.FlowField;
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
 
 /**
  * Detects river features from flow field accumulation.
@@ -17,38 +19,31 @@ public final class RiverDetector {
      * @param threshold flow accumulation threshold (typical: 0.3-0.5 normalized)
      * @return river mask: 1.0 where rivers exist, 0.0 elsewhere
      */
-    public static float[][] detectRivers(FlowField flowField, double threshold) {
-        int H = flowField.accum.length;
-        int W = flowField.accum[0].length;
-        float[][] rivers = new float[H][W];
+    public static FloatGrid detectRivers(FlowField flowField, double threshold) {
+        FloatGrid accumGrid = flowField.accum;
+        int H = accumGrid.height();
+        int W = accumGrid.width();
+        float[] accum = accumGrid.data();
+        FloatGrid rivers = new FloatGrid(W, H);
+        float[] out = rivers.data();
 
         // Find min and max accumulation for normalization
-        float minAccum = Float.POSITIVE_INFINITY;
-        float maxAccum = Float.NEGATIVE_INFINITY;
-
-        for (int y = 0; y < H; y++) {
-            for (int x = 0; x < W; x++) {
-                float accum = flowField.accum[y][x];
-                if (accum < minAccum) minAccum = accum;
-                if (accum > maxAccum) maxAccum = accum;
-            }
-        }
+        FieldStats stats = FieldStats.of(accumGrid);
+        float minAccum = stats.min();
+        float maxAccum = stats.max();
 
         // Normalize accumulation to [0, 1]
         float range = Math.max(maxAccum - minAccum, 1e-6f);
 
         for (int y = 0; y < H; y++) {
+            int row = accumGrid.index(0, y);
+            int outRow = rivers.index(0, y);
             for (int x = 0; x < W; x++) {
-                float normalized = (flowField.accum[y][x] - minAccum) / range;
+                float normalized = (accum[row + x] - minAccum) / range;
 
                 // River exists if accumulation exceeds threshold
-                if (normalized >= threshold) {
-                    // Width inversely proportional to normalized accumulation
-                    // Higher accumulation = wider river
-                    rivers[y][x] = Math.min(1.0f, normalized);
-                } else {
-                    rivers[y][x] = 0.0f;
-                }
+                // Higher accumulation = wider river
+                out[outRow + x] = normalized >= threshold ? Math.min(1.0f, normalized) : 0.0f;
             }
         }
 
@@ -59,10 +54,12 @@ public final class RiverDetector {
      * Smooth river mask for more natural appearance.
      * Applies box filter to create smooth river curves.
      */
-    public static float[][] smoothRivers(float[][] rivers, int kernelRadius) {
-        int H = rivers.length;
-        int W = rivers[0].length;
-        float[][] smoothed = new float[H][W];
+    public static FloatGrid smoothRivers(FloatGrid rivers, int kernelRadius) {
+        int H = rivers.height();
+        int W = rivers.width();
+        float[] in = rivers.data();
+        FloatGrid smoothed = new FloatGrid(W, H);
+        float[] out = smoothed.data();
 
         int kernelSize = 2 * kernelRadius + 1;
         float kernelSum = kernelSize * kernelSize;
@@ -72,20 +69,28 @@ public final class RiverDetector {
                 float sum = 0;
 
                 for (int dy = -kernelRadius; dy <= kernelRadius; dy++) {
+                    int ny = y + dy;
+                    if (ny < 0 || ny >= H) {
+                        continue;
+                    }
+                    int row = rivers.index(0, ny);
                     for (int dx = -kernelRadius; dx <= kernelRadius; dx++) {
-                        int ny = y + dy;
-                        int nx = (x + dx + W) % W; // Wrap horizontally
-
-                        if (ny >= 0 && ny < H) {
-                            sum += rivers[ny][nx];
-                        }
+                        sum += in[row + (x + dx + W) % W]; // Wrap horizontally
                     }
                 }
 
-                smoothed[y][x] = sum / kernelSum;
+                out[smoothed.index(x, y)] = sum / kernelSum;
             }
         }
 
         return smoothed;
     }
+
+    /**
+     * {@link #smoothRivers(FloatGrid, int)} on a {@code float[H][W]} array, for callers on
+     * the row-array layout.
+     */
+    public static float[][] smoothRivers(float[][] rivers, int kernelRadius) {
+        return smoothRivers(FloatGrid.fromRows(rivers), kernelRadius).toRows();
+    }
 }
@@ -0,0 +1,209 @@
+package com.onur.planetgen.noise;
+
+/**
+ * Cellular (Worley) noise: distances to the nearest feature points of a jittered grid.
+ *
+ * Each unit cell holds one feature point placed by a seeded hash of the cell coordinates.
+ * {@link Output#F1} is the distance to the nearest point (craters, pebbles),
+ * {@link Output#F2} to the second nearest, and {@link Output#F2_MINUS_F1} their difference,
+ * which is zero along cell borders (cracks, cellular clouds).
+ *
+ * The 27 cells around the sample are visited nearest-first (own cell, faces, edges,
+ * corners), and a cell is skipped once the closest its box can be is no nearer than the
+ * distance still to beat, so most samples resolve after a handful of cells. As in most
+ * Worley implementations, features beyond the 3x3x3 neighbourhood are not searched.
+ *
+ * Feature points are kept per thread until a sample lands in another cell. The first
+ * sample in a cell runs the pruned search; later ones (scanline neighbours) hash the rest
+ * of the neighbourhood once and then test all 27 points with conditional moves, which is
+ * cheaper than mispredicted bound checks.
+ *
+ * Values are mapped to roughly [-1, 1] like the gradient noises, so the fractal sums in
+ * {@link FractalNoise} apply unchanged.
+ */
+public final class CellularNoise implements Noise {
+    /** Which distance the noise returns. */
+    public enum Output {
+        F1(0.0, 1.0), F2(0.3, 1.1), F2_MINUS_F1(0.0, 0.7);
+
+        // Usual range of the raw distance (full jitter), mapped onto [-1, 1]
+        private final double low, high;
+
+        Output(double low, double high) {
+            this.low = low;
+            this.high = high;
+        }
+    }
+
+    private static final long PRIME_X = 0x5205402B9270C86FL;
+    private static final long PRIME_Y = 0x598CD327003817B5L;
+    private static final long PRIME_Z = 0x5BCC226E9FA0BACBL;
+    private static final long HASH_MULTIPLIER = 0x53A3F72DEEC546F5L;
+    private static final double UNIT_21 = 1.0 / (1 << 21);
+
+    // Neighbour offsets in visiting order: own cell, 6 faces, 12 edges, 8 corners
+    private static final int[] OFFSET_X = new int[27], OFFSET_Y = new int[27], OFFSET_Z = new int[27];
+
+    static {
+        int k = 0;
+        for (int manhattan = 0; manhattan <= 3; manhattan++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        if (Math.abs(dx) + Math.abs(dy) + Math.abs(dz) == manhattan) {
+                            OFFSET_X[k] = dx;
+                            OFFSET_Y[k] = dy;
+                            OFFSET_Z[k] = dz;
+                            k++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private final long seed;
+    private final Output output;
+    private final double jitter;
+    private final ThreadLocal<Neighbourhood> neighbourhood = ThreadLocal.withInitial(Neighbourhood::new);
+
+    public CellularNoise(long seed, Output output) {
+        this(seed, output, 1.0);
+    }
+
+    /**
+     * @param jitter how far feature points may stray from cell centres, from 0 (regular
+     *               grid) to 1 (anywhere in the cell)
+     */
+    public CellularNoise(long seed, Output output, double jitter) {
+        if (!(jitter >= 0.0 && jitter <= 1.0)) {
+            throw new IllegalArgumentException("Cellular jitter must be in [0, 1]: " + jitter);
+        }
+        this.seed = seed;
+        this.output = output;
+        this.jitter = jitter;
+    }
+
+    public Output output() {
+        return output;
+    }
+
+    @Override
+    public double noise3(double x, double y, double z) {
+        return neighbourhood.get().sample(x, y, z);
+    }
+
+    @Override
+    public void noise3(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        Neighbourhood cells = neighbourhood.get();
+        for (int i = 0; i < n; i++) {
+            out[i] = cells.sample(xs[i], ys[i], zs[i]);
+        }
+    }
+
+    private long hash(int x, int y, int z) {
+        long h = seed ^ (x * PRIME_X) ^ (y * PRIME_Y) ^ (z * PRIME_Z);
+        h *= HASH_MULTIPLIER;
+        return h ^ (h >>> 29);
+    }
+
+    /** Feature points of the 27 cells around the last visited cell, relative to its origin. */
+    private final class Neighbourhood {
+        private static final int ALL = (1 << 27) - 1;
+
+        private final double[] px = new double[27], py = new double[27], pz = new double[27];
+        private int cx, cy, cz;
+        private int hashed = -1; // bit k set once cell k's point is in px/py/pz; -1 before the first sample
+
+        double sample(double x, double y, double z) {
+            int xi = OpenSimplex2.fastFloor(x);
+            int yi = OpenSimplex2.fastFloor(y);
+            int zi = OpenSimplex2.fastFloor(z);
+            double fx = x - xi, fy = y - yi, fz = z - zi;
+            if (hashed >= 0 && xi == cx && yi == cy && zi == cz) {
+                // Repeat visit: fill in the rest of the neighbourhood and scan it without branches
+                for (int k = 0; k < 27 && hashed != ALL; k++) {
+                    if ((hashed & (1 << k)) == 0) {
+                        load(k);
+                    }
+                }
+                return scan(fx, fy, fz);
+            }
+            cx = xi;
+            cy = yi;
+            cz = zi;
+            hashed = 0;
+            return search(fx, fy, fz);
+        }
+
+        /** Nearest-first search that hashes only cells which could still beat the current distances. */
+        private double search(double fx, double fy, double fz) {
+            // Squared distance from the sample to the near face of each neighbouring cell, per axis
+            double loX = fx * fx, hiX = (1.0 - fx) * (1.0 - fx);
+            double loY = fy * fy, hiY = (1.0 - fy) * (1.0 - fy);
+            double loZ = fz * fz, hiZ = (1.0 - fz) * (1.0 - fz);
+
+            boolean secondNeeded = output != Output.F1;
+            double f1 = Double.MAX_VALUE, f2 = Double.MAX_VALUE;
+            for (int k = 0; k < 27; k++) {
+                int dx = OFFSET_X[k], dy = OFFSET_Y[k], dz = OFFSET_Z[k];
+                double bound = (dx < 0 ? loX : dx > 0 ? hiX : 0.0)
+                        + (dy < 0 ? loY : dy > 0 ? hiY : 0.0)
+                        + (dz < 0 ? loZ : dz > 0 ? hiZ : 0.0);
+                if (bound >= (secondNeeded ? f2 : f1)) {
+                    continue;
+                }
+                load(k);
+                double ex = px[k] - fx, ey = py[k] - fy, ez = pz[k] - fz;
+                double d = ex * ex + ey * ey + ez * ez;
+                if (d < f1) {
+                    f2 = f1;
+                    f1 = d;
+                } else if (d < f2) {
+                    f2 = d;
+                }
+            }
+            return finish(f1, f2);
+        }
+
+        /** Distances to all 27 loaded points with conditional moves only. */
+        private double scan(double fx, double fy, double fz) {
+            double f1 = Double.MAX_VALUE, f2 = Double.MAX_VALUE;
+            for (int k = 0; k < 27; k++) {
+                double ex = px[k] - fx, ey = py[k] - fy, ez = pz[k] - fz;
+                double d = ex * ex + ey * ey + ez * ez;
+                double far = d < f1 ? f1 : d;
+                f1 = d < f1 ? d : f1;
+                f2 = far < f2 ? far : f2;
+            }
+            return finish(f1, f2);
+        }
+
+        private double finish(double f1, double f2) {
+            double distance;
+            switch (output) {
+                case F1:
+                    distance = Math.sqrt(f1);
+                    break;
+                case F2:
+                    distance = Math.sqrt(f2);
+                    break;
+                default:
+                    distance = Math.sqrt(f2) - Math.sqrt(f1);
+                    break;
+            }
+            double t = (distance - output.low) / (output.high - output.low);
+            return Math.max(0.0, Math.min(1.0, t)) * 2.0 - 1.0;
+        }
+
+        private void load(int k) {
+            int dx = OFFSET_X[k], dy = OFFSET_Y[k], dz = OFFSET_Z[k];
+            long h = hash(cx + dx, cy + dy, cz + dz);
+            double offset = 0.5 * (1.0 - jitter);
+            px[k] = dx + offset + jitter * ((h & 0x1FFFFF) * UNIT_21);
+            py[k] = dy + offset + jitter * (((h >>> 21) & 0x1FFFFF) * UNIT_21);
+            pz[k] = dz + offset + jitter * (((h >>> 42) & 0x1FFFFF) * UNIT_21);
+            hashed |= 1 << k;
+        }
+    }
+}
@@ -3,6 +3,13 @@ package com.onur.planetgen.noise;
 public final class DomainWarpNoise implements Noise {
     private final Noise base, warpX, warpY, warpZ;
     private final double amp;
+    // Single-traversal warp when all three channels are lattice noise; null otherwise
+    private final VectorWarpNoise fused;
+
+    // Per-thread buffers for warped scanline coordinates (per instance, so nested warps don't share)
+    private final ThreadLocal<double[][]> scratch = ThreadLocal.withInitial(() -> new double[3][0]);
+    // Per-thread displacement of a single point from the fused warp
+    private final ThreadLocal<double[]> displacement = ThreadLocal.withInitial(() -> new double[3]);
 
     public DomainWarpNoise(Noise base, Noise warpX, Noise warpY, Noise warpZ, double amplitude) {
         this.base = base;
@@ -10,13 +17,61 @@ public final class DomainWarpNoise implements Noise {
         this.warpY = warpY;
         this.warpZ = warpZ;
         this.amp = amplitude;
+        this.fused = (warpX instanceof OpenSimplex2 && warpY instanceof OpenSimplex2 && warpZ instanceof OpenSimplex2)
+                ? new VectorWarpNoise((OpenSimplex2) warpX, (OpenSimplex2) warpY, (OpenSimplex2) warpZ)
+                : null;
     }
 
     @Override
     public double noise3(double x, double y, double z) {
+        if (fused != null) {
+            double[] d = displacement.get();
+            fused.noise3(x, y, z, d);
+            return base.noise3(x + d[0] * amp, y + d[1] * amp, z + d[2] * amp);
+        }
         double dx = warpX.noise3(x, y, z) * amp;
         double dy = warpY.noise3(x, y, z) * amp;
         double dz = warpZ.noise3(x, y, z) * amp;
         return base.noise3(x + dx, y + dy, z + dz);
     }
+
+    /**
+     * Scanline variant: the warp channels and the base are each evaluated as one batch.
+     * Without a fused warp, {@code out} stages each channel's displacements in turn.
+     */
+    @Override
+    public void noise3(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        double[][] buffers = scratch.get();
+        if (buffers[0].length < n) {
+            buffers[0] = new double[n];
+            buffers[1] = new double[n];
+            buffers[2] = new double[n];
+        }
+        double[] wx = buffers[0], wy = buffers[1], wz = buffers[2];
+
+        if (fused != null) {
+            fused.noise3(xs, ys, zs, wx, wy, wz, n);
+            for (int i = 0; i < n; i++) {
+                wx[i] = xs[i] + wx[i] * amp;
+                wy[i] = ys[i] + wy[i] * amp;
+                wz[i] = zs[i] + wz[i] * amp;
+            }
+            base.noise3(wx, wy, wz, out, n);
+            return;
+        }
+
+        warpX.noise3(xs, ys, zs, out, n);
+        for (int i = 0; i < n; i++) {
+            wx[i] = xs[i] + out[i] * amp;
+        }
+        warpY.noise3(xs, ys, zs, out, n);
+        for (int i = 0; i < n; i++) {
+            wy[i] = ys[i] + out[i] * amp;
+        }
+        warpZ.noise3(xs, ys, zs, out, n);
+        for (int i = 0; i < n; i++) {
+            wz[i] = zs[i] + out[i] * amp;
+        }
+        base.noise3(wx, wy, wz, out, n);
+    }
 }
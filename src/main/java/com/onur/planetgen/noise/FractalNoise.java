@@ -0,0 +1,347 @@
+package com.onur.planetgen.noise;
+
+/**
+ * Fractal sum (fBm or ridged) of one noise source with fixed octave parameters.
+ *
+ * Per-octave sample frequencies ({@code scale * lacunarity^i}) and amplitudes are computed
+ * once at construction. With the usual lacunarity of 2 the folded frequency is exact, so
+ * results are bit-identical to scaling by {@code scale} and {@code freq} separately.
+ *
+ * The source is dispatched through a switch on its concrete (final) class, so each call
+ * site binds statically to that class's batch method instead of going through the
+ * {@link Noise} interface once per octave.
+ */
+public final class FractalNoise {
+    private static final int GENERIC = 0;
+    private static final int PERLIN = 1;
+    private static final int SIMPLEX = 2;
+    private static final int WARPED = 3;
+    private static final int CELLULAR = 4;
+
+    private final Noise noise;
+    private final int kind;
+    private final double[] frequencies;
+    private final double[] amplitudes;
+    private final double norm;
+
+    // Per-thread scaled coordinates and samples (per instance, like DomainWarpNoise)
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * @param noise source noise
+     * @param scale frequency of the first octave
+     * @param octaves number of octaves
+     * @param lacunarity frequency multiplier between octaves
+     * @param gain amplitude multiplier between octaves; the sum is divided by {@code 1 - gain}
+     */
+    public FractalNoise(Noise noise, double scale, int octaves, double lacunarity, double gain) {
+        this.noise = noise;
+        this.kind = noise instanceof OpenSimplex2 ? PERLIN
+                : noise instanceof OpenSimplex2F ? SIMPLEX
+                : noise instanceof DomainWarpNoise ? WARPED
+                : noise instanceof CellularNoise ? CELLULAR
+                : GENERIC;
+        this.frequencies = new double[octaves];
+        this.amplitudes = new double[octaves];
+        double amp = 1.0, freq = 1.0;
+        for (int i = 0; i < octaves; i++) {
+            frequencies[i] = scale * freq;
+            amplitudes[i] = amp;
+            amp *= gain;
+            freq *= lacunarity;
+        }
+        this.norm = 1.0 - gain;
+    }
+
+    public int octaves() {
+        return frequencies.length;
+    }
+
+    /** Sample frequency of the given octave, {@code scale * lacunarity^octave}. */
+    public double frequency(int octave) {
+        return frequencies[octave];
+    }
+
+    /** Sum of {@code amp * n(p * freq)}, normalized by {@code 1 - gain}. */
+    public double fbm(double x, double y, double z) {
+        double sum = 0.0;
+        for (int i = 0; i < frequencies.length; i++) {
+            double f = frequencies[i];
+            sum += amplitudes[i] * sample(x * f, y * f, z * f);
+        }
+        return sum / norm;
+    }
+
+    /** Sum of {@code amp * (1 - |n(p * freq)|)}, normalized by {@code 1 - gain}. */
+    public double ridged(double x, double y, double z) {
+        double sum = 0.0;
+        for (int i = 0; i < frequencies.length; i++) {
+            double f = frequencies[i];
+            double ridge = 1.0 - Math.abs(sample(x * f, y * f, z * f));
+            sum += amplitudes[i] * ridge;
+        }
+        return sum / norm;
+    }
+
+    /**
+     * Scanline variant of {@link #fbm(double, double, double)}.
+     */
+    public void fbm(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        Scratch s = scratch.get().ensure(n);
+        java.util.Arrays.fill(out, 0, n, 0.0);
+        for (int i = 0; i < frequencies.length; i++) {
+            s.scale(xs, ys, zs, frequencies[i], n);
+            sample(s.sx, s.sy, s.sz, s.sample, n);
+            double amp = amplitudes[i];
+            for (int x = 0; x < n; x++) {
+                out[x] += amp * s.sample[x];
+            }
+        }
+        for (int x = 0; x < n; x++) {
+            out[x] /= norm;
+        }
+    }
+
+    /**
+     * Scanline variant of {@link #ridged(double, double, double)}.
+     */
+    public void ridged(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        Scratch s = scratch.get().ensure(n);
+        java.util.Arrays.fill(out, 0, n, 0.0);
+        for (int i = 0; i < frequencies.length; i++) {
+            s.scale(xs, ys, zs, frequencies[i], n);
+            sample(s.sx, s.sy, s.sz, s.sample, n);
+            double amp = amplitudes[i];
+            for (int x = 0; x < n; x++) {
+                double ridge = 1.0 - Math.abs(s.sample[x]);
+                out[x] += amp * ridge;
+            }
+        }
+        for (int x = 0; x < n; x++) {
+            out[x] /= norm;
+        }
+    }
+
+    /**
+     * Pair an fBm and a ridged sum over the same noise source so octaves at equal
+     * frequencies are sampled once and feed both sums.
+     *
+     * @throws IllegalArgumentException if the two sums use different noise sources or
+     *         either one's frequencies do not strictly increase
+     */
+    public static Combined combine(FractalNoise fbm, FractalNoise ridged) {
+        if (fbm.noise != ridged.noise) {
+            throw new IllegalArgumentException("Combined fractal sums must share one noise source");
+        }
+        if (!fbm.ascending() || !ridged.ascending()) {
+            throw new IllegalArgumentException("Combined fractal sums need lacunarity > 1");
+        }
+        return new Combined(fbm, ridged);
+    }
+
+    private boolean ascending() {
+        for (int i = 1; i < frequencies.length; i++) {
+            if (!(frequencies[i] > frequencies[i - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double sample(double x, double y, double z) {
+        switch (kind) {
+            case PERLIN:
+                return ((OpenSimplex2) noise).noise3(x, y, z);
+            case SIMPLEX:
+                return ((OpenSimplex2F) noise).noise3(x, y, z);
+            case WARPED:
+                return ((DomainWarpNoise) noise).noise3(x, y, z);
+            case CELLULAR:
+                return ((CellularNoise) noise).noise3(x, y, z);
+            default:
+                return noise.noise3(x, y, z);
+        }
+    }
+
+    private void sample(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        switch (kind) {
+            case PERLIN:
+                ((OpenSimplex2) noise).noise3(xs, ys, zs, out, n);
+                break;
+            case SIMPLEX:
+                ((OpenSimplex2F) noise).noise3(xs, ys, zs, out, n);
+                break;
+            case WARPED:
+                ((DomainWarpNoise) noise).noise3(xs, ys, zs, out, n);
+                break;
+            case CELLULAR:
+                ((CellularNoise) noise).noise3(xs, ys, zs, out, n);
+                break;
+            default:
+                noise.noise3(xs, ys, zs, out, n);
+                break;
+        }
+    }
+
+    /**
+     * An fBm and a ridged sum evaluated together. Distinct frequencies are visited in
+     * ascending order, so each sum still accumulates its own octaves in order and both
+     * outputs match evaluating the two sums separately.
+     */
+    public static final class Combined {
+        private final FractalNoise fbm, ridged;
+        private final double[] frequencies;
+        private final double[] fbmAmplitudes, ridgedAmplitudes; // NaN where the sum has no octave
+        private final double[] fbmTails, ridgedTails; // bound on each normalized sum from octave i on
+
+        private Combined(FractalNoise fbm, FractalNoise ridged) {
+            this.fbm = fbm;
+            this.ridged = ridged;
+            double[] merged = java.util.stream.DoubleStream
+                    .concat(java.util.Arrays.stream(fbm.frequencies), java.util.Arrays.stream(ridged.frequencies))
+                    .sorted().distinct().toArray();
+            this.frequencies = merged;
+            this.fbmAmplitudes = alignAmplitudes(fbm, merged);
+            this.ridgedAmplitudes = alignAmplitudes(ridged, merged);
+            this.fbmTails = tails(fbmAmplitudes, fbm.norm);
+            this.ridgedTails = tails(ridgedAmplitudes, ridged.norm);
+        }
+
+        /** Number of noise evaluations per point, after sharing. */
+        public int samplesPerPoint() {
+            return frequencies.length;
+        }
+
+        public void evaluate(double[] xs, double[] ys, double[] zs, double[] fbmOut, double[] ridgedOut, int n) {
+            Scratch s = fbm.scratch.get().ensure(n);
+            java.util.Arrays.fill(fbmOut, 0, n, 0.0);
+            java.util.Arrays.fill(ridgedOut, 0, n, 0.0);
+            for (int i = 0; i < frequencies.length; i++) {
+                s.scale(xs, ys, zs, frequencies[i], n);
+                fbm.sample(s.sx, s.sy, s.sz, s.sample, n);
+                double fbmAmp = fbmAmplitudes[i];
+                if (!Double.isNaN(fbmAmp)) {
+                    for (int x = 0; x < n; x++) {
+                        fbmOut[x] += fbmAmp * s.sample[x];
+                    }
+                }
+                double ridgedAmp = ridgedAmplitudes[i];
+                if (!Double.isNaN(ridgedAmp)) {
+                    for (int x = 0; x < n; x++) {
+                        double ridge = 1.0 - Math.abs(s.sample[x]);
+                        ridgedOut[x] += ridgedAmp * ridge;
+                    }
+                }
+            }
+            for (int x = 0; x < n; x++) {
+                fbmOut[x] /= fbm.norm;
+                ridgedOut[x] /= ridged.norm;
+            }
+        }
+
+        /**
+         * Masked variant of {@link #evaluate(double[], double[], double[], double[], double[], int)}
+         * for callers that scale the sums per point, as in {@code fbmWeight[x] * fbm + ridgedWeight[x] * ridged}.
+         *
+         * Each sum stops at a point once its octaves left (samples bounded by 1 in magnitude)
+         * could no longer move its weighted term by more than {@code tolerance}; an octave is
+         * sampled only at the points where a sum using it is still running. Points with both
+         * weights zero cost nothing. With {@code tolerance} 0 only sums with zero weight are
+         * skipped and the weighted total is unchanged. Outputs are meaningful only where the
+         * matching weight is nonzero.
+         */
+        public void evaluate(double[] xs, double[] ys, double[] zs, double[] fbmWeight, double[] ridgedWeight,
+                             double tolerance, double[] fbmOut, double[] ridgedOut, int n) {
+            Scratch s = fbm.scratch.get().ensure(n);
+            java.util.Arrays.fill(fbmOut, 0, n, 0.0);
+            java.util.Arrays.fill(ridgedOut, 0, n, 0.0);
+            int[] active = s.active;
+            for (int i = 0; i < frequencies.length; i++) {
+                double fbmAmp = fbmAmplitudes[i], ridgedAmp = ridgedAmplitudes[i];
+                // A tail of 0 keeps a sum out of octaves it does not have
+                double fbmTail = Double.isNaN(fbmAmp) ? 0.0 : fbmTails[i];
+                double ridgedTail = Double.isNaN(ridgedAmp) ? 0.0 : ridgedTails[i];
+
+                // Compact the points where either sum still needs this octave
+                int count = 0;
+                for (int x = 0; x < n; x++) {
+                    if (Math.abs(fbmWeight[x]) * fbmTail > tolerance
+                            || Math.abs(ridgedWeight[x]) * ridgedTail > tolerance) {
+                        active[count++] = x;
+                    }
+                }
+                if (count == 0) {
+                    continue;
+                }
+
+                double f = frequencies[i];
+                for (int j = 0; j < count; j++) {
+                    int x = active[j];
+                    s.sx[j] = xs[x] * f;
+                    s.sy[j] = ys[x] * f;
+                    s.sz[j] = zs[x] * f;
+                }
+                fbm.sample(s.sx, s.sy, s.sz, s.sample, count);
+                for (int j = 0; j < count; j++) {
+                    int x = active[j];
+                    if (Math.abs(fbmWeight[x]) * fbmTail > tolerance) {
+                        fbmOut[x] += fbmAmp * s.sample[j];
+                    }
+                    if (Math.abs(ridgedWeight[x]) * ridgedTail > tolerance) {
+                        double ridge = 1.0 - Math.abs(s.sample[j]);
+                        ridgedOut[x] += ridgedAmp * ridge;
+                    }
+                }
+            }
+            for (int x = 0; x < n; x++) {
+                fbmOut[x] /= fbm.norm;
+                ridgedOut[x] /= ridged.norm;
+            }
+        }
+
+        private static double[] tails(double[] amplitudes, double norm) {
+            double[] tails = new double[amplitudes.length];
+            double sum = 0.0;
+            for (int i = amplitudes.length - 1; i >= 0; i--) {
+                if (!Double.isNaN(amplitudes[i])) {
+                    sum += Math.abs(amplitudes[i]);
+                }
+                tails[i] = sum / Math.abs(norm);
+            }
+            return tails;
+        }
+
+        private static double[] alignAmplitudes(FractalNoise sum, double[] merged) {
+            double[] aligned = new double[merged.length];
+            java.util.Arrays.fill(aligned, Double.NaN);
+            for (int i = 0; i < sum.frequencies.length; i++) {
+                aligned[java.util.Arrays.binarySearch(merged, sum.frequencies[i])] = sum.amplitudes[i];
+            }
+            return aligned;
+        }
+    }
+
+    private static final class Scratch {
+        double[] sx = new double[0], sy = new double[0], sz = new double[0], sample = new double[0];
+        int[] active = new int[0];
+
+        Scratch ensure(int n) {
+            if (sx.length < n) {
+                sx = new double[n];
+                sy = new double[n];
+                sz = new double[n];
+                sample = new double[n];
+                active = new int[n];
+            }
+            return this;
+        }
+
+        void scale(double[] xs, double[] ys, double[] zs, double f, int n) {
+            for (int x = 0; x < n; x++) {
+                sx[x] = xs[x] * f;
+                sy[x] = ys[x] * f;
+                sz[x] = zs[x] * f;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.onur.planetgen.noise;
+
+/**
+ * Noise that can return its analytic partial derivatives alongside the value.
+ */
+public interface GradientNoise extends Noise {
+    /**
+     * Noise value plus its partial derivatives from a single evaluation.
+     *
+     * @param gradient receives d/dx, d/dy, d/dz in its first three slots
+     * @return noise value, identical to {@link #noise3(double, double, double)}
+     */
+    double noise3WithGradient(double x, double y, double z, double[] gradient);
+
+    /**
+     * Scanline variant of {@link #noise3WithGradient(double, double, double, double[])}.
+     */
+    default void noise3WithGradient(double[] xs, double[] ys, double[] zs, double[] out,
+                                    double[] dx, double[] dy, double[] dz, int n) {
+        double[] gradient = new double[3];
+        for (int i = 0; i < n; i++) {
+            out[i] = noise3WithGradient(xs[i], ys[i], zs[i], gradient);
+            dx[i] = gradient[0];
+            dy[i] = gradient[1];
+            dz[i] = gradient[2];
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.onur.planetgen.noise;
+
+/**
+ * Lattice cell cache for scanline evaluation of {@link OpenSimplex2} (Perlin) noise.
+ *
+ * Neighbouring pixels on a scanline usually fall in the same lattice cell; at continent
+ * frequencies a cell spans hundreds of pixels. The cursor keeps the gradient vectors of
+ * the last cell's eight corners and rebuilds them only when a point lands in another cell,
+ * so a repeat visit costs the fade curves, eight dot products and the trilinear blend.
+ * Values match {@link OpenSimplex2#noise3(double, double, double)}.
+ *
+ * Not thread-safe; owners keep one cursor per thread.
+ */
+final class LatticeCursor {
+    private final int[] perm;
+    // Corner order: 000, 100, 010, 110, 001, 101, 011, 111 (x fastest)
+    private final double[] gx = new double[8], gy = new double[8], gz = new double[8];
+    private int cx, cy, cz;
+    private boolean loaded;
+
+    LatticeCursor(int[] perm) {
+        this.perm = perm;
+    }
+
+    /**
+     * Point the cursor at the cell with origin (xi, yi, zi), hashing its corners only
+     * if it differs from the current cell.
+     */
+    void seek(int xi, int yi, int zi) {
+        if (loaded && xi == cx && yi == cy && zi == cz) {
+            return;
+        }
+        final int[] p = perm;
+        int a0 = p[xi & 255];
+        int a1 = p[(xi + 1) & 255];
+        int b00 = p[(a0 + yi) & 255];
+        int b10 = p[(a1 + yi) & 255];
+        int b01 = p[(a0 + yi + 1) & 255];
+        int b11 = p[(a1 + yi + 1) & 255];
+        load(0, p[(b00 + zi) & 255]);
+        load(1, p[(b10 + zi) & 255]);
+        load(2, p[(b01 + zi) & 255]);
+        load(3, p[(b11 + zi) & 255]);
+        load(4, p[(b00 + zi + 1) & 255]);
+        load(5, p[(b10 + zi + 1) & 255]);
+        load(6, p[(b01 + zi + 1) & 255]);
+        load(7, p[(b11 + zi + 1) & 255]);
+        cx = xi;
+        cy = yi;
+        cz = zi;
+        loaded = true;
+    }
+
+    private void load(int corner, int hash) {
+        gx[corner] = OpenSimplex2.GRAD_X[hash];
+        gy[corner] = OpenSimplex2.GRAD_Y[hash];
+        gz[corner] = OpenSimplex2.GRAD_Z[hash];
+    }
+
+    double noise3(double x, double y, double z) {
+        int xi = OpenSimplex2.fastFloor(x);
+        int yi = OpenSimplex2.fastFloor(y);
+        int zi = OpenSimplex2.fastFloor(z);
+        seek(xi, yi, zi);
+        return blend(x - xi, y - yi, z - zi);
+    }
+
+    /**
+     * Trilinear blend of the current cell's corner contributions at offset (xf, yf, zf).
+     */
+    double blend(double xf, double yf, double zf) {
+        return blend(xf, yf, zf, OpenSimplex2.fade(xf), OpenSimplex2.fade(yf), OpenSimplex2.fade(zf));
+    }
+
+    /**
+     * As {@link #blend(double, double, double)} with the fade weights already computed,
+     * for callers blending several cursors at one point.
+     */
+    double blend(double xf, double yf, double zf, double u, double v, double w) {
+        double xf1 = xf - 1, yf1 = yf - 1, zf1 = zf - 1;
+        double x0 = OpenSimplex2.lerp(u, dot(0, xf, yf, zf), dot(1, xf1, yf, zf));
+        double x1 = OpenSimplex2.lerp(u, dot(2, xf, yf1, zf), dot(3, xf1, yf1, zf));
+        double x2 = OpenSimplex2.lerp(u, dot(4, xf, yf, zf1), dot(5, xf1, yf, zf1));
+        double x3 = OpenSimplex2.lerp(u, dot(6, xf, yf1, zf1), dot(7, xf1, yf1, zf1));
+
+        double y0 = OpenSimplex2.lerp(v, x0, x1);
+        double y1 = OpenSimplex2.lerp(v, x2, x3);
+        return OpenSimplex2.lerp(w, y0, y1);
+    }
+
+    /**
+     * Value and partial derivatives, as {@link OpenSimplex2#noise3WithGradient}.
+     */
+    double noise3WithGradient(double x, double y, double z, double[] gradient) {
+        int xi = OpenSimplex2.fastFloor(x);
+        int yi = OpenSimplex2.fastFloor(y);
+        int zi = OpenSimplex2.fastFloor(z);
+        seek(xi, yi, zi);
+
+        double xf = x - xi, yf = y - yi, zf = z - zi;
+        double xf1 = xf - 1, yf1 = yf - 1, zf1 = zf - 1;
+        double u = OpenSimplex2.fade(xf);
+        double v = OpenSimplex2.fade(yf);
+        double w = OpenSimplex2.fade(zf);
+        double du = OpenSimplex2.fadeDerivative(xf);
+        double dv = OpenSimplex2.fadeDerivative(yf);
+        double dw = OpenSimplex2.fadeDerivative(zf);
+
+        double g000 = dot(0, xf, yf, zf);
+        double g100 = dot(1, xf1, yf, zf);
+        double g010 = dot(2, xf, yf1, zf);
+        double g110 = dot(3, xf1, yf1, zf);
+        double g001 = dot(4, xf, yf, zf1);
+        double g101 = dot(5, xf1, yf, zf1);
+        double g011 = dot(6, xf, yf1, zf1);
+        double g111 = dot(7, xf1, yf1, zf1);
+
+        double x0 = OpenSimplex2.lerp(u, g000, g100);
+        double x1 = OpenSimplex2.lerp(u, g010, g110);
+        double x2 = OpenSimplex2.lerp(u, g001, g101);
+        double x3 = OpenSimplex2.lerp(u, g011, g111);
+        double y0 = OpenSimplex2.lerp(v, x0, x1);
+        double y1 = OpenSimplex2.lerp(v, x2, x3);
+
+        double[] gx = this.gx, gy = this.gy, gz = this.gz;
+        double x0dx = OpenSimplex2.lerp(u, gx[0], gx[1]) + du * (g100 - g000);
+        double x1dx = OpenSimplex2.lerp(u, gx[2], gx[3]) + du * (g110 - g010);
+        double x2dx = OpenSimplex2.lerp(u, gx[4], gx[5]) + du * (g101 - g001);
+        double x3dx = OpenSimplex2.lerp(u, gx[6], gx[7]) + du * (g111 - g011);
+
+        double x0dy = OpenSimplex2.lerp(u, gy[0], gy[1]);
+        double x1dy = OpenSimplex2.lerp(u, gy[2], gy[3]);
+        double x2dy = OpenSimplex2.lerp(u, gy[4], gy[5]);
+        double x3dy = OpenSimplex2.lerp(u, gy[6], gy[7]);
+
+        double x0dz = OpenSimplex2.lerp(u, gz[0], gz[1]);
+        double x1dz = OpenSimplex2.lerp(u, gz[2], gz[3]);
+        double x2dz = OpenSimplex2.lerp(u, gz[4], gz[5]);
+        double x3dz = OpenSimplex2.lerp(u, gz[6], gz[7]);
+
+        double y0dx = OpenSimplex2.lerp(v, x0dx, x1dx);
+        double y1dx = OpenSimplex2.lerp(v, x2dx, x3dx);
+        double y0dy = OpenSimplex2.lerp(v, x0dy, x1dy) + dv * (x1 - x0);
+        double y1dy = OpenSimplex2.lerp(v, x2dy, x3dy) + dv * (x3 - x2);
+        double y0dz = OpenSimplex2.lerp(v, x0dz, x1dz);
+        double y1dz = OpenSimplex2.lerp(v, x2dz, x3dz);
+
+        gradient[0] = OpenSimplex2.lerp(w, y0dx, y1dx);
+        gradient[1] = OpenSimplex2.lerp(w, y0dy, y1dy);
+        gradient[2] = OpenSimplex2.lerp(w, y0dz, y1dz) + dw * (y1 - y0);
+        return OpenSimplex2.lerp(w, y0, y1);
+    }
+
+    private double dot(int corner, double x, double y, double z) {
+        return gx[corner] * x + gy[corner] * y + gz[corner] * z;
+    }
+}
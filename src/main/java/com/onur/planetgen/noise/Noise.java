@@ -2,4 +2,21 @@ package com.onur.planetgen.noise;
 
 public interface Noise {
     double noise3(double x, double y, double z);
+
+    /**
+     * Evaluate noise for a batch of points, writing results to {@code out}.
+     * Implementations override this to keep their lookup tables in registers
+     * across a whole scanline instead of paying per-call dispatch.
+     *
+     * @param xs x coordinates
+     * @param ys y coordinates
+     * @param zs z coordinates
+     * @param out destination for the noise values
+     * @param n number of points to evaluate
+     */
+    default void noise3(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = noise3(xs[i], ys[i], zs[i]);
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package com.onur.planetgen.noise;
+
+import java.util.Locale;
+
+/**
+ * Lattice noise implementations selectable through {@code Preset.noiseType}.
+ */
+public enum NoiseType {
+    /** Classic 8-corner gradient noise; the original generator, kept so old seeds reproduce. */
+    PERLIN("perlin"),
+    /** OpenSimplex2 on the body-centered cubic lattice: 4 contributions per sample, no axis bias. */
+    OPENSIMPLEX2("opensimplex2");
+
+    private final String key;
+
+    NoiseType(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public GradientNoise create(long seed) {
+        return switch (this) {
+            case PERLIN -> new OpenSimplex2(seed);
+            case OPENSIMPLEX2 -> new OpenSimplex2F(seed);
+        };
+    }
+
+    /**
+     * Parse a preset value; {@code null} selects {@link #PERLIN}.
+     *
+     * @throws IllegalArgumentException for unknown names
+     */
+    public static NoiseType fromName(String name) {
+        if (name == null) {
+            return PERLIN;
+        }
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (NoiseType type : values()) {
+            if (type.key.equals(normalized)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown noise type: " + name + " (expected perlin or opensimplex2)");
+    }
+}
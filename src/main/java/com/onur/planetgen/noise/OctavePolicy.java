@@ -0,0 +1,61 @@
+package com.onur.planetgen.noise;
+
+/**
+ * Resolution-aware octave counts for fractal layers sampled on the unit sphere.
+ *
+ * Octave counts in the generators are tuned for a 4096x2048 map. Sampling noise at
+ * frequency f on the unit sphere gives features about 1/f radians across, so an octave
+ * only resolves when 1/f spans at least two pixels. This policy drops octaves above that
+ * Nyquist limit and grants one extra octave per doubling of resolution beyond the
+ * reference, so previews skip sub-pixel work and large renders gain detail.
+ */
+public final class OctavePolicy {
+    /** Angular pixel size of the 4096x2048 reference map the base octave counts are tuned for. */
+    public static final double REFERENCE_PIXEL_ANGLE = Math.PI / 2048;
+
+    /** Base octave counts, unchanged at every resolution. */
+    public static final OctavePolicy FIXED = new OctavePolicy(Double.POSITIVE_INFINITY, 0);
+
+    private final double maxFrequency;
+    private final int extraOctaves;
+
+    private OctavePolicy(double maxFrequency, int extraOctaves) {
+        this.maxFrequency = maxFrequency;
+        this.extraOctaves = extraOctaves;
+    }
+
+    /**
+     * @param pixelAngle angular size of one pixel, in radians
+     * @param quality scales the Nyquist limit: above 1 keeps octaves that partly alias,
+     *                below 1 culls more aggressively; 0 or less returns {@link #FIXED}
+     */
+    public static OctavePolicy forResolution(double pixelAngle, double quality) {
+        if (!(quality > 0.0)) {
+            return FIXED;
+        }
+        double doublings = Math.log(REFERENCE_PIXEL_ANGLE / pixelAngle) / Math.log(2.0);
+        // Tolerate rounding so exactly 2x and 4x the reference count as whole doublings
+        int extra = Math.max(0, (int) Math.floor(doublings + 1e-9));
+        return new OctavePolicy(quality / (2.0 * pixelAngle), extra);
+    }
+
+    /** Highest sample frequency that still resolves. */
+    public double maxFrequency() {
+        return maxFrequency;
+    }
+
+    /**
+     * Octaves to evaluate for a layer tuned with {@code baseOctaves}: extended by the
+     * resolution bonus, then trimmed while the top octave is above the Nyquist limit.
+     * The first octave is always kept.
+     */
+    public int octaves(double scale, int baseOctaves, double lacunarity) {
+        int octaves = baseOctaves + extraOctaves;
+        double top = scale * Math.pow(lacunarity, octaves - 1);
+        while (octaves > 1 && top > maxFrequency) {
+            octaves--;
+            top /= lacunarity;
+        }
+        return octaves;
+    }
+}
@@ -1,8 +1,41 @@
 package com.onur.planetgen.noise;
 
-public final class OpenSimplex2 implements Noise {
+public final class OpenSimplex2 implements GradientNoise {
+    /** True when the Vector API kernel can run (jdk.incubator.vector is loaded). */
+    static final boolean SIMD_AVAILABLE = detectSimd();
+    /**
+     * True when batches run on the Vector API kernel; opt in with -Dplanetgen.noise.simd=true.
+     * Off by default: on scanlines the cell-caching scalar path is faster.
+     */
+    static final boolean SIMD = SIMD_AVAILABLE && Boolean.getBoolean("planetgen.noise.simd");
+
+    // Gradient vectors per permutation value: grad(hash, x, y, z) == GRAD_X*x + GRAD_Y*y + GRAD_Z*z
+    static final double[] GRAD_X = new double[256];
+    static final double[] GRAD_Y = new double[256];
+    static final double[] GRAD_Z = new double[256];
+
+    static {
+        for (int hash = 0; hash < 256; hash++) {
+            int h = hash % 12;
+            double su = (h & 1) == 0 ? 1.0 : -1.0;
+            double sv = (h & 2) == 0 ? 1.0 : -1.0;
+            if (h < 4) {
+                GRAD_X[hash] = su;
+                GRAD_Y[hash] = sv;
+            } else if (h < 8) {
+                GRAD_X[hash] = su;
+                GRAD_Z[hash] = sv;
+            } else {
+                GRAD_Y[hash] = su;
+                GRAD_Z[hash] = sv;
+            }
+        }
+    }
+
     private final int[] perm = new int[512];
     private final int[] permMod12 = new int[512];
+    // Per-thread cell cache for scanline batches
+    private final ThreadLocal<LatticeCursor> cursor = ThreadLocal.withInitial(() -> new LatticeCursor(perm));
 
     public OpenSimplex2(long seed) {
         // Initialize permutation table with xorshift-based PRNG for better quality
@@ -76,24 +109,171 @@ public final class OpenSimplex2 implements Noise {
         return lerp(w, y0, y1);
     }
 
+    /**
+     * Scanline variant of {@link #noise3(double, double, double)}, producing the same values.
+     * Corner gradients are cached per thread ({@link LatticeCursor}) and reused while
+     * consecutive points stay in one lattice cell. With the SIMD kernel enabled, full
+     * vectors go through {@link VectorNoiseKernel} instead.
+     */
+    @Override
+    public void noise3(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        if (SIMD) {
+            noise3Vector(xs, ys, zs, out, n);
+        } else {
+            noise3Scalar(xs, ys, zs, out, 0, n);
+        }
+    }
+
+    /** Vector API kernel for full vectors, scalar path for the tail; needs {@link #SIMD_AVAILABLE}. */
+    void noise3Vector(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        int start = VectorNoiseKernel.noise3(perm, xs, ys, zs, out, n);
+        noise3Scalar(xs, ys, zs, out, start, n);
+    }
+
+    void noise3Scalar(double[] xs, double[] ys, double[] zs, double[] out, int from, int to) {
+        LatticeCursor c = cursor.get();
+        for (int i = from; i < to; i++) {
+            out[i] = c.noise3(xs[i], ys[i], zs[i]);
+        }
+    }
+
+    /**
+     * Noise value plus its analytic partial derivatives from a single lattice traversal.
+     * The returned value is identical to {@link #noise3(double, double, double)}.
+     *
+     * @param gradient receives d/dx, d/dy, d/dz in its first three slots
+     * @return noise value
+     */
+    @Override
+    public double noise3WithGradient(double x, double y, double z, double[] gradient) {
+        int xi = fastFloor(x);
+        int yi = fastFloor(y);
+        int zi = fastFloor(z);
+
+        double xf = x - xi;
+        double yf = y - yi;
+        double zf = z - zi;
+
+        double u = fade(xf);
+        double v = fade(yf);
+        double w = fade(zf);
+        double du = fadeDerivative(xf);
+        double dv = fadeDerivative(yf);
+        double dw = fadeDerivative(zf);
+
+        int h000 = hash(xi, yi, zi);
+        int h100 = hash(xi + 1, yi, zi);
+        int h010 = hash(xi, yi + 1, zi);
+        int h110 = hash(xi + 1, yi + 1, zi);
+        int h001 = hash(xi, yi, zi + 1);
+        int h101 = hash(xi + 1, yi, zi + 1);
+        int h011 = hash(xi, yi + 1, zi + 1);
+        int h111 = hash(xi + 1, yi + 1, zi + 1);
+
+        double g000 = grad(h000, xf, yf, zf);
+        double g100 = grad(h100, xf - 1, yf, zf);
+        double g010 = grad(h010, xf, yf - 1, zf);
+        double g110 = grad(h110, xf - 1, yf - 1, zf);
+        double g001 = grad(h001, xf, yf, zf - 1);
+        double g101 = grad(h101, xf - 1, yf, zf - 1);
+        double g011 = grad(h011, xf, yf - 1, zf - 1);
+        double g111 = grad(h111, xf - 1, yf - 1, zf - 1);
+
+        double x0 = lerp(u, g000, g100);
+        double x1 = lerp(u, g010, g110);
+        double x2 = lerp(u, g001, g101);
+        double x3 = lerp(u, g011, g111);
+
+        double y0 = lerp(v, x0, x1);
+        double y1 = lerp(v, x2, x3);
+
+        // Each corner contributes its constant gradient vector; d(lerp) = da + t(db - da) + dt(b - a)
+        double x0dx = lerp(u, GRAD_X[h000], GRAD_X[h100]) + du * (g100 - g000);
+        double x1dx = lerp(u, GRAD_X[h010], GRAD_X[h110]) + du * (g110 - g010);
+        double x2dx = lerp(u, GRAD_X[h001], GRAD_X[h101]) + du * (g101 - g001);
+        double x3dx = lerp(u, GRAD_X[h011], GRAD_X[h111]) + du * (g111 - g011);
+
+        double x0dy = lerp(u, GRAD_Y[h000], GRAD_Y[h100]);
+        double x1dy = lerp(u, GRAD_Y[h010], GRAD_Y[h110]);
+        double x2dy = lerp(u, GRAD_Y[h001], GRAD_Y[h101]);
+        double x3dy = lerp(u, GRAD_Y[h011], GRAD_Y[h111]);
+
+        double x0dz = lerp(u, GRAD_Z[h000], GRAD_Z[h100]);
+        double x1dz = lerp(u, GRAD_Z[h010], GRAD_Z[h110]);
+        double x2dz = lerp(u, GRAD_Z[h001], GRAD_Z[h101]);
+        double x3dz = lerp(u, GRAD_Z[h011], GRAD_Z[h111]);
+
+        double y0dx = lerp(v, x0dx, x1dx);
+        double y1dx = lerp(v, x2dx, x3dx);
+        double y0dy = lerp(v, x0dy, x1dy) + dv * (x1 - x0);
+        double y1dy = lerp(v, x2dy, x3dy) + dv * (x3 - x2);
+        double y0dz = lerp(v, x0dz, x1dz);
+        double y1dz = lerp(v, x2dz, x3dz);
+
+        gradient[0] = lerp(w, y0dx, y1dx);
+        gradient[1] = lerp(w, y0dy, y1dy);
+        gradient[2] = lerp(w, y0dz, y1dz) + dw * (y1 - y0);
+
+        return lerp(w, y0, y1);
+    }
+
+    /**
+     * Scanline variant of {@link #noise3WithGradient(double, double, double, double[])};
+     * corner gradients are reused while consecutive points stay in one lattice cell.
+     */
+    @Override
+    public void noise3WithGradient(double[] xs, double[] ys, double[] zs, double[] out,
+                                   double[] dx, double[] dy, double[] dz, int n) {
+        LatticeCursor c = cursor.get();
+        double[] gradient = new double[3];
+        for (int i = 0; i < n; i++) {
+            out[i] = c.noise3WithGradient(xs[i], ys[i], zs[i], gradient);
+            dx[i] = gradient[0];
+            dy[i] = gradient[1];
+            dz[i] = gradient[2];
+        }
+    }
+
+    /**
+     * The 256-entry permutation (upper half duplicates it), for fused kernels in this package.
+     */
+    int[] permutation() {
+        return perm;
+    }
+
+    private static boolean detectSimd() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorNoiseKernel.lanes() >= 2;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
     private int hash(int x, int y, int z) {
         int h = perm[(perm[(perm[x & 255] + y) & 255] + z) & 255];
         return h;
     }
 
-    private static int fastFloor(double x) {
+    static int fastFloor(double x) {
         return x >= 0 ? (int) x : ((int) x - 1);
     }
 
-    private static double fade(double t) {
+    static double fade(double t) {
         return t * t * t * (t * (t * 6 - 15) + 10);
     }
 
-    private static double lerp(double t, double a, double b) {
+    static double fadeDerivative(double t) {
+        return 30.0 * t * t * (t * (t - 2.0) + 1.0);
+    }
+
+    static double lerp(double t, double a, double b) {
         return a + t * (b - a);
     }
 
-    private static double grad(int hash, double x, double y, double z) {
+    static double grad(int hash, double x, double y, double z) {
         int h = hash % 12;
         double u = h < 8 ? x : y;
         double v = h < 4 ? y : (h == 12 || h == 14 ? x : z);
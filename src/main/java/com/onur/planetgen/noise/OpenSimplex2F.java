@@ -0,0 +1,204 @@
+package com.onur.planetgen.noise;
+
+/**
+ * OpenSimplex2 (fast variant) 3D noise on a body-centered cubic lattice.
+ *
+ * The BCC lattice is two interleaved cubic lattices offset by half a cell. Each sample
+ * takes the closest point of each cubic lattice plus the next closest along its dominant
+ * axis: 4 radial contributions of (0.6 - r^2)^4 * (g . d), versus 8 corner hashes and
+ * 7 lerps for {@link OpenSimplex2}. Input is rotated so the lattice's main diagonal is
+ * vertical, which hides the axis-aligned ridges classic gradient noise shows at low
+ * frequency. Hashing is arithmetic on the seed, so construction allocates nothing.
+ */
+public final class OpenSimplex2F implements GradientNoise {
+    private static final long PRIME_X = 0x5205402B9270C86FL;
+    private static final long PRIME_Y = 0x598CD327003817B5L;
+    private static final long PRIME_Z = 0x5BCC226E9FA0BACBL;
+    private static final long HASH_MULTIPLIER = 0x53A3F72DEEC546F5L;
+    private static final long SEED_FLIP = -0x52D547B2E96ED629L;
+
+    private static final double ROTATE = 2.0 / 3.0;
+    private static final double RSQUARED = 0.6;
+    private static final double NORMALIZER = 0.07969837668935331;
+
+    private static final int GRAD_EXPONENT = 8;
+    private static final int GRAD_SHIFT = 64 - GRAD_EXPONENT + 2;
+    private static final int GRAD_MASK = ((1 << GRAD_EXPONENT) - 1) << 2;
+
+    // 48 gradients (cuboctahedron-like set, all of equal length) tiled into 256 slots of stride 4
+    private static final double[] GRADIENTS = new double[(1 << GRAD_EXPONENT) * 4];
+
+    static {
+        double a = 2.22474487139, b = 1.0;
+        double c = 3.0862664687972017, d = 1.1721513422464978;
+        double[][] base = {
+                {a, a, -b}, {a, a, b}, {c, d, 0}, {c, -d, 0},
+                {a, -a, -b}, {a, -a, b}, {c, 0, d}, {c, 0, -d},
+                {a, -b, a}, {a, b, a}, {d, c, 0}, {-d, c, 0},
+                {-a, -b, a}, {-a, b, a}, {0, c, d}, {0, c, -d},
+                {-b, a, a}, {b, a, a}, {d, 0, c}, {-d, 0, c},
+                {-b, -a, a}, {b, -a, a}, {0, d, c}, {0, -d, c},
+                {-a, -a, -b}, {-a, -a, b}, {-c, -d, 0}, {-c, d, 0},
+                {-a, a, -b}, {-a, a, b}, {-c, 0, -d}, {-c, 0, d},
+                {a, -b, -a}, {a, b, -a}, {-d, -c, 0}, {d, -c, 0},
+                {-a, -b, -a}, {-a, b, -a}, {0, -c, -d}, {0, -c, d},
+                {-b, a, -a}, {b, a, -a}, {-d, 0, -c}, {d, 0, -c},
+                {-b, -a, -a}, {b, -a, -a}, {0, -d, -c}, {0, d, -c},
+        };
+        for (int i = 0; i < GRADIENTS.length / 4; i++) {
+            double[] g = base[i % base.length];
+            GRADIENTS[i * 4] = g[0] / NORMALIZER;
+            GRADIENTS[i * 4 + 1] = g[1] / NORMALIZER;
+            GRADIENTS[i * 4 + 2] = g[2] / NORMALIZER;
+        }
+    }
+
+    private final long seed;
+
+    public OpenSimplex2F(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public double noise3(double x, double y, double z) {
+        double r = ROTATE * (x + y + z);
+        return evaluate(seed, r - x, r - y, r - z);
+    }
+
+    @Override
+    public void noise3(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        final long s = seed;
+        for (int i = 0; i < n; i++) {
+            double x = xs[i], y = ys[i], z = zs[i];
+            double r = ROTATE * (x + y + z);
+            out[i] = evaluate(s, r - x, r - y, r - z);
+        }
+    }
+
+    /**
+     * Value plus gradient with respect to the unrotated input. The rotation
+     * {@code p' = (2/3)(x+y+z) - p} is symmetric, so the same map takes the
+     * lattice-space gradient back to input space.
+     */
+    @Override
+    public double noise3WithGradient(double x, double y, double z, double[] gradient) {
+        double r = ROTATE * (x + y + z);
+        double value = evaluateWithGradient(seed, r - x, r - y, r - z, gradient);
+        double gr = ROTATE * (gradient[0] + gradient[1] + gradient[2]);
+        gradient[0] = gr - gradient[0];
+        gradient[1] = gr - gradient[1];
+        gradient[2] = gr - gradient[2];
+        return value;
+    }
+
+    /**
+     * Sum the four contributions around a rotated point: the closest point of each cubic
+     * lattice, and the next closest one step along its dominant axis.
+     */
+    private static double evaluate(long seed, double xr, double yr, double zr) {
+        double value = 0.0;
+        for (int lattice = 0; lattice < 2; lattice++) {
+            int xb = fastRound(xr), yb = fastRound(yr), zb = fastRound(zr);
+            double dx = xr - xb, dy = yr - yb, dz = zr - zb;
+            long xp = xb * PRIME_X, yp = yb * PRIME_Y, zp = zb * PRIME_Z;
+
+            value += contribute(seed, xp, yp, zp, dx, dy, dz);
+
+            double ax = Math.abs(dx), ay = Math.abs(dy), az = Math.abs(dz);
+            if (ax >= ay && ax >= az) {
+                int sx = dx < 0 ? -1 : 1;
+                value += contribute(seed, xp + sx * PRIME_X, yp, zp, dx - sx, dy, dz);
+            } else if (ay > ax && ay >= az) {
+                int sy = dy < 0 ? -1 : 1;
+                value += contribute(seed, xp, yp + sy * PRIME_Y, zp, dx, dy - sy, dz);
+            } else {
+                int sz = dz < 0 ? -1 : 1;
+                value += contribute(seed, xp, yp, zp + sz * PRIME_Z, dx, dy, dz - sz);
+            }
+
+            // The other cubic lattice sits half a cell away and hashes with a flipped seed
+            xr += 0.5;
+            yr += 0.5;
+            zr += 0.5;
+            seed ^= SEED_FLIP;
+        }
+        return value;
+    }
+
+    /**
+     * {@link #evaluate(long, double, double, double)} that also accumulates the derivative
+     * with respect to the rotated coordinates into {@code gradient}.
+     */
+    private static double evaluateWithGradient(long seed, double xr, double yr, double zr, double[] gradient) {
+        gradient[0] = 0.0;
+        gradient[1] = 0.0;
+        gradient[2] = 0.0;
+        double value = 0.0;
+        for (int lattice = 0; lattice < 2; lattice++) {
+            int xb = fastRound(xr), yb = fastRound(yr), zb = fastRound(zr);
+            double dx = xr - xb, dy = yr - yb, dz = zr - zb;
+            long xp = xb * PRIME_X, yp = yb * PRIME_Y, zp = zb * PRIME_Z;
+
+            value += contribute(seed, xp, yp, zp, dx, dy, dz, gradient);
+
+            double ax = Math.abs(dx), ay = Math.abs(dy), az = Math.abs(dz);
+            if (ax >= ay && ax >= az) {
+                int sx = dx < 0 ? -1 : 1;
+                value += contribute(seed, xp + sx * PRIME_X, yp, zp, dx - sx, dy, dz, gradient);
+            } else if (ay > ax && ay >= az) {
+                int sy = dy < 0 ? -1 : 1;
+                value += contribute(seed, xp, yp + sy * PRIME_Y, zp, dx, dy - sy, dz, gradient);
+            } else {
+                int sz = dz < 0 ? -1 : 1;
+                value += contribute(seed, xp, yp, zp + sz * PRIME_Z, dx, dy, dz - sz, gradient);
+            }
+
+            xr += 0.5;
+            yr += 0.5;
+            zr += 0.5;
+            seed ^= SEED_FLIP;
+        }
+        return value;
+    }
+
+    private static double contribute(long seed, long xp, long yp, long zp, double dx, double dy, double dz) {
+        double a = RSQUARED - dx * dx - dy * dy - dz * dz;
+        if (a <= 0) {
+            return 0.0;
+        }
+        int gi = gradientIndex(seed, xp, yp, zp);
+        double a2 = a * a;
+        return a2 * a2 * (GRADIENTS[gi] * dx + GRADIENTS[gi + 1] * dy + GRADIENTS[gi + 2] * dz);
+    }
+
+    private static double contribute(long seed, long xp, long yp, long zp,
+                                     double dx, double dy, double dz, double[] gradient) {
+        double a = RSQUARED - dx * dx - dy * dy - dz * dz;
+        if (a <= 0) {
+            return 0.0;
+        }
+        int gi = gradientIndex(seed, xp, yp, zp);
+        double gx = GRADIENTS[gi], gy = GRADIENTS[gi + 1], gz = GRADIENTS[gi + 2];
+
+        double extrapolation = gx * dx + gy * dy + gz * dz;
+        double a2 = a * a;
+        double a4 = a2 * a2;
+        // d/dd [a^4 (g . d)] = a^4 g - 8 a^3 (g . d) d
+        double radial = -8.0 * a2 * a * extrapolation;
+        gradient[0] += a4 * gx + radial * dx;
+        gradient[1] += a4 * gy + radial * dy;
+        gradient[2] += a4 * gz + radial * dz;
+        return a4 * extrapolation;
+    }
+
+    private static int gradientIndex(long seed, long xp, long yp, long zp) {
+        long hash = (seed ^ xp) ^ (yp ^ zp);
+        hash *= HASH_MULTIPLIER;
+        hash ^= hash >> GRAD_SHIFT;
+        return (int) hash & GRAD_MASK;
+    }
+
+    private static int fastRound(double x) {
+        return x < 0 ? (int) (x - 0.5) : (int) (x + 0.5);
+    }
+}
@@ -0,0 +1,146 @@
+package com.onur.planetgen.noise;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD backend for {@link OpenSimplex2} batches, built on the incubating JDK Vector API.
+ *
+ * Lattice hashing stays scalar (it is a chain of dependent table lookups), while the
+ * floor, fade, gradient and lerp steps run on whole vectors of sample points. Gradients
+ * use the {-1, 0, 1} coefficient tables from {@link OpenSimplex2}, so every lane performs
+ * the same IEEE operations in the same order as the scalar path and produces the same value.
+ *
+ * Only referenced once {@link OpenSimplex2} has confirmed the module is in the boot layer,
+ * so the class is never linked on JVMs started without {@code --add-modules jdk.incubator.vector}.
+ */
+final class VectorNoiseKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // Per-thread lane buffers: lattice origins and the eight corner hashes
+    private static final ThreadLocal<Lanes> LANE_BUFFERS = ThreadLocal.withInitial(Lanes::new);
+
+    private VectorNoiseKernel() {}
+
+    static int lanes() {
+        return LANES;
+    }
+
+    /**
+     * Evaluate {@code n} points using the given permutation table. Points beyond the
+     * last full vector are left untouched and returned as the index to resume from.
+     */
+    static int noise3(int[] perm, double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        Lanes lanes = LANE_BUFFERS.get();
+        double[] fx = lanes.fx, fy = lanes.fy, fz = lanes.fz;
+
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, ys, i);
+            DoubleVector z = DoubleVector.fromArray(SPECIES, zs, i);
+
+            stageCorners(perm, lanes, xs, ys, zs, i);
+            DoubleVector xi = DoubleVector.fromArray(SPECIES, fx, 0);
+            DoubleVector yi = DoubleVector.fromArray(SPECIES, fy, 0);
+            DoubleVector zi = DoubleVector.fromArray(SPECIES, fz, 0);
+
+            DoubleVector xf = x.sub(xi);
+            DoubleVector yf = y.sub(yi);
+            DoubleVector zf = z.sub(zi);
+            DoubleVector xf1 = xf.sub(1.0);
+            DoubleVector yf1 = yf.sub(1.0);
+            DoubleVector zf1 = zf.sub(1.0);
+
+            DoubleVector u = fade(xf);
+            DoubleVector v = fade(yf);
+            DoubleVector w = fade(zf);
+
+            DoubleVector g000 = grad(lanes, 0, xf, yf, zf);
+            DoubleVector g100 = grad(lanes, 1, xf1, yf, zf);
+            DoubleVector g010 = grad(lanes, 2, xf, yf1, zf);
+            DoubleVector g110 = grad(lanes, 3, xf1, yf1, zf);
+            DoubleVector g001 = grad(lanes, 4, xf, yf, zf1);
+            DoubleVector g101 = grad(lanes, 5, xf1, yf, zf1);
+            DoubleVector g011 = grad(lanes, 6, xf, yf1, zf1);
+            DoubleVector g111 = grad(lanes, 7, xf1, yf1, zf1);
+
+            DoubleVector x0 = lerp(u, g000, g100);
+            DoubleVector x1 = lerp(u, g010, g110);
+            DoubleVector x2 = lerp(u, g001, g101);
+            DoubleVector x3 = lerp(u, g011, g111);
+
+            DoubleVector y0 = lerp(v, x0, x1);
+            DoubleVector y1 = lerp(v, x2, x3);
+
+            lerp(w, y0, y1).intoArray(out, i);
+        }
+        return i;
+    }
+
+    /**
+     * Scalar half of a block: lattice origins and staged gradient coefficients for each lane.
+     * Kept out of line so the vector half stays within the JIT's inlining budget.
+     */
+    private static void stageCorners(int[] perm, Lanes lanes, double[] xs, double[] ys, double[] zs, int i) {
+        double[] fx = lanes.fx, fy = lanes.fy, fz = lanes.fz;
+        for (int l = 0; l < LANES; l++) {
+            int cx = fastFloor(xs[i + l]), cy = fastFloor(ys[i + l]), cz = fastFloor(zs[i + l]);
+            fx[l] = cx;
+            fy[l] = cy;
+            fz[l] = cz;
+            int a0 = perm[cx & 255];
+            int a1 = perm[(cx + 1) & 255];
+            int b00 = perm[(a0 + cy) & 255];
+            int b10 = perm[(a1 + cy) & 255];
+            int b01 = perm[(a0 + cy + 1) & 255];
+            int b11 = perm[(a1 + cy + 1) & 255];
+            stage(lanes, 0, l, perm[(b00 + cz) & 255]);
+            stage(lanes, 1, l, perm[(b10 + cz) & 255]);
+            stage(lanes, 2, l, perm[(b01 + cz) & 255]);
+            stage(lanes, 3, l, perm[(b11 + cz) & 255]);
+            stage(lanes, 4, l, perm[(b00 + cz + 1) & 255]);
+            stage(lanes, 5, l, perm[(b10 + cz + 1) & 255]);
+            stage(lanes, 6, l, perm[(b01 + cz + 1) & 255]);
+            stage(lanes, 7, l, perm[(b11 + cz + 1) & 255]);
+        }
+    }
+
+    private static void stage(Lanes lanes, int corner, int lane, int hash) {
+        int slot = corner * LANES + lane;
+        lanes.gx[slot] = OpenSimplex2.GRAD_X[hash];
+        lanes.gy[slot] = OpenSimplex2.GRAD_Y[hash];
+        lanes.gz[slot] = OpenSimplex2.GRAD_Z[hash];
+    }
+
+    private static int fastFloor(double x) {
+        return x >= 0 ? (int) x : ((int) x - 1);
+    }
+
+    private static DoubleVector fade(DoubleVector t) {
+        return t.mul(t).mul(t).mul(t.mul(t.mul(6.0).sub(15.0)).add(10.0));
+    }
+
+    private static DoubleVector lerp(DoubleVector t, DoubleVector a, DoubleVector b) {
+        return a.add(t.mul(b.sub(a)));
+    }
+
+    private static DoubleVector grad(Lanes lanes, int corner, DoubleVector x, DoubleVector y, DoubleVector z) {
+        int offset = corner * LANES;
+        DoubleVector gx = DoubleVector.fromArray(SPECIES, lanes.gx, offset);
+        DoubleVector gy = DoubleVector.fromArray(SPECIES, lanes.gy, offset);
+        DoubleVector gz = DoubleVector.fromArray(SPECIES, lanes.gz, offset);
+        return gx.mul(x).add(gy.mul(y)).add(gz.mul(z));
+    }
+
+    private static final class Lanes {
+        final double[] fx = new double[LANES];
+        final double[] fy = new double[LANES];
+        final double[] fz = new double[LANES];
+        final double[] gx = new double[8 * LANES];
+        final double[] gy = new double[8 * LANES];
+        final double[] gz = new double[8 * LANES];
+    }
+}
@@ -0,0 +1,23 @@
+package com.onur.planetgen.noise.graph;
+
+import java.util.List;
+
+/**
+ * Recipe expression tree, as produced by {@link RecipeParser}.
+ */
+sealed interface Expr {
+    /** Numeric literal. */
+    record Num(double value) implements Expr {}
+
+    /** Reference to a let binding, a preset constant or a noise source. */
+    record Ref(String name, int pos) implements Expr {}
+
+    /** Unary minus. */
+    record Neg(Expr operand) implements Expr {}
+
+    /** Arithmetic operator: one of {@code + - * /}. */
+    record Binary(char op, Expr left, Expr right) implements Expr {}
+
+    /** Function call: arithmetic (max, pow, ...) or a noise layer (fbm, ridged, ...). */
+    record Call(String function, List<Expr> args, int pos) implements Expr {}
+}
@@ -0,0 +1,479 @@
+package com.onur.planetgen.noise.graph;
+
+import com.onur.planetgen.noise.FractalNoise;
+import com.onur.planetgen.noise.GradientNoise;
+import com.onur.planetgen.noise.Noise;
+import com.onur.planetgen.noise.OctavePolicy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A noise recipe compiled for scanline evaluation.
+ *
+ * Recipes are small expression programs over named noise sources and preset constants:
+ * <pre>
+ * let continent = fbm(warp, continentScale, 2, 2.0, 0.5)
+ * let ridges = ridged(base, continentScale * 1.5, 4, 2.0, 0.6)
+ * 0.6 * continent + 0.3 * ridges * max(0, continent)
+ * </pre>
+ *
+ * Compilation splits a recipe in two:
+ * <ul>
+ *   <li>Noise layers ({@code noise, fbm, ridged, slope}) become batched {@link FractalNoise}
+ *       passes that fill one row buffer each. Identical layers are evaluated once, and an
+ *       fBm and a ridged layer on the same source share samples at common frequencies.</li>
+ *   <li>The per-pixel arithmetic is constant-folded and compiled into one {@link MethodHandle}
+ *       tree of type {@code (double[][] rows, int x) -> double}. The JIT compiles the tree as a
+ *       unit, so there is no per-node dispatch per pixel.</li>
+ * </ul>
+ *
+ * Expressions evaluate in the order written, so a recipe that mirrors hand-written Java
+ * arithmetic produces bit-identical results.
+ */
+public final class NoiseGraph {
+    private static final MethodType PIXEL = MethodType.methodType(double.class, double[][].class, int.class);
+    private static final MethodHandle ROW = MethodHandles.arrayElementGetter(double[][].class);
+    private static final MethodHandle ELEMENT = MethodHandles.arrayElementGetter(double[].class);
+    private static final Map<String, MethodHandle> FUNCTIONS = new HashMap<>();
+    private static final MethodHandle ADD, SUB, MUL, DIV, NEG;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodType unary = MethodType.methodType(double.class, double.class);
+            MethodType binary = MethodType.methodType(double.class, double.class, double.class);
+            MethodType ternary = MethodType.methodType(double.class, double.class, double.class, double.class);
+            ADD = lookup.findStatic(NoiseGraph.class, "add", binary);
+            SUB = lookup.findStatic(NoiseGraph.class, "sub", binary);
+            MUL = lookup.findStatic(NoiseGraph.class, "mul", binary);
+            DIV = lookup.findStatic(NoiseGraph.class, "div", binary);
+            NEG = lookup.findStatic(NoiseGraph.class, "neg", unary);
+            FUNCTIONS.put("min", lookup.findStatic(Math.class, "min", binary));
+            FUNCTIONS.put("max", lookup.findStatic(Math.class, "max", binary));
+            FUNCTIONS.put("pow", lookup.findStatic(Math.class, "pow", binary));
+            FUNCTIONS.put("abs", lookup.findStatic(Math.class, "abs", unary));
+            FUNCTIONS.put("sqrt", lookup.findStatic(Math.class, "sqrt", unary));
+            FUNCTIONS.put("clamp", lookup.findStatic(NoiseGraph.class, "clamp", ternary));
+            FUNCTIONS.put("lerp", lookup.findStatic(NoiseGraph.class, "lerp", ternary));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final List<Layer> layers;
+    private final int slots;
+    private final int samplesPerPoint;
+    private final MethodHandle pixel;
+
+    // Per-thread row buffers, one per noise layer plus slope scratch
+    private final ThreadLocal<Rows> rows = ThreadLocal.withInitial(Rows::new);
+
+    private NoiseGraph(List<Layer> layers, int slots, MethodHandle pixel) {
+        this.layers = layers;
+        this.slots = slots;
+        this.pixel = pixel;
+        int samples = 0;
+        for (Layer layer : layers) {
+            samples += layer.samplesPerPoint();
+        }
+        this.samplesPerPoint = samples;
+    }
+
+    /**
+     * Compile a recipe.
+     *
+     * @param recipe recipe text
+     * @param sources noise sources the recipe may sample, by name
+     * @param constants numeric constants (usually preset parameters), by name
+     * @throws IllegalArgumentException on syntax errors, unknown names or misused functions
+     */
+    public static NoiseGraph compile(String recipe, Map<String, ? extends Noise> sources,
+                                     Map<String, Double> constants) {
+        return compile(recipe, sources, constants, OctavePolicy.FIXED);
+    }
+
+    /**
+     * Compile a recipe, fitting the octave counts of {@code fbm} and {@code ridged} layers
+     * to the output resolution with {@code octaves}.
+     */
+    public static NoiseGraph compile(String recipe, Map<String, ? extends Noise> sources,
+                                     Map<String, Double> constants, OctavePolicy octaves) {
+        return new Compiler(sources, constants, octaves).compile(RecipeParser.parse(recipe));
+    }
+
+    /** Noise evaluations per pixel after shared layers are merged. */
+    public int samplesPerPoint() {
+        return samplesPerPoint;
+    }
+
+    /**
+     * Evaluate the recipe for a row of unit-sphere points.
+     */
+    public void evaluateRow(double[] xs, double[] ys, double[] zs, double[] out, int n) {
+        Rows r = rows.get().ensure(slots, n);
+        for (Layer layer : layers) {
+            layer.evaluate(xs, ys, zs, r, n);
+        }
+        double[][] values = r.values;
+        try {
+            for (int x = 0; x < n; x++) {
+                out[x] = (double) pixel.invokeExact(values, x);
+            }
+        } catch (Throwable t) {
+            throw new IllegalStateException("Recipe evaluation failed", t);
+        }
+    }
+
+    // Arithmetic kept as plain static methods so folding and evaluation share one definition
+
+    private static double add(double a, double b) {
+        return a + b;
+    }
+
+    private static double sub(double a, double b) {
+        return a - b;
+    }
+
+    private static double mul(double a, double b) {
+        return a * b;
+    }
+
+    private static double div(double a, double b) {
+        return a / b;
+    }
+
+    private static double neg(double a) {
+        return -a;
+    }
+
+    private static double clamp(double v, double lo, double hi) {
+        return Math.max(lo, Math.min(hi, v));
+    }
+
+    private static double lerp(double t, double a, double b) {
+        return a + t * (b - a);
+    }
+
+    /**
+     * Compiled pixel expression: either a constant or a tree reading layer rows.
+     */
+    private record Node(MethodHandle handle, Double constant) {
+        static Node literal(double value) {
+            MethodHandle c = MethodHandles.constant(double.class, value);
+            return new Node(MethodHandles.dropArguments(c, 0, double[][].class, int.class), value);
+        }
+
+        static Node slot(int slot) {
+            MethodHandle row = MethodHandles.insertArguments(ROW, 1, slot);
+            return new Node(MethodHandles.filterArguments(ELEMENT, 0, row), null);
+        }
+
+        /** Apply {@code op} to the children, folding when every child is constant. */
+        static Node apply(MethodHandle op, List<Node> args) {
+            boolean constant = true;
+            for (Node arg : args) {
+                constant &= arg.constant != null;
+            }
+            if (constant) {
+                Object[] values = new Object[args.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = args.get(i).constant;
+                }
+                try {
+                    return literal((double) op.invokeWithArguments(values));
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            }
+            // Replace each operand with its subtree, last first so earlier positions stay put,
+            // then merge the repeated (rows, x) parameter pairs into one
+            MethodHandle spread = op;
+            for (int i = args.size() - 1; i >= 0; i--) {
+                spread = MethodHandles.collectArguments(spread, i, args.get(i).handle);
+            }
+            int[] reorder = new int[args.size() * 2];
+            for (int i = 0; i < args.size(); i++) {
+                reorder[2 * i] = 0;
+                reorder[2 * i + 1] = 1;
+            }
+            return new Node(MethodHandles.permuteArguments(spread, PIXEL, reorder), null);
+        }
+    }
+
+    /** Identity of a noise layer; equal keys share one row buffer. */
+    private record LayerKey(String kind, String source, double scale, int octaves, double lacunarity, double gain) {}
+
+    private static final class Compiler {
+        private final Map<String, ? extends Noise> sources;
+        private final Map<String, Double> constants;
+        private final OctavePolicy octavePolicy;
+        private final Map<String, Node> bindings = new HashMap<>();
+        private final Map<LayerKey, Integer> slots = new LinkedHashMap<>();
+
+        Compiler(Map<String, ? extends Noise> sources, Map<String, Double> constants, OctavePolicy octavePolicy) {
+            this.sources = sources;
+            this.constants = constants;
+            this.octavePolicy = octavePolicy;
+        }
+
+        NoiseGraph compile(RecipeParser.Recipe recipe) {
+            for (Map.Entry<String, Expr> binding : recipe.bindings().entrySet()) {
+                if (sources.containsKey(binding.getKey()) || constants.containsKey(binding.getKey())) {
+                    throw new IllegalArgumentException("let '" + binding.getKey() + "' shadows a source or constant");
+                }
+                bindings.put(binding.getKey(), node(binding.getValue()));
+            }
+            Node output = node(recipe.output());
+            return new NoiseGraph(schedule(), slots.size(), output.handle);
+        }
+
+        private Node node(Expr expr) {
+            if (expr instanceof Expr.Num num) {
+                return Node.literal(num.value());
+            }
+            if (expr instanceof Expr.Ref ref) {
+                Node bound = bindings.get(ref.name());
+                if (bound != null) {
+                    return bound;
+                }
+                Double constant = constants.get(ref.name());
+                if (constant != null) {
+                    return Node.literal(constant);
+                }
+                if (sources.containsKey(ref.name())) {
+                    throw new IllegalArgumentException("Noise source '" + ref.name()
+                            + "' must be sampled with noise(), fbm(), ridged() or slope()");
+                }
+                throw new IllegalArgumentException("Unknown name '" + ref.name() + "'");
+            }
+            if (expr instanceof Expr.Neg neg) {
+                return Node.apply(NEG, List.of(node(neg.operand())));
+            }
+            if (expr instanceof Expr.Binary bin) {
+                MethodHandle op = switch (bin.op()) {
+                    case '+' -> ADD;
+                    case '-' -> SUB;
+                    case '*' -> MUL;
+                    default -> DIV;
+                };
+                return Node.apply(op, List.of(node(bin.left()), node(bin.right())));
+            }
+            Expr.Call call = (Expr.Call) expr;
+            switch (call.function()) {
+                case "noise":
+                    return layer(call, "fbm", 2, 2);
+                case "fbm":
+                case "ridged":
+                    return layer(call, call.function(), 3, 5);
+                case "slope":
+                    return layer(call, "slope", 2, 2);
+                default:
+                    MethodHandle fn = FUNCTIONS.get(call.function());
+                    if (fn == null) {
+                        throw new IllegalArgumentException("Unknown function '" + call.function() + "'");
+                    }
+                    if (fn.type().parameterCount() != call.args().size()) {
+                        throw new IllegalArgumentException(call.function() + "() takes "
+                                + fn.type().parameterCount() + " arguments");
+                    }
+                    List<Node> args = new ArrayList<>();
+                    for (Expr arg : call.args()) {
+                        args.add(node(arg));
+                    }
+                    return Node.apply(fn, args);
+            }
+        }
+
+        /**
+         * {@code kind(source, scale[, octaves[, lacunarity[, gain]]])}; parameters must be constant.
+         * {@code noise(source, scale)} is a one-octave fBm with gain 0, i.e. the raw sample.
+         * An explicit octave count goes through the octave policy.
+         */
+        private Node layer(Expr.Call call, String kind, int minArgs, int maxArgs) {
+            List<Expr> args = call.args();
+            if (args.size() < minArgs || args.size() > maxArgs) {
+                throw new IllegalArgumentException(call.function() + "() takes " + minArgs
+                        + (minArgs == maxArgs ? "" : " to " + maxArgs) + " arguments");
+            }
+            if (!(args.get(0) instanceof Expr.Ref ref) || !sources.containsKey(ref.name())) {
+                throw new IllegalArgumentException(call.function() + "() needs a noise source as its first argument, one of "
+                        + sources.keySet());
+            }
+            if (kind.equals("slope") && !(sources.get(ref.name()) instanceof GradientNoise)) {
+                throw new IllegalArgumentException("slope() needs a gradient noise source; '" + ref.name() + "' is not");
+            }
+            double scale = constantArg(call, 1, Double.NaN);
+            int octaves = (int) constantArg(call, 2, 1);
+            double lacunarity = constantArg(call, 3, 2.0);
+            double gain = constantArg(call, 4, call.function().equals("noise") ? 0.0 : 0.5);
+            if (octaves < 1) {
+                throw new IllegalArgumentException(call.function() + "() needs at least one octave");
+            }
+            if (call.args().size() > 2) {
+                octaves = octavePolicy.octaves(scale, octaves, lacunarity);
+            }
+            LayerKey key = new LayerKey(kind, ref.name(), scale, octaves, lacunarity, gain);
+            return Node.slot(slots.computeIfAbsent(key, k -> slots.size()));
+        }
+
+        private double constantArg(Expr.Call call, int index, double fallback) {
+            if (index >= call.args().size()) {
+                return fallback;
+            }
+            Node arg = node(call.args().get(index));
+            if (arg.constant == null) {
+                throw new IllegalArgumentException(call.function() + "() parameters must be constant");
+            }
+            return arg.constant;
+        }
+
+        /**
+         * Turn layer keys into row passes, pairing each ridged layer with the fBm layer on
+         * the same source that shares the most frequencies.
+         */
+        private List<Layer> schedule() {
+            Map<LayerKey, FractalNoise> fractals = new LinkedHashMap<>();
+            for (LayerKey key : slots.keySet()) {
+                if (!key.kind().equals("slope")) {
+                    fractals.put(key, new FractalNoise(sources.get(key.source()), key.scale(),
+                            key.octaves(), key.lacunarity(), key.gain()));
+                }
+            }
+
+            List<Layer> layers = new ArrayList<>();
+            List<LayerKey> paired = new ArrayList<>();
+            for (LayerKey ridged : slots.keySet()) {
+                if (!ridged.kind().equals("ridged")) {
+                    continue;
+                }
+                LayerKey best = null;
+                int bestShared = 0;
+                for (LayerKey fbm : slots.keySet()) {
+                    if (fbm.kind().equals("fbm") && fbm.source().equals(ridged.source()) && !paired.contains(fbm)
+                            && fbm.lacunarity() > 1.0 && ridged.lacunarity() > 1.0) {
+                        int shared = sharedFrequencies(fractals.get(fbm), fractals.get(ridged));
+                        if (shared > bestShared) {
+                            best = fbm;
+                            bestShared = shared;
+                        }
+                    }
+                }
+                if (best != null) {
+                    paired.add(best);
+                    paired.add(ridged);
+                    layers.add(new CombinedLayer(FractalNoise.combine(fractals.get(best), fractals.get(ridged)),
+                            slots.get(best), slots.get(ridged)));
+                }
+            }
+            for (Map.Entry<LayerKey, Integer> entry : slots.entrySet()) {
+                LayerKey key = entry.getKey();
+                if (paired.contains(key)) {
+                    continue;
+                }
+                if (key.kind().equals("slope")) {
+                    layers.add(new SlopeLayer((GradientNoise) sources.get(key.source()), key.scale(), entry.getValue()));
+                } else {
+                    layers.add(new FractalLayer(fractals.get(key), key.kind().equals("ridged"), entry.getValue()));
+                }
+            }
+            return layers;
+        }
+
+        private static int sharedFrequencies(FractalNoise a, FractalNoise b) {
+            int shared = 0;
+            for (int i = 0; i < a.octaves(); i++) {
+                for (int j = 0; j < b.octaves(); j++) {
+                    if (a.frequency(i) == b.frequency(j)) {
+                        shared++;
+                    }
+                }
+            }
+            return shared;
+        }
+    }
+
+    /** One batched noise pass writing into row buffers. */
+    private interface Layer {
+        void evaluate(double[] xs, double[] ys, double[] zs, Rows rows, int n);
+
+        int samplesPerPoint();
+    }
+
+    private record FractalLayer(FractalNoise fractal, boolean ridged, int slot) implements Layer {
+        @Override
+        public void evaluate(double[] xs, double[] ys, double[] zs, Rows rows, int n) {
+            if (ridged) {
+                fractal.ridged(xs, ys, zs, rows.values[slot], n);
+            } else {
+                fractal.fbm(xs, ys, zs, rows.values[slot], n);
+            }
+        }
+
+        @Override
+        public int samplesPerPoint() {
+            return fractal.octaves();
+        }
+    }
+
+    private record CombinedLayer(FractalNoise.Combined combined, int fbmSlot, int ridgedSlot) implements Layer {
+        @Override
+        public void evaluate(double[] xs, double[] ys, double[] zs, Rows rows, int n) {
+            combined.evaluate(xs, ys, zs, rows.values[fbmSlot], rows.values[ridgedSlot], n);
+        }
+
+        @Override
+        public int samplesPerPoint() {
+            return combined.samplesPerPoint();
+        }
+    }
+
+    /** {@code scale * |grad n(p * scale)|} from the analytic gradient. */
+    private record SlopeLayer(GradientNoise noise, double scale, int slot) implements Layer {
+        @Override
+        public void evaluate(double[] xs, double[] ys, double[] zs, Rows rows, int n) {
+            double[] sx = rows.sx, sy = rows.sy, sz = rows.sz;
+            for (int x = 0; x < n; x++) {
+                sx[x] = xs[x] * scale;
+                sy[x] = ys[x] * scale;
+                sz[x] = zs[x] * scale;
+            }
+            double[] dx = rows.dx, dy = rows.dy, dz = rows.dz;
+            noise.noise3WithGradient(sx, sy, sz, rows.sample, dx, dy, dz, n);
+            double[] out = rows.values[slot];
+            for (int x = 0; x < n; x++) {
+                out[x] = scale * Math.sqrt(dx[x] * dx[x] + dy[x] * dy[x] + dz[x] * dz[x]);
+            }
+        }
+
+        @Override
+        public int samplesPerPoint() {
+            return 1;
+        }
+    }
+
+    private static final class Rows {
+        double[][] values = new double[0][0];
+        double[] sx, sy, sz, sample, dx, dy, dz;
+
+        Rows ensure(int slots, int n) {
+            if (values.length != slots || (slots > 0 && values[0].length < n) || sx == null || sx.length < n) {
+                values = new double[slots][n];
+                sx = new double[n];
+                sy = new double[n];
+                sz = new double[n];
+                sample = new double[n];
+                dx = new double[n];
+                dy = new double[n];
+                dz = new double[n];
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.onur.planetgen.noise.graph;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recursive-descent parser for noise recipes.
+ *
+ * <pre>
+ * recipe    := { "let" name "=" expr sep } expr [sep]
+ * sep       := ";" | newline
+ * expr      := term { ("+" | "-") term }
+ * term      := unary { ("*" | "/") unary }
+ * unary     := "-" unary | primary
+ * primary   := number | name | name "(" [expr { "," expr }] ")" | "(" expr ")"
+ * </pre>
+ *
+ * Lines starting with {@code #} are comments.
+ */
+final class RecipeParser {
+    /** Parsed recipe: let bindings in declaration order, then the output expression. */
+    record Recipe(Map<String, Expr> bindings, Expr output) {}
+
+    private final String src;
+    private int pos;
+    private int depth; // open parentheses; statements may wrap lines inside them
+
+    private RecipeParser(String src) {
+        this.src = src;
+    }
+
+    static Recipe parse(String recipe) {
+        return new RecipeParser(recipe).recipe();
+    }
+
+    private Recipe recipe() {
+        Map<String, Expr> bindings = new LinkedHashMap<>();
+        skipSeparators();
+        while (peekKeyword("let")) {
+            pos += 3;
+            int namePos = skipSpaces();
+            String name = name();
+            if (bindings.containsKey(name)) {
+                throw error(namePos, "'" + name + "' is already defined");
+            }
+            expect('=');
+            bindings.put(name, expr());
+            separator();
+            skipSeparators();
+        }
+        Expr output = expr();
+        skipSeparators();
+        if (pos < src.length()) {
+            throw error(pos, "unexpected '" + src.charAt(pos) + "'");
+        }
+        return new Recipe(bindings, output);
+    }
+
+    private Expr expr() {
+        Expr left = term();
+        while (true) {
+            skipSpaces();
+            if (consume('+')) {
+                left = new Expr.Binary('+', left, term());
+            } else if (consume('-')) {
+                left = new Expr.Binary('-', left, term());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expr term() {
+        Expr left = unary();
+        while (true) {
+            skipSpaces();
+            if (consume('*')) {
+                left = new Expr.Binary('*', left, unary());
+            } else if (consume('/')) {
+                left = new Expr.Binary('/', left, unary());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expr unary() {
+        skipSpaces();
+        if (consume('-')) {
+            return new Expr.Neg(unary());
+        }
+        return primary();
+    }
+
+    private Expr primary() {
+        int start = skipSpaces();
+        if (start >= src.length()) {
+            throw error(start, "unexpected end of recipe");
+        }
+        char c = src.charAt(start);
+        if (consume('(')) {
+            depth++;
+            Expr inner = expr();
+            expect(')');
+            depth--;
+            return inner;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return new Expr.Num(number());
+        }
+        if (Character.isLetter(c) || c == '_') {
+            String name = name();
+            skipSpaces();
+            if (!consume('(')) {
+                return new Expr.Ref(name, start);
+            }
+            depth++;
+            List<Expr> args = new ArrayList<>();
+            skipSpaces();
+            if (!consume(')')) {
+                do {
+                    args.add(expr());
+                    skipSpaces();
+                } while (consume(','));
+                expect(')');
+            }
+            depth--;
+            return new Expr.Call(name, args, start);
+        }
+        throw error(start, "unexpected '" + c + "'");
+    }
+
+    private double number() {
+        int start = pos;
+        while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) {
+            pos++;
+        }
+        if (pos < src.length() && (src.charAt(pos) == 'e' || src.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < src.length() && (src.charAt(pos) == '+' || src.charAt(pos) == '-')) {
+                pos++;
+            }
+            while (pos < src.length() && Character.isDigit(src.charAt(pos))) {
+                pos++;
+            }
+        }
+        try {
+            return Double.parseDouble(src.substring(start, pos));
+        } catch (NumberFormatException e) {
+            throw error(start, "malformed number '" + src.substring(start, pos) + "'");
+        }
+    }
+
+    private String name() {
+        int start = pos;
+        while (pos < src.length() && (Character.isLetterOrDigit(src.charAt(pos)) || src.charAt(pos) == '_')) {
+            pos++;
+        }
+        if (start == pos) {
+            throw error(start, "expected a name");
+        }
+        return src.substring(start, pos);
+    }
+
+    private boolean peekKeyword(String keyword) {
+        int end = pos + keyword.length();
+        return src.startsWith(keyword, pos)
+                && end < src.length() && Character.isWhitespace(src.charAt(end));
+    }
+
+    private void expect(char c) {
+        skipSpaces();
+        if (!consume(c)) {
+            throw error(pos, "expected '" + c + "'");
+        }
+    }
+
+    private boolean consume(char c) {
+        if (pos < src.length() && src.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void separator() {
+        skipSpaces();
+        if (pos < src.length() && (src.charAt(pos) == ';' || src.charAt(pos) == '\n' || src.charAt(pos) == '#')) {
+            return;
+        }
+        throw error(pos, "expected ';' or a new line");
+    }
+
+    /** Skip blanks within a line (or across lines inside parentheses); returns the new position. */
+    private int skipSpaces() {
+        while (pos < src.length()) {
+            char c = src.charAt(pos);
+            if (c == ' ' || c == '\t' || c == '\r' || (c == '\n' && depth > 0)) {
+                pos++;
+            } else {
+                return pos;
+            }
+        }
+        return pos;
+    }
+
+    /** Skip blank lines, separators and comments between statements. */
+    private void skipSeparators() {
+        while (pos < src.length()) {
+            char c = src.charAt(pos);
+            if (Character.isWhitespace(c) || c == ';') {
+                pos++;
+            } else if (c == '#') {
+                while (pos < src.length() && src.charAt(pos) != '\n') {
+                    pos++;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private IllegalArgumentException error(int at, String message) {
+        int line = 1, column = 1;
+        for (int i = 0; i < at && i < src.length(); i++) {
+            if (src.charAt(i) == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+        return new IllegalArgumentException("Recipe error at " + line + ":" + column + ": " + message);
+    }
+}
@@ -0,0 +1,204 @@
+package com.onur.planetgen.planet;
+
+import java.util.Random;
+
+/**
+ * A low-frequency noise layer sampled on a coarse equirectangular grid and rebuilt at full
+ * resolution with bicubic (Catmull-Rom) interpolation.
+ *
+ * The grid is sized from the layer's highest sample frequency f: noise at frequency f
+ * varies over about 1/f radians, so {@code k} nodes per 1/f radians resolve it. Starting at
+ * {@link #START_DENSITY}, the grid is checked against exact evaluation at random probe
+ * pixels and doubled until the largest probe error is within the tolerance. If the grid
+ * would need more than a quarter of the output columns, {@link #build} returns null and the
+ * caller should evaluate every pixel instead.
+ *
+ * Grid rows run from pole to pole inclusive, so interpolation never extrapolates; rows
+ * beyond a pole are read from the far side of the sphere (same row, opposite meridian).
+ */
+public final class CoarseLayer {
+    /** Nodes per 1/f radians on the first attempt. */
+    static final int START_DENSITY = 4;
+    private static final int PROBES = 4096;
+
+    /** Batch evaluation of the exact layer at unit-sphere points, as {@code FractalNoise::fbm}. */
+    @FunctionalInterface
+    public interface RowSource {
+        void evaluate(double[] xs, double[] ys, double[] zs, double[] out, int n);
+    }
+
+    private final int W, H;
+    private final int columns, rows; // grid nodes; columns is even
+    private final double[][] nodes;
+    private final double maxProbeError;
+
+    // Per-output-column first tap into the padded grid row, and Catmull-Rom weights
+    private final int[] tap;
+    private final double[] w0, w1, w2, w3;
+
+    // Per-thread vertically interpolated grid row, padded by one column before and two after
+    private final ThreadLocal<double[]> blended;
+
+    private CoarseLayer(int W, int H, int columns, double[][] nodes, double maxProbeError) {
+        this.W = W;
+        this.H = H;
+        this.columns = columns;
+        this.rows = nodes.length;
+        this.nodes = nodes;
+        this.maxProbeError = maxProbeError;
+        this.tap = new int[W];
+        this.w0 = new double[W];
+        this.w1 = new double[W];
+        this.w2 = new double[W];
+        this.w3 = new double[W];
+        for (int x = 0; x < W; x++) {
+            double u = (x + 0.5) * columns / W;
+            int i = (int) Math.floor(u);
+            double t = u - i;
+            tap[x] = i; // padded row: entry q holds column q - 1, so taps are i .. i + 3
+            w0[x] = weight0(t);
+            w1[x] = weight1(t);
+            w2[x] = weight2(t);
+            w3[x] = weight3(t);
+        }
+        this.blended = ThreadLocal.withInitial(() -> new double[columns + 3]);
+    }
+
+    /**
+     * Sample {@code layer} on the coarsest grid whose probe error is within {@code tolerance}.
+     *
+     * @param maxFrequency highest sample frequency in the layer (top octave)
+     * @return the layer, or null when a grid that fine would not save work
+     */
+    public static CoarseLayer build(RowSource layer, double maxFrequency, SphericalSampler sp, double tolerance) {
+        Probes probes = new Probes(sp);
+        double[] exact = new double[PROBES];
+        probes.evaluate(layer, exact);
+
+        for (int density = START_DENSITY; ; density *= 2) {
+            int columns = 2 * (int) Math.ceil(Math.PI * density * maxFrequency);
+            if (columns > sp.W / 4) {
+                return null;
+            }
+            double[][] nodes = sampleGrid(layer, columns, columns / 2 + 1);
+            CoarseLayer coarse = new CoarseLayer(sp.W, sp.H, columns, nodes, 0.0);
+            double error = 0.0;
+            for (int p = 0; p < PROBES; p++) {
+                error = Math.max(error, Math.abs(coarse.interpolate(probes.x[p], probes.y[p]) - exact[p]));
+            }
+            if (error <= tolerance) {
+                return new CoarseLayer(sp.W, sp.H, columns, nodes, error);
+            }
+        }
+    }
+
+    /** Grid size as {@code columns x rows}. */
+    public String gridSize() {
+        return columns + "x" + rows;
+    }
+
+    /** Largest difference from exact evaluation seen at the probe pixels. */
+    public double maxProbeError() {
+        return maxProbeError;
+    }
+
+    /**
+     * Interpolated layer values for output row {@code y}.
+     */
+    public void row(int y, double[] out) {
+        double[] line = blended.get();
+        blendRows(y, line);
+        for (int x = 0; x < W; x++) {
+            int i = tap[x];
+            out[x] = w0[x] * line[i] + w1[x] * line[i + 1] + w2[x] * line[i + 2] + w3[x] * line[i + 3];
+        }
+    }
+
+    /** Single-pixel interpolation, for probes. */
+    private double interpolate(int x, int y) {
+        double[] line = blended.get();
+        blendRows(y, line);
+        int i = tap[x];
+        return w0[x] * line[i] + w1[x] * line[i + 1] + w2[x] * line[i + 2] + w3[x] * line[i + 3];
+    }
+
+    /** Vertical pass: Catmull-Rom across the four grid rows around output row y. */
+    private void blendRows(int y, double[] line) {
+        double v = (y + 0.5) * (rows - 1) / H;
+        int j = Math.min((int) Math.floor(v), rows - 2);
+        double t = v - j;
+        double a = weight0(t), b = weight1(t), c = weight2(t), d = weight3(t);
+        for (int q = 0; q < columns + 3; q++) {
+            int i = (q - 1 + columns) % columns;
+            line[q] = a * node(i, j - 1) + b * node(i, j) + c * node(i, j + 1) + d * node(i, j + 2);
+        }
+    }
+
+    private double node(int i, int j) {
+        if (j < 0) {
+            return nodes[-j][(i + columns / 2) % columns];
+        }
+        if (j >= rows) {
+            return nodes[2 * (rows - 1) - j][(i + columns / 2) % columns];
+        }
+        return nodes[j][i];
+    }
+
+    private static double[][] sampleGrid(RowSource layer, int columns, int rows) {
+        double[][] nodes = new double[rows][columns];
+        java.util.stream.IntStream.range(0, rows).parallel().forEach(j -> {
+            double lat = Math.PI / 2.0 - Math.PI * j / (rows - 1);
+            double cLat = Math.cos(lat), sLat = Math.sin(lat);
+            double[] xs = new double[columns], ys = new double[columns], zs = new double[columns];
+            for (int i = 0; i < columns; i++) {
+                // Node i sits where output column u = i, i.e. lon = 2 pi i / columns - pi
+                double lon = 2.0 * Math.PI * i / columns - Math.PI;
+                xs[i] = cLat * Math.cos(lon);
+                ys[i] = sLat;
+                zs[i] = cLat * Math.sin(lon);
+            }
+            layer.evaluate(xs, ys, zs, nodes[j], columns);
+        });
+        return nodes;
+    }
+
+    // Catmull-Rom weights for the nodes at -1, 0, 1, 2 around a fraction t in [0, 1)
+
+    private static double weight0(double t) {
+        return 0.5 * (-t * t * t + 2.0 * t * t - t);
+    }
+
+    private static double weight1(double t) {
+        return 0.5 * (3.0 * t * t * t - 5.0 * t * t + 2.0);
+    }
+
+    private static double weight2(double t) {
+        return 0.5 * (-3.0 * t * t * t + 4.0 * t * t + t);
+    }
+
+    private static double weight3(double t) {
+        return 0.5 * (t * t * t - t * t);
+    }
+
+    /** Fixed random output pixels and their unit-sphere points. */
+    private static final class Probes {
+        final int[] x = new int[PROBES], y = new int[PROBES];
+        final double[] xs = new double[PROBES], ys = new double[PROBES], zs = new double[PROBES];
+
+        Probes(SphericalSampler sp) {
+            Random rng = new Random(0x5EEDL);
+            for (int p = 0; p < PROBES; p++) {
+                x[p] = rng.nextInt(sp.W);
+                y[p] = rng.nextInt(sp.H);
+                double lat = sp.lat(y[p]), lon = sp.lon(x[p]);
+                xs[p] = Math.cos(lat) * Math.cos(lon);
+                ys[p] = Math.sin(lat);
+                zs[p] = Math.cos(lat) * Math.sin(lon);
+            }
+        }
+
+        void evaluate(RowSource layer, double[] out) {
+            layer.evaluate(xs, ys, zs, out, PROBES);
+        }
+    }
+}
@@ -1,75 +1,81 @@
 package com.onur.planetgen.planet;
 
+import com.onur.planetgen.util.ResolutionCache;
+
 /**
- * Caches precomputed spherical coordinates for efficient terrain generation.
- * Eliminates redundant trigonometric computations during noise sampling.
+ * Caches the spherical geometry of a W x H grid for efficient terrain generation.
+ *
+ * A pixel's unit normal is {@code (cos lat cos lon, sin lat, cos lat sin lon)}, a product of
+ * one per-row and one per-column factor, so only O(W + H) trig tables are kept and normals
+ * are formed a scanline at a time: 24 bytes per row and per column instead of 24 per pixel.
+ * {@link #fill} is a straight multiply over the column tables, which the JIT vectorizes.
+ * Whole-planet grids share one cache per size through {@link #of}.
  */
-public final class CoordinateCache {
+public final class CoordinateCache implements RowCoordinates {
     public final int W, H;
 
-    // Per-pixel cached coordinates
+    // Per-column cached values
     public final double[] lons;
-    public final double[] lats;
+    public final double[] cosLon;
+    public final double[] sinLon;
 
     // Per-scanline cached values
+    public final double[] lats;
     public final double[] cosLat;
     public final double[] sinLat;
 
-    // Per-pixel cached unit sphere normals
-    public final double[] nx;
-    public final double[] ny;
-    public final double[] nz;
-
     public CoordinateCache(int W, int H, SphericalSampler sampler) {
         this.W = W;
         this.H = H;
 
         this.lons = new double[W];
+        this.cosLon = new double[W];
+        this.sinLon = new double[W];
         this.lats = new double[H];
         this.cosLat = new double[H];
         this.sinLat = new double[H];
 
-        this.nx = new double[W * H];
-        this.ny = new double[W * H];
-        this.nz = new double[W * H];
-
-        // Precompute all longitude values
         for (int x = 0; x < W; x++) {
             lons[x] = sampler.lon(x);
+            cosLon[x] = Math.cos(lons[x]);
+            sinLon[x] = Math.sin(lons[x]);
         }
-
-        // Precompute latitude and trig values
         for (int y = 0; y < H; y++) {
             lats[y] = sampler.lat(y);
             cosLat[y] = Math.cos(lats[y]);
             sinLat[y] = Math.sin(lats[y]);
         }
+    }
 
-        // Precompute unit sphere normals for all pixels
-        for (int y = 0; y < H; y++) {
-            double cLat = cosLat[y];
-            double sLat = sinLat[y];
-
-            for (int x = 0; x < W; x++) {
-                double lon = lons[x];
-                double cosLon = Math.cos(lon);
-                double sinLon = Math.sin(lon);
-
-                int idx = y * W + x;
-                nx[idx] = cLat * cosLon;
-                ny[idx] = sLat;
-                nz[idx] = cLat * sinLon;
-            }
+    /**
+     * The cache for {@code sp}: shared per resolution through {@link ResolutionCache} for a
+     * whole-planet {@link SphericalSampler}, whose geometry depends only on its size, and new
+     * for a window or a subclass, which may map pixels differently.
+     */
+    public static CoordinateCache of(SphericalSampler sp) {
+        if (sp.getClass() != SphericalSampler.class || !sp.isGlobal()) {
+            return new CoordinateCache(sp.W, sp.H, sp);
         }
+        return ResolutionCache.shared(CoordinateCache.class, sp.W, sp.H, () -> new CoordinateCache(sp.W, sp.H, sp));
     }
 
     /**
      * Get unit sphere normal for a pixel.
      */
     public void getNormal(int x, int y, double[] out) {
-        int idx = y * W + x;
-        out[0] = nx[idx];
-        out[1] = ny[idx];
-        out[2] = nz[idx];
+        double cLat = cosLat[y];
+        out[0] = cLat * cosLon[x];
+        out[1] = sinLat[y];
+        out[2] = cLat * sinLon[x];
+    }
+
+    @Override
+    public void fill(int y, double[] xs, double[] ys, double[] zs) {
+        double cLat = cosLat[y], sLat = sinLat[y];
+        for (int x = 0; x < W; x++) {
+            xs[x] = cLat * cosLon[x];
+            ys[x] = sLat;
+            zs[x] = cLat * sinLon[x];
+        }
     }
 }
@@ -1,10 +1,14 @@
 package com.onur.planetgen.planet;
 
-import com.onur.planetgen.noise.OpenSimplex2;
 import com.onur.planetgen.noise.DomainWarpNoise;
+import com.onur.planetgen.noise.FractalNoise;
+import com.onur.planetgen.noise.GradientNoise;
+import com.onur.planetgen.noise.NoiseType;
+import com.onur.planetgen.noise.OctavePolicy;
 import com.onur.planetgen.erosion.ThermalErosion;
 import com.onur.planetgen.erosion.HydraulicErosion;
 import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.field.FieldStats;
 
 public final class HeightField {
     private HeightField() {}
@@ -45,14 +49,21 @@ public final class HeightField {
         double evaporation = preset.evaporation;
 
         // Noise generators
-        OpenSimplex2 base = new OpenSimplex2(seed);
-        OpenSimplex2 warpX = new OpenSimplex2(seed + 1);
-        OpenSimplex2 warpY = new OpenSimplex2(seed + 2);
-        OpenSimplex2 warpZ = new OpenSimplex2(seed + 3);
+        NoiseType noiseType = NoiseType.fromName(preset.noiseType);
+        GradientNoise base = noiseType.create(seed);
+        GradientNoise warpX = noiseType.create(seed + 1);
+        GradientNoise warpY = noiseType.create(seed + 2);
+        GradientNoise warpZ = noiseType.create(seed + 3);
         DomainWarpNoise domainWarped = new DomainWarpNoise(base, warpX, warpY, warpZ, 0.08);
+        OctavePolicy octaves = OctavePolicy.forResolution(sp.pixelAngle(), preset.octaveQuality);
+        FractalNoise continentFbm = new FractalNoise(domainWarped, continentScale,
+                octaves.octaves(continentScale, 5, 2.0), 2.0, 0.5);
+        FractalNoise mountainRidged = new FractalNoise(base, continentScale * 1.5,
+                octaves.octaves(continentScale * 1.5, 4, 2.0), 2.0, 0.6);
+        FractalNoise detailFbm = new FractalNoise(base, continentScale * 3.0,
+                octaves.octaves(continentScale * 3.0, 3, 2.0), 2.0, 0.5);
 
-        float minH = Float.POSITIVE_INFINITY;
-        float maxH = Float.NEGATIVE_INFINITY;
+        double[] gradient = new double[3];
 
         for (int y = 0; y < H; y++) {
             double lat = sp.lat(y);
@@ -66,16 +77,16 @@ public final class HeightField {
                 double nz = cLat * Math.sin(lon);
 
                 // 1. Continental base: domain-warped fBm (low frequency, 5 octaves for more detail)
-                double continent = fbmLowFreq(domainWarped, nx, ny, nz, continentScale, 5, 2.0, 0.5);
+                double continent = continentFbm.fbm(nx, ny, nz);
 
                 // 2. Mountains: ridged multifractal modulated by continental mask
-                double ridged = ridgedFbm(base, nx, ny, nz, continentScale * 1.5, 4, 2.0, 0.6);
+                double ridged = mountainRidged.ridged(nx, ny, nz);
                 double mountainMask = Math.max(0.0, continent); // Use continent as mask
                 double mountains = ridged * mountainIntensity * mountainMask;
 
                 // 3. Detail: mid-frequency noise (slope-modulated)
-                double detail = fbmMidFreq(base, nx, ny, nz, continentScale * 3.0, 3, 2.0, 0.5);
-                double slope = estimateSlope(base, nx, ny, nz, continentScale, 0.01);
+                double detail = detailFbm.fbm(nx, ny, nz);
+                double slope = analyticSlope(base, nx, ny, nz, continentScale, gradient);
                 double slopeMask = Math.pow(Math.max(0.0, slope), 2.0); // Quadratic falloff
                 double detailModulated = detail * 0.30 * slopeMask;
 
@@ -84,13 +95,12 @@ public final class HeightField {
 
                 // Store for later normalization
                 h[y][x] = (float) heightValue;
-                if (heightValue < minH) minH = (float) heightValue;
-                if (heightValue > maxH) maxH = (float) heightValue;
             }
         }
 
         // Normalize to [-1, 1] range
-        normalizeHeight(h, minH, maxH);
+        FieldStats raw = FieldStats.of(h);
+        normalizeHeight(h, raw.min(), raw.max());
 
         // Apply sea level offset
         applySeaLevel(h, seaLevel);
@@ -103,15 +113,8 @@ public final class HeightField {
         HydraulicErosion.apply(h, hydraulicIterations, rainfall, evaporation);
 
         // Normalize again after erosion to ensure [-1, 1] range
-        minH = Float.POSITIVE_INFINITY;
-        maxH = Float.NEGATIVE_INFINITY;
-        for (int y = 0; y < H; y++) {
-            for (int x = 0; x < W; x++) {
-                if (h[y][x] < minH) minH = h[y][x];
-                if (h[y][x] > maxH) maxH = h[y][x];
-            }
-        }
-        normalizeHeight(h, minH, maxH);
+        FieldStats eroded = FieldStats.of(h);
+        normalizeHeight(h, eroded.min(), eroded.max());
 
         return h;
     }
@@ -136,52 +139,16 @@ public final class HeightField {
         }
     }
 
-    private static double fbmLowFreq(DomainWarpNoise noise, double x, double y, double z,
-                                      double scale, int octaves, double lacunarity, double gain) {
-        double amp = 1.0, freq = 1.0, sum = 0.0;
-        for (int i = 0; i < octaves; i++) {
-            sum += amp * noise.noise3(x * scale * freq, y * scale * freq, z * scale * freq);
-            amp *= gain;
-            freq *= lacunarity;
-        }
-        return sum / (1.0 - gain); // Normalize by max possible amplitude
-    }
-
-    private static double fbmMidFreq(OpenSimplex2 noise, double x, double y, double z,
-                                      double scale, int octaves, double lacunarity, double gain) {
-        double amp = 1.0, freq = 1.0, sum = 0.0;
-        for (int i = 0; i < octaves; i++) {
-            sum += amp * noise.noise3(x * scale * freq, y * scale * freq, z * scale * freq);
-            amp *= gain;
-            freq *= lacunarity;
-        }
-        return sum / (1.0 - gain); // Normalize
-    }
-
-    private static double ridgedFbm(OpenSimplex2 noise, double x, double y, double z,
-                                     double scale, int octaves, double lacunarity, double gain) {
-        double amp = 1.0, freq = 1.0, sum = 0.0;
-        for (int i = 0; i < octaves; i++) {
-            double n = noise.noise3(x * scale * freq, y * scale * freq, z * scale * freq);
-            double ridge = 1.0 - Math.abs(n); // Invert absolute value for ridges
-            sum += amp * ridge;
-            amp *= gain;
-            freq *= lacunarity;
-        }
-        return sum / (1.0 - gain);
-    }
-
-    private static double estimateSlope(OpenSimplex2 noise, double x, double y, double z,
-                                         double scale, double delta) {
-        double h0 = noise.noise3(x * scale, y * scale, z * scale);
-        double hx = noise.noise3((x + delta) * scale, y * scale, z * scale);
-        double hy = noise.noise3(x * scale, (y + delta) * scale, z * scale);
-        double hz = noise.noise3(x * scale, y * scale, (z + delta) * scale);
-
-        double dx = hx - h0;
-        double dy = hy - h0;
-        double dz = hz - h0;
-
-        return Math.sqrt(dx * dx + dy * dy + dz * dz) / delta;
+    /**
+     * Slope of the noise field at p * scale from its analytic gradient.
+     */
+    private static double analyticSlope(GradientNoise noise, double x, double y, double z,
+                                        double scale, double[] gradient) {
+        noise.noise3WithGradient(x * scale, y * scale, z * scale, gradient);
+        double dx = gradient[0];
+        double dy = gradient[1];
+        double dz = gradient[2];
+
+        return scale * Math.sqrt(dx * dx + dy * dy + dz * dz);
     }
 }
@@ -1,9 +1,18 @@
 package com.onur.planetgen.planet;
 
-import com.onur.planetgen.noise.OpenSimplex2;
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.noise.CellularNoise;
 import com.onur.planetgen.noise.DomainWarpNoise;
+import com.onur.planetgen.noise.FractalNoise;
+import com.onur.planetgen.noise.GradientNoise;
+import com.onur.planetgen.noise.NoiseType;
+import com.onur.planetgen.noise.OctavePolicy;
+import com.onur.planetgen.noise.graph.NoiseGraph;
 import com.onur.planetgen.config.Preset;
 
+import java.util.Map;
+
 /**
  * High-performance parallel height field generator using scanline processing.
  * Uses IntStream.parallel() for multi-threaded terrain synthesis.
@@ -11,6 +20,25 @@ import com.onur.planetgen.config.Preset;
 public final class ParallelHeightFieldGenerator {
     private ParallelHeightFieldGenerator() {}
 
+    /**
+     * The built-in terrain as a noise recipe, for use as a starting point for
+     * {@link Preset#terrainRecipe}. Sources: {@code base} and its domain-warped form {@code warp}.
+     * Gives the same values as the Java path while {@link Preset#noiseTolerance} and
+     * {@link Preset#lowFrequencyTolerance} are 0, as by default: recipes always run every
+     * octave and evaluate continents at every pixel.
+     */
+    public static final String TERRAIN_RECIPE = """
+            # Continental base, then ridged mountains masked by land, then slope-modulated detail
+            let continent = fbm(warp, continentScale, 2, 2.0, 0.5)
+            let ridges = ridged(base, continentScale * 1.5, 4, 2.0, 0.6)
+            let detail = fbm(base, continentScale * 3.0, 3, 2.0, 0.5)
+            let slope = slope(base, continentScale)
+
+            let mountains = ridges * mountainIntensity * max(0, continent)
+            let detailModulated = detail * 0.15 * pow(max(0, slope), 2.0)
+            0.6 * continent + 0.3 * mountains + 0.1 * detailModulated
+            """;
+
     /**
      * Generate height field using parallel scanline processing.
      * Dramatically faster than sequential generation for large resolutions.
@@ -21,152 +49,262 @@ public final class ParallelHeightFieldGenerator {
      * - Pre-baked noise generators per thread
      * - Minimal memory allocation during processing
      */
-    public static float[][] generateParallel(long seed, SphericalSampler sp, Preset preset) {
+    public static FloatGrid generate(long seed, SphericalSampler sp, Preset preset) {
         int W = sp.W, H = sp.H;
-        float[][] h = new float[H][W];
+        FloatGrid h = new FloatGrid(W, H);
+        float[] heights = h.data();
 
         // Precompute all spherical coordinates
         System.out.println("Caching coordinates...");
-        CoordinateCache coordCache = new CoordinateCache(W, H, sp);
-
-        // Create shared noise generators
-        OpenSimplex2 baseNoise = new OpenSimplex2(seed);
-        OpenSimplex2 warpXNoise = new OpenSimplex2(seed + 1);
-        OpenSimplex2 warpYNoise = new OpenSimplex2(seed + 2);
-        OpenSimplex2 warpZNoise = new OpenSimplex2(seed + 3);
-        DomainWarpNoise domainWarped = new DomainWarpNoise(baseNoise, warpXNoise, warpYNoise, warpZNoise, 0.08);
-
-        // Parameters
-        double seaLevel = preset.seaLevel;
-        double continentScale = preset.continentScale;
-        double mountainIntensity = preset.mountainIntensity;
+        CoordinateCache coordCache = CoordinateCache.of(sp);
+        Terrain terrain = new Terrain(seed, sp, preset);
+        System.out.println("Terrain octaves: " + terrain.octaveCounts());
 
         // First pass: generate raw height (parallel)
         System.out.println("Generating terrain (parallel)...");
-        float[] minMax = new float[]{Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY};
 
-        // Parallel scanline processing
-        java.util.stream.IntStream.range(0, H).parallel().forEach(y -> {
-            double cLat = coordCache.cosLat[y];
-            double sLat = coordCache.sinLat[y];
+        // Parallel scanline processing: every noise layer is evaluated for a whole row at once,
+        // and each worker folds its rows into its own statistics
+        FieldStats stats = java.util.stream.IntStream.range(0, H).parallel()
+                .collect(FieldStats.Accumulator::new, (acc, y) -> {
+                    int offset = h.index(0, y);
+                    terrain.row(y, coordCache, heights, offset);
+                    acc.add(heights, offset, W);
+                }, FieldStats.Accumulator::combine)
+                .result();
 
-            for (int x = 0; x < W; x++) {
-                int idx = y * W + x;
-
-                // Get cached normal
-                double nxv = coordCache.nx[idx];
-                double nyv = coordCache.ny[idx];
-                double nzv = coordCache.nz[idx];
-
-                // 1. Continental base
-                double continent = fbmLowFreq(domainWarped, nxv, nyv, nzv, continentScale, 2, 2.0, 0.5);
-
-                // 2. Mountains
-                double ridged = ridgedFbm(baseNoise, nxv, nyv, nzv, continentScale * 1.5, 4, 2.0, 0.6);
-                double mountainMask = Math.max(0.0, continent);
-                double mountains = ridged * mountainIntensity * mountainMask;
-
-                // 3. Detail
-                double detail = fbmMidFreq(baseNoise, nxv, nyv, nzv, continentScale * 3.0, 3, 2.0, 0.5);
-                double slope = estimateSlope(baseNoise, nxv, nyv, nzv, continentScale, 0.01);
-                double slopeMask = Math.pow(Math.max(0.0, slope), 2.0);
-                double detailModulated = detail * 0.15 * slopeMask;
-
-                // Combine
-                double heightValue = 0.6 * continent + 0.3 * mountains + 0.1 * detailModulated;
-                h[y][x] = (float) heightValue;
-
-                // Track min/max (not thread-safe but acceptable for normalization)
-                synchronized (minMax) {
-                    if (heightValue < minMax[0]) minMax[0] = (float) heightValue;
-                    if (heightValue > minMax[1]) minMax[1] = (float) heightValue;
-                }
-            }
-        });
-
-        float minH = minMax[0];
-        float maxH = minMax[1];
+        float minH = stats.min();
+        float maxH = stats.max();
 
-        // Normalize height
+        // Normalize height and apply sea level
         System.out.println("Normalizing height...");
-        normalizeHeightParallel(h, minH, maxH);
-        applySeaLevel(h, seaLevel);
+        java.util.stream.IntStream.range(0, H).parallel().forEach(y ->
+                normalizeRow(heights, h.index(0, y), W, minH, maxH, preset.seaLevel));
 
         return h;
     }
 
-    private static void normalizeHeightParallel(float[][] h, float minH, float maxH) {
+    /**
+     * {@link #generate} as a {@code float[H][W]} array, for callers on the row-array layout.
+     */
+    public static float[][] generateParallel(long seed, SphericalSampler sp, Preset preset) {
+        return generate(seed, sp, preset).toRows();
+    }
+
+    /**
+     * Map raw heights in [minH, maxH] to [-1, 1] and shift them by the sea level, for
+     * {@code n} values from {@code offset}.
+     */
+    public static void normalizeRow(float[] data, int offset, int n, float minH, float maxH, double seaLevel) {
         float range = maxH - minH;
         if (range < 1e-6) range = 1.0f;
+        float sea = (float) seaLevel;
+        for (int x = offset; x < offset + n; x++) {
+            data[x] = 2.0f * ((data[x] - minH) / range) - 1.0f;
+            data[x] -= sea;
+        }
+    }
 
-        int H = h.length;
-        int W = h[0].length;
-        float finalRange = range;
+    /**
+     * The terrain noise layers for one seed, preset and resolution, evaluated a row at a
+     * time. Rows are independent, so they can be generated in any order, on any thread and
+     * without the rest of the planet in memory.
+     */
+    public static final class Terrain {
+        private final int width;
+        private final GradientNoise baseNoise;
+        private final FractalNoise continentFbm;
+        private final FractalNoise.Combined baseLayers;
+        private final CoarseLayer continentGrid; // null: evaluate continents at every pixel
+        private final ReducedGrid reducedGrid;   // null: evaluate every column of every row
+        private final NoiseGraph recipe;         // null: built-in Java layering
+        private final double continentScale, mountainIntensity, tolerance;
+        private final String octaveCounts;
+        private final ThreadLocal<Scanline> scanlines;
 
-        java.util.stream.IntStream.range(0, H).parallel().forEach(y -> {
-            for (int x = 0; x < W; x++) {
-                h[y][x] = 2.0f * ((h[y][x] - minH) / finalRange) - 1.0f;
-            }
-        });
-    }
+        public Terrain(long seed, SphericalSampler sp, Preset preset) {
+            this(seed, sp.W, sp.pixelAngle(), sp, preset);
+        }
 
-    private static void applySeaLevel(float[][] h, double seaLevel) {
-        int H = h.length;
-        int W = h[0].length;
+        /**
+         * Terrain for rows of {@code width} arbitrary directions, such as cube-sphere faces,
+         * with octaves fitted to {@code pixelAngle} radians per pixel. The coarse continent
+         * grid and the reduced grid are equirectangular, so every pixel is evaluated.
+         */
+        public Terrain(long seed, int width, double pixelAngle, Preset preset) {
+            this(seed, width, pixelAngle, null, preset);
+        }
 
-        java.util.stream.IntStream.range(0, H).parallel().forEach(y -> {
-            for (int x = 0; x < W; x++) {
-                h[y][x] -= (float) seaLevel;
+        private Terrain(long seed, int width, double pixelAngle, SphericalSampler sp, Preset preset) {
+            this.width = width;
+
+            // Create shared noise generators
+            NoiseType noiseType = NoiseType.fromName(preset.noiseType);
+            baseNoise = noiseType.create(seed);
+            GradientNoise warpXNoise = noiseType.create(seed + 1);
+            GradientNoise warpYNoise = noiseType.create(seed + 2);
+            GradientNoise warpZNoise = noiseType.create(seed + 3);
+            DomainWarpNoise domainWarped = new DomainWarpNoise(baseNoise, warpXNoise, warpYNoise, warpZNoise, 0.08);
+
+            // Parameters
+            continentScale = preset.continentScale;
+            mountainIntensity = preset.mountainIntensity;
+            tolerance = preset.noiseTolerance;
+
+            // Fractal layers. Mountain octaves 2-4 land on the same frequencies as the detail
+            // octaves, so the two base-noise sums share those samples (4 evaluations, not 7).
+            // Octave counts follow the output resolution: sub-pixel octaves are dropped.
+            OctavePolicy octaves = OctavePolicy.forResolution(pixelAngle, preset.octaveQuality);
+            continentFbm = new FractalNoise(domainWarped, continentScale,
+                    octaves.octaves(continentScale, 2, 2.0), 2.0, 0.5);
+            FractalNoise mountainRidged = new FractalNoise(baseNoise, continentScale * 1.5,
+                    octaves.octaves(continentScale * 1.5, 4, 2.0), 2.0, 0.6);
+            FractalNoise detailFbm = new FractalNoise(baseNoise, continentScale * 3.0,
+                    octaves.octaves(continentScale * 3.0, 3, 2.0), 2.0, 0.5);
+            baseLayers = FractalNoise.combine(detailFbm, mountainRidged);
+            octaveCounts = "continent " + continentFbm.octaves() + ", mountains " + mountainRidged.octaves()
+                    + ", detail " + detailFbm.octaves();
+
+            // Continents are low frequency: optionally sample them on a coarse grid and interpolate
+            continentGrid = sp != null && sp.isGlobal() && preset.lowFrequencyTolerance > 0.0
+                    ? CoarseLayer.build(continentFbm::fbm, continentFbm.frequency(continentFbm.octaves() - 1),
+                            sp, preset.lowFrequencyTolerance)
+                    : null;
+            if (continentGrid != null) {
+                System.out.println("Continents on a " + continentGrid.gridSize() + " grid (probe error "
+                        + String.format("%.1e", continentGrid.maxProbeError()) + ")");
             }
-        });
-    }
 
-    private static double fbmLowFreq(DomainWarpNoise noise, double x, double y, double z,
-                                      double scale, int octaves, double lacunarity, double gain) {
-        double amp = 1.0, freq = 1.0, sum = 0.0;
-        for (int i = 0; i < octaves; i++) {
-            sum += amp * noise.noise3(x * scale * freq, y * scale * freq, z * scale * freq);
-            amp *= gain;
-            freq *= lacunarity;
+            // Rows towards the poles can be evaluated on fewer columns and resampled
+            reducedGrid = sp != null && sp.isGlobal() ? ReducedGrid.build(sp, preset.reducedGrid) : null;
+            if (reducedGrid != null) {
+                System.out.println("Terrain on a reduced grid (" + Math.round(100 * reducedGrid.sampleFraction())
+                        + "% of pixels evaluated)");
+            }
+
+            recipe = preset.terrainRecipe == null ? null
+                    : NoiseGraph.compile(preset.terrainRecipe, Map.of("base", baseNoise, "warp", domainWarped,
+                            "cells", new CellularNoise(seed + 20, CellularNoise.Output.F2_MINUS_F1)),
+                            preset.recipeConstants(), octaves);
+
+            int W = width;
+            scanlines = ThreadLocal.withInitial(() -> new Scanline(W));
         }
-        return sum / (1.0 - gain);
-    }
 
-    private static double fbmMidFreq(OpenSimplex2 noise, double x, double y, double z,
-                                      double scale, int octaves, double lacunarity, double gain) {
-        double amp = 1.0, freq = 1.0, sum = 0.0;
-        for (int i = 0; i < octaves; i++) {
-            sum += amp * noise.noise3(x * scale * freq, y * scale * freq, z * scale * freq);
-            amp *= gain;
-            freq *= lacunarity;
+        /** Octaves kept per fractal layer, for the one log line of a generation. */
+        public String octaveCounts() {
+            return octaveCounts;
+        }
+
+        /** Raw (not yet normalized) heights of row {@code y} into {@code out[offset .. offset + W)}. */
+        public void row(int y, RowCoordinates coords, float[] out, int offset) {
+            int W = width;
+            Scanline row = scanlines.get();
+            boolean reduced = reducedGrid != null && reducedGrid.isReduced(y);
+            int n = reduced ? reducedGrid.columns(y) : W;
+            if (reduced) {
+                reducedGrid.fill(y, row.xs, row.ys, row.zs);
+            } else {
+                coords.fill(y, row.xs, row.ys, row.zs);
+            }
+
+            if (recipe != null) {
+                recipe.evaluateRow(row.xs, row.ys, row.zs, row.height, n);
+            } else {
+                // 1. Continental base (the coarse grid is laid out on full-width rows)
+                if (continentGrid != null && !reduced) {
+                    continentGrid.row(y, row.continent);
+                } else {
+                    continentFbm.fbm(row.xs, row.ys, row.zs, row.continent, n);
+                }
+
+                // 2. Mountains and 3. detail, weighted by their masks. Ridges are only sampled
+                // on land and octaves stop once the rest cannot move the height by tolerance.
+                slopeRow(baseNoise, row, continentScale, row.slope, n);
+                for (int x = 0; x < n; x++) {
+                    row.ridgedWeight[x] = 0.3 * mountainIntensity * Math.max(0.0, row.continent[x]);
+                    row.detailWeight[x] = 0.1 * 0.15 * Math.pow(Math.max(0.0, row.slope[x]), 2.0);
+                }
+                baseLayers.evaluate(row.xs, row.ys, row.zs, row.detailWeight, row.ridgedWeight, tolerance,
+                        row.detail, row.ridged, n);
+
+                for (int x = 0; x < n; x++) {
+                    double continent = row.continent[x];
+
+                    double mountainMask = Math.max(0.0, continent);
+                    double mountains = row.ridged[x] * mountainIntensity * mountainMask;
+
+                    double slopeMask = Math.pow(Math.max(0.0, row.slope[x]), 2.0);
+                    double detailModulated = row.detail[x] * 0.15 * slopeMask;
+
+                    // Combine
+                    row.height[x] = 0.6 * continent + 0.3 * mountains + 0.1 * detailModulated;
+                }
+            }
+
+            double[] height = row.height;
+            if (reduced) {
+                reducedGrid.resample(y, row.height, row.resampled);
+                height = row.resampled;
+            }
+            for (int x = 0; x < W; x++) {
+                out[offset + x] = (float) height[x];
+            }
         }
-        return sum / (1.0 - gain);
     }
 
-    private static double ridgedFbm(OpenSimplex2 noise, double x, double y, double z,
-                                     double scale, int octaves, double lacunarity, double gain) {
-        double amp = 1.0, freq = 1.0, sum = 0.0;
-        for (int i = 0; i < octaves; i++) {
-            double n = noise.noise3(x * scale * freq, y * scale * freq, z * scale * freq);
-            double ridge = 1.0 - Math.abs(n);
-            sum += amp * ridge;
-            amp *= gain;
-            freq *= lacunarity;
+    /**
+     * Slope of the base noise field from its analytic gradient (one lattice traversal
+     * per pixel). The sample point is p * scale, so the chain rule scales the gradient.
+     */
+    private static void slopeRow(GradientNoise noise, Scanline row, double scale, double[] out, int n) {
+        double[] dx = row.dx, dy = row.dy, dz = row.dz;
+        row.scale(scale, n);
+        noise.noise3WithGradient(row.sx, row.sy, row.sz, row.sample, dx, dy, dz, n);
+        for (int x = 0; x < n; x++) {
+            out[x] = scale * Math.sqrt(dx[x] * dx[x] + dy[x] * dy[x] + dz[x] * dz[x]);
         }
-        return sum / (1.0 - gain);
     }
 
-    private static double estimateSlope(OpenSimplex2 noise, double x, double y, double z,
-                                         double scale, double delta) {
-        double h0 = noise.noise3(x * scale, y * scale, z * scale);
-        double hx = noise.noise3((x + delta) * scale, y * scale, z * scale);
-        double hy = noise.noise3(x * scale, (y + delta) * scale, z * scale);
-        double hz = noise.noise3(x * scale, y * scale, (z + delta) * scale);
+    /**
+     * Per-thread scanline buffers: the row's unit-sphere normals, scaled sample
+     * coordinates for the slope pass, one output array per terrain layer, and the
+     * full-width heights of a reduced row.
+     */
+    private static final class Scanline {
+        final double[] xs, ys, zs;
+        final double[] sx, sy, sz;
+        final double[] sample, dx, dy, dz;
+        final double[] continent, ridged, detail, slope, height, resampled;
+        final double[] ridgedWeight, detailWeight;
 
-        double dx = hx - h0;
-        double dy = hy - h0;
-        double dz = hz - h0;
+        Scanline(int width) {
+            xs = new double[width];
+            ys = new double[width];
+            zs = new double[width];
+            sx = new double[width];
+            sy = new double[width];
+            sz = new double[width];
+            sample = new double[width];
+            dx = new double[width];
+            dy = new double[width];
+            dz = new double[width];
+            continent = new double[width];
+            ridged = new double[width];
+            detail = new double[width];
+            slope = new double[width];
+            height = new double[width];
+            resampled = new double[width];
+            ridgedWeight = new double[width];
+            detailWeight = new double[width];
+        }
 
-        return Math.sqrt(dx * dx + dy * dy + dz * dz) / delta;
+        void scale(double scale, int n) {
+            for (int x = 0; x < n; x++) {
+                sx[x] = xs[x] * scale;
+                sy[x] = ys[x] * scale;
+                sz[x] = zs[x] * scale;
+            }
+        }
     }
 }
@@ -0,0 +1,149 @@
+package com.onur.planetgen.planet;
+
+/**
+ * A reduced equirectangular grid: row y keeps about {@code oversample * W * cos(lat)} evenly
+ * spaced columns, as in a reduced Gaussian grid, and is rebuilt at full width with a
+ * periodic Lanczos (a = 3) interpolator.
+ *
+ * Equirectangular columns crowd together towards the poles while the noise octaves are
+ * fitted to the equator's pixel spacing ({@link SphericalSampler#pixelAngle()}). A reduced
+ * row with {@code oversample = 1} keeps that spacing on the ground, so it resolves
+ * everything the octave policy keeps; larger factors leave headroom for the Lanczos
+ * passband. Over the whole sphere this evaluates about 2 / pi (64%) of the pixels at
+ * {@code oversample = 1}. Rows that would keep every column are evaluated as before.
+ *
+ * Reduced column k of an n-column row sits at full-resolution column
+ * {@code (k + 0.5) W / n - 0.5}, so its longitude follows the sampler's pixel-centre rule.
+ */
+public final class ReducedGrid {
+    /** Fewest columns a reduced row keeps, near the poles. */
+    public static final int MIN_COLUMNS = 16;
+    private static final int LOBES = 3, TAPS = 2 * LOBES;
+    // Kernel weights for PHASES + 1 sub-sample offsets, TAPS per phase, normalized to sum 1
+    private static final int PHASES = 1024;
+    private static final double[] KERNEL = kernel();
+
+    private final int width;
+    private final int[] columns;
+    private final double[] cosLat, sinLat;
+    private final long samples;
+
+    private ReducedGrid(SphericalSampler sp, int[] columns, long samples) {
+        this.width = sp.W;
+        this.columns = columns;
+        this.samples = samples;
+        cosLat = new double[sp.H];
+        sinLat = new double[sp.H];
+        for (int y = 0; y < sp.H; y++) {
+            double lat = sp.lat(y);
+            cosLat[y] = Math.cos(lat);
+            sinLat[y] = Math.sin(lat);
+        }
+    }
+
+    /**
+     * The reduced grid for {@code sp}, or null when {@code oversample <= 0} or no row would
+     * drop a column; callers then evaluate every pixel.
+     */
+    public static ReducedGrid build(SphericalSampler sp, double oversample) {
+        if (!(oversample > 0.0)) {
+            return null;
+        }
+        int[] columns = new int[sp.H];
+        long samples = 0;
+        boolean reduced = false;
+        for (int y = 0; y < sp.H; y++) {
+            int n = (int) Math.ceil(oversample * sp.W * Math.cos(sp.lat(y)));
+            columns[y] = Math.min(sp.W, Math.max(MIN_COLUMNS, n));
+            samples += columns[y];
+            reduced |= columns[y] < sp.W;
+        }
+        return reduced ? new ReducedGrid(sp, columns, samples) : null;
+    }
+
+    /** Columns evaluated in row {@code y}. */
+    public int columns(int y) {
+        return columns[y];
+    }
+
+    /** Whether row {@code y} is evaluated on fewer columns than the output width. */
+    public boolean isReduced(int y) {
+        return columns[y] < width;
+    }
+
+    /** Evaluated samples as a fraction of the full grid's. */
+    public double sampleFraction() {
+        return samples / ((double) width * columns.length);
+    }
+
+    /** Full-resolution column (fractional) of reduced column {@code k} of row {@code y}. */
+    public double column(int y, int k) {
+        return (k + 0.5) * width / columns[y] - 0.5;
+    }
+
+    /** Unit-sphere normals of the {@link #columns(int)} reduced columns of row {@code y}. */
+    public void fill(int y, double[] xs, double[] ys, double[] zs) {
+        int n = columns[y];
+        double cLat = cosLat[y], sLat = sinLat[y];
+        for (int k = 0; k < n; k++) {
+            double lon = 2.0 * Math.PI * ((k + 0.5) / n) - Math.PI;
+            xs[k] = cLat * Math.cos(lon);
+            ys[k] = sLat;
+            zs[k] = cLat * Math.sin(lon);
+        }
+    }
+
+    /** Rebuild row {@code y} at full width from its reduced values, wrapping around in longitude. */
+    public void resample(int y, double[] reduced, double[] out) {
+        int n = columns[y], W = width;
+        if (n == W) {
+            System.arraycopy(reduced, 0, out, 0, W);
+            return;
+        }
+        double step = (double) n / W;
+        for (int x = 0; x < W; x++) {
+            double u = (x + 0.5) * step - 0.5;
+            int i = (int) Math.floor(u);
+            int k = (int) Math.round((u - i) * PHASES) * TAPS;
+            int first = i - LOBES + 1;
+            double sum = 0.0;
+            if (first >= 0 && first + TAPS <= n) {
+                for (int t = 0; t < TAPS; t++) {
+                    sum += KERNEL[k + t] * reduced[first + t];
+                }
+            } else {
+                for (int t = 0; t < TAPS; t++) {
+                    sum += KERNEL[k + t] * reduced[Math.floorMod(first + t, n)];
+                }
+            }
+            out[x] = sum;
+        }
+    }
+
+    private static double[] kernel() {
+        double[] k = new double[(PHASES + 1) * TAPS];
+        for (int p = 0; p <= PHASES; p++) {
+            double f = p / (double) PHASES, total = 0.0;
+            for (int t = 0; t < TAPS; t++) {
+                double w = lanczos(f - (t - LOBES + 1));
+                k[p * TAPS + t] = w;
+                total += w;
+            }
+            for (int t = 0; t < TAPS; t++) {
+                k[p * TAPS + t] /= total;
+            }
+        }
+        return k;
+    }
+
+    private static double lanczos(double d) {
+        if (Math.abs(d) < 1e-12) {
+            return 1.0;
+        }
+        if (Math.abs(d) >= LOBES) {
+            return 0.0;
+        }
+        double pd = Math.PI * d;
+        return LOBES * Math.sin(pd) * Math.sin(pd / LOBES) / (pd * pd);
+    }
+}
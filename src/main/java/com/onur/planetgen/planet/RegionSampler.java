@@ -0,0 +1,134 @@
+package com.onur.planetgen.planet;
+
+import java.util.Locale;
+
+/**
+ * A W x H lat/lon window of the sphere, sampled like an equirectangular grid but over a
+ * box of any size and pixel density. Generators that take a {@link SphericalSampler}
+ * produce the window directly, so cost follows the window and not the planet.
+ *
+ * Pixel (x, y) is at longitude {@code west + (x + 0.5) * lonStep} and latitude
+ * {@code north - (y + 0.5) * latStep}. The window does not wrap ({@link #isGlobal()} is
+ * false), so whole-sphere shortcuts (coarse layers, reduced rows) are off, and stencils
+ * need a margin from {@link #expand}. {@link #planetColumn} and {@link #planetRow} place
+ * each pixel on the whole-planet grid of the same density, so per-pixel patterns match a
+ * full render at that resolution.
+ */
+public final class RegionSampler extends SphericalSampler {
+    private final double west, north, lonStep, latStep; // radians
+    private final int planetWidth, planetHeight, firstColumn, firstRow;
+
+    /**
+     * The box from {@code south} to {@code north} and {@code west} to {@code east} degrees,
+     * as W x H pixels. An {@code east} at or below {@code west} crosses the antimeridian.
+     */
+    public RegionSampler(double south, double west, double north, double east, int W, int H) {
+        this(W, H, Math.toRadians(west), Math.toRadians(north),
+                Math.toRadians(span(south, west, north, east, W, H)) / W, Math.toRadians(north - south) / H);
+    }
+
+    private RegionSampler(int W, int H, double west, double north, double lonStep, double latStep) {
+        super(W, H);
+        this.west = west;
+        this.north = north;
+        this.lonStep = lonStep;
+        this.latStep = latStep;
+        this.planetWidth = Math.max(1, (int) Math.round(2.0 * Math.PI / lonStep));
+        this.planetHeight = Math.max(1, (int) Math.round(Math.PI / latStep));
+        this.firstColumn = (int) Math.floor((west + Math.PI) / lonStep + 0.5);
+        this.firstRow = (int) Math.floor((Math.PI / 2.0 - north) / latStep + 0.5);
+    }
+
+    /** Parse {@code south,west,north,east} in degrees, as for the CLI's {@code --region}. */
+    public static RegionSampler parse(String spec, int W, int H) {
+        String[] parts = spec.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Region must be south,west,north,east in degrees: " + spec);
+        }
+        double[] v = new double[4];
+        for (int i = 0; i < 4; i++) {
+            try {
+                v[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Region must be south,west,north,east in degrees: " + spec);
+            }
+        }
+        return new RegionSampler(v[0], v[1], v[2], v[3], W, H);
+    }
+
+    /** The same window grown by {@code margin} pixels on every side, at the same density. */
+    public RegionSampler expand(int margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("Margin must not be negative: " + margin);
+        }
+        return new RegionSampler(W + 2 * margin, H + 2 * margin,
+                west - margin * lonStep, north + margin * latStep, lonStep, latStep);
+    }
+
+    @Override
+    public double lon(int x) {
+        return west + (x + 0.5) * lonStep;
+    }
+
+    @Override
+    public double lat(int y) {
+        return north - (y + 0.5) * latStep;
+    }
+
+    /**
+     * The smaller of the row and column steps: the equator's spacing at this density, as for
+     * a whole-planet grid. It does not shrink with latitude, so every window of one density
+     * gets the same octaves and neighbouring windows join without seams.
+     */
+    @Override
+    public double pixelAngle() {
+        return Math.min(latStep, lonStep);
+    }
+
+    @Override
+    public boolean isGlobal() {
+        return false;
+    }
+
+    @Override
+    public int planetWidth() {
+        return planetWidth;
+    }
+
+    @Override
+    public int planetHeight() {
+        return planetHeight;
+    }
+
+    @Override
+    public int planetColumn(int x) {
+        return Math.floorMod(firstColumn + x, planetWidth);
+    }
+
+    @Override
+    public int planetRow(int y) {
+        return firstRow + y;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%dx%d window from %.4f,%.4f to %.4f,%.4f (planet grid %dx%d)",
+                W, H, Math.toDegrees(north - H * latStep), Math.toDegrees(west), Math.toDegrees(north),
+                Math.toDegrees(west + W * lonStep), planetWidth, planetHeight);
+    }
+
+    private static double span(double south, double west, double north, double east, int W, int H) {
+        if (W <= 0 || H <= 0) {
+            throw new IllegalArgumentException("Region size must be positive: " + W + "x" + H);
+        }
+        if (!(south >= -90.0 && north <= 90.0 && south < north)) {
+            throw new IllegalArgumentException("Region latitudes must satisfy -90 <= south < north <= 90: "
+                    + south + ", " + north);
+        }
+        double span = east > west ? east - west : east + 360.0 - west;
+        if (!(span > 0.0 && span <= 360.0)) {
+            throw new IllegalArgumentException("Region longitudes span " + span + " degrees");
+        }
+        return span;
+    }
+}
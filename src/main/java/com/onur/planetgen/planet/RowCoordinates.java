@@ -0,0 +1,16 @@
+package com.onur.planetgen.planet;
+
+/**
+ * Unit-sphere normals of the pixels of one output row, the input of every row-wise noise
+ * pass. {@link CoordinateCache} forms them from per-column and per-row trig tables.
+ */
+@FunctionalInterface
+public interface RowCoordinates {
+    /** Fill {@code xs, ys, zs[0 .. W)} with the normals of row {@code y}. */
+    void fill(int y, double[] xs, double[] ys, double[] zs);
+
+    /** Normals of {@code sp}'s grid, from O(W + H) trig tables; see {@link CoordinateCache#of}. */
+    static RowCoordinates computed(SphericalSampler sp) {
+        return CoordinateCache.of(sp);
+    }
+}
@@ -16,4 +16,32 @@ public class SphericalSampler {
     public double lat(int y) {
         return Math.PI / 2.0 - Math.PI * ((y + 0.5) / H);
     }
+
+    // Angular size of one pixel (radians); rows and equator columns span the same angle
+    public double pixelAngle() {
+        return Math.PI / H;
+    }
+
+    // Whether the grid covers the whole sphere, so columns wrap and rows run pole to pole
+    public boolean isGlobal() {
+        return true;
+    }
+
+    // Size of the whole-planet grid at this sampler's pixel density, and the position of a
+    // pixel on it; per-pixel patterns (climate, surface detail) are laid out on that grid
+    public int planetWidth() {
+        return W;
+    }
+
+    public int planetHeight() {
+        return H;
+    }
+
+    public int planetColumn(int x) {
+        return x;
+    }
+
+    public int planetRow(int y) {
+        return y;
+    }
 }
@@ -0,0 +1,114 @@
+package com.onur.planetgen.region;
+
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.erosion.HydraulicErosion;
+import com.onur.planetgen.erosion.ThermalErosion;
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+import com.onur.planetgen.planet.ParallelHeightFieldGenerator;
+import com.onur.planetgen.planet.RegionSampler;
+import com.onur.planetgen.planet.RowCoordinates;
+import com.onur.planetgen.planet.SphericalSampler;
+import com.onur.planetgen.render.NormalMapRenderer;
+import com.onur.planetgen.render.SurfaceAnalyzer;
+import com.onur.planetgen.tile.TiledPlanetGenerator;
+
+/**
+ * Region-of-interest generation: terrain, erosion, surface analysis and normals for one
+ * {@link RegionSampler} window, at a cost that follows the window's pixel count and not
+ * the planet's.
+ *
+ * The window is generated with two margins around it. The outer
+ * {@link TiledPlanetGenerator#erosionHalo} pixels absorb the wrong wrap-around at the
+ * window edges, so erosion inside them approximates a whole-planet run at the same
+ * density: the hydraulic part of that margin is exact, the thermal part is not, as for
+ * tiled bands. The inner {@code halo} pixels give flow, rivers, lakes and occlusion
+ * context; those are non-local, so they only approximate the whole-planet result near the
+ * window edge.
+ *
+ * Raw heights are normalized over the whole planet's range, estimated from a
+ * {@link #RANGE_HEIGHT}-row global pass at the window's octave count, so sea level and
+ * height colours agree with the full planet rather than stretching to the window. The
+ * estimate is not the full planet's true range, so the heights, and with them the talus
+ * and erosion thresholds, are close to a whole-planet run's but not equal unless the range
+ * is passed in.
+ */
+public final class RegionGenerator {
+    /** Rows of the global pass that estimates the planet's raw height range. */
+    public static final int RANGE_HEIGHT = 256;
+
+    private RegionGenerator() {}
+
+    /**
+     * The window's maps.
+     *
+     * @param height  normalized, eroded heights
+     * @param surface surface analysis; the caller closes it
+     * @param normals tangent-space normals
+     */
+    public record Result(FloatGrid height, SurfaceAnalyzer.SurfaceData surface, IntGrid normals) {}
+
+    /** Generate {@code region} with {@code halo} context pixels for the surface analysis. */
+    public static Result generate(long seed, RegionSampler region, Preset preset, int halo) {
+        return generate(seed, region, preset, halo, planetRange(seed, region, preset));
+    }
+
+    /** {@link #generate(long, RegionSampler, Preset, int)} with raw heights normalized over {@code range}. */
+    public static Result generate(long seed, RegionSampler region, Preset preset, int halo, FieldStats range) {
+        if (halo < 1) {
+            throw new IllegalArgumentException("Halo must be at least one pixel: " + halo);
+        }
+        int erosionMargin = TiledPlanetGenerator.erosionHalo(preset);
+        RegionSampler padded = region.expand(erosionMargin + halo);
+        System.out.println("Generating " + region + " with a " + (erosionMargin + halo) + " pixel margin...");
+
+        // Octaves follow the window, not the padded box, so the range pass uses the same ones
+        ParallelHeightFieldGenerator.Terrain terrain =
+                new ParallelHeightFieldGenerator.Terrain(seed, padded.W, region.pixelAngle(), preset);
+        RowCoordinates coords = RowCoordinates.computed(padded);
+        FloatGrid height = new FloatGrid(padded.W, padded.H);
+        java.util.stream.IntStream.range(0, padded.H).parallel().forEach(y -> {
+            terrain.row(y, coords, height.data(), height.index(0, y));
+            ParallelHeightFieldGenerator.normalizeRow(height.data(), height.index(0, y), padded.W,
+                    range.min(), range.max(), preset.seaLevel);
+        });
+
+        ThermalErosion.apply(height, preset.thermalIterations, preset.thermalTalus, preset.thermalK);
+        HydraulicErosion.apply(height, preset.hydraulicIterations, preset.rainfall, preset.evaporation);
+
+        // Past the erosion margin the heights are settled; the halo is context for the analysis
+        FloatGrid context = crop(height, erosionMargin);
+        RegionSampler contextSampler = region.expand(halo);
+        SurfaceAnalyzer.SurfaceData surface = SurfaceAnalyzer.analyzeWindow(context, contextSampler, halo, preset, seed);
+        IntGrid normals = NormalMapRenderer.renderWindow(context, contextSampler, halo);
+        return new Result(crop(context, halo), surface, normals);
+    }
+
+    /**
+     * Raw terrain range of the whole planet with the octaves {@code region} would use,
+     * from a {@link #RANGE_HEIGHT}-row global pass.
+     */
+    public static FieldStats planetRange(long seed, SphericalSampler region, Preset preset) {
+        SphericalSampler planet = new SphericalSampler(2 * RANGE_HEIGHT, RANGE_HEIGHT);
+        ParallelHeightFieldGenerator.Terrain terrain =
+                new ParallelHeightFieldGenerator.Terrain(seed, planet.W, region.pixelAngle(), preset);
+        RowCoordinates coords = RowCoordinates.computed(planet);
+        ThreadLocal<float[]> rows = ThreadLocal.withInitial(() -> new float[planet.W]);
+        return java.util.stream.IntStream.range(0, planet.H).parallel()
+                .collect(FieldStats.Accumulator::new, (acc, y) -> {
+                    float[] row = rows.get();
+                    terrain.row(y, coords, row, 0);
+                    acc.add(row, 0, planet.W);
+                }, FieldStats.Accumulator::combine)
+                .result();
+    }
+
+    private static FloatGrid crop(FloatGrid grid, int margin) {
+        FloatGrid out = new FloatGrid(grid.width() - 2 * margin, grid.height() - 2 * margin);
+        for (int y = 0; y < out.height(); y++) {
+            System.arraycopy(grid.data(), grid.index(margin, y + margin), out.data(), out.index(0, y), out.width());
+        }
+        return out;
+    }
+}
@@ -1,6 +1,8 @@
 package com.onur.planetgen.render;
 
 import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
 
 /**
  * Backwards-compatible wrapper that exposes the physically based albedo generated
@@ -10,6 +12,18 @@ import com.onur.planetgen.config.Preset;
 public final class AlbedoRenderer {
     private AlbedoRenderer() {}
 
+    public static IntGrid render(FloatGrid height) {
+        return renderWithHydrology(height, null, 0L);
+    }
+
+    public static IntGrid renderWithHydrology(FloatGrid height, Preset preset) {
+        return renderWithHydrology(height, preset, 0L);
+    }
+
+    public static IntGrid renderWithHydrology(FloatGrid height, Preset preset, long seed) {
+        return SurfaceAnalyzer.analyze(height, preset, seed).albedo();
+    }
+
     public static int[][] render(float[][] height) {
         return renderWithHydrology(height, null, 0L);
     }
@@ -19,6 +33,6 @@ public final class AlbedoRenderer {
     }
 
     public static int[][] renderWithHydrology(float[][] height, Preset preset, long seed) {
-        return SurfaceAnalyzer.analyze(height, preset, seed).albedo();
+        return renderWithHydrology(FloatGrid.fromRows(height), preset, seed).toRows();
     }
 }
@@ -1,5 +1,8 @@
 package com.onur.planetgen.render;
 
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+
 /**
  * Ambient Occlusion (AO) map generator.
  * Creates shadowing texture that shows occlusion in crevices and valleys.
@@ -18,11 +21,13 @@ public final class AmbientOcclusionRenderer {
      * @param height height field (normalized [-1, 1])
      * @return AO texture as Gray8: 0 (bright) to 255 (occluded)
      */
-    public static int[][] renderSlopeBased(float[][] height) {
-        int H = height.length, W = height[0].length;
-        int[][] ao = new int[H][W];
+    public static IntGrid renderSlopeBased(FloatGrid height) {
+        int H = height.height(), W = height.width();
+        IntGrid ao = new IntGrid(W, H);
+        int[] out = ao.data();
 
         for (int y = 0; y < H; y++) {
+            int row = ao.index(0, y);
             for (int x = 0; x < W; x++) {
                 // Calculate slope at this pixel
                 float slope = estimateSlope(height, x, y);
@@ -38,7 +43,7 @@ public final class AmbientOcclusionRenderer {
                 // Apply gamma for natural appearance
                 brightness = (float) Math.pow(brightness, 0.5);
 
-                ao[y][x] = (int) (brightness * 255);
+                out[row + x] = (int) (brightness * 255);
             }
         }
 
@@ -53,28 +58,30 @@ public final class AmbientOcclusionRenderer {
      * @param kernelRadius neighborhood radius to check (typically 1-3 pixels)
      * @return AO texture as Gray8
      */
-    public static int[][] renderHeightDifference(float[][] height, int kernelRadius) {
-        int H = height.length, W = height[0].length;
-        int[][] ao = new int[H][W];
+    public static IntGrid renderHeightDifference(FloatGrid height, int kernelRadius) {
+        int H = height.height(), W = height.width();
+        float[] h = height.data();
+        IntGrid ao = new IntGrid(W, H);
+        int[] out = ao.data();
 
         for (int y = 0; y < H; y++) {
             for (int x = 0; x < W; x++) {
-                float centerHeight = height[y][x];
+                float centerHeight = h[height.index(x, y)];
                 float sumHeightDiff = 0.0f;
                 int sampleCount = 0;
 
                 // Check neighbors in kernel
                 for (int dy = -kernelRadius; dy <= kernelRadius; dy++) {
-                    for (int dx = -kernelRadius; dx <= kernelRadius; dx++) {
-                        if (dx == 0 && dy == 0) continue;
+                    int ny = y + dy;
 
-                        int ny = y + dy;
-                        int nx = (x + dx + W) % W;
+                    // Clamp y (no wrap at poles)
+                    if (ny < 0 || ny >= H) continue;
+                    int row = height.index(0, ny);
 
-                        // Clamp y (no wrap at poles)
-                        if (ny < 0 || ny >= H) continue;
+                    for (int dx = -kernelRadius; dx <= kernelRadius; dx++) {
+                        if (dx == 0 && dy == 0) continue;
 
-                        float neighborHeight = height[ny][nx];
+                        float neighborHeight = h[row + (x + dx + W) % W];
                         float heightDiff = neighborHeight - centerHeight;
 
                         // Only count positive differences (neighbors higher)
@@ -96,7 +103,7 @@ public final class AmbientOcclusionRenderer {
                 // Apply gamma
                 occlusion = (float) Math.pow(occlusion, 0.5);
 
-                ao[y][x] = (int) (occlusion * 255);
+                out[ao.index(x, y)] = (int) (occlusion * 255);
             }
         }
 
@@ -110,27 +117,44 @@ public final class AmbientOcclusionRenderer {
      * @param height height field
      * @return AO texture as Gray8
      */
-    public static int[][] render(float[][] height) {
-        int H = height.length, W = height[0].length;
-        int[][] aoSlope = renderSlopeBased(height);
-        int[][] aoHeightDiff = renderHeightDifference(height, 1);
+    public static IntGrid render(FloatGrid height) {
+        int H = height.height(), W = height.width();
+        int[] aoSlope = renderSlopeBased(height).data();
+        int[] aoHeightDiff = renderHeightDifference(height, 1).data();
 
-        int[][] ao = new int[H][W];
+        IntGrid ao = new IntGrid(W, H);
+        int[] out = ao.data();
 
         // Blend both methods: 60% slope-based, 40% height-difference
-        for (int y = 0; y < H; y++) {
-            for (int x = 0; x < W; x++) {
-                float slopeVal = ((aoSlope[y][x] & 0xFF) / 255.0f);
-                float heightVal = ((aoHeightDiff[y][x] & 0xFF) / 255.0f);
+        for (int i = 0; i < W * H; i++) {
+            float slopeVal = ((aoSlope[i] & 0xFF) / 255.0f);
+            float heightVal = ((aoHeightDiff[i] & 0xFF) / 255.0f);
 
-                float blended = slopeVal * 0.6f + heightVal * 0.4f;
-                ao[y][x] = (int) (blended * 255);
-            }
+            float blended = slopeVal * 0.6f + heightVal * 0.4f;
+            out[i] = (int) (blended * 255);
         }
 
         return ao;
     }
 
+    /**
+     * {@link #render(FloatGrid)} on a {@code float[H][W]} array, for callers on the
+     * row-array layout.
+     */
+    public static int[][] render(float[][] height) {
+        return render(FloatGrid.fromRows(height)).toRows();
+    }
+
+    /** {@link #renderSlopeBased(FloatGrid)} on a {@code float[H][W]} array. */
+    public static int[][] renderSlopeBased(float[][] height) {
+        return renderSlopeBased(FloatGrid.fromRows(height)).toRows();
+    }
+
+    /** {@link #renderHeightDifference(FloatGrid, int)} on a {@code float[H][W]} array. */
+    public static int[][] renderHeightDifference(float[][] height, int kernelRadius) {
+        return renderHeightDifference(FloatGrid.fromRows(height), kernelRadius).toRows();
+    }
+
     /**
      * Smooth AO texture with box filter for natural appearance.
      *
@@ -138,9 +162,11 @@ public final class AmbientOcclusionRenderer {
      * @param kernelRadius filter radius (typically 1-2 pixels)
      * @return smoothed AO texture
      */
-    public static int[][] smooth(int[][] ao, int kernelRadius) {
-        int H = ao.length, W = ao[0].length;
-        int[][] smoothed = new int[H][W];
+    public static IntGrid smooth(IntGrid ao, int kernelRadius) {
+        int H = ao.height(), W = ao.width();
+        int[] in = ao.data();
+        IntGrid smoothed = new IntGrid(W, H);
+        int[] out = smoothed.data();
 
         int kernelSize = 2 * kernelRadius + 1;
         float kernelSum = kernelSize * kernelSize;
@@ -150,30 +176,39 @@ public final class AmbientOcclusionRenderer {
                 float sum = 0;
 
                 for (int dy = -kernelRadius; dy <= kernelRadius; dy++) {
+                    int ny = y + dy;
+                    if (ny < 0 || ny >= H) {
+                        continue;
+                    }
+                    int row = ao.index(0, ny);
                     for (int dx = -kernelRadius; dx <= kernelRadius; dx++) {
-                        int ny = y + dy;
-                        int nx = (x + dx + W) % W;
-
-                        if (ny >= 0 && ny < H) {
-                            sum += (ao[ny][nx] & 0xFF);
-                        }
+                        sum += (in[row + (x + dx + W) % W] & 0xFF);
                     }
                 }
 
                 float avg = sum / kernelSum;
-                smoothed[y][x] = (byte) avg;
+                out[smoothed.index(x, y)] = (byte) avg;
             }
         }
 
         return smoothed;
     }
 
+    /**
+     * {@link #smooth(IntGrid, int)} on an {@code int[H][W]} array, for callers on the
+     * row-array layout.
+     */
+    public static int[][] smooth(int[][] ao, int kernelRadius) {
+        return smooth(IntGrid.fromRows(ao), kernelRadius).toRows();
+    }
+
     /**
      * Estimate slope at a pixel using Sobel operator.
      * Returns magnitude of gradient.
      */
-    private static float estimateSlope(float[][] height, int x, int y) {
-        int H = height.length, W = height[0].length;
+    private static float estimateSlope(FloatGrid height, int x, int y) {
+        int H = height.height(), W = height.width();
+        float[] h = height.data();
 
         // Neighbors
         int xW = (x - 1 + W) % W;
@@ -182,8 +217,8 @@ public final class AmbientOcclusionRenderer {
         int yS = Math.min(H - 1, y + 1);
 
         // Height differences
-        float dhdx = (height[y][xE] - height[y][xW]) * 0.5f;
-        float dhdy = (height[yS][x] - height[yN][x]) * 0.5f;
+        float dhdx = (h[height.index(xE, y)] - h[height.index(xW, y)]) * 0.5f;
+        float dhdy = (h[height.index(x, yS)] - h[height.index(x, yN)]) * 0.5f;
 
         // Gradient magnitude = slope
         return (float) Math.sqrt(dhdx * dhdx + dhdy * dhdy);
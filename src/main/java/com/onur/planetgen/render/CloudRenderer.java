@@ -2,33 +2,34 @@ package com.onur.planetgen.render;
 
 import com.onur.planetgen.atmosphere.CloudField;
 import com.onur.planetgen.atmosphere.MultiLayerCloudField;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
 
 public final class CloudRenderer {
     private CloudRenderer() {}
 
-    public static int[][] render(CloudField f) {
-        int H = f.alpha.length, W = f.alpha[0].length;
-        int[][] argb = new int[H][W];
-        for (int y = 0; y < H; y++) {
-            for (int x = 0; x < W; x++) {
-                int a = (int) Math.round(Math.max(0, Math.min(1, f.alpha[y][x])) * 255);
-                int r = 230, g = 240, b = 255;
-                argb[y][x] = ((a & 255) << 24) | ((r & 255) << 16) | ((g & 255) << 8) | (b & 255);
-            }
-        }
-        return argb;
+    public static IntGrid render(CloudField f) {
+        return render(f.alpha);
+    }
+
+    public static IntGrid render(MultiLayerCloudField f) {
+        return render(f.alpha);
     }
 
-    public static int[][] render(MultiLayerCloudField f) {
-        int H = f.alpha.length, W = f.alpha[0].length;
-        int[][] argb = new int[H][W];
+    /** White clouds with the given opacity. */
+    public static IntGrid render(FloatGrid alphaGrid) {
+        int H = alphaGrid.height(), W = alphaGrid.width();
+        float[] alpha = alphaGrid.data();
+        IntGrid out = new IntGrid(W, H);
+        int[] argb = out.data();
         for (int y = 0; y < H; y++) {
+            int row = alphaGrid.index(0, y), outRow = out.index(0, y);
             for (int x = 0; x < W; x++) {
-                int a = (int) Math.round(Math.max(0, Math.min(1, f.alpha[y][x])) * 255);
+                int a = (int) Math.round(Math.max(0, Math.min(1, alpha[row + x])) * 255);
                 int r = 230, g = 240, b = 255;
-                argb[y][x] = ((a & 255) << 24) | ((r & 255) << 16) | ((g & 255) << 8) | (b & 255);
+                argb[outRow + x] = ((a & 255) << 24) | ((r & 255) << 16) | ((g & 255) << 8) | (b & 255);
             }
         }
-        return argb;
+        return out;
     }
 }
@@ -1,5 +1,7 @@
 package com.onur.planetgen.render;
 
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
 import com.onur.planetgen.noise.OpenSimplex2;
 import com.onur.planetgen.config.Preset;
 
@@ -18,43 +20,55 @@ public final class EmissiveRenderer {
      * @param seed random seed for procedural patterns
      * @return ARGB texture with emissive contribution
      */
-    public static int[][] render(float[][] height, Preset preset, long seed) {
+    public static IntGrid render(FloatGrid height, Preset preset, long seed) {
+        return renderBand(height, 0, preset, seed);
+    }
+
+    /**
+     * Emissive map of a band of rows starting at planet row {@code firstRow}; patterns line
+     * up with the full-planet render.
+     */
+    public static IntGrid renderBand(FloatGrid height, int firstRow, Preset preset, long seed) {
         if (!preset.enableEmissive || "none".equals(preset.emissiveType)) {
-            // Return transparent black
-            int H = height.length, W = height[0].length;
-            int[][] empty = new int[H][W];
-            for (int y = 0; y < H; y++) {
-                for (int x = 0; x < W; x++) {
-                    empty[y][x] = 0; // Fully transparent
-                }
-            }
-            return empty;
+            // Transparent black
+            return new IntGrid(height.width(), height.height());
         }
 
         if ("night_lights".equals(preset.emissiveType)) {
-            return renderNightLights(height, preset, seed);
+            return renderNightLights(height, firstRow, preset, seed);
         } else if ("lava".equals(preset.emissiveType)) {
-            return renderLava(height, preset, seed);
+            return renderLava(height, firstRow, preset, seed);
         }
 
-        return new int[height.length][height[0].length];
+        return new IntGrid(height.width(), height.height());
+    }
+
+    /**
+     * {@link #render(FloatGrid, Preset, long)} on a {@code float[H][W]} array, for callers
+     * on the row-array layout.
+     */
+    public static int[][] render(float[][] height, Preset preset, long seed) {
+        return render(FloatGrid.fromRows(height), preset, seed).toRows();
     }
 
     /**
      * Render night lights (city lights for habitable planets).
      * Uses proximity to water and river features as proxy for civilization.
      */
-    private static int[][] renderNightLights(float[][] height, Preset preset, long seed) {
-        int H = height.length, W = height[0].length;
-        int[][] argb = new int[H][W];
+    private static IntGrid renderNightLights(FloatGrid heightGrid, int firstRow, Preset preset, long seed) {
+        int H = heightGrid.height(), W = heightGrid.width();
+        float[] height = heightGrid.data();
+        IntGrid out = new IntGrid(W, H);
+        int[] argb = out.data();
         OpenSimplex2 noise = new OpenSimplex2(seed);
 
         double seaLevel = preset.seaLevel;
         double intensity = preset.emissiveIntensity;
 
         for (int y = 0; y < H; y++) {
+            int row = heightGrid.index(0, y), outRow = out.index(0, y);
             for (int x = 0; x < W; x++) {
-                float h = height[y][x];
+                float h = height[row + x];
 
                 // Cities exist in temperate coastal regions (just below land, near water)
                 // Use heuristic: height between sea level and elevation threshold
@@ -62,7 +76,7 @@ public final class EmissiveRenderer {
                 double coastlineProximity = Math.exp(-distanceFromWater * distanceFromWater * 5.0);
 
                 // Add noise for clustered cities
-                double pattern = noise.noise3(x * 0.01, y * 0.01, seed * 0.0001);
+                double pattern = noise.noise3(x * 0.01, (firstRow + y) * 0.01, seed * 0.0001);
                 pattern = (pattern + 1.0) * 0.5; // Normalize to [0, 1]
 
                 // City lights are warm (yellow/orange)
@@ -75,35 +89,38 @@ public final class EmissiveRenderer {
                     int g = (int) (200 * Math.min(1.0, 1.0 + 0.1 * (pattern - 0.5)));
                     int b = (int) (100 * Math.min(1.0, 1.0 - 0.2 * (pattern - 0.5)));
 
-                    argb[y][x] = argb(a, r, g, b);
+                    argb[outRow + x] = argb(a, r, g, b);
                 } else {
-                    argb[y][x] = 0;
+                    argb[outRow + x] = 0;
                 }
             }
         }
 
-        return argb;
+        return out;
     }
 
     /**
      * Render lava emission (for volcanic planets).
      * Uses high-temperature ridged noise to simulate lava flows.
      */
-    private static int[][] renderLava(float[][] height, Preset preset, long seed) {
-        int H = height.length, W = height[0].length;
-        int[][] argb = new int[H][W];
+    private static IntGrid renderLava(FloatGrid heightGrid, int firstRow, Preset preset, long seed) {
+        int H = heightGrid.height(), W = heightGrid.width();
+        float[] height = heightGrid.data();
+        IntGrid out = new IntGrid(W, H);
+        int[] argb = out.data();
         OpenSimplex2 noise = new OpenSimplex2(seed);
 
         double threshold = preset.emissiveThreshold;
         double intensity = preset.emissiveIntensity;
 
         for (int y = 0; y < H; y++) {
+            int row = heightGrid.index(0, y), outRow = out.index(0, y);
             for (int x = 0; x < W; x++) {
-                float h = height[y][x];
+                float h = height[row + x];
 
                 // Lava exists in high elevations (volcanic peaks)
                 // Use ridged noise pattern for fractal lava flows
-                double n = noise.noise3(x * 0.02, y * 0.02, seed * 0.0001);
+                double n = noise.noise3(x * 0.02, (firstRow + y) * 0.02, seed * 0.0001);
                 double ridged = 1.0 - Math.abs(n);
 
                 // Lava concentrated in high peaks
@@ -121,14 +138,14 @@ public final class EmissiveRenderer {
                     int g = (int) (Math.min(255, 100 * temperature));
                     int b = (int) (Math.min(255, 50 * temperature * temperature)); // Less blue at high temp
 
-                    argb[y][x] = argb(a, r, g, b);
+                    argb[outRow + x] = argb(a, r, g, b);
                 } else {
-                    argb[y][x] = 0;
+                    argb[outRow + x] = 0;
                 }
             }
         }
 
-        return argb;
+        return out;
     }
 
     private static int argb(int a, int r, int g, int b) {
@@ -1,20 +1,37 @@
 package com.onur.planetgen.render;
 
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+import com.onur.planetgen.planet.SphericalSampler;
+
 public final class NormalMapRenderer {
     private NormalMapRenderer() {}
 
-    public static int[][] render(float[][] h) {
-        int H = h.length, W = h[0].length;
-        int[][] out = new int[H][W];
+    public static IntGrid render(FloatGrid h) {
+        return renderBand(h, 0, h.height());
+    }
+
+    /**
+     * Normals of a band of rows {@code firstRow ..} of a planet {@code planetHeight} rows
+     * tall. Rows next to the band edges see a clamped neighbour, so callers keep the band
+     * one row short of any edge that is not a pole.
+     */
+    public static IntGrid renderBand(FloatGrid h, int firstRow, int planetHeight) {
+        int H = h.height(), W = h.width();
+        float[] height = h.data();
+        IntGrid out = new IntGrid(W, H);
+        int[] argb = out.data();
         for (int y = 0; y < H; y++) {
-            double v = (y + 0.5) / (double) H;
+            double v = (firstRow + y + 0.5) / (double) planetHeight;
             double lat = Math.PI / 2.0 - Math.PI * v;
             double cos = Math.max(1e-6, Math.cos(lat));
-            int yN = Math.max(0, y - 1), yS = Math.min(H - 1, y + 1);
+            int row = h.index(0, y);
+            int rowN = h.index(0, Math.max(0, y - 1)), rowS = h.index(0, Math.min(H - 1, y + 1));
+            int outRow = out.index(0, y);
             for (int x = 0; x < W; x++) {
                 int xW = (x - 1 + W) % W, xE = (x + 1) % W;
-                double dhdx = (h[y][xE] - h[y][xW]) * 0.5 / cos;
-                double dhdy = (h[yS][x] - h[yN][x]) * 0.5;
+                double dhdx = (height[row + xE] - height[row + xW]) * 0.5 / cos;
+                double dhdy = (height[rowS + x] - height[rowN + x]) * 0.5;
                 double nx = -dhdx, ny = -dhdy, nz = 1.0;
                 double L = Math.sqrt(nx * nx + ny * ny + nz * nz);
                 nx /= L;
@@ -23,9 +40,52 @@ public final class NormalMapRenderer {
                 int r = (int) Math.round((nx * 0.5 + 0.5) * 255);
                 int g = (int) Math.round((ny * 0.5 + 0.5) * 255);
                 int b = (int) Math.round((nz * 0.5 + 0.5) * 255);
-                out[y][x] = ((255) << 24) | ((r & 255) << 16) | ((g & 255) << 8) | (b & 255);
+                argb[outRow + x] = ((255) << 24) | ((r & 255) << 16) | ((g & 255) << 8) | (b & 255);
             }
         }
         return out;
     }
+
+    /**
+     * Normals of the interior of {@code h}, {@code margin >= 1} pixels in from every edge,
+     * where {@code sampler} places the whole grid (such as a padded {@code RegionSampler}).
+     * Neighbours come from the margin instead of wrapping, and x slopes are scaled by the
+     * ground width of a column relative to a row.
+     */
+    public static IntGrid renderWindow(FloatGrid h, SphericalSampler sampler, int margin) {
+        if (margin < 1 || 2 * margin >= Math.min(h.width(), h.height())) {
+            throw new IllegalArgumentException("Margin " + margin + " leaves no interior in "
+                    + h.width() + "x" + h.height());
+        }
+        int W = h.width() - 2 * margin, H = h.height() - 2 * margin;
+        double aspect = (sampler.lon(1) - sampler.lon(0)) / (sampler.lat(0) - sampler.lat(1));
+        float[] height = h.data();
+        IntGrid out = new IntGrid(W, H);
+        int[] argb = out.data();
+        for (int y = 0; y < H; y++) {
+            double cos = Math.max(1e-6, Math.cos(sampler.lat(margin + y)));
+            int row = h.index(margin, margin + y);
+            int rowN = h.index(margin, margin + y - 1), rowS = h.index(margin, margin + y + 1);
+            int outRow = out.index(0, y);
+            for (int x = 0; x < W; x++) {
+                double dhdx = (height[row + x + 1] - height[row + x - 1]) * 0.5 / (cos * aspect);
+                double dhdy = (height[rowS + x] - height[rowN + x]) * 0.5;
+                double nx = -dhdx, ny = -dhdy, nz = 1.0;
+                double L = Math.sqrt(nx * nx + ny * ny + nz * nz);
+                int r = (int) Math.round((nx / L * 0.5 + 0.5) * 255);
+                int g = (int) Math.round((ny / L * 0.5 + 0.5) * 255);
+                int b = (int) Math.round((nz / L * 0.5 + 0.5) * 255);
+                argb[outRow + x] = (255 << 24) | ((r & 255) << 16) | ((g & 255) << 8) | (b & 255);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * {@link #render(FloatGrid)} on a {@code float[H][W]} array, for callers on the
+     * row-array layout.
+     */
+    public static int[][] render(float[][] h) {
+        return render(FloatGrid.fromRows(h)).toRows();
+    }
 }
@@ -1,5 +1,8 @@
 package com.onur.planetgen.render;
 
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+
 /**
  * Utility helpers for converting procedural float fields into packed ARGB textures.
  * Centralises clamping and packing logic so renderers can focus on domain logic.
@@ -49,6 +52,28 @@ public final class RenderUtil {
         return out;
     }
 
+    /**
+     * Convert a float grid in [0,1] to an 8-bit grayscale texture.
+     */
+    public static IntGrid toGray8(FloatGrid data) {
+        int h = data.height();
+        int w = data.width();
+        float[] src = data.data();
+        IntGrid out = new IntGrid(w, h);
+        for (int y = 0; y < h; y++) {
+            toGray8(src, data.index(0, y), out.data(), out.index(0, y), w);
+        }
+        return out;
+    }
+
+    /** {@link #toGray8(FloatGrid)} for {@code n} values of one row. */
+    public static void toGray8(float[] src, int srcOffset, int[] dst, int dstOffset, int n) {
+        for (int x = 0; x < n; x++) {
+            float v = clamp01(src[srcOffset + x]);
+            dst[dstOffset + x] = (int) (v * 255f);
+        }
+    }
+
     /**
      * Pack three float channels (0..1) into RGB with full alpha.
      *
@@ -75,6 +100,34 @@ public final class RenderUtil {
         return out;
     }
 
+    /**
+     * Pack three float grids (0..1) into RGB with full alpha.
+     */
+    public static IntGrid packToRgb(FloatGrid r, FloatGrid g, FloatGrid b) {
+        int h = r.height();
+        int w = r.width();
+        float[] srcR = r.data(), srcG = g.data(), srcB = b.data();
+        IntGrid out = new IntGrid(w, h);
+        int[] dst = out.data();
+        for (int y = 0; y < h; y++) {
+            int rowR = r.index(0, y), rowG = g.index(0, y), rowB = b.index(0, y), outRow = out.index(0, y);
+            for (int x = 0; x < w; x++) {
+                int rr = clamp255(srcR[rowR + x] * 255f);
+                int gg = clamp255(srcG[rowG + x] * 255f);
+                int bb = clamp255(srcB[rowB + x] * 255f);
+                dst[outRow + x] = argb(255, rr, gg, bb);
+            }
+        }
+        return out;
+    }
+
+    /** {@link #packToRgb(FloatGrid, FloatGrid, FloatGrid)} for one row of {@code n} pixels. */
+    public static void packToRgb(float[] r, float[] g, float[] b, int[] dst, int n) {
+        for (int x = 0; x < n; x++) {
+            dst[x] = argb(255, clamp255(r[x] * 255f), clamp255(g[x] * 255f), clamp255(b[x] * 255f));
+        }
+    }
+
     /**
      * Create an ARGB mask by applying a float alpha channel to a constant colour.
      */
@@ -92,4 +145,23 @@ public final class RenderUtil {
         }
         return out;
     }
+
+    /**
+     * Create an ARGB mask by applying a float alpha grid to a constant colour.
+     */
+    public static IntGrid colorWithAlpha(FloatGrid alpha, int r, int g, int b) {
+        int h = alpha.height();
+        int w = alpha.width();
+        float[] src = alpha.data();
+        IntGrid out = new IntGrid(w, h);
+        int[] dst = out.data();
+        for (int y = 0; y < h; y++) {
+            int row = alpha.index(0, y), outRow = out.index(0, y);
+            for (int x = 0; x < w; x++) {
+                int a = clamp255(clamp01(src[row + x]) * 255f);
+                dst[outRow + x] = argb(a, r, g, b);
+            }
+        }
+        return out;
+    }
 }
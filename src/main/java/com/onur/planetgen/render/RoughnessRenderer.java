@@ -1,16 +1,30 @@
 package com.onur.planetgen.render;
 
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+
 public final class RoughnessRenderer {
     private RoughnessRenderer() {}
 
-    public static int[][] render(float[][] h) {
-        int H = h.length, W = h[0].length;
-        int[][] g = new int[H][W];
+    public static IntGrid render(FloatGrid h) {
+        int H = h.height(), W = h.width();
+        float[] height = h.data();
+        IntGrid g = new IntGrid(W, H);
+        int[] gray = g.data();
         for (int y = 0; y < H; y++) {
+            int row = h.index(0, y), outRow = g.index(0, y);
             for (int x = 0; x < W; x++) {
-                g[y][x] = (int) (Math.min(255, Math.max(0, 127 + 64 * h[y][x])));
+                gray[outRow + x] = (int) (Math.min(255, Math.max(0, 127 + 64 * height[row + x])));
             }
         }
         return g;
     }
+
+    /**
+     * {@link #render(FloatGrid)} on a {@code float[H][W]} array, for callers on the
+     * row-array layout.
+     */
+    public static int[][] render(float[][] h) {
+        return render(FloatGrid.fromRows(h)).toRows();
+    }
 }
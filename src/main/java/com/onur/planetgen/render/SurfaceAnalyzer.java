@@ -2,11 +2,19 @@ package com.onur.planetgen.render;
 
 import com.onur.planetgen.config.Preset;
 import com.onur.planetgen.erosion.FlowField;
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+import com.onur.planetgen.field.OffHeapFloatGrid;
+import com.onur.planetgen.field.OffHeapIntGrid;
 import com.onur.planetgen.hydrology.LakeDetector;
 import com.onur.planetgen.hydrology.RiverDetector;
 import com.onur.planetgen.noise.OpenSimplex2;
 import com.onur.planetgen.planet.ClimateModel;
 import com.onur.planetgen.planet.SphericalSampler;
+import com.onur.planetgen.util.PngWriter;
+
+import java.io.IOException;
 
 /**
  * Performs a holistic surface analysis to derive physically based rendering maps,
@@ -18,18 +26,115 @@ import com.onur.planetgen.planet.SphericalSampler;
 public final class SurfaceAnalyzer {
     private SurfaceAnalyzer() {}
 
-    public static SurfaceData analyze(float[][] height, Preset preset, long seed) {
-        int h = height.length;
-        int w = height[0].length;
+    public static SurfaceData analyze(FloatGrid heightGrid, Preset preset, long seed) {
+        return analyzeBand(heightGrid, 0, heightGrid.height(), preset, seed);
+    }
+
+    /**
+     * Analyse a band of rows {@code firstRow ..} of a planet {@code planetHeight} rows tall.
+     * Latitude, climate and detail noise follow the band's place on the planet; flow,
+     * rivers, lakes and occlusion only see the band, so callers should pad it with rows
+     * beyond the ones they keep.
+     */
+    public static SurfaceData analyzeBand(FloatGrid heightGrid, int firstRow, int planetHeight,
+                                          Preset preset, long seed) {
+        int h = heightGrid.height();
+        if (firstRow < 0 || firstRow + h > planetHeight) {
+            throw new IllegalArgumentException("Band of " + h + " rows from " + firstRow
+                    + " is outside a planet " + planetHeight + " rows tall");
+        }
+        return analyze(heightGrid, Placement.of(new SphericalSampler(heightGrid.width(), planetHeight), firstRow, 0,
+                heightGrid.width()), 0, preset, seed);
+    }
+
+    /**
+     * Analyse the interior of {@code heightGrid}, {@code margin} pixels in from every edge,
+     * where {@code sampler} places the whole grid (such as a padded {@code RegionSampler}).
+     * Flow, rivers, lakes and occlusion see the margin; only the interior is returned.
+     */
+    public static SurfaceData analyzeWindow(FloatGrid heightGrid, SphericalSampler sampler, int margin,
+                                            Preset preset, long seed) {
+        if (sampler.W != heightGrid.width() || sampler.H != heightGrid.height()) {
+            throw new IllegalArgumentException("Sampler is " + sampler.W + "x" + sampler.H + " but the height field is "
+                    + heightGrid.width() + "x" + heightGrid.height());
+        }
+        if (margin < 0 || 2 * margin >= Math.min(sampler.W, sampler.H)) {
+            throw new IllegalArgumentException("Margin " + margin + " leaves no interior in " + sampler.W + "x" + sampler.H);
+        }
+        return analyze(heightGrid, Placement.of(sampler, 0, margin, sampler.W - 2 * margin), margin, preset, seed);
+    }
+
+    /**
+     * Analyse the interior of {@code heightGrid}, {@code margin} pixels in from every edge,
+     * where {@code placement} places each interior pixel on the planet, for grids that are
+     * not equirectangular (such as a padded cube face).
+     */
+    public static SurfaceData analyzeWindow(FloatGrid heightGrid, Placement placement, int margin,
+                                            Preset preset, long seed) {
+        if (margin < 0 || 2 * margin >= Math.min(heightGrid.width(), heightGrid.height())) {
+            throw new IllegalArgumentException("Margin " + margin + " leaves no interior in "
+                    + heightGrid.width() + "x" + heightGrid.height());
+        }
+        return analyze(heightGrid, placement, margin, preset, seed);
+    }
+
+    /**
+     * Where the interior pixels of an analysed grid sit on the planet. Climate and surface
+     * detail are laid out on a whole-planet equirectangular grid, so every pixel needs its
+     * column and row on that grid and its latitude.
+     */
+    public interface Placement {
+        int planetWidth();
+
+        int planetHeight();
+
+        /** Planet column, planet row and latitude (radians) of each pixel of interior row {@code y}. */
+        void row(int y, int[] planetColumn, int[] planetRow, double[] lat);
+
+        /** Rows {@code firstRow ..} of {@code sampler} hold the grid; {@code width} interior columns. */
+        static Placement of(SphericalSampler sampler, int firstRow, int margin, int width) {
+            int[] columns = new int[width];
+            for (int x = 0; x < width; x++) {
+                columns[x] = sampler.planetColumn(margin + x);
+            }
+            return new Placement() {
+                @Override
+                public int planetWidth() {
+                    return sampler.planetWidth();
+                }
+
+                @Override
+                public int planetHeight() {
+                    return sampler.planetHeight();
+                }
+
+                @Override
+                public void row(int y, int[] planetColumn, int[] planetRow, double[] lat) {
+                    int samplerRow = firstRow + margin + y;
+                    System.arraycopy(columns, 0, planetColumn, 0, width);
+                    java.util.Arrays.fill(planetRow, 0, width, sampler.planetRow(samplerRow));
+                    java.util.Arrays.fill(lat, 0, width, sampler.lat(samplerRow));
+                }
+            };
+        }
+    }
+
+    /**
+     * {@code placement} places the interior of {@code heightGrid}; the result covers the grid
+     * less {@code margin} pixels on every side.
+     */
+    private static SurfaceData analyze(FloatGrid heightGrid, Placement placement, int margin,
+                                       Preset preset, long seed) {
+        int h = heightGrid.height() - 2 * margin;
+        int w = heightGrid.width() - 2 * margin;
         float seaLevel = preset != null ? (float) preset.seaLevel : 0.0f;
-        SphericalSampler sampler = new SphericalSampler(w, h);
 
-        FlowField flow = FlowField.compute(height);
-        float[][] rivers = RiverDetector.smoothRivers(
+        FlowField flow = FlowField.compute(heightGrid);
+        FloatGrid riverGrid = RiverDetector.smoothRivers(
                 RiverDetector.detectRivers(flow, 0.35), 1);
-        float[][] lakes = LakeDetector.detectLakes(height, seaLevel);
+        FloatGrid lakeGrid = LakeDetector.detectLakes(heightGrid, seaLevel);
 
-        int[][] aoGray = AmbientOcclusionRenderer.render(height);
+        IntGrid aoGrayGrid = AmbientOcclusionRenderer.render(heightGrid);
 
         // Noise sources for detail/variation
         long detailSeed = seed ^ 0x9E3779B97F4A7C15L;
@@ -37,68 +142,116 @@ public final class SurfaceAnalyzer {
         OpenSimplex2 detailNoise = new OpenSimplex2(detailSeed);
         OpenSimplex2 macroNoise = new OpenSimplex2(macroSeed);
 
-        float[][] metallic = new float[h][w];
-        float[][] roughness = new float[h][w];
-        float[][] ao = new float[h][w];
-        float[][] vegetation = new float[h][w];
-        float[][] snow = new float[h][w];
-        float[][] detail = new float[h][w];
-        float[][] waterDepth = new float[h][w];
-        float[][] oceanSpecular = new float[h][w];
-        float[][] atmosphereMask = new float[h][w];
-
-        int[][] albedo = new int[h][w];
-        int[][] biomeMask = new int[h][w];
-        int[][] materialMask = new int[h][w];
-        int[][] oceanShading = new int[h][w];
-        int[][] atmosphere = new int[h][w];
+        // Output channels: heap grids, or off-heap grids filled a row at a time
+        boolean offHeap = preset != null && preset.offHeapFields;
+        FloatChannel metallicChannel = new FloatChannel(w, h, offHeap);
+        FloatChannel roughnessChannel = new FloatChannel(w, h, offHeap);
+        FloatChannel aoChannel = new FloatChannel(w, h, offHeap);
+        FloatChannel vegetationChannel = new FloatChannel(w, h, offHeap);
+        FloatChannel snowChannel = new FloatChannel(w, h, offHeap);
+        FloatChannel detailChannel = new FloatChannel(w, h, offHeap);
+        FloatChannel waterDepthChannel = new FloatChannel(w, h, offHeap);
+        FloatChannel oceanSpecularChannel = new FloatChannel(w, h, offHeap);
+        FloatChannel atmosphereMaskChannel = new FloatChannel(w, h, offHeap);
+
+        IntChannel albedoChannel = new IntChannel(w, h, offHeap);
+        IntChannel biomeMaskChannel = new IntChannel(w, h, offHeap);
+        IntChannel materialMaskChannel = new IntChannel(w, h, offHeap);
+        IntChannel oceanShadingChannel = new IntChannel(w, h, offHeap);
+        IntChannel atmosphereChannel = new IntChannel(w, h, offHeap);
+        SurfaceData surface = new SurfaceData(
+                w, h, seaLevel,
+                albedoChannel, biomeMaskChannel, materialMaskChannel,
+                oceanShadingChannel, atmosphereChannel,
+                metallicChannel, roughnessChannel, aoChannel, vegetationChannel, snowChannel, detailChannel,
+                oceanSpecularChannel, atmosphereMaskChannel, waterDepthChannel
+        );
+
+        float[] height = heightGrid.data();
+        float[] flowAccum = flow.accum.data(), flowSlope = flow.slope.data();
+        float[] rivers = riverGrid.data(), lakes = lakeGrid.data();
+        int[] aoGray = aoGrayGrid.data();
+        float[] metallic = metallicChannel.values, roughness = roughnessChannel.values, ao = aoChannel.values;
+        float[] vegetation = vegetationChannel.values, snow = snowChannel.values, detail = detailChannel.values;
+        float[] waterDepth = waterDepthChannel.values, oceanSpecular = oceanSpecularChannel.values;
+        float[] atmosphereMask = atmosphereMaskChannel.values;
+        int[] albedo = albedoChannel.values, biomeMask = biomeMaskChannel.values;
+        int[] materialMask = materialMaskChannel.values;
+        int[] oceanShading = oceanShadingChannel.values, atmosphere = atmosphereChannel.values;
 
         // Flow accumulation normalisation
-        float minAccum = Float.MAX_VALUE;
-        float maxAccum = Float.MIN_VALUE;
+        FieldStats accumStats = FieldStats.of(flow.accum);
+        float minAccum = accumStats.min();
+        float maxAccum = accumStats.max();
+        float accumRange = Math.max(maxAccum - minAccum, 1e-5f);
+
+        // Scanline noise coordinates: z terms are constant, x/y terms follow each pixel's
+        // place on the whole-planet grid, as do the climate patterns.
+        int[] planetColumn = new int[w], planetRow = new int[w];
+        double[] latitude = new double[w];
+        double[] detailX = new double[w], detailY = new double[w], detailZ = new double[w];
+        double[] macroX = new double[w], macroY = new double[w], macroZ = new double[w];
+        double[] detailRow = new double[w], macroRow = new double[w];
+        java.util.Arrays.fill(detailZ, seed * 0.17);
+        java.util.Arrays.fill(macroZ, seed * 0.05);
+        // This noise is planar: it keeps its detail towards the poles, so every row is
+        // evaluated at full width even when terrain and clouds use a reduced grid
+
         for (int y = 0; y < h; y++) {
+            int gridRow = margin + y;
+            placement.row(y, planetColumn, planetRow, latitude);
             for (int x = 0; x < w; x++) {
-                float accum = flow.accum[y][x];
-                if (accum < minAccum) minAccum = accum;
-                if (accum > maxAccum) maxAccum = accum;
+                double nx = planetColumn[x] / (double) placement.planetWidth();
+                double ny = planetRow[x] / (double) placement.planetHeight();
+                detailX[x] = nx * 12.0;
+                macroX[x] = nx * 2.5;
+                detailY[x] = ny * 12.0;
+                macroY[x] = ny * 2.5;
             }
-        }
-        float accumRange = Math.max(maxAccum - minAccum, 1e-5f);
+            detailNoise.noise3(detailX, detailY, detailZ, detailRow, w);
+            macroNoise.noise3(macroX, macroY, macroZ, macroRow, w);
 
-        for (int y = 0; y < h; y++) {
-            double lat = sampler.lat(y);
-            double sinLat = Math.sin(lat);
-            double cosLat = Math.cos(lat);
-            float absSinLat = (float) Math.abs(sinLat);
+            // Equirectangular rows share one latitude, so its sine is taken once per row
+            double lat = Double.NaN;
+            float absSinLat = 0f;
+
+            int heightRow = heightGrid.index(margin, gridRow);
+            int accumRow = flow.accum.index(margin, gridRow), slopeRow = flow.slope.index(margin, gridRow);
+            int riverRow = riverGrid.index(margin, gridRow), lakeRow = lakeGrid.index(margin, gridRow);
+            int aoRow = aoGrayGrid.index(margin, gridRow);
+            int row = albedoChannel.offset(y); // shared by all channels
 
             for (int x = 0; x < w; x++) {
-                float heightValue = height[y][x];
+                int i = row + x;
+                if (latitude[x] != lat) {
+                    lat = latitude[x];
+                    absSinLat = (float) Math.abs(Math.sin(lat));
+                }
+                float heightValue = height[heightRow + x];
                 boolean isWater = heightValue < seaLevel;
 
-                float slope = clamp01(flow.slope[y][x]);
-                float accumNorm = (flow.accum[y][x] - minAccum) / accumRange;
-                float riverStrength = clamp01(rivers[y][x]);
-                float lakeStrength = clamp01(lakes[y][x]);
+                float slope = clamp01(flowSlope[slopeRow + x]);
+                float accumNorm = (flowAccum[accumRow + x] - minAccum) / accumRange;
+                float riverStrength = clamp01(rivers[riverRow + x]);
+                float lakeStrength = clamp01(lakes[lakeRow + x]);
                 float waterDepthValue = isWater ? seaLevel - heightValue : 0f;
-                waterDepth[y][x] = waterDepthValue;
+                waterDepth[i] = waterDepthValue;
 
-                ClimateModel.Sample climate = ClimateModel.sample(x, y, heightValue, lat);
+                ClimateModel.Sample climate = ClimateModel.sample(planetColumn[x], planetRow[x], heightValue, lat);
                 float tempNorm = (float) ((climate.temp() + 1.0) * 0.5);
                 tempNorm = clamp01(tempNorm);
                 float moisture = clamp01((float) climate.moist());
                 float humidity = clamp01((float) climate.humidity());
 
-                double nx = x / (double) w;
-                double ny = y / (double) h;
-                float detailNoiseVal = (float) ((detailNoise.noise3(nx * 12.0, ny * 12.0, seed * 0.17) + 1.0) * 0.5);
-                float macroVariation = (float) ((macroNoise.noise3(nx * 2.5, ny * 2.5, seed * 0.05) + 1.0) * 0.5);
-                detail[y][x] = detailNoiseVal;
+                float detailNoiseVal = (float) ((detailRow[x] + 1.0) * 0.5);
+                float macroVariation = (float) ((macroRow[x] + 1.0) * 0.5);
+                detail[i] = detailNoiseVal;
 
                 float vegetationAmount = computeVegetation(tempNorm, moisture, slope, riverStrength, lakeStrength);
-                vegetation[y][x] = vegetationAmount;
+                vegetation[i] = vegetationAmount;
 
                 float snowAmount = computeSnowCoverage(tempNorm, heightValue, seaLevel, slope, absSinLat);
-                snow[y][x] = snowAmount;
+                snow[i] = snowAmount;
 
                 BiomeType biome = classifyBiome(isWater, tempNorm, moisture, slope, riverStrength, lakeStrength,
                         snowAmount, heightValue, seaLevel, absSinLat, macroVariation);
@@ -110,37 +263,40 @@ public final class SurfaceAnalyzer {
                 int baseR = RenderUtil.clamp255(shading.baseColor[0] * 255f);
                 int baseG = RenderUtil.clamp255(shading.baseColor[1] * 255f);
                 int baseB = RenderUtil.clamp255(shading.baseColor[2] * 255f);
-                albedo[y][x] = RenderUtil.argb(baseR, baseG, baseB);
+                albedo[i] = RenderUtil.argb(baseR, baseG, baseB);
 
-                roughness[y][x] = clamp01(shading.roughness);
-                metallic[y][x] = clamp01(shading.metallic);
-                oceanSpecular[y][x] = clamp01(shading.oceanSpecular);
-                biomeMask[y][x] = shading.biomeColor;
-                materialMask[y][x] = shading.materialColor;
-                oceanShading[y][x] = shading.oceanColor;
+                roughness[i] = clamp01(shading.roughness);
+                metallic[i] = clamp01(shading.metallic);
+                oceanSpecular[i] = clamp01(shading.oceanSpecular);
+                biomeMask[i] = shading.biomeColor;
+                materialMask[i] = shading.materialColor;
+                oceanShading[i] = shading.oceanColor;
 
-                float aoFromRenderer = (aoGray[y][x] & 0xFF) / 255f;
+                float aoFromRenderer = (aoGray[aoRow + x] & 0xFF) / 255f;
                 float occlusion = clamp01(aoFromRenderer * 0.6f + (1f - slope * 0.8f) * 0.4f);
-                ao[y][x] = occlusion;
+                ao[i] = occlusion;
 
                 float atmosphereStrength = computeAtmosphereMask(heightValue, seaLevel, tempNorm, humidity, absSinLat);
-                atmosphereMask[y][x] = atmosphereStrength;
-                atmosphere[y][x] = RenderUtil.argb(
+                atmosphereMask[i] = atmosphereStrength;
+                atmosphere[i] = RenderUtil.argb(
                         RenderUtil.clamp255(atmosphereStrength * 210f),
                         RenderUtil.clamp255(shading.atmosphereColor[0] * 255f),
                         RenderUtil.clamp255(shading.atmosphereColor[1] * 255f),
                         RenderUtil.clamp255(shading.atmosphereColor[2] * 255f)
                 );
             }
+            surface.commitRow(y);
         }
+        flow.release();
 
-        return new SurfaceData(
-                w, h, seaLevel,
-                albedo, biomeMask, materialMask,
-                oceanShading, atmosphere,
-                metallic, roughness, ao, vegetation, snow, detail,
-                oceanSpecular, atmosphereMask, waterDepth
-        );
+        return surface;
+    }
+
+    /**
+     * {@link #analyze(FloatGrid, Preset, long)} on a {@code float[H][W]} height array.
+     */
+    public static SurfaceData analyze(float[][] height, Preset preset, long seed) {
+        return analyze(FloatGrid.fromRows(height), preset, seed);
     }
 
     private static float computeVegetation(float temp, float moisture, float slope,
@@ -521,42 +677,48 @@ public final class SurfaceAnalyzer {
                                 int oceanColor,
                                 float[] atmosphereColor) {}
 
-    public static final class SurfaceData {
+    /**
+     * Analysis results. With {@link Preset#offHeapFields} the channels are kept in native
+     * memory and every accessor call returns a fresh heap copy, so callers should take one
+     * channel at a time and {@link #close()} the data once the last map is exported. Heap
+     * channels are returned as is, and closing them does nothing.
+     */
+    public static final class SurfaceData implements AutoCloseable {
         private final int width;
         private final int height;
         private final float seaLevel;
 
-        private final int[][] albedo;
-        private final int[][] biomeMask;
-        private final int[][] materialMask;
-        private final int[][] oceanShading;
-        private final int[][] atmosphere;
-
-        private final float[][] metallic;
-        private final float[][] roughness;
-        private final float[][] ao;
-        private final float[][] vegetation;
-        private final float[][] snow;
-        private final float[][] detail;
-        private final float[][] oceanSpecular;
-        private final float[][] atmosphereMask;
-        private final float[][] waterDepth;
+        private final IntChannel albedo;
+        private final IntChannel biomeMask;
+        private final IntChannel materialMask;
+        private final IntChannel oceanShading;
+        private final IntChannel atmosphere;
+
+        private final FloatChannel metallic;
+        private final FloatChannel roughness;
+        private final FloatChannel ao;
+        private final FloatChannel vegetation;
+        private final FloatChannel snow;
+        private final FloatChannel detail;
+        private final FloatChannel oceanSpecular;
+        private final FloatChannel atmosphereMask;
+        private final FloatChannel waterDepth;
 
         private SurfaceData(int width, int height, float seaLevel,
-                            int[][] albedo,
-                            int[][] biomeMask,
-                            int[][] materialMask,
-                            int[][] oceanShading,
-                            int[][] atmosphere,
-                            float[][] metallic,
-                            float[][] roughness,
-                            float[][] ao,
-                            float[][] vegetation,
-                            float[][] snow,
-                            float[][] detail,
-                            float[][] oceanSpecular,
-                            float[][] atmosphereMask,
-                            float[][] waterDepth) {
+                            IntChannel albedo,
+                            IntChannel biomeMask,
+                            IntChannel materialMask,
+                            IntChannel oceanShading,
+                            IntChannel atmosphere,
+                            FloatChannel metallic,
+                            FloatChannel roughness,
+                            FloatChannel ao,
+                            FloatChannel vegetation,
+                            FloatChannel snow,
+                            FloatChannel detail,
+                            FloatChannel oceanSpecular,
+                            FloatChannel atmosphereMask,
+                            FloatChannel waterDepth) {
             this.width = width;
             this.height = height;
             this.seaLevel = seaLevel;
@@ -579,19 +741,211 @@ public final class SurfaceAnalyzer {
         public int width() { return width; }
         public int height() { return height; }
         public float seaLevel() { return seaLevel; }
-        public int[][] albedo() { return albedo; }
-        public int[][] biomeMask() { return biomeMask; }
-        public int[][] materialMask() { return materialMask; }
-        public int[][] oceanShading() { return oceanShading; }
-        public int[][] atmosphere() { return atmosphere; }
-        public float[][] metallic() { return metallic; }
-        public float[][] roughness() { return roughness; }
-        public float[][] ambientOcclusion() { return ao; }
-        public float[][] vegetation() { return vegetation; }
-        public float[][] snow() { return snow; }
-        public float[][] detail() { return detail; }
-        public float[][] oceanSpecular() { return oceanSpecular; }
-        public float[][] atmosphereMask() { return atmosphereMask; }
-        public float[][] waterDepth() { return waterDepth; }
+        public IntGrid albedo() { return albedo.grid(); }
+        public IntGrid biomeMask() { return biomeMask.grid(); }
+        public IntGrid materialMask() { return materialMask.grid(); }
+        public IntGrid oceanShading() { return oceanShading.grid(); }
+        public IntGrid atmosphere() { return atmosphere.grid(); }
+        public FloatGrid metallic() { return metallic.grid(); }
+        public FloatGrid roughness() { return roughness.grid(); }
+        public FloatGrid ambientOcclusion() { return ao.grid(); }
+        public FloatGrid vegetation() { return vegetation.grid(); }
+        public FloatGrid snow() { return snow.grid(); }
+        public FloatGrid detail() { return detail.grid(); }
+        public FloatGrid oceanSpecular() { return oceanSpecular.grid(); }
+        public FloatGrid atmosphereMask() { return atmosphereMask.grid(); }
+        public FloatGrid waterDepth() { return waterDepth.grid(); }
+
+        /**
+         * The export map {@code name} ({@code albedo}, {@code roughness}, {@code pbrpack}, ...)
+         * as written to PNG: packed ARGB, or 8-bit gray for single channels. Null for a name
+         * that surface analysis does not produce.
+         */
+        public IntGrid map(String name) {
+            return switch (name) {
+                case "albedo" -> albedo();
+                case "roughness" -> RenderUtil.toGray8(roughness());
+                case "metallic" -> RenderUtil.toGray8(metallic());
+                case "pbrpack" -> RenderUtil.packToRgb(ambientOcclusion(), roughness(), metallic());
+                case "ao" -> RenderUtil.toGray8(ambientOcclusion());
+                case "biome" -> biomeMask();
+                case "material" -> materialMask();
+                case "vegetation" -> RenderUtil.toGray8(vegetation());
+                case "detail" -> RenderUtil.toGray8(detail());
+                case "snow" -> RenderUtil.toGray8(snow());
+                case "ocean" -> oceanShading();
+                case "atmosphere" -> atmosphere();
+                default -> null;
+            };
+        }
+
+        /** Whether the channels are held off-heap, where each accessor makes a heap copy. */
+        public boolean isOffHeap() {
+            return albedo.grid == null;
+        }
+
+        /**
+         * Stream the export map {@code name}, as {@link #map} makes it, to {@code writer} a
+         * row at a time. Off-heap this needs a few rows of heap instead of a copy of the map.
+         */
+        public void writeMap(String name, PngWriter writer) throws IOException {
+            IntChannel ints = switch (name) {
+                case "albedo" -> albedo;
+                case "biome" -> biomeMask;
+                case "material" -> materialMask;
+                case "ocean" -> oceanShading;
+                case "atmosphere" -> atmosphere;
+                default -> null;
+            };
+            FloatChannel gray = switch (name) {
+                case "roughness" -> roughness;
+                case "metallic" -> metallic;
+                case "ao" -> ao;
+                case "vegetation" -> vegetation;
+                case "detail" -> detail;
+                case "snow" -> snow;
+                default -> null;
+            };
+            if (ints == null && gray == null && !name.equals("pbrpack")) {
+                throw new IllegalArgumentException("Not a surface map: " + name);
+            }
+            int[] row = new int[width];
+            float[] r = new float[width], g = new float[width], b = new float[width];
+            for (int y = 0; y < height; y++) {
+                if (ints != null) {
+                    ints.readRow(y, row);
+                } else if (gray != null) {
+                    gray.readRow(y, r);
+                    RenderUtil.toGray8(r, 0, row, 0, width);
+                } else {
+                    ao.readRow(y, r);
+                    roughness.readRow(y, g);
+                    metallic.readRow(y, b);
+                    RenderUtil.packToRgb(r, g, b, row, width);
+                }
+                writer.writeRow(row, 0);
+            }
+        }
+
+        /** Free off-heap channels; the data cannot be read afterwards. */
+        @Override
+        public void close() {
+            albedo.release();
+            biomeMask.release();
+            materialMask.release();
+            oceanShading.release();
+            atmosphere.release();
+            metallic.release();
+            roughness.release();
+            ao.release();
+            vegetation.release();
+            snow.release();
+            detail.release();
+            oceanSpecular.release();
+            atmosphereMask.release();
+            waterDepth.release();
+        }
+
+        private void commitRow(int y) {
+            albedo.commitRow(y);
+            biomeMask.commitRow(y);
+            materialMask.commitRow(y);
+            oceanShading.commitRow(y);
+            atmosphere.commitRow(y);
+            metallic.commitRow(y);
+            roughness.commitRow(y);
+            ao.commitRow(y);
+            vegetation.commitRow(y);
+            snow.commitRow(y);
+            detail.commitRow(y);
+            oceanSpecular.commitRow(y);
+            atmosphereMask.commitRow(y);
+            waterDepth.commitRow(y);
+        }
+    }
+
+    /**
+     * One float output channel. {@link #values} is the heap grid's array, or a one-row
+     * buffer copied off-heap by {@link #commitRow}; {@link #offset} gives row y's start in it.
+     */
+    private static final class FloatChannel {
+        final float[] values;
+        private final FloatGrid grid;
+        private final OffHeapFloatGrid offHeap;
+
+        FloatChannel(int width, int height, boolean offHeap) {
+            this.grid = offHeap ? null : new FloatGrid(width, height);
+            this.offHeap = offHeap ? new OffHeapFloatGrid(width, height) : null;
+            this.values = offHeap ? new float[width] : grid.data();
+        }
+
+        int offset(int y) {
+            return grid != null ? grid.index(0, y) : 0;
+        }
+
+        void commitRow(int y) {
+            if (offHeap != null) {
+                offHeap.writeRow(y, values, 0);
+            }
+        }
+
+        FloatGrid grid() {
+            return grid != null ? grid : offHeap.toGrid();
+        }
+
+        void readRow(int y, float[] dst) {
+            if (grid != null) {
+                System.arraycopy(grid.data(), grid.index(0, y), dst, 0, grid.width());
+            } else {
+                offHeap.readRow(y, dst, 0);
+            }
+        }
+
+        void release() {
+            if (offHeap != null) {
+                offHeap.close();
+            }
+        }
+    }
+
+    /** The int counterpart of {@link FloatChannel}. */
+    private static final class IntChannel {
+        final int[] values;
+        private final IntGrid grid;
+        private final OffHeapIntGrid offHeap;
+
+        IntChannel(int width, int height, boolean offHeap) {
+            this.grid = offHeap ? null : new IntGrid(width, height);
+            this.offHeap = offHeap ? new OffHeapIntGrid(width, height) : null;
+            this.values = offHeap ? new int[width] : grid.data();
+        }
+
+        int offset(int y) {
+            return grid != null ? grid.index(0, y) : 0;
+        }
+
+        void commitRow(int y) {
+            if (offHeap != null) {
+                offHeap.writeRow(y, values, 0);
+            }
+        }
+
+        IntGrid grid() {
+            return grid != null ? grid : offHeap.toGrid();
+        }
+
+        void readRow(int y, int[] dst) {
+            if (grid != null) {
+                System.arraycopy(grid.data(), grid.index(0, y), dst, 0, grid.width());
+            } else {
+                offHeap.readRow(y, dst, 0);
+            }
+        }
+
+        void release() {
+            if (offHeap != null) {
+                offHeap.close();
+            }
+        }
     }
 }
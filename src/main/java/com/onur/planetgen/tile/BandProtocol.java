@@ -0,0 +1,115 @@
+package com.onur.planetgen.tile;
+
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format between {@link DistributedPlanetGenerator} and {@link BandWorker}: big-endian
+ * {@code DataOutput} messages, each a request byte followed by its arguments, answered by
+ * {@link #OK} and the result or {@link #ERROR} and a message. Grids travel as their rows,
+ * packed, in bulk.
+ *
+ * <pre>
+ * SETUP   MAGIC, VERSION, seed, W, H, preset        -> OK
+ * TERRAIN first, end                                -> OK, raw rows first..end
+ * ERODE   top, bottom, first, end, rawMin, rawMax,
+ *         raw rows top..bottom                      -> OK, eroded rows first..end
+ * RENDER  top, bottom, first, end, heightMin, heightMax, map names,
+ *         eroded rows top..bottom                   -> OK, map count, per map: name, rows first..end
+ * DONE                                              (closes the connection)
+ * </pre>
+ */
+final class BandProtocol {
+    static final int MAGIC = 0x504C4E54; // "PLNT"
+    static final int VERSION = 1;
+
+    static final byte SETUP = 1, TERRAIN = 2, ERODE = 3, RENDER = 4, DONE = 5;
+    static final byte OK = 0, ERROR = 1;
+
+    private static final int MAX_PRESET_BYTES = 16 << 20;
+
+    private BandProtocol() {}
+
+    /** Serialized preset; its fields are all primitives and strings. */
+    static void writePreset(DataOutputStream out, Preset preset) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream object = new ObjectOutputStream(bytes)) {
+            object.writeObject(preset);
+        }
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    /** Read a preset, refusing any serialized class but {@link Preset}. */
+    static Preset readPreset(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_PRESET_BYTES) {
+            throw new IOException("Bad preset length in SETUP: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        try (ObjectInputStream object = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            object.setObjectInputFilter(ObjectInputFilter.Config.createFilter(
+                    Preset.class.getName() + ";maxdepth=2;!*"));
+            return (Preset) object.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Bad preset in SETUP", e);
+        }
+    }
+
+    /** Rows {@code firstRow..firstRow + rows} of {@code grid}. */
+    static void writeRows(DataOutputStream out, FloatGrid grid, int firstRow, int rows) throws IOException {
+        int W = grid.width();
+        ByteBuffer row = ByteBuffer.allocate(W * 4);
+        for (int y = firstRow; y < firstRow + rows; y++) {
+            row.clear();
+            row.asFloatBuffer().put(grid.data(), grid.index(0, y), W);
+            out.write(row.array());
+        }
+    }
+
+    /** Fill rows {@code 0..rows} of {@code grid}. */
+    static void readRows(DataInputStream in, FloatGrid grid, int rows) throws IOException {
+        int W = grid.width();
+        byte[] row = new byte[W * 4];
+        for (int y = 0; y < rows; y++) {
+            in.readFully(row);
+            ByteBuffer.wrap(row).asFloatBuffer().get(grid.data(), grid.index(0, y), W);
+        }
+    }
+
+    /** All rows of {@code grid}, after its size. */
+    static void writeGrid(DataOutputStream out, IntGrid grid) throws IOException {
+        int W = grid.width();
+        out.writeInt(W);
+        out.writeInt(grid.height());
+        ByteBuffer row = ByteBuffer.allocate(W * 4);
+        for (int y = 0; y < grid.height(); y++) {
+            row.clear();
+            row.asIntBuffer().put(grid.data(), grid.index(0, y), W);
+            out.write(row.array());
+        }
+    }
+
+    static IntGrid readGrid(DataInputStream in) throws IOException {
+        int W = in.readInt(), H = in.readInt();
+        IntGrid grid = new IntGrid(W, H);
+        byte[] row = new byte[W * 4];
+        for (int y = 0; y < H; y++) {
+            in.readFully(row);
+            ByteBuffer.wrap(row).asIntBuffer().get(grid.data(), grid.index(0, y), W);
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,228 @@
+package com.onur.planetgen.tile;
+
+import com.onur.planetgen.atmosphere.MultiLayerCloudField;
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+import com.onur.planetgen.planet.ParallelHeightFieldGenerator;
+import com.onur.planetgen.planet.RowCoordinates;
+import com.onur.planetgen.planet.SphericalSampler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Worker side of {@link DistributedPlanetGenerator}: listens on a loopback port and runs the
+ * band jobs of {@link BandProtocol} for each coordinator connection, with the same code as
+ * {@link TiledPlanetGenerator}, so the results are bit-identical to a single process.
+ *
+ * Every connection is served on its own thread with its own terrain and cloud samplers, so
+ * a coordinator that connects twice gets two bands worked on at once. The protocol has no
+ * authentication, which is why the worker only listens on the loopback interface.
+ */
+public final class BandWorker implements AutoCloseable {
+    private ServerSocket server;
+    private ExecutorService connections;
+
+    /** Listen on {@code port} of the loopback interface (0 picks a free port); returns the bound address. */
+    public InetSocketAddress start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Worker already started");
+        }
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        connections = Executors.newCachedThreadPool();
+        ServerSocket listening = server;
+        connections.execute(() -> {
+            while (!listening.isClosed()) {
+                try {
+                    Socket socket = listening.accept();
+                    connections.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    if (!listening.isClosed()) {
+                        System.err.println("Worker accept failed: " + e);
+                    }
+                }
+            }
+        });
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (server != null) {
+            server.close();
+            connections.shutdownNow();
+            server = null;
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16))) {
+            Session session = null;
+            while (true) {
+                byte request = in.readByte();
+                if (request == BandProtocol.DONE) {
+                    return;
+                }
+                try {
+                    if (request == BandProtocol.SETUP) {
+                        session = Session.read(in);
+                        out.writeByte(BandProtocol.OK);
+                    } else if (session == null) {
+                        throw new IOException("Request " + request + " before SETUP");
+                    } else {
+                        session.run(request, in, out);
+                    }
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    // The request was read in full, so the connection can go on; a malformed one closes it
+                    out.writeByte(BandProtocol.ERROR);
+                    out.writeUTF(String.valueOf(e.getMessage()));
+                } catch (IncompatibleCoordinator e) {
+                    // Tell the coordinator why, then drop the connection with the rest of the message unread
+                    out.writeByte(BandProtocol.ERROR);
+                    out.writeUTF(e.getMessage());
+                    out.flush();
+                    return;
+                }
+                out.flush();
+            }
+        } catch (EOFException | SocketException e) {
+            // Coordinator went away
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Worker connection failed: " + e);
+        }
+    }
+
+    /** One coordinator's planet. */
+    private static final class Session {
+        private final long seed;
+        private final Preset preset;
+        private final SphericalSampler sp;
+        private final RowCoordinates coords;
+        private final ParallelHeightFieldGenerator.Terrain terrain;
+        private MultiLayerCloudField.Rows cloudRows;
+
+        private Session(long seed, Preset preset, SphericalSampler sp) {
+            this.seed = seed;
+            this.preset = preset;
+            this.sp = sp;
+            this.coords = RowCoordinates.computed(sp);
+            this.terrain = new ParallelHeightFieldGenerator.Terrain(seed, sp, preset);
+        }
+
+        static Session read(DataInputStream in) throws IOException {
+            int magic = in.readInt(), version = in.readInt();
+            if (magic != BandProtocol.MAGIC || version != BandProtocol.VERSION) {
+                // The rest of the message is in a format this worker cannot read
+                throw new IncompatibleCoordinator("Coordinator speaks protocol " + Integer.toHexString(magic)
+                        + " version " + version + ", worker " + Integer.toHexString(BandProtocol.MAGIC)
+                        + " version " + BandProtocol.VERSION);
+            }
+            long seed = in.readLong();
+            int W = in.readInt(), H = in.readInt();
+            Preset preset = BandProtocol.readPreset(in);
+            if (W <= 0 || H <= 0) {
+                throw new IllegalArgumentException("Invalid planet size " + W + "x" + H);
+            }
+            return new Session(seed, preset, new SphericalSampler(W, H));
+        }
+
+        void run(byte request, DataInputStream in, DataOutputStream out) throws IOException {
+            int W = sp.W;
+            switch (request) {
+                case BandProtocol.TERRAIN -> {
+                    int first = in.readInt(), end = in.readInt();
+                    checkRows(0, first, end, sp.H);
+                    FloatGrid rows = new FloatGrid(W, end - first);
+                    java.util.stream.IntStream.range(first, end).parallel().forEach(y ->
+                            terrain.row(y, coords, rows.data(), rows.index(0, y - first)));
+                    out.writeByte(BandProtocol.OK);
+                    BandProtocol.writeRows(out, rows, 0, rows.height());
+                }
+                case BandProtocol.ERODE -> {
+                    int top = in.readInt(), bottom = in.readInt(), first = in.readInt(), end = in.readInt();
+                    float rawMin = in.readFloat(), rawMax = in.readFloat();
+                    FloatGrid band = readBand(in, top, first, end, bottom);
+                    TiledPlanetGenerator.erodeBand(band, rawMin, rawMax, preset);
+                    out.writeByte(BandProtocol.OK);
+                    BandProtocol.writeRows(out, band, first - top, end - first);
+                }
+                case BandProtocol.RENDER -> {
+                    int top = in.readInt(), bottom = in.readInt(), first = in.readInt(), end = in.readInt();
+                    float heightMin = in.readFloat(), heightMax = in.readFloat();
+                    Set<String> maps = new LinkedHashSet<>();
+                    for (int i = in.readInt(); i > 0; i--) {
+                        maps.add(in.readUTF());
+                    }
+                    FloatGrid band = readBand(in, top, first, end, bottom);
+                    if (maps.contains("clouds") && cloudRows == null) {
+                        cloudRows = new MultiLayerCloudField.Rows(seed + 1, sp, preset);
+                    }
+                    Map<String, IntGrid> rendered = TiledPlanetGenerator.renderBand(seed, preset, band, top, first,
+                            end, sp.H, coords, heightMin, heightMax, TiledPlanetGenerator.needsSurface(maps),
+                            cloudRows, maps);
+                    out.writeByte(BandProtocol.OK);
+                    out.writeInt(rendered.size());
+                    for (Map.Entry<String, IntGrid> map : rendered.entrySet()) {
+                        out.writeUTF(map.getKey());
+                        BandProtocol.writeGrid(out, map.getValue());
+                    }
+                }
+                default -> throw new IOException("Unknown request " + request);
+            }
+        }
+
+        /**
+         * Read the rows {@code top..bottom} that follow an ERODE or RENDER request. A bad
+         * range is rejected once its rows are consumed, so the connection can go on; only a
+         * row count no band could have leaves the stream unreadable.
+         */
+        private FloatGrid readBand(DataInputStream in, int top, int first, int end, int bottom) throws IOException {
+            int rows = bottom - top;
+            if (rows < 0 || rows > sp.H) {
+                throw new IOException("Band of " + rows + " rows for a planet of " + sp.H);
+            }
+            if (!validRows(top, first, end, bottom)) {
+                in.skipNBytes((long) rows * sp.W * Float.BYTES);
+                checkRows(top, first, end, bottom);
+            }
+            FloatGrid band = new FloatGrid(sp.W, rows);
+            BandProtocol.readRows(in, band, rows);
+            return band;
+        }
+
+        private boolean validRows(int top, int first, int end, int bottom) {
+            return 0 <= top && top <= first && first < end && end <= bottom && bottom <= sp.H;
+        }
+
+        private void checkRows(int top, int first, int end, int bottom) {
+            if (!validRows(top, first, end, bottom)) {
+                throw new IllegalArgumentException("Invalid rows " + top + ".." + first + ".." + end + ".." + bottom
+                        + " of " + sp.H);
+            }
+        }
+    }
+
+    /** A SETUP from a coordinator of another protocol or version; the connection cannot go on. */
+    private static final class IncompatibleCoordinator extends IOException {
+        IncompatibleCoordinator(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.onur.planetgen.tile;
+
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+import com.onur.planetgen.field.MappedFloatGrid;
+import com.onur.planetgen.planet.SphericalSampler;
+import com.onur.planetgen.util.PngWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link TiledPlanetGenerator} spread over {@link BandWorker} processes. The coordinator
+ * keeps the two memory-mapped scratch files and the PNG writers; the workers run the three
+ * passes band by band:
+ * <ol>
+ *   <li>terrain rows of a band, sent back raw;</li>
+ *   <li>the band plus {@link TiledPlanetGenerator#erosionHalo} rows from the raw scratch
+ *       file, normalized over the planet's range and eroded, sent back without the halo;</li>
+ *   <li>the band plus {@link TiledPlanetGenerator#SURFACE_HALO} rows from the eroded scratch
+ *       file, sent back as the requested maps.</li>
+ * </ol>
+ *
+ * Halo rows are exchanged through the coordinator once per pass, not once per erosion
+ * iteration: each band is eroded with the full halo, as in the tiled pipeline. Workers run
+ * the tiled pipeline's own band code, so the output files are bit-identical to
+ * {@code --tile-rows} with the same band size on one machine, given the same JDK.
+ */
+public final class DistributedPlanetGenerator {
+    /** Band rows when none are given. */
+    public static final int DEFAULT_BAND_ROWS = 256;
+
+    /** How long a worker may take to accept a connection. */
+    public static final int CONNECT_TIMEOUT_MS = 10_000;
+
+    /**
+     * How long a worker may stay silent before it is taken as stalled: long enough for one
+     * band's erosion at the largest sizes.
+     */
+    public static final int READ_TIMEOUT_MS = 15 * 60_000;
+
+    private DistributedPlanetGenerator() {}
+
+    /**
+     * Generate the maps named in {@code exports} into {@code outDir}, as
+     * {@link TiledPlanetGenerator#generate} does, with the work done by {@code workers}.
+     * Each address is one connection working on one band at a time; list a worker more
+     * than once to give it several bands at once.
+     */
+    public static void generate(long seed, SphericalSampler sp, Preset preset, int bandRows,
+                                List<InetSocketAddress> workers, Path scratchDir, Set<String> exports,
+                                Path outDir) throws IOException {
+        if (bandRows <= 0) {
+            throw new IllegalArgumentException("Band rows must be positive: " + bandRows);
+        }
+        if (workers.isEmpty()) {
+            throw new IllegalArgumentException("No workers given");
+        }
+        int W = sp.W, H = sp.H;
+        int bands = (H + bandRows - 1) / bandRows;
+        System.out.println("Distributed generation: " + bands + " bands of " + bandRows + " rows over "
+                + workers.size() + " worker connections, scratch in " + scratchDir.toAbsolutePath());
+
+        List<Connection> connections = new ArrayList<>();
+        try (MappedFloatGrid eroded = MappedFloatGrid.create(scratchDir, W, H)) {
+            for (InetSocketAddress address : workers) {
+                Connection connection = new Connection(address);
+                connections.add(connection);
+                connection.setup(seed, sp, preset);
+            }
+
+            FieldStats heightStats;
+            try (MappedFloatGrid raw = MappedFloatGrid.create(scratchDir, W, H)) {
+                System.out.println("Generating terrain (distributed)...");
+                FieldStats rawStats = forEachBand(bands, connections, (connection, b, acc) -> {
+                    int first = b * bandRows, end = Math.min(H, first + bandRows);
+                    FloatGrid rows = connection.terrain(W, first, end);
+                    for (int y = 0; y < rows.height(); y++) {
+                        acc.add(rows.data(), rows.index(0, y), W);
+                        raw.writeRow(first + y, rows.data(), rows.index(0, y));
+                    }
+                });
+
+                int halo = TiledPlanetGenerator.erosionHalo(preset);
+                System.out.println("Eroding " + bands + " bands (distributed, halo " + halo + " rows)...");
+                heightStats = forEachBand(bands, connections, (connection, b, acc) -> {
+                    int first = b * bandRows, end = Math.min(H, first + bandRows);
+                    int top = Math.max(0, first - halo), bottom = Math.min(H, end + halo);
+                    FloatGrid band = new FloatGrid(W, bottom - top);
+                    raw.readRows(top, band);
+                    FloatGrid rows = connection.erode(band, top, first, end, rawStats.min(), rawStats.max());
+                    for (int y = 0; y < rows.height(); y++) {
+                        acc.add(rows.data(), rows.index(0, y), W);
+                        eroded.writeRow(first + y, rows.data(), rows.index(0, y));
+                    }
+                });
+            }
+
+            Map<String, PngWriter> writers = new LinkedHashMap<>();
+            try {
+                TiledPlanetGenerator.openWriters(W, H, exports, outDir, writers);
+                System.out.println("Rendering " + bands + " bands (distributed)...");
+                // A group of bands per round, one per connection, written in order once all are back
+                int inFlight = connections.size();
+                for (int group = 0; group < bands; group += inFlight) {
+                    int groupStart = group, groupEnd = Math.min(bands, group + inFlight);
+                    List<Map<String, IntGrid>> rendered = new ArrayList<>();
+                    for (int b = group; b < groupEnd; b++) {
+                        rendered.add(null);
+                    }
+                    forEachBand(groupEnd - groupStart, connections, (connection, i, acc) -> {
+                        int b = groupStart + i;
+                        int first = b * bandRows, end = Math.min(H, first + bandRows);
+                        int top = Math.max(0, first - TiledPlanetGenerator.SURFACE_HALO);
+                        int bottom = Math.min(H, end + TiledPlanetGenerator.SURFACE_HALO);
+                        FloatGrid band = new FloatGrid(W, bottom - top);
+                        eroded.readRows(top, band);
+                        rendered.set(i, connection.render(band, top, first, end,
+                                heightStats.min(), heightStats.max(), writers.keySet()));
+                    });
+                    for (Map<String, IntGrid> maps : rendered) {
+                        TiledPlanetGenerator.writeBand(writers, maps);
+                    }
+                }
+            } finally {
+                TiledPlanetGenerator.closeWriters(writers);
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    /** Parse {@code host:port,host:port,...}, as for the CLI's {@code --distribute}. */
+    public static List<InetSocketAddress> parseWorkers(String spec) {
+        List<InetSocketAddress> workers = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String entry = part.trim();
+            int colon = entry.lastIndexOf(':');
+            try {
+                if (colon <= 0) {
+                    throw new NumberFormatException();
+                }
+                workers.add(new InetSocketAddress(entry.substring(0, colon), Integer.parseInt(entry.substring(colon + 1))));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Workers must be host:port,host:port,...: " + spec);
+            }
+        }
+        return workers;
+    }
+
+    @FunctionalInterface
+    private interface BandJob {
+        void run(Connection connection, int band, FieldStats.Accumulator acc) throws IOException;
+    }
+
+    /**
+     * Run {@code job} for bands {@code 0..bands}, each connection taking the next band as it
+     * finishes one; returns the combined statistics the jobs collected. The first failure
+     * stops the handing out of bands and is rethrown once the bands in flight are done, as
+     * they still use the scratch files and connections the caller closes.
+     */
+    private static FieldStats forEachBand(int bands, List<Connection> connections, BandJob job) throws IOException {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(connections.size());
+        CompletionService<FieldStats.Accumulator> results = new ExecutorCompletionService<>(threads);
+        try {
+            for (Connection connection : connections) {
+                results.submit(() -> {
+                    FieldStats.Accumulator acc = new FieldStats.Accumulator();
+                    for (int b = next.getAndIncrement(); b < bands; b = next.getAndIncrement()) {
+                        job.run(connection, b, acc);
+                    }
+                    return acc;
+                });
+            }
+            FieldStats.Accumulator total = new FieldStats.Accumulator();
+            for (int i = 0; i < connections.size(); i++) {
+                total.combine(results.take().get());
+            }
+            return total.result();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for workers", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } finally {
+            next.set(bands);
+            threads.shutdownNow();
+            awaitTermination(threads);
+        }
+    }
+
+    /** Wait for {@code threads} to finish; each is bounded by {@link #READ_TIMEOUT_MS} per reply. */
+    private static void awaitTermination(ExecutorService threads) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (threads.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** One connection to a worker, used by one thread at a time. */
+    private static final class Connection implements AutoCloseable {
+        private final InetSocketAddress address;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        Connection(InetSocketAddress address) throws IOException {
+            this.address = address;
+            this.socket = new Socket();
+            socket.connect(address, CONNECT_TIMEOUT_MS);
+            socket.setSoTimeout(READ_TIMEOUT_MS);
+            socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        }
+
+        void setup(long seed, SphericalSampler sp, Preset preset) throws IOException {
+            out.writeByte(BandProtocol.SETUP);
+            out.writeInt(BandProtocol.MAGIC);
+            out.writeInt(BandProtocol.VERSION);
+            out.writeLong(seed);
+            out.writeInt(sp.W);
+            out.writeInt(sp.H);
+            BandProtocol.writePreset(out, preset);
+            reply();
+        }
+
+        FloatGrid terrain(int W, int first, int end) throws IOException {
+            out.writeByte(BandProtocol.TERRAIN);
+            out.writeInt(first);
+            out.writeInt(end);
+            reply();
+            FloatGrid rows = new FloatGrid(W, end - first);
+            BandProtocol.readRows(in, rows, rows.height());
+            return rows;
+        }
+
+        FloatGrid erode(FloatGrid band, int top, int first, int end, float rawMin, float rawMax) throws IOException {
+            out.writeByte(BandProtocol.ERODE);
+            writeRange(top, top + band.height(), first, end, rawMin, rawMax);
+            BandProtocol.writeRows(out, band, 0, band.height());
+            reply();
+            FloatGrid rows = new FloatGrid(band.width(), end - first);
+            BandProtocol.readRows(in, rows, rows.height());
+            return rows;
+        }
+
+        Map<String, IntGrid> render(FloatGrid band, int top, int first, int end, float heightMin, float heightMax,
+                                    Set<String> maps) throws IOException {
+            out.writeByte(BandProtocol.RENDER);
+            writeRange(top, top + band.height(), first, end, heightMin, heightMax);
+            out.writeInt(maps.size());
+            for (String map : maps) {
+                out.writeUTF(map);
+            }
+            BandProtocol.writeRows(out, band, 0, band.height());
+            reply();
+            Map<String, IntGrid> rendered = new LinkedHashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                String map = in.readUTF();
+                rendered.put(map, BandProtocol.readGrid(in));
+            }
+            return rendered;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.writeByte(BandProtocol.DONE);
+                out.flush();
+            } catch (IOException e) {
+                // Already gone; closing is all that is left
+            } finally {
+                socket.close();
+            }
+        }
+
+        private void writeRange(int top, int bottom, int first, int end, float min, float max) throws IOException {
+            out.writeInt(top);
+            out.writeInt(bottom);
+            out.writeInt(first);
+            out.writeInt(end);
+            out.writeFloat(min);
+            out.writeFloat(max);
+        }
+
+        /** Send the request and wait for its status. */
+        private void reply() throws IOException {
+            out.flush();
+            byte status;
+            try {
+                status = in.readByte();
+            } catch (SocketTimeoutException e) {
+                throw new IOException("Worker " + address + " sent no reply in " + READ_TIMEOUT_MS / 1000 + " s", e);
+            }
+            if (status != BandProtocol.OK) {
+                throw new IOException("Worker " + address + ": " + in.readUTF());
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.onur.planetgen.tile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Two-level cache of encoded PNG tiles: a least-recently-used map in memory, bounded by
+ * total bytes, over a folder on disk that keeps every tile ever stored. Keys are relative
+ * paths such as {@code albedo/3/5/2}; a tile lives at {@code <folder>/<key>.png}.
+ *
+ * Tiles are written to a temporary file and moved into place, so a reader never sees a
+ * partial PNG and an interrupted server leaves no broken tiles behind.
+ */
+public final class TileCache {
+    /** Writes one PNG to the given file. */
+    @FunctionalInterface
+    public interface PngSource {
+        void write(Path file) throws IOException;
+    }
+
+    private final Path folder;
+    private final long maxBytes;
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private long memoryHits, diskHits, misses;
+
+    /** Keep up to {@code maxBytes} of PNGs in memory and all of them under {@code folder}. */
+    public TileCache(Path folder, long maxBytes) throws IOException {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + maxBytes);
+        }
+        this.folder = Files.createDirectories(folder);
+        this.maxBytes = maxBytes;
+    }
+
+    /** The PNG for {@code key} from memory or disk, or null if it was never stored. */
+    public byte[] get(String key) throws IOException {
+        synchronized (this) {
+            byte[] png = memory.get(key);
+            if (png != null) {
+                memoryHits++;
+                return png;
+            }
+        }
+        byte[] png;
+        try {
+            png = Files.readAllBytes(file(key));
+        } catch (NoSuchFileException e) {
+            synchronized (this) {
+                misses++;
+            }
+            return null;
+        }
+        synchronized (this) {
+            diskHits++;
+            remember(key, png);
+        }
+        return png;
+    }
+
+    /** Write the PNG for {@code key} to disk with {@code source}, keep it in memory and return it. */
+    public byte[] put(String key, PngSource source) throws IOException {
+        Path file = file(key);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), "tile", ".tmp");
+        try {
+            source.write(temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        byte[] png = Files.readAllBytes(file);
+        synchronized (this) {
+            remember(key, png);
+        }
+        return png;
+    }
+
+    /** Where {@code key} is stored on disk. */
+    public Path file(String key) {
+        return folder.resolve(key + ".png");
+    }
+
+    public synchronized long memoryBytes() {
+        return bytes;
+    }
+
+    public synchronized int memoryTiles() {
+        return memory.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("TileCache[%d tiles, %d KiB in memory; hits %d memory, %d disk; misses %d]",
+                memory.size(), bytes >> 10, memoryHits, diskHits, misses);
+    }
+
+    private void remember(String key, byte[] png) {
+        byte[] old = memory.put(key, png);
+        bytes += png.length - (old != null ? old.length : 0);
+        Iterator<Map.Entry<String, byte[]>> eldest = memory.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.onur.planetgen.tile;
+
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.planet.RegionSampler;
+import com.onur.planetgen.region.RegionGenerator;
+import com.onur.planetgen.util.ImageUtil;
+import com.onur.planetgen.util.PngWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP server for slippy-map viewers: {@code GET /tiles/<map>/<z>/<x>/<y>.png} returns
+ * a tile of the {@link #MAPS} map, generated on first request and then served from a
+ * {@link TileCache}.
+ *
+ * Tiles follow an equirectangular quadtree. Zoom {@code z} has {@code 2^(z+1)} columns and
+ * {@code 2^z} rows of square tiles, column 0 starting at 180 degrees west and row 0 at the
+ * north pole, so zoom 0 is the planet as two tiles. Each tile is a {@link RegionGenerator}
+ * window: it is padded with the erosion margin plus {@code halo} pixels of context for flow,
+ * rivers and normals, so tiles join in height and shading up to the approximate thermal
+ * part of the erosion margin. Heights are
+ * normalized over the planet's range at each zoom's density, computed once per zoom.
+ * The three maps of a tile are made together, so a viewer switching layers pays once.
+ */
+public final class TileServer implements AutoCloseable {
+    /** Maps a tile can be requested as. */
+    public static final List<String> MAPS = List.of("height", "albedo", "normal");
+    /** Deepest zoom; its planet grid still fits int pixel indices at the largest tile size. */
+    public static final int MAX_ZOOM = 18;
+    /** Largest tile edge in pixels. */
+    public static final int MAX_TILE_SIZE = 1024;
+
+    private final long seed;
+    private final Preset preset;
+    private final int tileSize, halo;
+    private final TileCache cache;
+    private final Map<Integer, FieldStats> ranges = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generated = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public TileServer(long seed, Preset preset, int tileSize, int halo, TileCache cache) {
+        if (tileSize < 1 || tileSize > MAX_TILE_SIZE) {
+            throw new IllegalArgumentException("Tile size must be 1.." + MAX_TILE_SIZE + ": " + tileSize);
+        }
+        if (halo < 1) {
+            throw new IllegalArgumentException("Halo must be at least one pixel: " + halo);
+        }
+        this.seed = seed;
+        this.preset = preset;
+        this.tileSize = tileSize;
+        this.halo = halo;
+        this.cache = cache;
+    }
+
+    /** The lat/lon window of tile {@code x, y} at zoom {@code z}, as {@code tileSize} square pixels. */
+    public static RegionSampler tileSampler(int z, int x, int y, int tileSize) {
+        checkTile(z, x, y);
+        double span = 180.0 / (1 << z);
+        double west = -180.0 + x * span, north = 90.0 - y * span;
+        return new RegionSampler(north - span, west, north, west + span, tileSize, tileSize);
+    }
+
+    /** The PNG of one tile, from the cache or generated now. */
+    public byte[] tile(String map, int z, int x, int y) throws IOException {
+        if (!MAPS.contains(map)) {
+            throw new IllegalArgumentException("Unknown map '" + map + "'; expected one of " + MAPS);
+        }
+        checkTile(z, x, y);
+        String key = map + "/" + z + "/" + x + "/" + y;
+        byte[] png = cache.get(key);
+        if (png != null) {
+            return png;
+        }
+
+        // One generation per tile at a time; other requests for it wait for that one
+        String tile = z + "/" + x + "/" + y;
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(tile, mine);
+        if (running == null) {
+            try {
+                if (cache.get(key) == null) {
+                    render(z, x, y);
+                }
+                mine.complete(null);
+            } catch (IOException | RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(tile);
+            }
+        } else {
+            try {
+                running.join();
+            } catch (CompletionException e) {
+                throw new IOException("Tile " + tile + " failed", e.getCause());
+            }
+        }
+        png = cache.get(key);
+        if (png == null) {
+            throw new IOException("Tile " + key + " is missing from " + cache.file(key));
+        }
+        return png;
+    }
+
+    /** Tiles generated since the server was made, each counting all of its maps once. */
+    public long tilesGenerated() {
+        return generated.get();
+    }
+
+    /**
+     * Listen on {@code port} of the loopback interface (0 picks a free port) and return the
+     * bound address. Requests run on one thread per core.
+     */
+    public InetSocketAddress start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Tile server already started");
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/tiles/", this::handle);
+        executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        server.setExecutor(executor);
+        server.start();
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    private void render(int z, int x, int y) throws IOException {
+        RegionSampler sampler = tileSampler(z, x, y, tileSize);
+        FieldStats range = ranges.computeIfAbsent(z, k -> RegionGenerator.planetRange(seed, sampler, preset));
+        RegionGenerator.Result result = RegionGenerator.generate(seed, sampler, preset, halo, range);
+        try {
+            String tile = "/" + z + "/" + x + "/" + y;
+            cache.put("height" + tile, file -> saveHeight(result.height(), file));
+            cache.put("albedo" + tile, file -> ImageUtil.saveARGB(result.surface().albedo(), file));
+            cache.put("normal" + tile, file -> ImageUtil.saveARGB(result.normals(), file));
+            generated.incrementAndGet();
+        } finally {
+            result.surface().close();
+        }
+    }
+
+    /**
+     * 16-bit heights on one fixed scale for every tile: normalized heights span
+     * {@code -1 - seaLevel .. 1 - seaLevel}, mapped to {@code 0 .. 65535}.
+     */
+    private void saveHeight(FloatGrid height, Path file) throws IOException {
+        int w = height.width(), h = height.height();
+        double offset = 1.0 + preset.seaLevel;
+        int[] row = new int[w];
+        try (PngWriter png = new PngWriter(file, w, h, PngWriter.Format.GRAY16)) {
+            for (int y = 0; y < h; y++) {
+                int index = height.index(0, y);
+                for (int x = 0; x < w; x++) {
+                    double v = (height.data()[index + x] + offset) * 0.5;
+                    row[x] = (int) Math.round(Math.max(0.0, Math.min(1.0, v)) * 65535.0);
+                }
+                png.writeRow(row, 0);
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                sendText(exchange, 405, "Only GET and HEAD are supported");
+                return;
+            }
+            String[] parts = exchange.getRequestURI().getPath().substring("/tiles/".length()).split("/");
+            if (parts.length != 4 || !parts[3].endsWith(".png")) {
+                sendText(exchange, 404, "Tiles are /tiles/<map>/<z>/<x>/<y>.png");
+                return;
+            }
+            byte[] png;
+            try {
+                png = tile(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                        Integer.parseInt(parts[3].substring(0, parts[3].length() - 4)));
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 404, e.getMessage());
+                return;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Tile " + exchange.getRequestURI() + " failed: " + e);
+                sendText(exchange, 500, "Tile generation failed");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.getResponseHeaders().set("Cache-Control", "max-age=86400");
+            boolean head = method.equals("HEAD");
+            exchange.sendResponseHeaders(200, head ? -1 : png.length);
+            if (!head) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(png);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void checkTile(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM) {
+            throw new IllegalArgumentException("Zoom must be 0.." + MAX_ZOOM + ": " + z);
+        }
+        if (x < 0 || x >= 2 << z || y < 0 || y >= 1 << z) {
+            throw new IllegalArgumentException("Tile " + x + "," + y + " is outside zoom " + z);
+        }
+    }
+}
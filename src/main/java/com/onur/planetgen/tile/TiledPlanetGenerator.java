@@ -0,0 +1,328 @@
+package com.onur.planetgen.tile;
+
+import com.onur.planetgen.atmosphere.MultiLayerCloudField;
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.erosion.HydraulicErosion;
+import com.onur.planetgen.erosion.ThermalErosion;
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+import com.onur.planetgen.field.MappedFloatGrid;
+import com.onur.planetgen.planet.ParallelHeightFieldGenerator;
+import com.onur.planetgen.planet.RowCoordinates;
+import com.onur.planetgen.planet.SphericalSampler;
+import com.onur.planetgen.render.CloudRenderer;
+import com.onur.planetgen.render.EmissiveRenderer;
+import com.onur.planetgen.render.NormalMapRenderer;
+import com.onur.planetgen.render.SurfaceAnalyzer;
+import com.onur.planetgen.util.PngWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Out-of-core generation for planets whose maps do not fit in memory.
+ *
+ * The planet is cut into full-width latitude bands of {@code bandRows} rows; full width
+ * keeps the longitude wrap inside every band, so there are no vertical seams. Three passes
+ * keep at most a few bands per core in memory:
+ * <ol>
+ *   <li>raw terrain, row by row, into a memory-mapped scratch file;</li>
+ *   <li>per band plus a halo of {@link #erosionHalo} rows: normalize, thermal and hydraulic
+ *       erosion, and write the band's own rows to a second scratch file;</li>
+ *   <li>per band plus {@link #SURFACE_HALO} rows: surface analysis and renderers, with the
+ *       band's own rows streamed to the output PNGs.</li>
+ * </ol>
+ *
+ * Hydraulic erosion reads a snapshot of the heights and moves material at most two rows
+ * per iteration, so its part of the halo makes it match the in-memory run exactly. Thermal
+ * erosion updates heights in place during its sweep, so within one iteration a change can
+ * run down a whole column; its halo of one row per iteration is only an approximation. With
+ * the presets' talus of 0.55 it rarely fires across a band edge and height, normals, clouds
+ * and emissive usually come out identical, but a low talus makes band pixels differ
+ * slightly. Flow accumulation, rivers, lakes and occlusion are solved per band and only
+ * approximate the whole-planet result.
+ */
+public final class TiledPlanetGenerator {
+    /** Extra rows analysed above and below each band for flow, lakes and occlusion. */
+    public static final int SURFACE_HALO = 32;
+
+    private static final List<String> SURFACE_MAPS = List.of("albedo", "roughness", "metallic", "pbrpack",
+            "ao", "biome", "material", "vegetation", "detail", "snow", "ocean", "atmosphere");
+
+    private TiledPlanetGenerator() {}
+
+    /**
+     * Generate the maps named in {@code exports} (as for the CLI's {@code --export}) into
+     * {@code outDir}, with the same file names as the in-memory pipeline.
+     *
+     * @param bandRows rows per band
+     * @param scratchDir where the two scratch files (4 bytes per pixel each) are kept
+     */
+    public static void generate(long seed, SphericalSampler sp, Preset preset, int bandRows,
+                                Path scratchDir, Set<String> exports, Path outDir) throws IOException {
+        if (bandRows <= 0) {
+            throw new IllegalArgumentException("Band rows must be positive: " + bandRows);
+        }
+        int W = sp.W, H = sp.H;
+        int bands = (H + bandRows - 1) / bandRows;
+        System.out.println("Tiled generation: " + bands + " bands of " + bandRows + " rows, scratch in "
+                + scratchDir.toAbsolutePath());
+        RowCoordinates coords = RowCoordinates.computed(sp);
+
+        try (MappedFloatGrid eroded = MappedFloatGrid.create(scratchDir, W, H)) {
+            FieldStats heightStats;
+            try (MappedFloatGrid raw = MappedFloatGrid.create(scratchDir, W, H)) {
+                FieldStats rawStats = generateTerrain(seed, sp, preset, coords, raw);
+                heightStats = erode(preset, bandRows, rawStats, raw, eroded);
+            }
+            export(seed, sp, preset, bandRows, coords, eroded, heightStats, exports, outDir);
+        }
+    }
+
+    /**
+     * Halo rows for band-wise erosion: two per hydraulic iteration, which is exact, and one
+     * per thermal iteration, which only approximates the in-place thermal sweep.
+     */
+    public static int erosionHalo(Preset preset) {
+        return Math.max(0, preset.thermalIterations) + 2 * Math.max(0, preset.hydraulicIterations);
+    }
+
+    /** Pass 1: raw heights of every row; returns their statistics. */
+    private static FieldStats generateTerrain(long seed, SphericalSampler sp, Preset preset,
+                                              RowCoordinates coords, MappedFloatGrid raw) {
+        int W = sp.W, H = sp.H;
+        ParallelHeightFieldGenerator.Terrain terrain = new ParallelHeightFieldGenerator.Terrain(seed, sp, preset);
+        System.out.println("Terrain octaves: " + terrain.octaveCounts());
+        System.out.println("Generating terrain (tiled)...");
+        ThreadLocal<float[]> rows = ThreadLocal.withInitial(() -> new float[W]);
+        return java.util.stream.IntStream.range(0, H).parallel()
+                .collect(FieldStats.Accumulator::new, (acc, y) -> {
+                    float[] row = rows.get();
+                    terrain.row(y, coords, row, 0);
+                    acc.add(row, 0, W);
+                    raw.writeRow(y, row, 0);
+                }, FieldStats.Accumulator::combine)
+                .result();
+    }
+
+    /** Pass 2: normalize and erode band by band; returns the eroded statistics. */
+    private static FieldStats erode(Preset preset, int bandRows, FieldStats rawStats, MappedFloatGrid raw,
+                                    MappedFloatGrid eroded) {
+        int W = raw.width(), H = raw.height();
+        int bands = (H + bandRows - 1) / bandRows;
+        int halo = erosionHalo(preset);
+        System.out.println("Eroding " + bands + " bands (halo " + halo + " rows, thermal "
+                + preset.thermalIterations + ", hydraulic " + preset.hydraulicIterations + " iterations)...");
+        return java.util.stream.IntStream.range(0, bands).parallel()
+                .collect(FieldStats.Accumulator::new, (acc, b) -> {
+                    int first = b * bandRows, end = Math.min(H, first + bandRows);
+                    int top = Math.max(0, first - halo), bottom = Math.min(H, end + halo);
+                    FloatGrid band = new FloatGrid(W, bottom - top);
+                    raw.readRows(top, band);
+                    erodeBand(band, rawStats.min(), rawStats.max(), preset);
+
+                    for (int y = first; y < end; y++) {
+                        int row = band.index(0, y - top);
+                        acc.add(band.data(), row, W);
+                        eroded.writeRow(y, band.data(), row);
+                    }
+                }, FieldStats.Accumulator::combine)
+                .result();
+    }
+
+    /** Normalize raw heights over {@code rawMin..rawMax} and erode, in place. */
+    static void erodeBand(FloatGrid band, float rawMin, float rawMax, Preset preset) {
+        for (int y = 0; y < band.height(); y++) {
+            ParallelHeightFieldGenerator.normalizeRow(band.data(), band.index(0, y), band.width(),
+                    rawMin, rawMax, preset.seaLevel);
+        }
+        ThermalErosion.apply(band, preset.thermalIterations, preset.thermalTalus, preset.thermalK);
+        HydraulicErosion.apply(band, preset.hydraulicIterations, preset.rainfall, preset.evaporation);
+    }
+
+    /** Pass 3: render each band and stream its rows to the requested images. */
+    private static void export(long seed, SphericalSampler sp, Preset preset, int bandRows, RowCoordinates coords,
+                               MappedFloatGrid eroded, FieldStats heightStats, Set<String> exports, Path outDir)
+            throws IOException {
+        int W = sp.W, H = sp.H;
+        int bands = (H + bandRows - 1) / bandRows;
+        boolean surfaceNeeded = needsSurface(exports);
+        MultiLayerCloudField.Rows cloudRows = exports.contains("clouds")
+                ? new MultiLayerCloudField.Rows(seed + 1, sp, preset) : null;
+
+        Map<String, PngWriter> writers = new LinkedHashMap<>();
+        try {
+            openWriters(W, H, exports, outDir, writers);
+
+            // Bands in flight at once: one per core, written in order once all are done
+            int inFlight = Math.max(1, Runtime.getRuntime().availableProcessors());
+            System.out.println("Rendering " + bands + " bands...");
+            for (int group = 0; group < bands; group += inFlight) {
+                int groupEnd = Math.min(bands, group + inFlight);
+                List<Map<String, IntGrid>> rendered = new ArrayList<>();
+                for (int b = group; b < groupEnd; b++) {
+                    rendered.add(null);
+                }
+                int groupStart = group;
+                java.util.stream.IntStream.range(group, groupEnd).parallel().forEach(b -> {
+                    int first = b * bandRows, end = Math.min(H, first + bandRows);
+                    int top = Math.max(0, first - SURFACE_HALO), bottom = Math.min(H, end + SURFACE_HALO);
+                    FloatGrid band = new FloatGrid(W, bottom - top);
+                    eroded.readRows(top, band);
+                    rendered.set(b - groupStart, renderBand(seed, preset, band, top, first, end, H, coords,
+                            heightStats.min(), heightStats.max(), surfaceNeeded, cloudRows, writers.keySet()));
+                });
+                for (Map<String, IntGrid> maps : rendered) {
+                    writeBand(writers, maps);
+                }
+            }
+        } finally {
+            closeWriters(writers);
+        }
+    }
+
+    /** Whether any of {@code exports} needs surface analysis. */
+    public static boolean needsSurface(Set<String> exports) {
+        return SURFACE_MAPS.stream().anyMatch(exports::contains);
+    }
+
+    /** Open a streaming writer into {@code writers} for each of {@code exports}, in file order. */
+    static void openWriters(int W, int H, Set<String> exports, Path outDir, Map<String, PngWriter> writers)
+            throws IOException {
+        for (Map.Entry<String, String> map : fileNames(W, H).entrySet()) {
+            if (exports.contains(map.getKey())) {
+                writers.put(map.getKey(), new PngWriter(outDir.resolve(map.getValue()), W, H, format(map.getKey())));
+            }
+        }
+    }
+
+    /** Append one band's rows to each writer. */
+    static void writeBand(Map<String, PngWriter> writers, Map<String, IntGrid> maps) throws IOException {
+        for (Map.Entry<String, PngWriter> writer : writers.entrySet()) {
+            IntGrid grid = maps.get(writer.getKey());
+            for (int y = 0; y < grid.height(); y++) {
+                writer.getValue().writeRow(grid.data(), grid.index(0, y));
+            }
+        }
+    }
+
+    /** Close every writer, reporting the first failure. */
+    static void closeWriters(Map<String, PngWriter> writers) throws IOException {
+        IOException failure = null;
+        for (PngWriter writer : writers.values()) {
+            try {
+                writer.close();
+            } catch (IOException | IllegalStateException e) {
+                if (failure == null) {
+                    failure = e instanceof IOException io ? io : new IOException(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * The requested maps for rows {@code first..end} of a planet {@code H} rows high.
+     * {@code band} holds the eroded rows from {@code top}, including up to
+     * {@link #SURFACE_HALO} rows of context on each side.
+     */
+    static Map<String, IntGrid> renderBand(long seed, Preset preset, FloatGrid band, int top, int first, int end,
+                                           int H, RowCoordinates coords, float heightMin, float heightMax,
+                                           boolean surfaceNeeded, MultiLayerCloudField.Rows cloudRows,
+                                           Set<String> maps) {
+        int W = band.width();
+        int skip = first - top, rows = end - first;
+
+        Map<String, IntGrid> out = new LinkedHashMap<>();
+        if (surfaceNeeded) {
+            try (SurfaceAnalyzer.SurfaceData surface = SurfaceAnalyzer.analyzeBand(band, top, H, preset, seed)) {
+                for (String map : maps) {
+                    IntGrid grid = surface.map(map);
+                    if (grid != null) {
+                        out.put(map, crop(grid, skip, rows));
+                    }
+                }
+            }
+        }
+        if (maps.contains("normal")) {
+            out.put("normal", crop(NormalMapRenderer.renderBand(band, top, H), skip, rows));
+        }
+        if (maps.contains("height")) {
+            // As ImageUtil.saveGray16, over the whole planet's range
+            double inv = 1.0 / Math.max(1e-9, (heightMax - heightMin));
+            IntGrid gray = new IntGrid(W, rows);
+            for (int y = 0; y < rows; y++) {
+                int src = band.index(0, skip + y), dst = gray.index(0, y);
+                for (int x = 0; x < W; x++) {
+                    int v16 = (int) Math.round((band.data()[src + x] - heightMin) * inv * 65535.0);
+                    gray.data()[dst + x] = v16 & 0xFFFF;
+                }
+            }
+            out.put("height", gray);
+        }
+        if (maps.contains("clouds")) {
+            FloatGrid alpha = new FloatGrid(W, rows);
+            for (int y = 0; y < rows; y++) {
+                cloudRows.row(first + y, coords, alpha.data(), alpha.index(0, y));
+            }
+            out.put("clouds", CloudRenderer.render(alpha));
+        }
+        if (maps.contains("emissive")) {
+            out.put("emissive", crop(EmissiveRenderer.renderBand(band, top, preset, seed), skip, rows));
+        }
+        return out;
+    }
+
+    /** Output file per map, as written by the in-memory pipeline. */
+    private static Map<String, String> fileNames(int W, int H) {
+        Map<String, String> names = new LinkedHashMap<>();
+        names.put("albedo", "planet_albedo_" + W + "x" + H + ".png");
+        names.put("normal", "planet_normal.png");
+        names.put("roughness", "planet_roughness.png");
+        names.put("metallic", "planet_metallic.png");
+        names.put("pbrpack", "planet_pbr_pack.png");
+        names.put("ao", "planet_ao.png");
+        names.put("height", "planet_height_16u.png");
+        names.put("biome", "planet_biome_mask.png");
+        names.put("material", "planet_material_mask.png");
+        names.put("vegetation", "planet_vegetation_density.png");
+        names.put("detail", "planet_detail_map.png");
+        names.put("snow", "planet_snow_mask.png");
+        names.put("ocean", "planet_ocean_shading.png");
+        names.put("atmosphere", "planet_atmosphere.png");
+        names.put("clouds", "planet_clouds.png");
+        names.put("emissive", "planet_emissive.png");
+        return names;
+    }
+
+    /** Output file of {@code map} for a W x H image, as written by the in-memory pipeline. */
+    public static String fileName(String map, int W, int H) {
+        return fileNames(W, H).get(map);
+    }
+
+    /** PNG layout of {@code map}: 16-bit gray heights, 8-bit gray single channels, ARGB colour. */
+    public static PngWriter.Format format(String map) {
+        return switch (map) {
+            case "height" -> PngWriter.Format.GRAY16;
+            case "roughness", "metallic", "ao", "vegetation", "detail", "snow" -> PngWriter.Format.GRAY8;
+            default -> PngWriter.Format.ARGB;
+        };
+    }
+
+    private static IntGrid crop(IntGrid grid, int firstRow, int rows) {
+        IntGrid out = new IntGrid(grid.width(), rows);
+        for (int y = 0; y < rows; y++) {
+            System.arraycopy(grid.data(), grid.index(0, firstRow + y), out.data(), out.index(0, y), grid.width());
+        }
+        return out;
+    }
+
+}
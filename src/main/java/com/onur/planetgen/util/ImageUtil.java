@@ -1,5 +1,9 @@
 package com.onur.planetgen.util;
 
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.field.IntGrid;
+
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.awt.image.WritableRaster;
@@ -9,6 +13,50 @@ import java.nio.file.Path;
 public final class ImageUtil {
     private ImageUtil() {}
 
+    public static void saveARGB(IntGrid argb, Path path) throws IOException {
+        int h = argb.height(), w = argb.width();
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        img.setRGB(0, 0, w, h, argb.data(), 0, argb.stride());
+        ImageIO.write(img, "PNG", path.toFile());
+    }
+
+    public static void saveGray8(IntGrid gray, Path path) throws IOException {
+        int h = gray.height(), w = gray.width();
+        int[] src = gray.data();
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+        WritableRaster r = img.getRaster();
+        int[] row = new int[w];
+        for (int y = 0; y < h; y++) {
+            int offset = gray.index(0, y);
+            for (int x = 0; x < w; x++) {
+                row[x] = src[offset + x] & 0xFF;
+            }
+            r.setSamples(0, y, w, 1, 0, row);
+        }
+        ImageIO.write(img, "PNG", path.toFile());
+    }
+
+    public static void saveGray16(FloatGrid f, Path path) throws IOException {
+        int h = f.height(), w = f.width();
+        float[] src = f.data();
+        FieldStats stats = FieldStats.of(f);
+        float min = stats.min(), max = stats.max();
+        double inv = 1.0 / Math.max(1e-9, (max - min));
+
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_USHORT_GRAY);
+        WritableRaster r = img.getRaster();
+        short[] row = new short[w];
+        for (int y = 0; y < h; y++) {
+            int offset = f.index(0, y);
+            for (int x = 0; x < w; x++) {
+                int v16 = (int) Math.round((src[offset + x] - min) * inv * 65535.0);
+                row[x] = (short) (v16 & 0xFFFF);
+            }
+            r.setDataElements(0, y, w, 1, row);
+        }
+        ImageIO.write(img, "PNG", path.toFile());
+    }
+
     public static void saveARGB(int[][] argb, Path path) throws IOException {
         int h = argb.length, w = argb[0].length;
         BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
@@ -34,14 +82,8 @@ public final class ImageUtil {
 
     public static void saveGray16(float[][] f, Path path) throws IOException {
         int h = f.length, w = f[0].length;
-        float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
-        for (int y = 0; y < h; y++) {
-            for (int x = 0; x < w; x++) {
-                float v = f[y][x];
-                if (v < min) min = v;
-                if (v > max) max = v;
-            }
-        }
+        FieldStats stats = FieldStats.of(f);
+        float min = stats.min(), max = stats.max();
         double inv = 1.0 / Math.max(1e-9, (max - min));
 
         BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_USHORT_GRAY);
@@ -0,0 +1,220 @@
+package com.onur.planetgen.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a PNG one row at a time, top to bottom, so images far larger than the heap can be
+ * saved while they are generated. {@link ImageUtil} needs the whole image as a
+ * {@code BufferedImage}; this writer holds two rows.
+ *
+ * Each row gets the PNG filter (None, Sub, Up, Average or Paeth) with the smallest sum of
+ * absolute filtered bytes, the usual heuristic from the PNG specification.
+ */
+public final class PngWriter implements AutoCloseable {
+    /** Pixel layout of the image and of the ints passed to {@link #writeRow}. */
+    public enum Format {
+        /** ARGB ints as in {@link ImageUtil#saveARGB}, stored as 8-bit RGBA. */
+        ARGB(6, 8, 4),
+        /** 8-bit gray in the low byte, as in {@link ImageUtil#saveGray8}. */
+        GRAY8(0, 8, 1),
+        /** 16-bit gray in the low 16 bits, as in {@link ImageUtil#saveGray16}. */
+        GRAY16(0, 16, 2);
+
+        private final int colorType, bitDepth, bytesPerPixel;
+
+        Format(int colorType, int bitDepth, int bytesPerPixel) {
+            this.colorType = colorType;
+            this.bitDepth = bitDepth;
+            this.bytesPerPixel = bytesPerPixel;
+        }
+    }
+
+    private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+    private static final int IDAT_BYTES = 1 << 16;
+
+    private final OutputStream out;
+    private final Format format;
+    private final int width, height, bpp;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final byte[] compressed = new byte[IDAT_BYTES];
+    private byte[] previous, current;
+    private final byte[][] filtered = new byte[5][];
+    private int rowsWritten;
+    private boolean closed;
+
+    public PngWriter(Path path, int width, int height, Format format) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid PNG size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.bpp = format.bytesPerPixel;
+        int rowBytes = Math.multiplyExact(width, bpp);
+        this.previous = new byte[rowBytes];
+        this.current = new byte[rowBytes];
+        for (int f = 0; f < filtered.length; f++) {
+            filtered[f] = new byte[rowBytes + 1];
+            filtered[f][0] = (byte) f;
+        }
+        this.out = new BufferedOutputStream(Files.newOutputStream(path), IDAT_BYTES);
+        out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = (byte) format.bitDepth;
+        header[9] = (byte) format.colorType;
+        // Compression, filter method and interlace are all 0
+        chunk("IHDR", header, header.length);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /** Append the next row: {@code width} pixels of {@code values} from {@code offset}. */
+    public void writeRow(int[] values, int offset) throws IOException {
+        if (rowsWritten >= height) {
+            throw new IllegalStateException("All " + height + " rows have been written");
+        }
+        byte[] row = current;
+        for (int x = 0; x < width; x++) {
+            int v = values[offset + x];
+            switch (format) {
+                case ARGB:
+                    row[4 * x] = (byte) (v >>> 16);
+                    row[4 * x + 1] = (byte) (v >>> 8);
+                    row[4 * x + 2] = (byte) v;
+                    row[4 * x + 3] = (byte) (v >>> 24);
+                    break;
+                case GRAY8:
+                    row[x] = (byte) v;
+                    break;
+                default:
+                    row[2 * x] = (byte) (v >>> 8);
+                    row[2 * x + 1] = (byte) v;
+                    break;
+            }
+        }
+        byte[] best = filter(row, previous);
+        deflater.setInput(best);
+        drain(Deflater.NO_FLUSH);
+        current = previous;
+        previous = row;
+        rowsWritten++;
+    }
+
+    /**
+     * Finish the stream. Closing before every row is written leaves a truncated file and
+     * throws {@link IllegalStateException}.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (rowsWritten == height) {
+                deflater.finish();
+                drain(Deflater.NO_FLUSH);
+                chunk("IEND", new byte[0], 0);
+            }
+        } finally {
+            deflater.end();
+            out.close();
+        }
+        if (rowsWritten != height) {
+            throw new IllegalStateException("PNG closed after " + rowsWritten + " of " + height + " rows");
+        }
+    }
+
+    /** The filtered row (type byte first) with the smallest sum of absolute byte values. */
+    private byte[] filter(byte[] row, byte[] up) {
+        int n = row.length;
+        long[] cost = new long[5];
+        for (int i = 0; i < n; i++) {
+            int a = i >= bpp ? row[i - bpp] & 0xFF : 0;
+            int b = up[i] & 0xFF;
+            int c = i >= bpp ? up[i - bpp] & 0xFF : 0;
+            int x = row[i] & 0xFF;
+            byte none = (byte) x;
+            byte sub = (byte) (x - a);
+            byte upF = (byte) (x - b);
+            byte avg = (byte) (x - ((a + b) >>> 1));
+            byte paeth = (byte) (x - paeth(a, b, c));
+            filtered[0][i + 1] = none;
+            filtered[1][i + 1] = sub;
+            filtered[2][i + 1] = upF;
+            filtered[3][i + 1] = avg;
+            filtered[4][i + 1] = paeth;
+            cost[0] += Math.abs(none);
+            cost[1] += Math.abs(sub);
+            cost[2] += Math.abs(upF);
+            cost[3] += Math.abs(avg);
+            cost[4] += Math.abs(paeth);
+        }
+        int best = 0;
+        for (int f = 1; f < 5; f++) {
+            if (cost[f] < cost[best]) {
+                best = f;
+            }
+        }
+        return filtered[best];
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    /** Compress pending input, writing an IDAT chunk whenever the buffer fills. */
+    private void drain(int flush) throws IOException {
+        while (true) {
+            int n = deflater.deflate(compressed, 0, compressed.length, flush);
+            if (n > 0) {
+                chunk("IDAT", compressed, n);
+            }
+            if (n < compressed.length && (deflater.needsInput() || deflater.finished())) {
+                return;
+            }
+        }
+    }
+
+    private void chunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] lengthBytes = new byte[4];
+        putInt(lengthBytes, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        byte[] crcBytes = new byte[4];
+        putInt(crcBytes, 0, (int) crc.getValue());
+        out.write(lengthBytes);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.write(crcBytes);
+    }
+
+    private static void putInt(byte[] dst, int offset, int value) {
+        dst[offset] = (byte) (value >>> 24);
+        dst[offset + 1] = (byte) (value >>> 16);
+        dst[offset + 2] = (byte) (value >>> 8);
+        dst[offset + 3] = (byte) value;
+    }
+}
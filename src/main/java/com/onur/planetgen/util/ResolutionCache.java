@@ -0,0 +1,80 @@
+package com.onur.planetgen.util;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide cache of structures that depend only on a grid's size, keyed by type, width
+ * and height, so repeated generations at one resolution stop rebuilding them.
+ *
+ * {@link #shared} holds immutable values that every job may read at once, such as geometry
+ * tables. {@link #acquire} and {@link #release} lend out mutable scratch that one job uses
+ * at a time, such as flow workspaces; at most {@link #MAX_IDLE} idle objects are kept per
+ * key. All entries are soft references, so the collector reclaims them before memory runs
+ * out. Safe for concurrent jobs.
+ */
+public final class ResolutionCache {
+    /** Idle scratch objects kept per type and size: enough for one job per core. */
+    public static final int MAX_IDLE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private record Key(Class<?> type, int width, int height) {}
+
+    private static final Map<Key, SoftReference<Object>> SHARED = new ConcurrentHashMap<>();
+    private static final Map<Key, ArrayDeque<SoftReference<Object>>> IDLE = new ConcurrentHashMap<>();
+
+    private ResolutionCache() {}
+
+    /** The shared {@code type} for {@code width x height}, made by {@code factory} if none is cached. */
+    public static <T> T shared(Class<T> type, int width, int height, Supplier<? extends T> factory) {
+        Object[] value = new Object[1];
+        SHARED.compute(new Key(type, width, height), (key, ref) -> {
+            value[0] = ref != null ? ref.get() : null;
+            if (value[0] == null) {
+                value[0] = factory.get();
+                ref = new SoftReference<>(value[0]);
+            }
+            return ref;
+        });
+        return type.cast(value[0]);
+    }
+
+    /**
+     * An idle {@code type} for {@code width x height}, or a new one from {@code factory}. The
+     * caller has it to itself until it hands it back with {@link #release}.
+     */
+    public static <T> T acquire(Class<T> type, int width, int height, Supplier<? extends T> factory) {
+        ArrayDeque<SoftReference<Object>> idle = IDLE.get(new Key(type, width, height));
+        if (idle != null) {
+            synchronized (idle) {
+                for (SoftReference<Object> ref = idle.pollFirst(); ref != null; ref = idle.pollFirst()) {
+                    Object value = ref.get();
+                    if (value != null) {
+                        return type.cast(value);
+                    }
+                }
+            }
+        }
+        return factory.get();
+    }
+
+    /** Hand back {@code value} from {@link #acquire}; the caller must not use it afterwards. */
+    public static <T> void release(Class<T> type, int width, int height, T value) {
+        ArrayDeque<SoftReference<Object>> idle = IDLE.computeIfAbsent(new Key(type, width, height),
+                key -> new ArrayDeque<>());
+        synchronized (idle) {
+            idle.removeIf(ref -> ref.get() == null);
+            if (idle.size() < MAX_IDLE) {
+                idle.addFirst(new SoftReference<>(value));
+            }
+        }
+    }
+
+    /** Drop every cached entry. */
+    public static void clear() {
+        SHARED.clear();
+        IDLE.clear();
+    }
+}
@@ -80,6 +80,7 @@ import com.onur.planetgen.atmosphere.MultiLayerCloudField
 import com.onur.planetgen.config.Preset
 import com.onur.planetgen.erosion.HydraulicErosion
 import com.onur.planetgen.erosion.ThermalErosion
+import com.onur.planetgen.field.FloatGrid
 import com.onur.planetgen.planet.CoordinateCache
 import com.onur.planetgen.planet.ParallelHeightFieldGenerator
 import com.onur.planetgen.planet.SphericalSampler
@@ -1086,12 +1087,12 @@ suspend fun generatePlanet(
     }
 
     val sampler = SphericalSampler(request.width, request.height)
-    val coordinateCache = CoordinateCache(request.width, request.height, sampler)
+    val coordinateCache = CoordinateCache.of(sampler)
 
-    val heightField: Array<FloatArray>
+    val heightField: FloatGrid
     val terrainStart = Instant.now()
     onLog("Generating terrain at ${request.width}x${request.height}...")
-    heightField = ParallelHeightFieldGenerator.generateParallel(request.seed, sampler, preset)
+    heightField = ParallelHeightFieldGenerator.generate(request.seed, sampler, preset)
     val terrainDuration = Duration.between(terrainStart, Instant.now())
     onLog("Terrain generated in ${terrainDuration.seconds}.${terrainDuration.toMillisPart()}s")
 
@@ -1220,6 +1221,7 @@ suspend fun generatePlanet(
         onLog("Saved atmosphere -> ${path.fileName}")
         exportedMaps += path.fileName.toString()
     }
+    surface.close()
 
     if (ExportMap.HEIGHT in request.exports) {
         onLog("Exporting height map...")
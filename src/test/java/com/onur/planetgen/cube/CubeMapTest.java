@@ -0,0 +1,172 @@
+package com.onur.planetgen.cube;
+
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.planet.RowCoordinates;
+import com.onur.planetgen.planet.SphericalSampler;
+import com.onur.planetgen.render.SurfaceAnalyzer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CubeMapTest {
+
+    @Test
+    void pixelDirectionsMapBackToTheirPixel() {
+        int N = 9;
+        double[] dir = new double[3];
+        for (CubeFace face : CubeFace.values()) {
+            for (int y = 0; y < N; y++) {
+                for (int x = 0; x < N; x++) {
+                    face.direction(CubeFace.plane(x, N), CubeFace.plane(y, N), dir);
+                    assertSame(face, CubeFace.of(dir[0], dir[1], dir[2]));
+                    assertEquals(CubeFace.plane(x, N), face.u(dir[0], dir[1], dir[2]), 1e-12);
+                    assertEquals(CubeFace.plane(y, N), face.v(dir[0], dir[1], dir[2]), 1e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    void edgeNeighboursAreMutual() {
+        int N = 8;
+        CubeMap cube = labelled(N);
+        int[][] steps = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        for (CubeFace face : CubeFace.values()) {
+            for (int i = 0; i < N; i++) {
+                // Every edge pixel, stepped off each side it touches
+                int[][] edge = {{0, i}, {N - 1, i}, {i, 0}, {i, N - 1}};
+                for (int[] p : edge) {
+                    for (int[] s : steps) {
+                        int ox = p[0] + s[0], oy = p[1] + s[1];
+                        if (ox >= 0 && ox < N && oy >= 0 && oy < N) {
+                            continue;
+                        }
+                        int across = (int) cube.get(face, ox, oy);
+                        CubeFace other = CubeFace.values()[across / (N * N)];
+                        assertNotSame(face, other);
+                        int bx = across % N, by = across / N % N;
+                        // One step off the neighbour's edge leads back to the starting pixel
+                        int back = 0;
+                        for (int[] t : steps) {
+                            if ((int) cube.get(other, bx + t[0], by + t[1]) == label(face, p[0], p[1], N)) {
+                                back++;
+                            }
+                        }
+                        assertEquals(1, back, face + " " + p[0] + "," + p[1]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void extendedPaddingRoundTrips() {
+        int N = 6;
+        CubeMap cube = labelled(N);
+        FloatGrid padded = cube.extended(CubeFace.POSITIVE_Z, 3);
+        assertEquals(12, padded.width());
+        assertEquals(cube.get(CubeFace.POSITIVE_Z, -2, 4), padded.get(1, 7));
+        padded.set(3, 3, -1f);
+        cube.setFromExtended(CubeFace.POSITIVE_Z, padded, 3);
+        assertEquals(-1f, cube.face(CubeFace.POSITIVE_Z).get(0, 0));
+        assertEquals(label(CubeFace.POSITIVE_Z, 5, 5, N), cube.face(CubeFace.POSITIVE_Z).get(5, 5));
+        assertThrows(IllegalArgumentException.class, () -> cube.extended(CubeFace.POSITIVE_Z, 7));
+    }
+
+    @Test
+    void equirectResampleFollowsSmoothField() {
+        int N = 32;
+        CubeMap cube = new CubeMap(N);
+        double[] dir = new double[3];
+        for (CubeFace face : CubeFace.values()) {
+            FloatGrid grid = cube.face(face);
+            for (int y = 0; y < N; y++) {
+                for (int x = 0; x < N; x++) {
+                    face.direction(CubeFace.plane(x, N), CubeFace.plane(y, N), dir);
+                    grid.set(x, y, (float) field(dir[0], dir[1], dir[2]));
+                }
+            }
+        }
+        SphericalSampler sp = new SphericalSampler(128, 64);
+        FloatGrid equirect = cube.toEquirect(sp.W, sp.H);
+        RowCoordinates coords = RowCoordinates.computed(sp);
+        double[] xs = new double[sp.W], ys = new double[sp.W], zs = new double[sp.W];
+        for (int y = 0; y < sp.H; y++) {
+            coords.fill(y, xs, ys, zs);
+            for (int x = 0; x < sp.W; x++) {
+                assertEquals(field(xs[x], ys[x], zs[x]), equirect.get(x, y), 0.02, "at " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void generatorFillsAndExportsAllFaces(@TempDir Path dir) throws IOException {
+        Preset preset = new Preset("earthlike");
+        // A margin of 2 + 2 * 1 = 4 pixels, a sixth of a 24-pixel face, so erosion crosses face edges
+        preset.thermalIterations = 2;
+        preset.hydraulicIterations = 1;
+        CubeMap cube = CubeSphereGenerator.generate(5L, 24, preset);
+        FieldStats stats = cube.stats();
+        assertEquals(6L * 24 * 24, stats.count());
+        assertTrue(Float.isFinite(stats.min()) && Float.isFinite(stats.max()));
+        assertTrue(stats.range() > 0.5f);
+
+        CubeSphereGenerator.export(cube, 5L, preset, Set.of("height", "normal", "albedo", "roughness"), dir);
+        for (CubeFace face : CubeFace.values()) {
+            for (String name : new String[]{"planet_height_16u_", "planet_normal_", "planet_albedo_24x24_",
+                    "planet_roughness_"}) {
+                BufferedImage img = ImageIO.read(dir.resolve(name + face.suffix() + ".png").toFile());
+                assertEquals(24, img.getWidth());
+                assertEquals(24, img.getHeight());
+            }
+        }
+    }
+
+    @Test
+    void facePixelsArePlacedOnTheMatchingEquirectPlanet() {
+        int N = 16;
+        int[] columns = new int[N], rows = new int[N];
+        double[] lat = new double[N];
+        // The +X face is centred on latitude 0, longitude 0: column 2N, row N of a 4N x 2N
+        // planet, give or take the half pixel between the face's centre pixels and its centre
+        SurfaceAnalyzer.Placement px = CubeSphereGenerator.placement(CubeFace.POSITIVE_X, N);
+        assertEquals(4 * N, px.planetWidth());
+        px.row(N / 2, columns, rows, lat);
+        assertEquals(2 * N, columns[N / 2], 1);
+        assertEquals(N, rows[N / 2], 1);
+
+        // The +Y face is the north polar cap
+        CubeSphereGenerator.placement(CubeFace.POSITIVE_Y, N).row(N / 2, columns, rows, lat);
+        assertTrue(lat[N / 2] > 1.4, "latitude " + lat[N / 2]);
+        assertTrue(rows[N / 2] < 2, "row " + rows[N / 2]);
+    }
+
+    private static double field(double x, double y, double z) {
+        return 0.5 * y + 0.3 * x * z + 0.2 * x;
+    }
+
+    private static float label(CubeFace face, int x, int y, int N) {
+        return face.ordinal() * N * N + y * N + x;
+    }
+
+    private static CubeMap labelled(int N) {
+        CubeMap cube = new CubeMap(N);
+        for (CubeFace face : CubeFace.values()) {
+            for (int y = 0; y < N; y++) {
+                for (int x = 0; x < N; x++) {
+                    cube.face(face).set(x, y, label(face, x, y, N));
+                }
+            }
+        }
+        return cube;
+    }
+}
@@ -0,0 +1,93 @@
+package com.onur.planetgen.field;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FieldStatsTest {
+
+    @Test
+    void matchesSequentialScan() {
+        Random rng = new Random(8L);
+        FloatGrid grid = new FloatGrid(301, 97, 320);
+        // Padding past the row width must not be counted
+        java.util.Arrays.fill(grid.data(), 1000f);
+        double sum = 0.0;
+        float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+        for (int y = 0; y < grid.height(); y++) {
+            for (int x = 0; x < grid.width(); x++) {
+                float v = (float) (rng.nextGaussian() * 3.0 + 5.0);
+                grid.set(x, y, v);
+                sum += v;
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+        }
+        long n = (long) grid.width() * grid.height();
+        double mean = sum / n, m2 = 0.0;
+        for (int y = 0; y < grid.height(); y++) {
+            for (int x = 0; x < grid.width(); x++) {
+                double d = grid.get(x, y) - mean;
+                m2 += d * d;
+            }
+        }
+
+        FieldStats stats = FieldStats.of(grid);
+        assertEquals(n, stats.count());
+        assertEquals(min, stats.min());
+        assertEquals(max, stats.max());
+        assertEquals(mean, stats.mean(), 1e-9);
+        assertEquals(m2 / n, stats.variance(), 1e-9);
+        assertEquals(0, stats.histogram().length);
+
+        FieldStats rows = FieldStats.of(grid.toRows());
+        assertEquals(min, rows.min());
+        assertEquals(max, rows.max());
+        assertEquals(mean, rows.mean(), 1e-9);
+    }
+
+    @Test
+    void histogramCountsEveryValueAndClampsOutliers() {
+        FloatGrid grid = new FloatGrid(5, 2);
+        float[] values = {-3f, 0f, 0.1f, 0.49f, 0.5f, 0.99f, 1f, 7f, 0.25f, 0.75f};
+        for (int i = 0; i < values.length; i++) {
+            grid.set(i % 5, i / 5, values[i]);
+        }
+        FieldStats stats = FieldStats.of(grid, 4, 0f, 1f);
+        // Bins [0, .25) [.25, .5) [.5, .75) [.75, 1]; -3 and 7 land in the end bins
+        assertArrayEquals(new long[]{3, 2, 1, 4}, stats.histogram());
+        assertEquals(0.5f, stats.binLow(2));
+    }
+
+    @Test
+    void partialsCombineLikeOnePass() {
+        float[] data = {4f, -2f, 9f, 0.5f, 3f, 3f, -7f};
+        FieldStats.Accumulator whole = new FieldStats.Accumulator();
+        whole.add(data, 0, data.length);
+
+        FieldStats.Accumulator left = new FieldStats.Accumulator(), right = new FieldStats.Accumulator();
+        left.add(data, 0, 3);
+        right.add(data, 3, 4);
+        left.combine(right);
+        left.combine(new FieldStats.Accumulator());
+
+        FieldStats a = whole.result(), b = left.result();
+        assertEquals(a.count(), b.count());
+        assertEquals(a.min(), b.min());
+        assertEquals(a.max(), b.max());
+        assertEquals(a.mean(), b.mean(), 1e-12);
+        assertEquals(a.variance(), b.variance(), 1e-12);
+
+        FieldStats empty = new FieldStats.Accumulator().result();
+        assertEquals(0, empty.count());
+        assertTrue(Double.isNaN(empty.mean()));
+    }
+
+    @Test
+    void rejectsEmptyHistogramRange() {
+        assertThrows(IllegalArgumentException.class, () -> new FieldStats.Accumulator(4, 1f, 1f));
+        assertThrows(IllegalArgumentException.class, () -> new FieldStats.Accumulator(-1, 0f, 1f));
+    }
+}
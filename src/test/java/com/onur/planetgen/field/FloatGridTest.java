@@ -0,0 +1,61 @@
+package com.onur.planetgen.field;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FloatGridTest {
+
+    @Test
+    void indexFollowsStride() {
+        FloatGrid grid = new FloatGrid(5, 3, 8);
+        assertEquals(8 * 3, grid.data().length);
+        assertEquals(2 * 8 + 4, grid.index(4, 2));
+        grid.set(4, 2, 7f);
+        assertEquals(7f, grid.data()[grid.index(4, 2)]);
+        assertEquals(7f, grid.get(4, 2));
+    }
+
+    @Test
+    void longitudeWrapsAndLatitudeClamps() {
+        FloatGrid grid = new FloatGrid(4, 3);
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 4; x++) {
+                grid.set(x, y, y * 10 + x);
+            }
+        }
+        assertEquals(3, grid.wrapX(-1));
+        assertEquals(0, grid.wrapX(4));
+        assertEquals(0, grid.clampY(-2));
+        assertEquals(2, grid.clampY(5));
+        assertEquals(3f, grid.getWrapped(-1, -1));
+        assertEquals(20f, grid.getWrapped(4, 3));
+    }
+
+    @Test
+    void rowArraysRoundTrip() {
+        float[][] rows = {{1f, 2f, 3f}, {4f, 5f, 6f}};
+        FloatGrid grid = FloatGrid.fromRows(rows);
+        assertEquals(3, grid.width());
+        assertEquals(2, grid.height());
+        assertEquals(6f, grid.get(2, 1));
+        assertArrayEquals(rows, grid.toRows());
+
+        FloatGrid padded = new FloatGrid(3, 2, 5);
+        padded.copyFrom(grid);
+        assertArrayEquals(rows, padded.toRows());
+        assertArrayEquals(rows, padded.copy().toRows());
+
+        IntGrid ints = IntGrid.fromRows(new int[][]{{1, 2}, {3, 4}});
+        assertEquals(3, ints.get(0, 1));
+        assertArrayEquals(new int[][]{{1, 2}, {3, 4}}, ints.toRows());
+    }
+
+    @Test
+    void rejectsInvalidShapes() {
+        assertThrows(IllegalArgumentException.class, () -> new FloatGrid(4, 2, 3));
+        assertThrows(IllegalArgumentException.class, () -> new FloatGrid(0, 2));
+        assertThrows(IllegalArgumentException.class, () -> FloatGrid.wrap(new float[7], 4, 2, 4));
+        assertThrows(IllegalArgumentException.class, () -> new FloatGrid(2, 2).copyFrom(new FloatGrid(3, 2)));
+    }
+}
@@ -0,0 +1,153 @@
+package com.onur.planetgen.field;
+
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.planet.ParallelHeightFieldGenerator;
+import com.onur.planetgen.planet.SphericalSampler;
+import com.onur.planetgen.render.SurfaceAnalyzer;
+import com.onur.planetgen.util.PngWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapGridTest {
+
+    @Test
+    void rowsRoundTripAcrossChunks() {
+        FloatGrid source = new FloatGrid(7, 10, 9);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 7; x++) {
+                source.set(x, y, y * 100 + x);
+            }
+        }
+        // Three rows per buffer, so rows 3, 6 and 9 start new chunks
+        try (OffHeapFloatGrid grid = new OffHeapFloatGrid(7, 10, 3)) {
+            for (int y = 0; y < 10; y++) {
+                grid.writeRow(y, source.data(), source.index(0, y));
+            }
+            assertEquals(906f, grid.get(6, 9));
+            grid.set(2, 3, -1f);
+            source.set(2, 3, -1f);
+            assertArrayEquals(source.toRows(), grid.toGrid().toRows());
+        }
+
+        try (OffHeapIntGrid ints = new OffHeapIntGrid(4, 5, 2)) {
+            int[] row = {1, 2, 3, 4};
+            ints.writeRow(4, row, 0);
+            int[] back = new int[6];
+            ints.readRow(4, back, 2);
+            assertArrayEquals(new int[]{0, 0, 1, 2, 3, 4}, back);
+        }
+    }
+
+    @Test
+    void closeReleasesMemory() {
+        long before = OffHeapMemory.reservedBytes();
+        OffHeapFloatGrid grid = OffHeapFloatGrid.copyOf(new FloatGrid(64, 32));
+        assertEquals(before + 64 * 32 * Float.BYTES, OffHeapMemory.reservedBytes());
+        grid.close();
+        grid.close();
+        assertTrue(grid.isReleased());
+        assertEquals(before, OffHeapMemory.reservedBytes());
+        assertThrows(IllegalStateException.class, () -> grid.get(0, 0));
+    }
+
+    @Test
+    void offHeapSurfaceMatchesHeapSurface(@TempDir Path dir) throws IOException {
+        Preset preset = new Preset("earthlike");
+        FloatGrid height = ParallelHeightFieldGenerator.generate(3L, new SphericalSampler(64, 32), preset);
+        SurfaceAnalyzer.SurfaceData heap = SurfaceAnalyzer.analyze(height, preset, 3L);
+
+        preset.offHeapFields = true;
+        long before = OffHeapMemory.reservedBytes();
+        try (SurfaceAnalyzer.SurfaceData offHeap = SurfaceAnalyzer.analyze(height, preset, 3L)) {
+            assertTrue(OffHeapMemory.reservedBytes() > before);
+            assertArrayEquals(heap.albedo().toRows(), offHeap.albedo().toRows());
+            assertArrayEquals(heap.atmosphere().toRows(), offHeap.atmosphere().toRows());
+            assertArrayEquals(heap.roughness().toRows(), offHeap.roughness().toRows());
+            assertArrayEquals(heap.ambientOcclusion().toRows(), offHeap.ambientOcclusion().toRows());
+            assertArrayEquals(heap.waterDepth().toRows(), offHeap.waterDepth().toRows());
+
+            // Streamed rows give the same pixels as the heap maps
+            for (String map : List.of("albedo", "pbrpack", "roughness")) {
+                boolean gray = map.equals("roughness");
+                Path file = dir.resolve(map + ".png");
+                try (PngWriter writer = new PngWriter(file, 64, 32, gray ? PngWriter.Format.GRAY8 : PngWriter.Format.ARGB)) {
+                    offHeap.writeMap(map, writer);
+                }
+                BufferedImage image = ImageIO.read(file.toFile());
+                IntGrid expected = heap.map(map);
+                for (int y = 0; y < 32; y++) {
+                    for (int x = 0; x < 64; x++) {
+                        int pixel = gray ? image.getRaster().getSample(x, y, 0) : image.getRGB(x, y);
+                        assertEquals(expected.get(x, y), pixel, map + " at " + x + "," + y);
+                    }
+                }
+            }
+        }
+        assertEquals(before, OffHeapMemory.reservedBytes());
+    }
+
+    @Test
+    void mappedGridRoundTripsAndDeletesItsFile() throws IOException {
+        Path dir = Files.createTempDirectory("planetgen-mapped");
+        try {
+            float[] row = new float[6];
+            MappedFloatGrid grid = MappedFloatGrid.create(dir, 6, 5, 2);
+            for (int y = 0; y < 5; y++) {
+                java.util.Arrays.fill(row, y + 0.5f);
+                grid.writeRow(y, row, 0);
+            }
+            assertTrue(Files.exists(grid.file()));
+            assertEquals(6L * 5 * Float.BYTES, Files.size(grid.file()));
+
+            FloatGrid band = new FloatGrid(6, 2, 8);
+            grid.readRows(3, band);
+            assertEquals(3.5f, band.get(5, 0));
+            assertEquals(4.5f, band.get(0, 1));
+
+            grid.close();
+            grid.close();
+            assertTrue(grid.isReleased());
+            assertFalse(Files.exists(grid.file()));
+            assertThrows(IllegalStateException.class, () -> grid.readRow(0, row, 0));
+        } finally {
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    void closeWaitsForRowsInFlight() throws InterruptedException {
+        // Writers racing a close must either finish their row or be turned away, never touch freed memory
+        OffHeapFloatGrid grid = new OffHeapFloatGrid(1024, 64, 8);
+        java.util.concurrent.atomic.AtomicInteger turnedAway = new java.util.concurrent.atomic.AtomicInteger();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                float[] row = new float[1024];
+                try {
+                    for (int i = 0; ; i++) {
+                        grid.writeRow(i % 64, row, 0);
+                    }
+                } catch (IllegalStateException e) {
+                    turnedAway.incrementAndGet();
+                }
+            });
+            writers[t].start();
+        }
+        Thread.sleep(20);
+        grid.close();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertTrue(grid.isReleased());
+        assertEquals(writers.length, turnedAway.get());
+    }
+}
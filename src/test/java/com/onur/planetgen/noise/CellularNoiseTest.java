@@ -0,0 +1,81 @@
+package com.onur.planetgen.noise;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CellularNoiseTest {
+
+    @Test
+    void valuesStayInRangeAndAreDeterministic() {
+        Random rng = new Random(3L);
+        for (CellularNoise.Output output : CellularNoise.Output.values()) {
+            CellularNoise a = new CellularNoise(17L, output);
+            CellularNoise b = new CellularNoise(17L, output);
+            CellularNoise other = new CellularNoise(18L, output);
+            int differ = 0;
+            for (int i = 0; i < 2000; i++) {
+                double x = rng.nextDouble() * 40 - 20, y = rng.nextDouble() * 40 - 20, z = rng.nextDouble() * 40 - 20;
+                double v = a.noise3(x, y, z);
+                assertTrue(v >= -1.0 && v <= 1.0, output + " out of range: " + v);
+                assertEquals(v, b.noise3(x, y, z), 0.0, output + " point " + i);
+                if (v != other.noise3(x, y, z)) {
+                    differ++;
+                }
+            }
+            assertTrue(differ > 1000, output + " should change with the seed");
+        }
+    }
+
+    @Test
+    void regularGridGivesDistanceToCellCentre() {
+        CellularNoise f1 = new CellularNoise(5L, CellularNoise.Output.F1, 0.0);
+        // Zero jitter puts every feature point at its cell centre
+        assertEquals(-1.0, f1.noise3(2.5, -3.5, 0.5), 1e-12);
+        assertEquals(0.5 * 2.0 - 1.0, f1.noise3(3.0, -3.5, 0.5), 1e-12);
+
+        CellularNoise border = new CellularNoise(5L, CellularNoise.Output.F2_MINUS_F1, 0.0);
+        assertEquals(-1.0, border.noise3(3.0, -3.5, 0.5), 1e-12, "equidistant from two centres");
+    }
+
+    @Test
+    void scanlineBatchMatchesPointEvaluation() {
+        for (CellularNoise.Output output : CellularNoise.Output.values()) {
+            CellularNoise noise = new CellularNoise(9L, output, 0.8);
+            int n = 3000;
+            double[] xs = new double[n], ys = new double[n], zs = new double[n], out = new double[n];
+            for (int i = 0; i < n; i++) {
+                double t = i * 0.004;
+                xs[i] = Math.cos(t) * 6.0;
+                ys[i] = 1.3 - t * 0.05;
+                zs[i] = Math.sin(t) * 6.0;
+            }
+            noise.noise3(xs, ys, zs, out, n);
+            for (int i = 0; i < n; i++) {
+                // A fresh instance has no cached cell, so it runs the pruned search
+                double expected = new CellularNoise(9L, output, 0.8).noise3(xs[i], ys[i], zs[i]);
+                assertEquals(expected, out[i], 0.0, output + " point " + i);
+            }
+        }
+    }
+
+    @Test
+    void worksAsFractalSource() {
+        CellularNoise cells = new CellularNoise(2L, CellularNoise.Output.F2_MINUS_F1);
+        FractalNoise fractal = new FractalNoise(cells, 4.0, 3, 2.0, 0.5);
+        double[] xs = {0.3, -0.6, 0.8}, ys = {0.9, 0.2, -0.5}, zs = {0.1, 0.7, 0.3};
+        double[] out = new double[3];
+        fractal.fbm(xs, ys, zs, out, 3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(fractal.fbm(xs[i], ys[i], zs[i]), out[i], 0.0, "point " + i);
+        }
+    }
+
+    @Test
+    void rejectsJitterOutsideUnitInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new CellularNoise(1L, CellularNoise.Output.F1, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new CellularNoise(1L, CellularNoise.Output.F1, -0.1));
+    }
+}
@@ -0,0 +1,119 @@
+package com.onur.planetgen.noise;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FractalNoiseTest {
+
+    @Test
+    void scanlineMatchesPointEvaluation() {
+        OpenSimplex2 base = new OpenSimplex2(5L);
+        FractalNoise fractal = new FractalNoise(base, 2.2, 4, 2.0, 0.6);
+        double[][] pts = spherePoints(513, 1L);
+        int n = pts[0].length;
+        double[] fbm = new double[n], ridged = new double[n];
+
+        fractal.fbm(pts[0], pts[1], pts[2], fbm, n);
+        fractal.ridged(pts[0], pts[1], pts[2], ridged, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(fractal.fbm(pts[0][i], pts[1][i], pts[2][i]), fbm[i], 0.0, "fbm point " + i);
+            assertEquals(fractal.ridged(pts[0][i], pts[1][i], pts[2][i]), ridged[i], 0.0, "ridged point " + i);
+        }
+    }
+
+    @Test
+    void matchesLoopWithSeparateScaleAndFrequency() {
+        OpenSimplex2 base = new OpenSimplex2(11L);
+        double scale = 2.2 * 1.5;
+        FractalNoise fractal = new FractalNoise(base, scale, 4, 2.0, 0.6);
+        double[][] pts = spherePoints(200, 2L);
+        for (int i = 0; i < pts[0].length; i++) {
+            double x = pts[0][i], y = pts[1][i], z = pts[2][i];
+            double amp = 1.0, freq = 1.0, sum = 0.0;
+            for (int o = 0; o < 4; o++) {
+                sum += amp * (1.0 - Math.abs(base.noise3(x * scale * freq, y * scale * freq, z * scale * freq)));
+                amp *= 0.6;
+                freq *= 2.0;
+            }
+            assertEquals(sum / (1.0 - 0.6), fractal.ridged(x, y, z), 0.0, "point " + i);
+        }
+    }
+
+    @Test
+    void combinedSharesOctavesAndMatchesSeparateSums() {
+        OpenSimplex2 base = new OpenSimplex2(99L);
+        double continentScale = 2.2;
+        FractalNoise ridged = new FractalNoise(base, continentScale * 1.5, 4, 2.0, 0.6);
+        FractalNoise detail = new FractalNoise(base, continentScale * 3.0, 3, 2.0, 0.5);
+        FractalNoise.Combined combined = FractalNoise.combine(detail, ridged);
+        assertEquals(4, combined.samplesPerPoint());
+
+        double[][] pts = spherePoints(300, 3L);
+        int n = pts[0].length;
+        double[] fbmOut = new double[n], ridgedOut = new double[n];
+        double[] fbmRef = new double[n], ridgedRef = new double[n];
+        combined.evaluate(pts[0], pts[1], pts[2], fbmOut, ridgedOut, n);
+        detail.fbm(pts[0], pts[1], pts[2], fbmRef, n);
+        ridged.ridged(pts[0], pts[1], pts[2], ridgedRef, n);
+        assertArrayEquals(fbmRef, fbmOut, 0.0);
+        assertArrayEquals(ridgedRef, ridgedOut, 0.0);
+    }
+
+    @Test
+    void maskedEvaluationSkipsZeroWeightsAndStaysWithinTolerance() {
+        OpenSimplex2 base = new OpenSimplex2(99L);
+        FractalNoise ridged = new FractalNoise(base, 3.3, 4, 2.0, 0.6);
+        FractalNoise detail = new FractalNoise(base, 6.6, 3, 2.0, 0.5);
+        FractalNoise.Combined combined = FractalNoise.combine(detail, ridged);
+
+        double[][] pts = spherePoints(300, 4L);
+        int n = pts[0].length;
+        Random rng = new Random(5L);
+        double[] fbmWeight = new double[n], ridgedWeight = new double[n];
+        for (int i = 0; i < n; i++) {
+            // Mix of zero, tiny and ordinary weights
+            fbmWeight[i] = i % 3 == 0 ? 0.0 : Math.pow(10.0, -6.0 * rng.nextDouble());
+            ridgedWeight[i] = i % 5 == 0 ? 0.0 : Math.pow(10.0, -6.0 * rng.nextDouble());
+        }
+        double[] fbmRef = new double[n], ridgedRef = new double[n];
+        combined.evaluate(pts[0], pts[1], pts[2], fbmRef, ridgedRef, n);
+
+        double[] fbmOut = new double[n], ridgedOut = new double[n];
+        combined.evaluate(pts[0], pts[1], pts[2], fbmWeight, ridgedWeight, 0.0, fbmOut, ridgedOut, n);
+        for (int i = 0; i < n; i++) {
+            double expected = fbmWeight[i] * fbmRef[i] + ridgedWeight[i] * ridgedRef[i];
+            assertEquals(expected, fbmWeight[i] * fbmOut[i] + ridgedWeight[i] * ridgedOut[i], 0.0, "exact " + i);
+        }
+
+        double tolerance = 1e-4;
+        combined.evaluate(pts[0], pts[1], pts[2], fbmWeight, ridgedWeight, tolerance, fbmOut, ridgedOut, n);
+        for (int i = 0; i < n; i++) {
+            double expected = fbmWeight[i] * fbmRef[i] + ridgedWeight[i] * ridgedRef[i];
+            double actual = fbmWeight[i] * fbmOut[i] + ridgedWeight[i] * ridgedOut[i];
+            assertEquals(expected, actual, 2.0 * tolerance, "bounded " + i);
+        }
+    }
+
+    @Test
+    void combineRejectsDifferentSources() {
+        FractalNoise a = new FractalNoise(new OpenSimplex2(1L), 1.0, 2, 2.0, 0.5);
+        FractalNoise b = new FractalNoise(new OpenSimplex2(2L), 1.0, 2, 2.0, 0.5);
+        assertThrows(IllegalArgumentException.class, () -> FractalNoise.combine(a, b));
+    }
+
+    private static double[][] spherePoints(int n, long seed) {
+        Random rng = new Random(seed);
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double u = rng.nextGaussian(), v = rng.nextGaussian(), w = rng.nextGaussian();
+            double len = Math.sqrt(u * u + v * v + w * w);
+            xs[i] = u / len;
+            ys[i] = v / len;
+            zs[i] = w / len;
+        }
+        return new double[][]{xs, ys, zs};
+    }
+}
@@ -0,0 +1,38 @@
+package com.onur.planetgen.noise;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OctavePolicyTest {
+
+    @Test
+    void referenceResolutionKeepsBaseCounts() {
+        OctavePolicy policy = OctavePolicy.forResolution(Math.PI / 2048, 1.0);
+        assertEquals(4, policy.octaves(3.3, 4, 2.0));
+        assertEquals(5, policy.octaves(8.0, 5, 2.0));
+    }
+
+    @Test
+    void previewsDropSubPixelOctaves() {
+        // 512x256: Nyquist is 256 / (2 pi) ~ 40.7, so 8 * 2^3 = 64 and up are culled
+        OctavePolicy policy = OctavePolicy.forResolution(Math.PI / 256, 1.0);
+        assertEquals(3, policy.octaves(8.0, 5, 2.0));
+        assertEquals(1, policy.octaves(100.0, 3, 2.0), "first octave is always kept");
+    }
+
+    @Test
+    void largeRendersAddOctavesPerDoubling() {
+        assertEquals(5, OctavePolicy.forResolution(Math.PI / 4096, 1.0).octaves(3.3, 4, 2.0));
+        assertEquals(6, OctavePolicy.forResolution(Math.PI / 8192, 1.0).octaves(3.3, 4, 2.0));
+    }
+
+    @Test
+    void qualityScalesTheCutOffAndZeroDisables() {
+        double pixel = Math.PI / 256;
+        assertEquals(4, OctavePolicy.forResolution(pixel, 2.0).octaves(8.0, 5, 2.0));
+        assertEquals(2, OctavePolicy.forResolution(pixel, 0.5).octaves(8.0, 5, 2.0));
+        assertSame(OctavePolicy.FIXED, OctavePolicy.forResolution(pixel, 0.0));
+        assertEquals(5, OctavePolicy.FIXED.octaves(8.0, 5, 2.0));
+    }
+}
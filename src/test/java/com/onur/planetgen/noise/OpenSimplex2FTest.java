@@ -0,0 +1,63 @@
+package com.onur.planetgen.noise;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpenSimplex2FTest {
+
+    @Test
+    void valuesStayWithinUnitRange() {
+        OpenSimplex2F noise = new OpenSimplex2F(9L);
+        Random rng = new Random(11L);
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < 200_000; i++) {
+            double v = noise.noise3((rng.nextDouble() - 0.5) * 50.0,
+                    (rng.nextDouble() - 0.5) * 50.0, (rng.nextDouble() - 0.5) * 50.0);
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        assertTrue(min >= -1.0 && max <= 1.0, "range [" + min + ", " + max + "]");
+        assertTrue(min < -0.8 && max > 0.8, "range [" + min + ", " + max + "] should use most of [-1, 1]");
+    }
+
+    @Test
+    void batchMatchesPerPointNoise() {
+        OpenSimplex2F noise = new OpenSimplex2F(-31L);
+        Random rng = new Random(2L);
+        int n = 1000;
+        double[] xs = new double[n], ys = new double[n], zs = new double[n], out = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = (rng.nextDouble() - 0.5) * 40.0;
+            ys[i] = (rng.nextDouble() - 0.5) * 40.0;
+            zs[i] = (rng.nextDouble() - 0.5) * 40.0;
+        }
+        noise.noise3(xs, ys, zs, out, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(noise.noise3(xs[i], ys[i], zs[i]), out[i], 0.0, "point " + i);
+        }
+    }
+
+    @Test
+    void analyticGradientMatchesCentralDifferences() {
+        OpenSimplex2F noise = new OpenSimplex2F(77L);
+        Random rng = new Random(5L);
+        double[] gradient = new double[3];
+        double h = 1e-6;
+        for (int i = 0; i < 2000; i++) {
+            double x = (rng.nextDouble() - 0.5) * 30.0;
+            double y = (rng.nextDouble() - 0.5) * 30.0;
+            double z = (rng.nextDouble() - 0.5) * 30.0;
+            assertEquals(noise.noise3(x, y, z), noise.noise3WithGradient(x, y, z, gradient), 0.0);
+
+            double fx = (noise.noise3(x + h, y, z) - noise.noise3(x - h, y, z)) / (2 * h);
+            double fy = (noise.noise3(x, y + h, z) - noise.noise3(x, y - h, z)) / (2 * h);
+            double fz = (noise.noise3(x, y, z + h) - noise.noise3(x, y, z - h)) / (2 * h);
+            assertEquals(fx, gradient[0], 1e-5, "d/dx at point " + i);
+            assertEquals(fy, gradient[1], 1e-5, "d/dy at point " + i);
+            assertEquals(fz, gradient[2], 1e-5, "d/dz at point " + i);
+        }
+    }
+}
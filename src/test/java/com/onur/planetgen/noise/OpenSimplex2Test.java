@@ -0,0 +1,94 @@
+package com.onur.planetgen.noise;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpenSimplex2Test {
+
+    @Test
+    void gradientValueMatchesNoise() {
+        OpenSimplex2 noise = new OpenSimplex2(2024L);
+        Random rng = new Random(3L);
+        double[] gradient = new double[3];
+        for (int i = 0; i < 2000; i++) {
+            double x = (rng.nextDouble() - 0.5) * 30.0;
+            double y = (rng.nextDouble() - 0.5) * 30.0;
+            double z = (rng.nextDouble() - 0.5) * 30.0;
+            assertEquals(noise.noise3(x, y, z), noise.noise3WithGradient(x, y, z, gradient), 0.0);
+        }
+    }
+
+    @Test
+    void analyticGradientMatchesCentralDifferences() {
+        OpenSimplex2 noise = new OpenSimplex2(77L);
+        Random rng = new Random(5L);
+        double[] gradient = new double[3];
+        double h = 1e-6;
+        for (int i = 0; i < 2000; i++) {
+            double x = (rng.nextDouble() - 0.5) * 30.0;
+            double y = (rng.nextDouble() - 0.5) * 30.0;
+            double z = (rng.nextDouble() - 0.5) * 30.0;
+            noise.noise3WithGradient(x, y, z, gradient);
+
+            double fx = (noise.noise3(x + h, y, z) - noise.noise3(x - h, y, z)) / (2 * h);
+            double fy = (noise.noise3(x, y + h, z) - noise.noise3(x, y - h, z)) / (2 * h);
+            double fz = (noise.noise3(x, y, z + h) - noise.noise3(x, y, z - h)) / (2 * h);
+            assertEquals(fx, gradient[0], 1e-5, "d/dx at point " + i);
+            assertEquals(fy, gradient[1], 1e-5, "d/dy at point " + i);
+            assertEquals(fz, gradient[2], 1e-5, "d/dz at point " + i);
+        }
+    }
+
+    @Test
+    void scanlineBatchesReuseCellsWithoutChangingValues() {
+        OpenSimplex2 noise = new OpenSimplex2(31L);
+        double[][] row = scanline(2048, 13.2);
+        int n = row[0].length;
+        double[] out = new double[n], dx = new double[n], dy = new double[n], dz = new double[n];
+        double[] gradient = new double[3];
+
+        noise.noise3(row[0], row[1], row[2], out, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(noise.noise3(row[0][i], row[1][i], row[2][i]), out[i], 0.0, "value " + i);
+        }
+
+        noise.noise3WithGradient(row[0], row[1], row[2], out, dx, dy, dz, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(noise.noise3WithGradient(row[0][i], row[1][i], row[2][i], gradient), out[i], 0.0);
+            assertEquals(gradient[0], dx[i], 0.0, "d/dx " + i);
+            assertEquals(gradient[1], dy[i], 0.0, "d/dy " + i);
+            assertEquals(gradient[2], dz[i], 0.0, "d/dz " + i);
+        }
+    }
+
+    @Test
+    void fusedWarpBatchMatchesSeparateChannels() {
+        OpenSimplex2 wx = new OpenSimplex2(1L), wy = new OpenSimplex2(2L), wz = new OpenSimplex2(3L);
+        VectorWarpNoise warp = new VectorWarpNoise(wx, wy, wz);
+        double[][] row = scanline(1024, 2.2);
+        int n = row[0].length;
+        double[] ox = new double[n], oy = new double[n], oz = new double[n];
+        warp.noise3(row[0], row[1], row[2], ox, oy, oz, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(wx.noise3(row[0][i], row[1][i], row[2][i]), ox[i], 0.0, "x " + i);
+            assertEquals(wy.noise3(row[0][i], row[1][i], row[2][i]), oy[i], 0.0, "y " + i);
+            assertEquals(wz.noise3(row[0][i], row[1][i], row[2][i]), oz[i], 0.0, "z " + i);
+        }
+    }
+
+    /** One latitude ring of the sphere at the given frequency, crossing negative cells. */
+    private static double[][] scanline(int n, double frequency) {
+        double lat = 0.4;
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double lon = 2.0 * Math.PI * (i + 0.5) / n - Math.PI;
+            xs[i] = Math.cos(lat) * Math.cos(lon) * frequency;
+            ys[i] = Math.sin(lat) * frequency;
+            zs[i] = Math.cos(lat) * Math.sin(lon) * frequency;
+        }
+        return new double[][]{xs, ys, zs};
+    }
+}
@@ -0,0 +1,64 @@
+package com.onur.planetgen.noise;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VectorNoiseKernelTest {
+    private static final double TOLERANCE = 1e-12;
+
+    @Test
+    void batchMatchesPerPointNoise() {
+        OpenSimplex2 noise = new OpenSimplex2(123456L);
+        double[][] pts = samplePoints(1027, 7L);
+        int n = pts[0].length;
+        double[] out = new double[n];
+
+        noise.noise3Scalar(pts[0], pts[1], pts[2], out, 0, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(noise.noise3(pts[0][i], pts[1][i], pts[2][i]), out[i], 0.0, "point " + i);
+        }
+    }
+
+    @Test
+    void simdKernelMatchesScalarPath() {
+        assumeTrue(OpenSimplex2.SIMD_AVAILABLE, "Vector API not available; run with --add-modules jdk.incubator.vector");
+
+        for (long seed : new long[]{1L, 42L, 987654L}) {
+            OpenSimplex2 noise = new OpenSimplex2(seed);
+            double[][] pts = samplePoints(4099, seed);
+            int n = pts[0].length;
+            double[] out = new double[n];
+
+            noise.noise3Vector(pts[0], pts[1], pts[2], out, n);
+            for (int i = 0; i < n; i++) {
+                double expected = noise.noise3(pts[0][i], pts[1][i], pts[2][i]);
+                assertEquals(expected, out[i], TOLERANCE, "seed " + seed + ", point " + i);
+            }
+        }
+    }
+
+    /**
+     * Random points over the ranges the generators use, plus exact lattice coordinates
+     * (including negative integers) where floor rounding is easiest to get wrong.
+     */
+    private static double[][] samplePoints(int n, long seed) {
+        Random rng = new Random(seed);
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (i % 16 == 0) {
+                xs[i] = rng.nextInt(21) - 10;
+                ys[i] = rng.nextInt(21) - 10;
+                zs[i] = rng.nextInt(21) - 10;
+            } else {
+                xs[i] = (rng.nextDouble() * 2.0 - 1.0) * 40.0;
+                ys[i] = (rng.nextDouble() * 2.0 - 1.0) * 40.0;
+                zs[i] = (rng.nextDouble() * 2.0 - 1.0) * 40.0;
+            }
+        }
+        return new double[][]{xs, ys, zs};
+    }
+}
@@ -0,0 +1,108 @@
+package com.onur.planetgen.noise.graph;
+
+import com.onur.planetgen.atmosphere.MultiLayerCloudField;
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.noise.DomainWarpNoise;
+import com.onur.planetgen.noise.FractalNoise;
+import com.onur.planetgen.noise.OpenSimplex2;
+import com.onur.planetgen.planet.CoordinateCache;
+import com.onur.planetgen.planet.ParallelHeightFieldGenerator;
+import com.onur.planetgen.planet.SphericalSampler;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NoiseGraphTest {
+    private static final OpenSimplex2 BASE = new OpenSimplex2(17L);
+
+    @Test
+    void arithmeticFollowsPrecedenceAndFunctions() {
+        NoiseGraph graph = NoiseGraph.compile("""
+                # constants only
+                let a = 2 + 3 * 4
+                let b = -(a - 4) / 2
+                max(b, -10) + pow(2, 3) + clamp(k, 0, 1) + lerp(0.25, 0, 8)
+                """, Map.of("base", BASE), Map.of("k", 3.0));
+        double[] out = new double[3];
+        double[] zero = new double[3];
+        graph.evaluateRow(zero, zero, zero, out, 3);
+        assertEquals(-5.0 + 8.0 + 1.0 + 2.0, out[0], 0.0);
+        assertEquals(0, graph.samplesPerPoint());
+    }
+
+    @Test
+    void fbmLayerMatchesFractalNoise() {
+        NoiseGraph graph = NoiseGraph.compile("fbm(base, 2.5, 4, 2.0, 0.5) * 2 - noise(base, 7)",
+                Map.of("base", BASE), Map.of());
+        double[][] pts = points(64);
+        double[] out = new double[64];
+        graph.evaluateRow(pts[0], pts[1], pts[2], out, 64);
+
+        FractalNoise fbm = new FractalNoise(BASE, 2.5, 4, 2.0, 0.5);
+        for (int i = 0; i < 64; i++) {
+            double x = pts[0][i], y = pts[1][i], z = pts[2][i];
+            double expected = fbm.fbm(x, y, z) * 2 - BASE.noise3(x * 7, y * 7, z * 7);
+            assertEquals(expected, out[i], 0.0, "point " + i);
+        }
+    }
+
+    @Test
+    void sharedLayersAreEvaluatedOnce() {
+        DomainWarpNoise warp = new DomainWarpNoise(BASE, new OpenSimplex2(1L), new OpenSimplex2(2L),
+                new OpenSimplex2(3L), 0.08);
+        NoiseGraph graph = NoiseGraph.compile(
+                "ridged(base, 3.3, 4, 2.0, 0.6) + fbm(base, 6.6, 3, 2.0, 0.5) + fbm(base, 6.6, 3, 2.0, 0.5)",
+                Map.of("base", BASE, "warp", warp), Map.of());
+        // Detail fBm appears twice but is one layer; its octaves coincide with ridged octaves 2-4
+        assertEquals(4, graph.samplesPerPoint());
+    }
+
+    @Test
+    void builtInRecipesMatchJavaPaths() {
+        SphericalSampler sampler = new SphericalSampler(128, 64);
+        CoordinateCache cache = new CoordinateCache(128, 64, sampler);
+        Preset java = new Preset("earthlike");
+        Preset recipe = new Preset("earthlike");
+        recipe.terrainRecipe = ParallelHeightFieldGenerator.TERRAIN_RECIPE;
+        recipe.cloudRecipe = MultiLayerCloudField.CLOUD_RECIPE;
+
+        float[][] expectedHeight = ParallelHeightFieldGenerator.generateParallel(5L, sampler, java);
+        float[][] actualHeight = ParallelHeightFieldGenerator.generateParallel(5L, sampler, recipe);
+        float[][] expectedClouds = MultiLayerCloudField.generateParallel(6L, sampler, java, cache).alpha.toRows();
+        float[][] actualClouds = MultiLayerCloudField.generateParallel(6L, sampler, recipe, cache).alpha.toRows();
+        for (int y = 0; y < 64; y++) {
+            assertArrayEquals(expectedHeight[y], actualHeight[y], 0.0f, "height row " + y);
+            assertArrayEquals(expectedClouds[y], actualClouds[y], 0.0f, "cloud row " + y);
+        }
+    }
+
+    @Test
+    void errorsNameTheProblem() {
+        Map<String, OpenSimplex2> sources = Map.of("base", BASE);
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+                () -> NoiseGraph.compile("fbm(base, 1, 2) + height", sources, Map.of()));
+        assertTrue(unknown.getMessage().contains("height"), unknown.getMessage());
+
+        IllegalArgumentException syntax = assertThrows(IllegalArgumentException.class,
+                () -> NoiseGraph.compile("let a = 1\n2 * (a + ", sources, Map.of()));
+        assertTrue(syntax.getMessage().startsWith("Recipe error at 2:"), syntax.getMessage());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> NoiseGraph.compile("fbm(base, 1, 2) * base", sources, Map.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> NoiseGraph.compile("fbm(1, 1, 2)", sources, Map.of()));
+    }
+
+    private static double[][] points(int n) {
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double lon = 2.0 * Math.PI * i / n, lat = 0.3;
+            xs[i] = Math.cos(lat) * Math.cos(lon);
+            ys[i] = Math.sin(lat);
+            zs[i] = Math.cos(lat) * Math.sin(lon);
+        }
+        return new double[][]{xs, ys, zs};
+    }
+}
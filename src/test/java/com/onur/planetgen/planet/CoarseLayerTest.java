@@ -0,0 +1,43 @@
+package com.onur.planetgen.planet;
+
+import com.onur.planetgen.noise.DomainWarpNoise;
+import com.onur.planetgen.noise.FractalNoise;
+import com.onur.planetgen.noise.OpenSimplex2;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoarseLayerTest {
+    private static final OpenSimplex2 BASE = new OpenSimplex2(42L);
+    private static final FractalNoise CONTINENT = new FractalNoise(
+            new DomainWarpNoise(BASE, new OpenSimplex2(43L), new OpenSimplex2(44L), new OpenSimplex2(45L), 0.08),
+            2.2, 2, 2.0, 0.5);
+
+    @Test
+    void interpolatedRowsStayNearExactValues() {
+        SphericalSampler sp = new SphericalSampler(2048, 1024);
+        double tolerance = 1e-3;
+        CoarseLayer coarse = CoarseLayer.build(CONTINENT::fbm, CONTINENT.frequency(1), sp, tolerance);
+        assertNotNull(coarse);
+        assertTrue(coarse.maxProbeError() <= tolerance);
+
+        CoordinateCache cache = new CoordinateCache(sp.W, sp.H, sp);
+        double[] xs = new double[sp.W], ys = new double[sp.W], zs = new double[sp.W];
+        double[] exact = new double[sp.W], interpolated = new double[sp.W];
+        // Polar rows, the equator and rows in between; probes only bound the error statistically
+        for (int y : new int[]{0, 1, 100, 511, 512, 900, 1022, 1023}) {
+            cache.fill(y, xs, ys, zs);
+            CONTINENT.fbm(xs, ys, zs, exact, sp.W);
+            coarse.row(y, interpolated);
+            for (int x = 0; x < sp.W; x++) {
+                assertEquals(exact[x], interpolated[x], 2.0 * tolerance, "pixel " + x + ", row " + y);
+            }
+        }
+    }
+
+    @Test
+    void fallsBackWhenTheGridWouldNotBeCoarse() {
+        SphericalSampler small = new SphericalSampler(128, 64);
+        assertNull(CoarseLayer.build(CONTINENT::fbm, CONTINENT.frequency(1), small, 1e-3));
+    }
+}
@@ -0,0 +1,31 @@
+package com.onur.planetgen.planet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoordinateCacheTest {
+
+    @Test
+    void scanlinesMatchPerPixelTrigonometry() {
+        SphericalSampler sp = new SphericalSampler(64, 32);
+        CoordinateCache cache = new CoordinateCache(sp.W, sp.H, sp);
+        double[] xs = new double[sp.W], ys = new double[sp.W], zs = new double[sp.W];
+        double[] normal = new double[3];
+        for (int y = 0; y < sp.H; y++) {
+            cache.fill(y, xs, ys, zs);
+            for (int x = 0; x < sp.W; x++) {
+                double lat = sp.lat(y), lon = sp.lon(x);
+                // Bit-equal to the per-pixel tables this cache used to hold
+                assertEquals(Math.cos(lat) * Math.cos(lon), xs[x], 0.0);
+                assertEquals(Math.sin(lat), ys[x], 0.0);
+                assertEquals(Math.cos(lat) * Math.sin(lon), zs[x], 0.0);
+
+                cache.getNormal(x, y, normal);
+                assertEquals(xs[x], normal[0], 0.0);
+                assertEquals(ys[x], normal[1], 0.0);
+                assertEquals(zs[x], normal[2], 0.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.onur.planetgen.planet;
+
+import com.onur.planetgen.config.Preset;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReducedGridTest {
+
+    @Test
+    void columnsFollowCosineOfLatitude() {
+        SphericalSampler sp = new SphericalSampler(512, 256);
+        ReducedGrid grid = ReducedGrid.build(sp, 1.0);
+        assertNotNull(grid);
+        assertEquals(sp.W, grid.columns(sp.H / 2));
+        assertFalse(grid.isReduced(sp.H / 2 - 1));
+        assertEquals(ReducedGrid.MIN_COLUMNS, grid.columns(0));
+        assertEquals(ReducedGrid.MIN_COLUMNS, grid.columns(sp.H - 1));
+        for (int y = 1; y <= sp.H / 2; y++) {
+            assertTrue(grid.columns(y) >= grid.columns(y - 1));
+            assertEquals(grid.columns(y), grid.columns(sp.H - 1 - y));
+        }
+        assertEquals(2.0 / Math.PI, grid.sampleFraction(), 0.01);
+
+        assertNull(ReducedGrid.build(sp, 0.0));
+        assertNull(ReducedGrid.build(sp, 1000.0)); // every row keeps all columns
+    }
+
+    @Test
+    void resampledRowsMatchSmoothFunctionsOfLongitude() {
+        SphericalSampler sp = new SphericalSampler(512, 256);
+        ReducedGrid grid = ReducedGrid.build(sp, 1.0);
+        double[] xs = new double[sp.W], ys = new double[sp.W], zs = new double[sp.W];
+        double[] reduced = new double[sp.W], full = new double[sp.W];
+        for (int y : new int[]{0, 3, 20, 60, 100}) {
+            int n = grid.columns(y);
+            grid.fill(y, xs, ys, zs);
+            for (int k = 0; k < n; k++) {
+                double lon = Math.atan2(zs[k], xs[k]);
+                assertEquals(sp.lon(0) + 2.0 * Math.PI * (grid.column(y, k) / sp.W), lon, 1e-9);
+                reduced[k] = signal(lon, n);
+            }
+            grid.resample(y, reduced, full);
+            // Lanczos-3 reproduces harmonics this far below Nyquist to within about 0.7%
+            for (int x = 0; x < sp.W; x++) {
+                assertEquals(signal(sp.lon(x), n), full[x], 0.01, "row " + y + ", column " + x);
+            }
+        }
+
+        // Weights sum to one, so a constant row stays exactly constant
+        java.util.Arrays.fill(reduced, 0.75);
+        grid.resample(0, reduced, full);
+        for (int x = 0; x < sp.W; x++) {
+            assertEquals(0.75, full[x], 1e-12);
+        }
+    }
+
+    @Test
+    void terrainRowsMatchFullEvaluation() {
+        SphericalSampler sp = new SphericalSampler(256, 128);
+        Preset preset = new Preset("earthlike");
+        ParallelHeightFieldGenerator.Terrain exact = new ParallelHeightFieldGenerator.Terrain(9L, sp, preset);
+        preset.reducedGrid = 1.5;
+        ParallelHeightFieldGenerator.Terrain reduced = new ParallelHeightFieldGenerator.Terrain(9L, sp, preset);
+        ReducedGrid grid = ReducedGrid.build(sp, 1.5);
+
+        RowCoordinates coords = RowCoordinates.computed(sp);
+        float[] a = new float[sp.W], b = new float[sp.W];
+        double sumSq = 0.0, sumRef = 0.0;
+        for (int y = 0; y < sp.H; y++) {
+            exact.row(y, coords, a, 0);
+            reduced.row(y, coords, b, 0);
+            for (int x = 0; x < sp.W; x++) {
+                if (!grid.isReduced(y)) {
+                    assertEquals(a[x], b[x], "row " + y + " is not reduced");
+                }
+                sumSq += (a[x] - b[x]) * (double) (a[x] - b[x]);
+                sumRef += a[x] * (double) a[x];
+            }
+        }
+        // Relative RMS error over the whole planet
+        assertTrue(Math.sqrt(sumSq / sumRef) < 0.05, "relative error " + Math.sqrt(sumSq / sumRef));
+    }
+
+    private static double signal(double lon, int n) {
+        // Harmonics at most a quarter of the reduced row's Nyquist limit of n / 2
+        int k = Math.max(1, n / 8);
+        return Math.sin(lon) + 0.5 * Math.cos(k * lon + 0.3);
+    }
+}
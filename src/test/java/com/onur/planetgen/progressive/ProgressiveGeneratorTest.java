@@ -0,0 +1,102 @@
+package com.onur.planetgen.progressive;
+
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.erosion.HydraulicErosion;
+import com.onur.planetgen.erosion.ThermalErosion;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.planet.ParallelHeightFieldGenerator;
+import com.onur.planetgen.planet.SphericalSampler;
+import com.onur.planetgen.render.SurfaceAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgressiveGeneratorTest {
+
+    @Test
+    void levelsArriveCoarseFirstAndEndAtTheFullPipeline() {
+        Preset preset = erodingPreset();
+        List<int[]> sizes = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        ProgressiveGenerator.Level last = ProgressiveGenerator.generate(3L, 64, 32, preset,
+                ProgressiveGenerator.DEFAULT_LEVELS, false, level -> {
+                    sizes.add(new int[]{level.width(), level.heightPx(), level.surface().albedo().width()});
+                    times.add(level.elapsedMillis());
+                });
+
+        assertEquals(3, sizes.size());
+        assertArrayEquals(new int[]{16, 8, 16}, sizes.get(0));
+        assertArrayEquals(new int[]{32, 16, 32}, sizes.get(1));
+        assertArrayEquals(new int[]{64, 32, 64}, sizes.get(2));
+        assertTrue(times.get(0) <= times.get(1) && times.get(1) <= times.get(2));
+        assertTrue(last.isFinal());
+
+        FloatGrid expected = ParallelHeightFieldGenerator.generate(3L, new SphericalSampler(64, 32), preset);
+        ThermalErosion.apply(expected, preset.thermalIterations, preset.thermalTalus, preset.thermalK);
+        HydraulicErosion.apply(expected, preset.hydraulicIterations, preset.rainfall, preset.evaporation);
+        assertArrayEquals(expected.data(), last.height().data());
+
+        SurfaceAnalyzer.SurfaceData surface = SurfaceAnalyzer.analyze(expected, preset, 3L);
+        assertArrayEquals(surface.albedo().data(), last.surface().albedo().data());
+    }
+
+    @Test
+    void warmStartFollowsTheColdRunsErosion() {
+        Preset preset = erodingPreset();
+        float[] raw = ParallelHeightFieldGenerator.generate(8L, new SphericalSampler(128, 64), preset).data();
+        float[] cold = ProgressiveGenerator.generate(8L, 128, 64, preset, 3, false, null).height().data();
+        float[] warm = ProgressiveGenerator.generate(8L, 128, 64, preset, 3, true, null).height().data();
+
+        // Uneroded noise is already close to the cold run, so compare the erosion changes
+        double warmError = 0.0, rawError = 0.0, dot = 0.0, warmNorm = 0.0;
+        for (int i = 0; i < cold.length; i++) {
+            double warmChange = warm[i] - raw[i], coldChange = cold[i] - raw[i];
+            warmError += (warm[i] - cold[i]) * (double) (warm[i] - cold[i]);
+            rawError += coldChange * coldChange;
+            dot += warmChange * coldChange;
+            warmNorm += warmChange * warmChange;
+        }
+        double cosine = dot / Math.sqrt(warmNorm * rawError);
+        assertTrue(cosine > 0.7, "warm and cold erosion changes point apart: cosine " + cosine);
+        double ratio = Math.sqrt(warmError / rawError);
+        assertTrue(ratio < 0.8, "warm start is barely closer to the cold run than no erosion: " + ratio);
+    }
+
+    @Test
+    void upsampleKeepsSmoothFieldsAndWraps() {
+        FloatGrid coarse = new FloatGrid(8, 4);
+        coarse.fill(2.5f);
+        FloatGrid fine = ProgressiveGenerator.upsample(coarse, 32, 16);
+        for (float v : fine.data()) {
+            assertEquals(2.5f, v, 1e-6f);
+        }
+
+        // Fine column 0 lies a quarter pixel west of coarse column 0, towards the wrapped last column
+        coarse.set(0, 0, 0f);
+        coarse.set(7, 0, 1f);
+        fine = ProgressiveGenerator.upsample(coarse, 16, 4);
+        assertEquals(0.25f, fine.get(0, 0), 1e-6f);
+    }
+
+    @Test
+    void rejectsTooManyLevels() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ProgressiveGenerator.generate(1L, 16, 8, erodingPreset(), 4, false, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> ProgressiveGenerator.generate(1L, 16, 16, erodingPreset(), 1, false, null));
+    }
+
+    /**
+     * Four iterations of each erosion: enough that the change erosion makes stands out
+     * from the noise, and even, so warm start's half count is a clean two.
+     */
+    private static Preset erodingPreset() {
+        Preset preset = new Preset("earthlike");
+        preset.thermalIterations = 4;
+        preset.hydraulicIterations = 4;
+        return preset;
+    }
+}
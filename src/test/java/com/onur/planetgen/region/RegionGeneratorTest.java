@@ -0,0 +1,156 @@
+package com.onur.planetgen.region;
+
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.erosion.HydraulicErosion;
+import com.onur.planetgen.erosion.ThermalErosion;
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.planet.ParallelHeightFieldGenerator;
+import com.onur.planetgen.planet.RegionSampler;
+import com.onur.planetgen.planet.RowCoordinates;
+import com.onur.planetgen.planet.SphericalSampler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegionGeneratorTest {
+    private static final long SEED = 17L;
+    private static final SphericalSampler PLANET = new SphericalSampler(64, 32);
+    // Columns 20..35 and rows 12..19 of PLANET
+    private static final RegionSampler WINDOW = new RegionSampler(-22.5, -67.5, 22.5, 22.5, 16, 8);
+
+    @Test
+    void wholeGlobeWindowMatchesEquirectangularSampler() {
+        SphericalSampler planet = new SphericalSampler(64, 32);
+        RegionSampler globe = new RegionSampler(-90, -180, 90, 180, 64, 32);
+        for (int x = 0; x < 64; x++) {
+            assertEquals(planet.lon(x), globe.lon(x), 1e-12);
+            assertEquals(x, globe.planetColumn(x));
+        }
+        for (int y = 0; y < 32; y++) {
+            assertEquals(planet.lat(y), globe.lat(y), 1e-12);
+            assertEquals(y, globe.planetRow(y));
+        }
+        assertEquals(planet.pixelAngle(), globe.pixelAngle(), 1e-12);
+        assertEquals(64, globe.planetWidth());
+        assertEquals(32, globe.planetHeight());
+        assertFalse(globe.isGlobal());
+    }
+
+    @Test
+    void windowPixelsLandOnThePlanetGrid() {
+        // Columns 20..35 and rows 12..19 of a 64x32 planet (5.625 degree pixels)
+        RegionSampler window = new RegionSampler(-22.5, -67.5, 22.5, 22.5, 16, 8);
+        SphericalSampler planet = new SphericalSampler(64, 32);
+        assertEquals(20, window.planetColumn(0));
+        assertEquals(12, window.planetRow(0));
+        assertEquals(planet.lon(27), window.lon(7), 1e-12);
+        assertEquals(planet.lat(15), window.lat(3), 1e-12);
+
+        RegionSampler padded = window.expand(3);
+        assertEquals(22, padded.W);
+        assertEquals(14, padded.H);
+        assertEquals(17, padded.planetColumn(0));
+        assertEquals(9, padded.planetRow(0));
+
+        // Across the antimeridian, columns wrap around the planet grid
+        RegionSampler dateLine = new RegionSampler(0, 168.75, 5.625, -168.75, 4, 1);
+        assertEquals(62, dateLine.planetColumn(0));
+        assertEquals(1, dateLine.planetColumn(3));
+    }
+
+    @Test
+    void erodedWindowMatchesWholePlanet() {
+        // A low talus makes thermal erosion fire inside the window, unlike the presets' 0.55
+        Preset preset = new Preset("earthlike");
+        preset.thermalTalus = 0.02;
+
+        // Hydraulic erosion reaches two pixels per iteration, so its margin is exact
+        preset.thermalIterations = 0;
+        preset.hydraulicIterations = 2;
+        assertTrue(windowError(preset) < 1e-5f);
+
+        // The in-place thermal sweep can reach past its margin of one pixel per iteration
+        preset.thermalIterations = 3;
+        float thermalChange = maxDifference(window(planetHeights(preset)), window(planetHeights(withoutThermal(preset))));
+        assertTrue(thermalChange > 1e-3f, "thermal erosion fires inside the window: " + thermalChange);
+        float error = windowError(preset);
+        assertTrue(error < 1e-2f, "thermal margin error " + error);
+    }
+
+    /** Largest height difference between the 16x8 window and the same pixels of a whole-planet run. */
+    private static float windowError(Preset preset) {
+        RegionGenerator.Result result = RegionGenerator.generate(SEED, WINDOW, preset, 2, planetRange(preset));
+        assertEquals(16, result.height().width());
+        assertEquals(8, result.height().height());
+        assertEquals(16, result.normals().width());
+        assertEquals(8, result.surface().albedo().height());
+        result.surface().close();
+        return maxDifference(window(planetHeights(preset)), result.height());
+    }
+
+    /** The window's pixels of a whole-planet grid. */
+    private static FloatGrid window(FloatGrid planet) {
+        FloatGrid out = new FloatGrid(WINDOW.W, WINDOW.H);
+        for (int y = 0; y < WINDOW.H; y++) {
+            for (int x = 0; x < WINDOW.W; x++) {
+                out.set(x, y, planet.get(WINDOW.planetColumn(x), WINDOW.planetRow(y)));
+            }
+        }
+        return out;
+    }
+
+    private static float maxDifference(FloatGrid a, FloatGrid b) {
+        float error = 0f;
+        for (int y = 0; y < a.height(); y++) {
+            for (int x = 0; x < a.width(); x++) {
+                error = Math.max(error, Math.abs(a.get(x, y) - b.get(x, y)));
+            }
+        }
+        return error;
+    }
+
+    private static FloatGrid rawPlanet(Preset preset) {
+        ParallelHeightFieldGenerator.Terrain terrain = new ParallelHeightFieldGenerator.Terrain(SEED, PLANET, preset);
+        RowCoordinates coords = RowCoordinates.computed(PLANET);
+        FloatGrid raw = new FloatGrid(PLANET.W, PLANET.H);
+        for (int y = 0; y < PLANET.H; y++) {
+            terrain.row(y, coords, raw.data(), raw.index(0, y));
+        }
+        return raw;
+    }
+
+    private static FieldStats planetRange(Preset preset) {
+        return FieldStats.of(rawPlanet(preset));
+    }
+
+    /** The whole planet normalized over its true range and eroded. */
+    private static FloatGrid planetHeights(Preset preset) {
+        FloatGrid global = rawPlanet(preset);
+        FieldStats range = FieldStats.of(global);
+        for (int y = 0; y < PLANET.H; y++) {
+            ParallelHeightFieldGenerator.normalizeRow(global.data(), global.index(0, y), PLANET.W,
+                    range.min(), range.max(), preset.seaLevel);
+        }
+        ThermalErosion.apply(global, preset.thermalIterations, preset.thermalTalus, preset.thermalK);
+        HydraulicErosion.apply(global, preset.hydraulicIterations, preset.rainfall, preset.evaporation);
+        return global;
+    }
+
+    private static Preset withoutThermal(Preset preset) {
+        Preset copy = new Preset("earthlike");
+        copy.thermalTalus = preset.thermalTalus;
+        copy.thermalIterations = 0;
+        copy.hydraulicIterations = preset.hydraulicIterations;
+        return copy;
+    }
+
+    @Test
+    void rejectsMalformedRegions() {
+        assertThrows(IllegalArgumentException.class, () -> RegionSampler.parse("10,20,30", 8, 8));
+        assertThrows(IllegalArgumentException.class, () -> RegionSampler.parse("10,20,north,40", 8, 8));
+        assertThrows(IllegalArgumentException.class, () -> new RegionSampler(30, 0, 10, 20, 8, 8));
+        assertThrows(IllegalArgumentException.class, () -> new RegionSampler(-95, 0, 10, 20, 8, 8));
+        assertThrows(IllegalArgumentException.class, () -> new RegionSampler(0, 0, 10, 20, 0, 8));
+    }
+}
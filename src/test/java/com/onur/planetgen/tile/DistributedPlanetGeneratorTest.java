@@ -0,0 +1,134 @@
+package com.onur.planetgen.tile;
+
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.planet.SphericalSampler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistributedPlanetGeneratorTest {
+
+    @Test
+    void workersMatchTiledPipelineBitForBit(@TempDir Path dir) throws IOException {
+        long seed = 21L;
+        SphericalSampler sp = new SphericalSampler(64, 32);
+        Preset preset = new Preset("earthlike");
+        // Halo of 3 + 2 * 2 = 7 rows under the 8-row bands, so the halo rows sent to workers matter
+        preset.thermalIterations = 3;
+        preset.hydraulicIterations = 2;
+        Set<String> exports = Set.of("height", "normal", "clouds", "albedo", "roughness", "ao", "emissive");
+
+        Path tiled = dir.resolve("tiled"), distributed = dir.resolve("distributed");
+        try (BandWorker first = new BandWorker(); BandWorker second = new BandWorker()) {
+            Files.createDirectories(tiled);
+            TiledPlanetGenerator.generate(seed, sp, preset, 8, dir, exports, tiled);
+
+            // Three connections for four bands, so one connection takes two
+            InetSocketAddress a = first.start(0), b = second.start(0);
+            Files.createDirectories(distributed);
+            DistributedPlanetGenerator.generate(seed, sp, preset, 8, List.of(a, b, b), dir, exports, distributed);
+
+            try (Stream<Path> files = Files.list(tiled)) {
+                List<Path> images = files.toList();
+                assertEquals(exports.size(), images.size());
+                for (Path image : images) {
+                    assertArrayEquals(Files.readAllBytes(image),
+                            Files.readAllBytes(distributed.resolve(image.getFileName())), image.getFileName().toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void workerErrorsReachTheCoordinator(@TempDir Path dir) throws IOException {
+        Preset preset = new Preset("earthlike");
+        preset.noiseType = "no-such-noise";
+        try (BandWorker worker = new BandWorker()) {
+            InetSocketAddress address = worker.start(0);
+            IOException e = assertThrows(IOException.class, () -> DistributedPlanetGenerator.generate(1L,
+                    new SphericalSampler(16, 8), preset, 4, List.of(address), dir, Set.of("height"), dir));
+            assertTrue(e.getMessage().startsWith("Worker "), e.getMessage());
+        }
+    }
+
+    @Test
+    void workerRepliesToBadRequests() throws IOException {
+        try (BandWorker worker = new BandWorker()) {
+            InetSocketAddress address = worker.start(0);
+            try (Socket socket = new Socket(address.getAddress(), address.getPort());
+                 DataInputStream in = new DataInputStream(socket.getInputStream());
+                 DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+                setup(out, BandProtocol.VERSION);
+                assertEquals(BandProtocol.OK, in.readByte());
+
+                out.writeByte(BandProtocol.TERRAIN);
+                out.writeInt(5);
+                out.writeInt(2);
+                out.flush();
+                assertEquals(BandProtocol.ERROR, in.readByte());
+                assertTrue(in.readUTF().startsWith("Invalid rows"));
+
+                // first == end, with the two band rows the request carries
+                out.writeByte(BandProtocol.ERODE);
+                for (int v : new int[]{0, 2, 1, 1}) {
+                    out.writeInt(v);
+                }
+                out.writeFloat(0f);
+                out.writeFloat(1f);
+                out.write(new byte[2 * 16 * Float.BYTES]);
+                out.flush();
+                assertEquals(BandProtocol.ERROR, in.readByte());
+                assertTrue(in.readUTF().startsWith("Invalid rows"));
+
+                // The connection is still in step
+                out.writeByte(BandProtocol.TERRAIN);
+                out.writeInt(0);
+                out.writeInt(1);
+                out.flush();
+                assertEquals(BandProtocol.OK, in.readByte());
+                in.readFully(new byte[16 * Float.BYTES]);
+            }
+
+            try (Socket socket = new Socket(address.getAddress(), address.getPort());
+                 DataInputStream in = new DataInputStream(socket.getInputStream());
+                 DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+                setup(out, BandProtocol.VERSION + 1);
+                assertEquals(BandProtocol.ERROR, in.readByte());
+                assertTrue(in.readUTF().contains("version " + (BandProtocol.VERSION + 1)));
+            }
+        }
+    }
+
+    /** A SETUP for a 16x8 planet speaking protocol {@code version}. */
+    private static void setup(DataOutputStream out, int version) throws IOException {
+        out.writeByte(BandProtocol.SETUP);
+        out.writeInt(BandProtocol.MAGIC);
+        out.writeInt(version);
+        out.writeLong(1L);
+        out.writeInt(16);
+        out.writeInt(8);
+        BandProtocol.writePreset(out, new Preset("earthlike"));
+        out.flush();
+    }
+
+    @Test
+    void parsesWorkerList() {
+        List<InetSocketAddress> workers = DistributedPlanetGenerator.parseWorkers("localhost:7001, 127.0.0.1:7002");
+        assertEquals(2, workers.size());
+        assertEquals(7002, workers.get(1).getPort());
+        assertThrows(IllegalArgumentException.class, () -> DistributedPlanetGenerator.parseWorkers("localhost"));
+        assertThrows(IllegalArgumentException.class, () -> DistributedPlanetGenerator.parseWorkers("localhost:port"));
+    }
+}
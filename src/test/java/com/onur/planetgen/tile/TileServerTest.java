@@ -0,0 +1,138 @@
+package com.onur.planetgen.tile;
+
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.field.FieldStats;
+import com.onur.planetgen.planet.RegionSampler;
+import com.onur.planetgen.region.RegionGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TileServerTest {
+
+    @Test
+    void tilesFormAnEquirectangularQuadtree() {
+        RegionSampler east = TileServer.tileSampler(0, 1, 0, 16);
+        assertEquals(0.0, Math.toDegrees(east.lon(0)) - 180.0 / 32, 1e-9);
+        assertEquals(90.0 - 180.0 / 32, Math.toDegrees(east.lat(0)), 1e-9);
+
+        // Zoom 2 is an 8x4 grid of 45 degree tiles; neighbours continue the same planet grid
+        RegionSampler tile = TileServer.tileSampler(2, 3, 1, 16);
+        RegionSampler west = TileServer.tileSampler(2, 2, 1, 16);
+        RegionSampler below = TileServer.tileSampler(2, 3, 2, 16);
+        assertEquals(128, tile.planetWidth());
+        assertEquals(64, tile.planetHeight());
+        assertEquals(48, tile.planetColumn(0));
+        assertEquals(47, west.planetColumn(15));
+        assertEquals(16, tile.planetRow(0));
+        assertEquals(32, below.planetRow(0));
+        assertEquals(tile.pixelAngle(), TileServer.tileSampler(2, 3, 0, 16).pixelAngle(), 1e-15);
+
+        assertThrows(IllegalArgumentException.class, () -> TileServer.tileSampler(2, 8, 0, 16));
+        assertThrows(IllegalArgumentException.class, () -> TileServer.tileSampler(2, 0, 4, 16));
+        assertThrows(IllegalArgumentException.class, () -> TileServer.tileSampler(-1, 0, 0, 16));
+    }
+
+    @Test
+    void neighbouringTilesJoinWithoutSeams() {
+        long seed = 5L;
+        Preset preset = tilePreset();
+        RegionSampler left = TileServer.tileSampler(1, 1, 0, 16);
+        RegionSampler right = TileServer.tileSampler(1, 2, 0, 16);
+        RegionSampler both = new RegionSampler(0, -90, 90, 90, 32, 16);
+        FieldStats range = RegionGenerator.planetRange(seed, left, preset);
+
+        RegionGenerator.Result a = RegionGenerator.generate(seed, left, preset, 2, range);
+        RegionGenerator.Result b = RegionGenerator.generate(seed, right, preset, 2, range);
+        RegionGenerator.Result ab = RegionGenerator.generate(seed, both, preset, 2, range);
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                assertEquals(ab.height().get(x, y), a.height().get(x, y), 1e-5f, "left " + x + "," + y);
+                assertEquals(ab.height().get(16 + x, y), b.height().get(x, y), 1e-5f, "right " + x + "," + y);
+            }
+        }
+        a.surface().close();
+        b.surface().close();
+        ab.surface().close();
+    }
+
+    @Test
+    void cacheEvictsLeastRecentlyUsedAndKeepsEverythingOnDisk(@TempDir Path dir) throws IOException {
+        TileCache cache = new TileCache(dir, 250);
+        cache.put("a/0/0/0", file -> Files.write(file, new byte[100]));
+        cache.put("b/0/0/0", file -> Files.write(file, new byte[100]));
+        assertNotNull(cache.get("a/0/0/0")); // a is now the most recent
+        cache.put("c/0/0/0", file -> Files.write(file, new byte[100]));
+        assertEquals(2, cache.memoryTiles());
+        assertEquals(200, cache.memoryBytes());
+
+        // b was evicted from memory but is still on disk, and comes back in
+        assertTrue(Files.exists(cache.file("b/0/0/0")));
+        assertEquals(100, cache.get("b/0/0/0").length);
+        assertEquals(200, cache.memoryBytes());
+        assertNull(cache.get("d/0/0/0"));
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertEquals(0, files.filter(p -> p.toString().endsWith(".tmp")).count(), "no temporary files left");
+        }
+    }
+
+    @Test
+    void serverGeneratesEachTileOnceAndServesFromCache(@TempDir Path dir) throws IOException {
+        try (TileServer server = new TileServer(9L, tilePreset(), 16, 2, new TileCache(dir, 1 << 20))) {
+            InetSocketAddress address = server.start(0);
+            String base = "http://localhost:" + address.getPort() + "/tiles/";
+
+            BufferedImage albedo = ImageIO.read(new ByteArrayInputStream(get(base + "albedo/1/2/1.png", 200)));
+            assertEquals(16, albedo.getWidth());
+            assertEquals(16, albedo.getHeight());
+            BufferedImage height = ImageIO.read(new ByteArrayInputStream(get(base + "height/1/2/1.png", 200)));
+            assertEquals(16, height.getRaster().getSampleModel().getSampleSize(0));
+            get(base + "normal/1/2/1.png", 200);
+            get(base + "albedo/1/2/1.png", 200);
+            assertEquals(1, server.tilesGenerated());
+
+            get(base + "albedo/1/4/0.png", 404);
+            get(base + "roughness/0/0/0.png", 404);
+            get(base + "albedo/0/0.png", 404);
+            assertEquals(1, server.tilesGenerated());
+        }
+    }
+
+    private static byte[] get(String url, int expectedStatus) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            assertEquals(expectedStatus, connection.getResponseCode(), url);
+            try (InputStream in = expectedStatus == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+                return in.readAllBytes();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * An erosion margin of 3 + 2 x 2 = 7 pixels, about half a 16-pixel tile, so each tile
+     * really erodes its neighbours' pixels while staying quick to serve. The presets' talus
+     * of 0.55 keeps thermal erosion from crossing these tile edges, so joined tiles match to
+     * float precision; RegionGeneratorTest covers the low-talus case.
+     */
+    private static Preset tilePreset() {
+        Preset preset = new Preset("earthlike");
+        preset.thermalIterations = 3;
+        preset.hydraulicIterations = 2;
+        return preset;
+    }
+}
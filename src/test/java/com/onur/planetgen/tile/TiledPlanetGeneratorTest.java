@@ -0,0 +1,127 @@
+package com.onur.planetgen.tile;
+
+import com.onur.planetgen.atmosphere.MultiLayerCloudField;
+import com.onur.planetgen.config.Preset;
+import com.onur.planetgen.erosion.HydraulicErosion;
+import com.onur.planetgen.erosion.ThermalErosion;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.planet.CoordinateCache;
+import com.onur.planetgen.planet.ParallelHeightFieldGenerator;
+import com.onur.planetgen.planet.SphericalSampler;
+import com.onur.planetgen.render.CloudRenderer;
+import com.onur.planetgen.render.NormalMapRenderer;
+import com.onur.planetgen.util.ImageUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TiledPlanetGeneratorTest {
+
+    @Test
+    void bandsMatchInMemoryPipeline(@TempDir Path dir) throws IOException {
+        long seed = 21L;
+        SphericalSampler sp = new SphericalSampler(64, 32);
+        Preset preset = new Preset("earthlike");
+        // Halo of 3 + 2 * 2 = 7 rows, less than a band, so bands really cut the erosion
+        preset.thermalIterations = 3;
+        preset.hydraulicIterations = 2;
+
+        FloatGrid height = ParallelHeightFieldGenerator.generate(seed, sp, preset);
+        ThermalErosion.apply(height, preset.thermalIterations, preset.thermalTalus, preset.thermalK);
+        HydraulicErosion.apply(height, preset.hydraulicIterations, preset.rainfall, preset.evaporation);
+
+        Path expected = dir.resolve("expected"), tiled = dir.resolve("tiled"), scratch = dir.resolve("scratch");
+        Files.createDirectories(expected);
+        ImageUtil.saveGray16(height, expected.resolve("planet_height_16u.png"));
+        ImageUtil.saveARGB(NormalMapRenderer.render(height), expected.resolve("planet_normal.png"));
+        ImageUtil.saveARGB(CloudRenderer.render(MultiLayerCloudField.generateParallel(seed + 1, sp, preset,
+                new CoordinateCache(sp.W, sp.H, sp))), expected.resolve("planet_clouds.png"));
+
+        Files.createDirectories(tiled);
+        TiledPlanetGenerator.generate(seed, sp, preset, 8, scratch,
+                Set.of("height", "normal", "clouds", "albedo"), tiled);
+
+        for (String name : List.of("planet_height_16u.png", "planet_normal.png", "planet_clouds.png")) {
+            assertSamePixels(expected.resolve(name), tiled.resolve(name));
+        }
+        BufferedImage albedo = ImageIO.read(tiled.resolve("planet_albedo_64x32.png").toFile());
+        assertEquals(64, albedo.getWidth());
+        assertEquals(32, albedo.getHeight());
+        try (Stream<Path> left = Files.list(scratch)) {
+            assertEquals(0, left.count(), "scratch files are deleted");
+        }
+    }
+
+    @Test
+    void haloCoversErosionReach() {
+        Preset preset = new Preset("earthlike");
+        preset.thermalIterations = 5;
+        preset.hydraulicIterations = 4;
+        assertEquals(13, TiledPlanetGenerator.erosionHalo(preset));
+    }
+
+    @Test
+    void hydraulicHaloIsExactAndThermalHaloApproximate() {
+        // A low talus makes thermal erosion fire on most slopes, unlike the presets' 0.55
+        SphericalSampler sp = new SphericalSampler(256, 128);
+        Preset preset = new Preset("earthlike");
+        preset.thermalTalus = 0.02;
+        FloatGrid planet = ParallelHeightFieldGenerator.generate(5L, sp, preset);
+
+        preset.thermalIterations = 0;
+        preset.hydraulicIterations = 3;
+        assertEquals(0.0, bandError(planet, preset, 48, 80), "hydraulic halo");
+
+        preset.thermalIterations = 3;
+        preset.hydraulicIterations = 0;
+        double thermalError = bandError(planet, preset, 48, 80);
+        assertTrue(thermalError > 0.0, "in-place thermal sweep reaches past its halo");
+        assertTrue(thermalError < 1e-2, "thermal halo error " + thermalError);
+    }
+
+    /** Largest difference on rows {@code first..end} between eroding them with the halo and the whole planet. */
+    private static double bandError(FloatGrid planet, Preset preset, int first, int end) {
+        FloatGrid whole = planet.copy();
+        ThermalErosion.apply(whole, preset.thermalIterations, preset.thermalTalus, preset.thermalK);
+        HydraulicErosion.apply(whole, preset.hydraulicIterations, preset.rainfall, preset.evaporation);
+
+        int halo = TiledPlanetGenerator.erosionHalo(preset);
+        FloatGrid band = new FloatGrid(planet.width(), end - first + 2 * halo);
+        for (int y = 0; y < band.height(); y++) {
+            System.arraycopy(planet.data(), planet.index(0, first - halo + y), band.data(), band.index(0, y), planet.width());
+        }
+        ThermalErosion.apply(band, preset.thermalIterations, preset.thermalTalus, preset.thermalK);
+        HydraulicErosion.apply(band, preset.hydraulicIterations, preset.rainfall, preset.evaporation);
+
+        double error = 0.0;
+        for (int y = first; y < end; y++) {
+            for (int x = 0; x < planet.width(); x++) {
+                error = Math.max(error, Math.abs(band.get(x, y - first + halo) - whole.get(x, y)));
+            }
+        }
+        return error;
+    }
+
+    private static void assertSamePixels(Path expected, Path actual) throws IOException {
+        BufferedImage a = ImageIO.read(expected.toFile()), b = ImageIO.read(actual.toFile());
+        assertEquals(a.getWidth(), b.getWidth());
+        assertEquals(a.getHeight(), b.getHeight());
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                assertEquals(a.getRaster().getSample(x, y, 0), b.getRaster().getSample(x, y, 0),
+                        expected.getFileName() + " at " + x + "," + y);
+                assertEquals(a.getRGB(x, y), b.getRGB(x, y), expected.getFileName() + " at " + x + "," + y);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.onur.planetgen.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PngWriterTest {
+
+    @Test
+    void imagesRoundTripThroughImageIO() throws IOException {
+        int w = 37, h = 23;
+        Random rng = new Random(4L);
+        int[] argb = new int[w * h], gray8 = new int[w * h], gray16 = new int[w * h];
+        for (int i = 0; i < w * h; i++) {
+            // Smooth ramps favour Sub/Up/Paeth, noise favours None
+            int x = i % w, y = i / w;
+            argb[i] = i % 3 == 0 ? rng.nextInt() : (0x80 << 24) | (x * 5 << 16) | (y * 9 << 8) | (x + y);
+            gray8[i] = (x * 7 + y * 3) & 0xFF;
+            gray16[i] = rng.nextBoolean() ? rng.nextInt(65536) : x * 1500 + y;
+        }
+
+        Path dir = Files.createTempDirectory("planetgen-png");
+        try {
+            BufferedImage color = write(dir.resolve("argb.png"), w, h, PngWriter.Format.ARGB, argb);
+            BufferedImage gray = write(dir.resolve("gray8.png"), w, h, PngWriter.Format.GRAY8, gray8);
+            BufferedImage deep = write(dir.resolve("gray16.png"), w, h, PngWriter.Format.GRAY16, gray16);
+            Raster grayRaster = gray.getRaster(), deepRaster = deep.getRaster();
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    int i = y * w + x;
+                    assertEquals(argb[i], color.getRGB(x, y), "argb " + x + "," + y);
+                    assertEquals(gray8[i], grayRaster.getSample(x, y, 0), "gray8 " + x + "," + y);
+                    assertEquals(gray16[i], deepRaster.getSample(x, y, 0), "gray16 " + x + "," + y);
+                }
+            }
+        } finally {
+            for (String name : new String[]{"argb.png", "gray8.png", "gray16.png"}) {
+                Files.deleteIfExists(dir.resolve(name));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    void closingEarlyIsAnError() throws IOException {
+        Path file = Files.createTempFile("planetgen-png", ".png");
+        try {
+            PngWriter writer = new PngWriter(file, 4, 2, PngWriter.Format.GRAY8);
+            writer.writeRow(new int[4], 0);
+            assertThrows(IllegalStateException.class, writer::close);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static BufferedImage write(Path path, int w, int h, PngWriter.Format format, int[] values)
+            throws IOException {
+        try (PngWriter writer = new PngWriter(path, w, h, format)) {
+            for (int y = 0; y < h; y++) {
+                writer.writeRow(values, y * w);
+            }
+        }
+        return ImageIO.read(path.toFile());
+    }
+}
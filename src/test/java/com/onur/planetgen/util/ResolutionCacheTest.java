@@ -0,0 +1,86 @@
+package com.onur.planetgen.util;
+
+import com.onur.planetgen.erosion.FlowField;
+import com.onur.planetgen.field.FloatGrid;
+import com.onur.planetgen.planet.CoordinateCache;
+import com.onur.planetgen.planet.RegionSampler;
+import com.onur.planetgen.planet.SphericalSampler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResolutionCacheTest {
+
+    @Test
+    void sharedValuesAreBuiltOncePerSize() {
+        ResolutionCache.clear();
+        CoordinateCache a = CoordinateCache.of(new SphericalSampler(64, 32));
+        assertSame(a, CoordinateCache.of(new SphericalSampler(64, 32)));
+        assertNotSame(a, CoordinateCache.of(new SphericalSampler(32, 16)));
+
+        // A window's geometry is not a function of its size, so it is never shared
+        RegionSampler window = new RegionSampler(0, 0, 10, 20, 64, 32);
+        assertNotSame(CoordinateCache.of(window), CoordinateCache.of(window));
+
+        // Nor is another mapping's, even at the same size
+        SphericalSampler shifted = new SphericalSampler(64, 32) {
+            @Override
+            public double lon(int x) {
+                return super.lon(x) + 0.1;
+            }
+        };
+        CoordinateCache own = CoordinateCache.of(shifted);
+        assertNotSame(a, own);
+        assertEquals(shifted.lon(3), own.lons[3], 0.0);
+    }
+
+    @Test
+    void scratchIsLentToOneCallerAtATime() {
+        ResolutionCache.clear();
+        StringBuilder first = ResolutionCache.acquire(StringBuilder.class, 8, 4, StringBuilder::new);
+        StringBuilder second = ResolutionCache.acquire(StringBuilder.class, 8, 4, StringBuilder::new);
+        assertNotSame(first, second);
+        ResolutionCache.release(StringBuilder.class, 8, 4, first);
+        assertSame(first, ResolutionCache.acquire(StringBuilder.class, 8, 4, StringBuilder::new));
+        assertNotSame(first, ResolutionCache.acquire(StringBuilder.class, 8, 4, StringBuilder::new));
+
+        // Idle objects are bounded per key
+        List<StringBuilder> many = new ArrayList<>();
+        for (int i = 0; i < ResolutionCache.MAX_IDLE + 3; i++) {
+            many.add(new StringBuilder());
+        }
+        many.forEach(sb -> ResolutionCache.release(StringBuilder.class, 2, 2, sb));
+        int reused = 0;
+        for (int i = 0; i < many.size(); i++) {
+            if (many.contains(ResolutionCache.acquire(StringBuilder.class, 2, 2, StringBuilder::new))) {
+                reused++;
+            }
+        }
+        assertEquals(ResolutionCache.MAX_IDLE, reused);
+    }
+
+    @Test
+    void reusedFlowWorkspaceGivesTheSameField() {
+        ResolutionCache.clear();
+        FloatGrid h = new FloatGrid(24, 12);
+        for (int y = 0; y < 12; y++) {
+            for (int x = 0; x < 24; x++) {
+                h.set(x, y, (float) (Math.sin(x * 0.7) * Math.cos(y * 0.9) + 0.01 * ((x * 7 + y * 13) % 5)));
+            }
+        }
+        FlowField fresh = FlowField.compute(h, new FlowField.Workspace(12, 24));
+        float[] accum = fresh.accum.data().clone();
+        int[] targets = fresh.targetX.data().clone();
+
+        FlowField pooled = FlowField.compute(h);
+        pooled.release();
+        FlowField reused = FlowField.compute(h); // the released workspace, dirty from the last run
+        assertArrayEquals(accum, reused.accum.data());
+        assertArrayEquals(targets, reused.targetX.data());
+        assertSame(pooled.accum, reused.accum);
+        reused.release();
+    }
+}